@@ -4,6 +4,7 @@ import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.StartupEvent;
 
 import life.genny.bootq.models.BatchLoading;
+import life.genny.bootq.models.StreamingLoading;
 import life.genny.bootq.models.reporting.LoadReport;
 import life.genny.bootq.sheets.realm.Realm;
 import life.genny.bootq.sheets.realm.RealmUnit;
@@ -12,6 +13,7 @@ import life.genny.qwandaq.models.UserToken;
 import life.genny.qwandaq.utils.CommonUtils;
 import life.genny.serviceq.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.enterprise.event.Observes;
@@ -50,6 +52,9 @@ public class Endpoints {
 	@Inject
 	BatchLoading bl;
 
+    @Inject
+    StreamingLoading streamingLoading;
+
     @Inject
     LoadReport loadReport;
 
@@ -153,6 +158,68 @@ public class Endpoints {
         return Response.ok().entity(msg).build();
     }
 
+    @GET
+    @Path("/streamsheets/{sheetid}")
+    @Produces(MediaType.TEXT_PLAIN)
+    @Transactional
+    public Response streamSheetsById(@PathParam("sheetid") final String sheetId) {
+        if (getIsTaskRunning()) {
+            log.error("Batch loading task is running, please try later or force restart pod");
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Batch loading task is running, please try later or force restart pod")
+                    .build();
+        }
+
+        if (StringUtils.isBlank(sheetId)) {
+            String msg = "Sheet Id not supplied as path param!";
+            log.error(msg);
+            return Response.status(Response.Status.NOT_FOUND).entity(msg).build();
+        }
+
+        log.info("Streaming in sheet " + sheetId);
+        String msg = "";
+
+        setIsTaskRunning(true);
+        Long start = System.currentTimeMillis();
+        List<String> failed = new ArrayList<>();
+        try {
+            List<RealmUnit> realmUnits = streamingLoading.fetchRealmUnits(sheetId);
+            log.info("FOUND " + realmUnits.size() + " realmUnits");
+            for (RealmUnit realmUnit : realmUnits) {
+                if (!realmUnit.getDisable() && !realmUnit.getSkipGoogleDoc()) {
+                    log.infof("Streaming project for realmUnit code: %s", realmUnit.getCode());
+                    if (!streamingLoading.persistProject(realmUnit))
+                        failed.add(realmUnit.getCode());
+                    log.infof("Finished streaming project for realmUnit code: %s", realmUnit.getCode());
+                } else {
+                    log.info("SKIPPING sheet " + realmUnit.getUri() + " for realm " + realmUnit.getName());
+                }
+            }
+            msg = failed.isEmpty() ? "Finished streaming for all realms in google sheets"
+                    : "Could not stream every sheet of realms " + failed + ", see the load report";
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            failed.add(sheetId);
+            msg = "Exception:" + ex.getMessage() + " occurred when streaming";
+        } finally {
+            setIsTaskRunning(false);
+        }
+        log.info(msg);
+        Long end = System.currentTimeMillis();
+        log.infof("Total time taken to stream the sheet %s : %s (millis)", sheetId, (end - start));
+        try {
+            loadReport.printLoadReport(SHOW_STACK_TRACES);
+        } catch(Exception e) {
+            log.error("Error dumping to file");
+            log.error(e.getMessage());
+            e.printStackTrace();
+        }
+
+        if (!failed.isEmpty())
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(msg).build();
+        return Response.ok().entity(msg).build();
+    }
+
     @GET
     @Path("/loadsheets/{sheetid}/{table}")
     @Produces(MediaType.TEXT_PLAIN)
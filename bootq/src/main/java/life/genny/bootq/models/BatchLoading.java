@@ -28,6 +28,7 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import java.io.BufferedReader;
@@ -79,6 +80,12 @@ public class BatchLoading {
     @Inject
     SqliteHelper sqliteHelper;
 
+    @Inject
+    PipelinedLoading pipelinedLoading;
+
+    @ConfigProperty(name = "genny.bootq.pipeline.enabled", defaultValue = "true")
+    Boolean pipelineEnabled;
+
     public BatchLoading() { /* no-arg constructor */ }
 
     public static boolean isSynchronise() {
@@ -91,6 +98,11 @@ public class BatchLoading {
      * @param rx
      */
     public void persistProject(RealmUnit rx) {
+        if (pipelineEnabled) {
+            pipelinedLoading.persistProject(rx);
+            return;
+        }
+
         persistValidations(rx.getValidations(), rx.getCode());
         persistDatatypes(rx.getDataTypes(), rx.getCode());
         persistAttributes(rx.getAttributes(), rx.getCode());
@@ -0,0 +1,556 @@
+package life.genny.bootq.models;
+
+import life.genny.bootq.models.reporting.LoadReport;
+import life.genny.bootq.models.sheets.EReportCategoryType;
+import life.genny.bootq.sheets.realm.RealmUnit;
+import life.genny.bootq.utils.GoogleSheetBuilder;
+import life.genny.qwandaq.CoreEntityPersistable;
+import life.genny.qwandaq.Question;
+import life.genny.qwandaq.QuestionQuestion;
+import life.genny.qwandaq.attribute.Attribute;
+import life.genny.qwandaq.attribute.EntityAttribute;
+import life.genny.qwandaq.constants.ECacheRef;
+import life.genny.qwandaq.constants.Prefix;
+import life.genny.qwandaq.datatype.DataType;
+import life.genny.qwandaq.entity.BaseEntity;
+import life.genny.qwandaq.managers.CacheManager;
+import life.genny.qwandaq.managers.EntityMemo;
+import life.genny.qwandaq.managers.UniqueValueIndex;
+import life.genny.qwandaq.serialization.attribute.AttributeKey;
+import life.genny.qwandaq.serialization.baseentity.BaseEntityKey;
+import life.genny.qwandaq.serialization.common.CoreEntityKey;
+import life.genny.qwandaq.serialization.datatype.DataTypeKey;
+import life.genny.qwandaq.serialization.entityattribute.EntityAttributeKey;
+import life.genny.qwandaq.serialization.question.QuestionKey;
+import life.genny.qwandaq.serialization.questionquestion.QuestionQuestionKey;
+import life.genny.qwandaq.serialization.validation.ValidationKey;
+import life.genny.qwandaq.utils.AttributeUtils;
+import life.genny.qwandaq.utils.EntityAttributeUtils;
+import life.genny.qwandaq.utils.QuestionUtils;
+import life.genny.qwandaq.validation.Validation;
+import life.genny.serviceq.intf.GennyExecutors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persists a project as a pipeline of stages.
+ *
+ * Stages run in the same dependency order as {@link BatchLoading#persistProject},
+ * but the rows of each stage are split into batches that are built concurrently
+ * on a bounded pool. The base entities and attributes referenced by a batch of
+ * entity attributes are fetched up front, and each batch is written with a single
+ * putAll. The throughput of each stage is recorded in the {@link LoadReport}.
+ *
+ * Since batches bypass the utils, a closing stage runs the cache evictions the
+ * utils would have run for every base entity and question it saved, and the
+ * unique value indexes are rebuilt once the entity attributes are saved.
+ */
+@ApplicationScoped
+public class PipelinedLoading {
+
+    @Inject
+    Logger log;
+
+    @ConfigProperty(name = "genny.bootq.pipeline.threads", defaultValue = "8")
+    Integer threads;
+
+    @ConfigProperty(name = "genny.bootq.pipeline.batch.size", defaultValue = "500")
+    Integer batchSize;
+
+    @Inject
+    GennyExecutors executors;
+
+    @Inject
+    CacheManager cm;
+
+    @Inject
+    EntityMemo memo;
+
+    @Inject
+    AttributeUtils attributeUtils;
+
+    @Inject
+    QuestionUtils questionUtils;
+
+    @Inject
+    EntityAttributeUtils beaUtils;
+
+    @Inject
+    UniqueValueIndex uniqueIndex;
+
+    @Inject
+    GoogleSheetBuilder googleSheetBuilder;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    LoadReport loadReport;
+
+    @Inject
+    BatchLoading batchLoading;
+
+    private ManagedExecutor executor;
+
+    public PipelinedLoading() { /* no-arg constructor */ }
+
+    public PipelinedLoading(GennyExecutors executors, Integer threads, Integer batchSize, CacheManager cm,
+            EntityMemo memo, AttributeUtils attributeUtils, QuestionUtils questionUtils, EntityAttributeUtils beaUtils,
+            UniqueValueIndex uniqueIndex, GoogleSheetBuilder googleSheetBuilder, Validator validator, LoadReport loadReport) {
+        this.log = Logger.getLogger(PipelinedLoading.class);
+        this.executors = executors;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.cm = cm;
+        this.memo = memo;
+        this.attributeUtils = attributeUtils;
+        this.questionUtils = questionUtils;
+        this.beaUtils = beaUtils;
+        this.uniqueIndex = uniqueIndex;
+        this.googleSheetBuilder = googleSheetBuilder;
+        this.validator = validator;
+        this.loadReport = loadReport;
+        setup();
+    }
+
+    @PostConstruct
+    void setup() {
+        executor = executors.newManagedExecutor("genny-bootq-loader", threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Builds the cache entry of a single row.
+     */
+    @FunctionalInterface
+    interface RowBuilder {
+        /**
+         * @return the entity to save keyed by its cache key, or null if there is nothing to save
+         */
+        Map.Entry<CoreEntityKey, CoreEntityPersistable> build(Map<String, String> row, Batch batch) throws Exception;
+    }
+
+    /**
+     * A batch of rows, along with any dependencies resolved for the whole batch.
+     */
+    static class Batch {
+        final int number;
+        final List<Map<String, String>> rows;
+        Map<String, BaseEntity> baseEntities = new HashMap<>();
+        Map<String, Attribute> attributes = new HashMap<>();
+
+        Batch(int number, List<Map<String, String>> rows) {
+            this.number = number;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Persist the whole project.
+     *
+     * @param rx
+     */
+    public void persistProject(RealmUnit rx) {
+        String realm = rx.getCode();
+
+        persistValidations(rx.getValidations().values(), realm);
+        persistDatatypes(rx.getDataTypes().values(), realm);
+        persistAttributes(rx.getAttributes().values(), realm);
+
+        persistBaseEntities(rx.getDef_baseEntitys().values(), realm);
+        persistBaseEntities(rx.getBaseEntitys().values(), realm);
+
+        persistDefBaseEntityAttributes(rx.getDef_entityAttributes().values(), realm);
+        persistBaseEntityAttributes(rx.getEntityAttributes().values(), realm);
+        batchLoading.linkEntityAttributes(rx.getDef_entityAttributes().values(), realm);
+
+        persistQuestions(rx.getQuestions().values(), realm);
+        persistQuestionQuestions(rx.getQuestionQuestions().values(), realm);
+    }
+
+    public void persistValidations(Collection<Map<String, String>> rows, String realmName) {
+        validationStage(realmName).run(rows);
+    }
+
+    public void persistDatatypes(Collection<Map<String, String>> rows, String realmName) {
+        dataTypeStage(realmName).run(rows);
+    }
+
+    public void persistAttributes(Collection<Map<String, String>> rows, String realmName) {
+        attributeStage(realmName).run(rows);
+    }
+
+    public void persistBaseEntities(Collection<Map<String, String>> rows, String realmName) {
+        baseEntityStage(realmName).run(rows);
+    }
+
+    public void persistDefBaseEntityAttributes(Collection<Map<String, String>> rows, String realmName) {
+        defEntityAttributeStage(realmName).run(rows);
+    }
+
+    public void persistBaseEntityAttributes(Collection<Map<String, String>> rows, String realmName) {
+        entityAttributeStage(realmName).run(rows);
+    }
+
+    public void persistQuestions(Collection<Map<String, String>> rows, String realmName) {
+        questionStage(realmName).run(rows);
+    }
+
+    public void persistQuestionQuestions(Collection<Map<String, String>> rows, String realmName) {
+        questionQuestionStage(realmName).run(rows);
+    }
+
+    public Stage validationStage(String realmName) {
+        return new Stage(EReportCategoryType.VALIDATION, ECacheRef.VALIDATION, realmName, false, (row, batch) -> {
+            Validation validation = googleSheetBuilder.buildValidation(row, realmName);
+            return Map.entry(new ValidationKey(realmName, validation.getCode()), validation);
+        }, () -> attributeUtils.updateAttributesLastUpdatedAt(realmName, System.currentTimeMillis()));
+    }
+
+    public Stage dataTypeStage(String realmName) {
+        return new Stage(EReportCategoryType.DATA_TYPE, ECacheRef.DATATYPE, realmName, false, (row, batch) -> {
+            DataType dataType = googleSheetBuilder.buildDataType(row, realmName);
+            return Map.entry(new DataTypeKey(realmName, dataType.getDttCode()), dataType);
+        }, () -> attributeUtils.updateAttributesLastUpdatedAt(realmName, System.currentTimeMillis()));
+    }
+
+    public Stage attributeStage(String realmName) {
+        AtomicLong id = new AtomicLong(cm.getMaxAttributeId() + 1);
+        return new Stage(EReportCategoryType.ATTRIBUTE, ECacheRef.ATTRIBUTE, realmName, false, (row, batch) -> {
+            Attribute attribute = googleSheetBuilder.buildAttribute(row, realmName);
+            if (attribute.getId() == null)
+                attribute.setId(id.getAndIncrement());
+            return Map.entry(new AttributeKey(realmName, attribute.getCode()), attribute);
+        }, () -> attributeUtils.updateAttributesLastUpdatedAt(realmName, System.currentTimeMillis()));
+    }
+
+    public Stage baseEntityStage(String realmName) {
+        AtomicLong id = new AtomicLong(cm.getMaxBaseEntityId() + 1);
+        return new Stage(EReportCategoryType.BASE_ENTITY, ECacheRef.BASEENTITY, realmName, false, (row, batch) -> {
+            BaseEntity baseEntity = googleSheetBuilder.buildBaseEntity(row, realmName);
+            if (baseEntity.getId() == null)
+                baseEntity.setId(id.getAndIncrement());
+            return Map.entry(new BaseEntityKey(realmName, baseEntity.getCode()), baseEntity);
+        }, null);
+    }
+
+    public Stage defEntityAttributeStage(String realmName) {
+
+        DataType dttBoolean = attributeUtils.getDataType(realmName, "DTT_BOOLEAN", false);
+        DataType dttText = attributeUtils.getDataType(realmName, "DTT_TEXT", false);
+
+        Map<String, DataType> dttPrefixMap = Map.of(
+            Prefix.ATT_, dttBoolean,
+            Prefix.SER_, dttText,
+            Prefix.DFT_, dttText,
+            Prefix.DEP_, dttText,
+            Prefix.UNQ_, dttText
+        );
+
+        // many definitions share the same definition attributes, so they are only resolved once
+        Map<String, Attribute> defAttributes = new ConcurrentHashMap<>();
+        AtomicLong attrId = new AtomicLong(cm.getMaxAttributeId() + 1);
+
+        return new Stage(EReportCategoryType.DEF_BASEENTITY_ATTRIBUTE, ECacheRef.BASEENTITY_ATTRIBUTE, realmName, true, (row, batch) -> {
+            String attributeCode = row.get("attributecode");
+
+            Map<Class<?>, Object> dependencies = validator.validateEntityAttribute(row, realmName,
+                    batch.baseEntities::get, batch.attributes::get);
+            BaseEntity defBe = (BaseEntity) dependencies.get(BaseEntity.class);
+
+            // find or create attribute
+            Attribute defAttr = defAttributes.computeIfAbsent(attributeCode, code -> {
+                Attribute attribute = batch.attributes.get(code);
+                DataType dataType = dttPrefixMap.get(code.substring(0, 4));
+                if (attribute == null) {
+                    attribute = new Attribute(code, code, dataType);
+                    attribute.setRealm(realmName);
+                    attribute.setId(attrId.getAndIncrement());
+                } else if (StringUtils.isBlank(attribute.getDttCode())) {
+                    log.warn("Detected blank dtt code at: " + code + ". Manually assigning based on prefix");
+                    attribute.setDataType(dataType);
+                } else {
+                    return attribute;
+                }
+                attributeUtils.saveAttribute(attribute);
+                return attribute;
+            });
+
+            EntityAttribute entityAttribute = googleSheetBuilder.buildEntityAttribute(row, realmName, defBe, defAttr);
+            return Map.entry(new EntityAttributeKey(realmName, defBe.getCode(), attributeCode), entityAttribute);
+        }, null);
+    }
+
+    public Stage entityAttributeStage(String realmName) {
+        return new Stage(EReportCategoryType.BASEENTITY_ATTRIBUTE, ECacheRef.BASEENTITY_ATTRIBUTE, realmName, true, (row, batch) -> {
+            Map<Class<?>, Object> dependencies = validator.validateEntityAttribute(row, realmName,
+                    batch.baseEntities::get, batch.attributes::get);
+            BaseEntity baseEntity = (BaseEntity) dependencies.get(BaseEntity.class);
+            Attribute attribute = (Attribute) dependencies.get(Attribute.class);
+
+            EntityAttribute entityAttribute = googleSheetBuilder.buildEntityAttribute(row, realmName, baseEntity, attribute);
+            return Map.entry(new EntityAttributeKey(realmName, baseEntity.getCode(), attribute.getCode()), entityAttribute);
+        }, () -> uniqueIndex.invalidate(realmName));
+    }
+
+    public Stage questionStage(String realmName) {
+        AtomicLong id = new AtomicLong(cm.getMaxQuestionId() + 1);
+        return new Stage(EReportCategoryType.QUESTION, ECacheRef.QUESTION, realmName, false, (row, batch) -> {
+            Question question = googleSheetBuilder.buildQuestion(row, realmName);
+            // only null id if hasn't been set in buildQuestion (preexisting question found)
+            if (question.getId() == null)
+                question.setId(id.getAndIncrement());
+            return Map.entry(new QuestionKey(realmName, question.getCode()), question);
+        }, null);
+    }
+
+    public Stage questionQuestionStage(String realmName) {
+        return new Stage(EReportCategoryType.QUESTION_QUESTION, ECacheRef.QUESTIONQUESTION, realmName, false, (row, batch) -> {
+            QuestionQuestion questionQuestion = googleSheetBuilder.buildQuestionQuestion(row, realmName);
+            String parentCode = row.get("parentcode");
+            String targetCode = row.get("targetcode");
+            questionUtils.removeQuestionQuestion(realmName, parentCode, targetCode);
+            return Map.entry(new QuestionQuestionKey(realmName, parentCode, targetCode), questionQuestion);
+        }, () -> cm.reindexCache(ECacheRef.QUESTIONQUESTION));
+    }
+
+    /**
+     * A stage of the load. Rows can be submitted in chunks as they become available; their
+     * batches are built and saved concurrently, and submitting blocks while too many batches
+     * are in flight. Closing the stage waits for every batch to finish.
+     */
+    public class Stage {
+
+        private final EReportCategoryType type;
+        private final ECacheRef cacheRef;
+        private final String realmName;
+        private final boolean resolveDependencies;
+        private final RowBuilder builder;
+        private final Runnable onClose;
+
+        private final long start = System.currentTimeMillis();
+        private final AtomicInteger saved = new AtomicInteger();
+        private final Semaphore inFlight = new Semaphore(Math.max(1, threads) * 2);
+        private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        private final Set<String> changed = ConcurrentHashMap.newKeySet();
+        private int items;
+        private int batches;
+
+        /**
+         * @param type The type of model loaded by the stage
+         * @param cacheRef The cache the stage saves to
+         * @param realmName The realm
+         * @param resolveDependencies Whether to fetch the base entities and attributes referenced by each batch
+         * @param builder Builds the entity of each row
+         * @param onClose Run once every batch has been saved, may be null
+         */
+        Stage(EReportCategoryType type, ECacheRef cacheRef, String realmName, boolean resolveDependencies,
+                RowBuilder builder, Runnable onClose) {
+            this.type = type;
+            this.cacheRef = cacheRef;
+            this.realmName = realmName;
+            this.resolveDependencies = resolveDependencies;
+            this.builder = builder;
+            this.onClose = onClose;
+        }
+
+        public EReportCategoryType getType() {
+            return type;
+        }
+
+        /**
+         * Submit every row and wait for them to be saved.
+         */
+        public void run(Collection<Map<String, String>> rows) {
+            submit(rows);
+            close();
+        }
+
+        /**
+         * Submit a chunk of rows to be built and saved in the background.
+         */
+        public void submit(Collection<Map<String, String>> rows) {
+            futures.removeIf(CompletableFuture::isDone);
+            items += rows.size();
+            for (List<Map<String, String>> rowBatch : partition(rows)) {
+                Batch batch = new Batch(batches++, rowBatch);
+                inFlight.acquireUninterruptibly();
+                futures.add(executor.runAsync(() -> {
+                    try {
+                        if (resolveDependencies)
+                            resolveDependencies(batch, realmName);
+                        Collection<CoreEntityKey> keys = persistBatch(type, cacheRef, batch, realmName, builder);
+                        saved.addAndGet(keys.size());
+                        for (CoreEntityKey key : keys) {
+                            String code = changedCode(key);
+                            if (code != null)
+                                changed.add(code);
+                        }
+                    } catch (Exception e) {
+                        loadReport.addPersistError(type, realmName + ": batch " + batch.number + " (" + batch.rows.size() + " items)", e);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+        }
+
+        /**
+         * Wait for every batch submitted so far to be saved.
+         */
+        public void await() {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            futures.clear();
+        }
+
+        /**
+         * Wait for every submitted batch to be saved, and report the stage.
+         */
+        public void close() {
+            await();
+
+            // batches bypass the utils, so evict anything they may have memoized for the realm
+            memo.evict(EntityMemo.key(EntityMemo.ATTRIBUTE, realmName));
+            memo.evict(EntityMemo.key(EntityMemo.BASEENTITY, realmName));
+            memo.evict(EntityMemo.key(EntityMemo.ENTITY_ATTRIBUTE, realmName));
+            attributeUtils.evictAttributes(realmName);
+
+            // and run the evictions that saving each entity through the utils would have
+            for (String code : changed) {
+                if (cacheRef == ECacheRef.QUESTION)
+                    questionUtils.evictQuestion(realmName, code);
+                else
+                    beaUtils.evict(realmName, code);
+            }
+
+            if (onClose != null)
+                onClose.run();
+
+            long elapsed = System.currentTimeMillis() - start;
+            loadReport.addThroughput(type, items, elapsed);
+            log.info("Finished" + type.getLogLine() + "cost:" + elapsed + " millSeconds, items: " + saved.get() + "/" + items);
+
+            if (!loadReport.hasErrors(type))
+                loadReport.addSuccess(type, saved.get());
+        }
+    }
+
+    /**
+     * Build every row of a batch and save the results with a single putAll.
+     *
+     * @return the keys of the entities saved
+     */
+    private Collection<CoreEntityKey> persistBatch(EReportCategoryType type, ECacheRef cacheRef, Batch batch, String realmName, RowBuilder builder) {
+
+        Map<CoreEntityKey, CoreEntityPersistable> entities = new LinkedHashMap<>();
+        for (Map<String, String> row : batch.rows) {
+            try {
+                Map.Entry<CoreEntityKey, CoreEntityPersistable> entry = builder.build(row, batch);
+                if (entry != null)
+                    entities.put(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                loadReport.addBuildError(type, identify(realmName, row), e);
+            }
+        }
+
+        try {
+            cm.saveEntities(cacheRef, entities);
+            return entities.keySet();
+        } catch (Exception e) {
+            loadReport.addPersistError(type, realmName + ": batch " + batch.number + " (" + entities.size() + " items)", e);
+            return List.of();
+        }
+    }
+
+    /**
+     * @return the code of the base entity or question whose cached copies a saved entry makes stale,
+     * or null if there are none
+     */
+    private static String changedCode(CoreEntityKey key) {
+        if (key instanceof BaseEntityKey baseEntityKey)
+            return baseEntityKey.getCode();
+        if (key instanceof EntityAttributeKey entityAttributeKey)
+            return entityAttributeKey.getBaseEntityCode();
+        if (key instanceof QuestionKey questionKey)
+            return questionKey.getCode();
+        // question questions are evicted as they are built
+        return null;
+    }
+
+    /**
+     * Fetch the base entities and attributes referenced by the entity attributes of a batch.
+     */
+    private void resolveDependencies(Batch batch, String realmName) {
+
+        Set<CoreEntityKey> baseEntityKeys = new HashSet<>();
+        Set<CoreEntityKey> attributeKeys = new HashSet<>();
+        for (Map<String, String> row : batch.rows) {
+            String baseEntityCode = row.get("baseentitycode");
+            String attributeCode = row.get("attributecode");
+            if (baseEntityCode == null || attributeCode == null)
+                continue;
+            baseEntityKeys.add(new BaseEntityKey(realmName, baseEntityCode));
+            attributeKeys.add(new AttributeKey(realmName, attributeCode));
+            attributeKeys.add(new AttributeKey(realmName, Validator.getBaseAttributeCode(baseEntityCode, attributeCode)));
+        }
+
+        for (CoreEntityPersistable entity : cm.getPersistableEntities(ECacheRef.BASEENTITY, baseEntityKeys).values()) {
+            BaseEntity baseEntity = (BaseEntity) entity;
+            batch.baseEntities.put(baseEntity.getCode(), baseEntity);
+        }
+        for (CoreEntityPersistable entity : cm.getPersistableEntities(ECacheRef.ATTRIBUTE, attributeKeys).values()) {
+            Attribute attribute = (Attribute) entity;
+            batch.attributes.put(attribute.getCode(), attribute);
+        }
+    }
+
+    private List<List<Map<String, String>>> partition(Collection<Map<String, String>> rows) {
+        int size = Math.max(1, batchSize);
+        List<List<Map<String, String>>> batches = new ArrayList<>();
+        List<Map<String, String>> current = new ArrayList<>(size);
+        for (Map<String, String> row : rows) {
+            current.add(row);
+            if (current.size() == size) {
+                batches.add(current);
+                current = new ArrayList<>(size);
+            }
+        }
+        if (!current.isEmpty())
+            batches.add(current);
+        return batches;
+    }
+
+    private static String identify(String realmName, Map<String, String> row) {
+        if (row.containsKey("code"))
+            return realmName + ":" + row.get("code");
+        if (row.containsKey("parentcode"))
+            return realmName + ":" + row.get("parentcode") + ":" + row.get("targetcode");
+        return realmName + ":" + row.get("baseentitycode") + ":" + row.get("attributecode");
+    }
+}
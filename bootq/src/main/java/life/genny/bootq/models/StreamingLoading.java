@@ -0,0 +1,135 @@
+package life.genny.bootq.models;
+
+import life.genny.bootq.models.reporting.LoadReport;
+import life.genny.bootq.service.ImportService;
+import life.genny.bootq.sheets.ESheetConfiguration;
+import life.genny.bootq.sheets.module.ModuleUnit;
+import life.genny.bootq.sheets.realm.RealmUnit;
+import life.genny.bootq.utils.GoogleImportService;
+import life.genny.bootq.utils.XlsxImport;
+import life.genny.qwandaq.attribute.Attribute;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Loads a project by streaming its module sheets page by page into the {@link PipelinedLoading} stages,
+ * instead of reading every module into a {@link RealmUnit} first.
+ *
+ * Each page is handed to its stage as soon as it is fetched, so saving overlaps with fetching the
+ * next page, and a stage stops fetching while too many of its batches are in flight. Heap use is
+ * therefore bounded by the page size and pool size rather than the size of the sheets.
+ *
+ * Pages of a sheet are saved concurrently, so a page repeating a row that is still in flight
+ * waits for the pages before it, keeping the last row of a sheet the one that is saved.
+ */
+@ApplicationScoped
+public class StreamingLoading {
+
+    @Inject
+    Logger log;
+
+    @ConfigProperty(name = "genny.bootq.stream.page.size", defaultValue = "1000")
+    Integer pageSize;
+
+    @Inject
+    PipelinedLoading pipeline;
+
+    @Inject
+    BatchLoading batchLoading;
+
+    @Inject
+    LoadReport loadReport;
+
+    /**
+     * Fetch the projects of a sheet without loading their modules.
+     *
+     * @param sheetId The id of the projects sheet
+     * @return The projects
+     */
+    public List<RealmUnit> fetchRealmUnits(String sheetId) {
+        return new ImportService(SheetState.getState()).fetchRealmUnit(sheetId, false);
+    }
+
+    /**
+     * Stream every module of a project into the cache.
+     *
+     * @param rx The project, fetched without its modules
+     * @return false if any sheet could not be streamed
+     */
+    public boolean persistProject(RealmUnit rx) {
+        String realm = rx.getCode();
+        List<ModuleUnit> modules = new ImportService(SheetState.getState()).fetchModuleUnits(rx.getUri(), false);
+        XlsxImport xlsxImport = new XlsxImport(GoogleImportService.getInstance().getService());
+
+        boolean streamed = true;
+        streamed &= stream(modules, xlsxImport, ESheetConfiguration.VALIDATION, pipeline.validationStage(realm), null);
+        streamed &= stream(modules, xlsxImport, ESheetConfiguration.DATATYPE, pipeline.dataTypeStage(realm), null);
+        streamed &= stream(modules, xlsxImport, ESheetConfiguration.ATTRIBUTE, pipeline.attributeStage(realm), null);
+
+        streamed &= stream(modules, xlsxImport, ESheetConfiguration.DEF_BASE_ENTITY, pipeline.baseEntityStage(realm), null);
+        streamed &= stream(modules, xlsxImport, ESheetConfiguration.BASE_ENTITY, pipeline.baseEntityStage(realm), null);
+
+        // only the LNK_INCLUDE rows are needed for linking, so keep those rather than the whole sheet
+        List<Map<String, String>> links = new ArrayList<>();
+        streamed &= stream(modules, xlsxImport, ESheetConfiguration.DEF_ENTITY_ATTRIBUTE, pipeline.defEntityAttributeStage(realm), row -> {
+            if (Attribute.LNK_INCLUDE.equals(row.get("attributecode")))
+                links.add(row);
+        });
+        streamed &= stream(modules, xlsxImport, ESheetConfiguration.ENTITY_ATTRIBUTE, pipeline.entityAttributeStage(realm), null);
+        batchLoading.linkEntityAttributes(links, realm);
+
+        streamed &= stream(modules, xlsxImport, ESheetConfiguration.QUESTION, pipeline.questionStage(realm), null);
+        streamed &= stream(modules, xlsxImport, ESheetConfiguration.QUESTION_QUESTION, pipeline.questionQuestionStage(realm), null);
+        return streamed;
+    }
+
+    /**
+     * Stream a sheet of every module into a stage, then close the stage.
+     *
+     * @param modules The modules, in order of precedence
+     * @param xlsxImport The import to stream with
+     * @param sheet The sheet to stream
+     * @param stage The stage to submit each page to
+     * @param observer Sees each row as it is submitted, may be null
+     * @return false if the sheet of any module could not be streamed
+     */
+    private boolean stream(List<ModuleUnit> modules, XlsxImport xlsxImport, ESheetConfiguration sheet,
+            PipelinedLoading.Stage stage, Consumer<Map<String, String>> observer) {
+        boolean streamed = true;
+        for (ModuleUnit module : modules) {
+            // the keys of the rows submitted since the stage last finished saving
+            Set<String> inFlight = new HashSet<>();
+            try {
+                xlsxImport.streamRows(module.getSheetId(), sheet, pageSize, page -> {
+                    if (page.keySet().stream().anyMatch(inFlight::contains)) {
+                        stage.await();
+                        inFlight.clear();
+                    }
+                    inFlight.addAll(page.keySet());
+                    if (observer != null)
+                        page.values().forEach(observer);
+                    stage.submit(page.values());
+                });
+            } catch (IOException e) {
+                loadReport.addBuildError(stage.getType(), module.getName() + ": " + sheet.getTitle(), e);
+                streamed = false;
+            }
+            // later modules override earlier ones, so a module must be saved before the next one starts
+            stage.await();
+        }
+        stage.close();
+        return streamed;
+    }
+}
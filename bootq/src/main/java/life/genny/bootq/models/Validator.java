@@ -3,6 +3,7 @@ package life.genny.bootq.models;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
@@ -163,23 +164,36 @@ public class Validator {
      *  an exception if the attribute: PRI_NAME does not exist</p>
      */
     public Map<Class<?>, Object> validateEntityAttribute(Map<String, String> row, String realmName) 
+        throws BadDataException {
+        return validateEntityAttribute(row, realmName,
+            code -> (BaseEntity) cm.getPersistableEntity(ECacheRef.BASEENTITY, new BaseEntityKey(realmName, code)),
+            code -> cm.getAttribute(realmName, code));
+    }
+
+    /**
+     * Validate an Entity Attribute or a DEF_EntityAttribute against dependencies that have already been resolved,
+     * e.g for a whole batch of rows at once
+     * @param row - the Entity Attribute row in the google sheets
+     * @param realmName - the product the EntityAttribute lives in
+     * @param baseEntities - finds a persisted base entity by code, or null
+     * @param attributes - finds a persisted attribute by code, or null
+     * @return the base entity and attribute dependencies in a map (if they exist)
+     * 
+     * @throws BadDataException if the base entity or attribute corresponding to the entity attribute does not exist
+     */
+    public Map<Class<?>, Object> validateEntityAttribute(Map<String, String> row, String realmName,
+        Function<String, BaseEntity> baseEntities, Function<String, Attribute> attributes) 
         throws BadDataException {
         String baseEntityCode = row.get("baseentitycode");
 
-        BaseEntity baseEntity = (BaseEntity) cm.getPersistableEntity(ECacheRef.BASEENTITY, new BaseEntityKey(realmName, baseEntityCode));
+        BaseEntity baseEntity = baseEntities.apply(baseEntityCode);
         if(baseEntity == null)
             throw new BadDataException("No Persisted BaseEntity found for code: " + baseEntityCode + " in product " + realmName);
 
-        String attributeCode = row.get("attributecode");
-
         boolean isDefAttr = baseEntityCode.startsWith(Prefix.DEF_);
-        
-            // Strip off any of the DEF_PREFIXES
-        if(isDefAttr && CommonUtils.isInArray(DEF_PREFIXES, attributeCode.substring(0, 4))) {
-            attributeCode = attributeCode.substring(4);
-        }
+        String attributeCode = getBaseAttributeCode(baseEntityCode, row.get("attributecode"));
 
-        Attribute attribute = cm.getAttribute(realmName, attributeCode);
+        Attribute attribute = attributes.apply(attributeCode);
         if(attribute == null) {
             if(isDefAttr) {
                 throw new BadDataException("Missing Base Attribute: " + attributeCode + " for entity attribute: " + baseEntityCode + ":" + row.get("attributecode") + " in product: " + realmName);
@@ -194,4 +208,19 @@ public class Validator {
             Attribute.class, attribute
         );
     }
+
+    /**
+     * Find the attribute an entity attribute depends on. For a DEF entity attribute
+     * this strips any of the DEF_PREFIXES, e.g ATT_PRI_NAME depends on PRI_NAME
+     * @param baseEntityCode - the code of the entity attribute's base entity
+     * @param attributeCode - the code of the entity attribute's attribute
+     * @return the code of the dependent attribute
+     */
+    public static String getBaseAttributeCode(String baseEntityCode, String attributeCode) {
+        boolean isDefAttr = baseEntityCode.startsWith(Prefix.DEF_);
+        if(isDefAttr && CommonUtils.isInArray(DEF_PREFIXES, attributeCode.substring(0, 4))) {
+            return attributeCode.substring(4);
+        }
+        return attributeCode;
+    }
 }
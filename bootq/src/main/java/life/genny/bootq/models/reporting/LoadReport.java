@@ -43,6 +43,8 @@ public class LoadReport {
 
     private List<Tuple2<EReportCategoryType, Integer>> successes = new LinkedList<>();
 
+    private Map<EReportCategoryType, StageThroughput> throughputs = new EnumMap<>(EReportCategoryType.class);
+
     private Map<ReportType, Map<EReportCategoryType, List<ReportLog>>> loadReportMap = new EnumMap<>(ReportType.class);
     
     public enum ReportType {
@@ -85,7 +87,7 @@ public class LoadReport {
      * @param identifier - Identifier include model's product and any relevant primary keys
      * @param error - related exception
      */
-    public void addBuildError(EReportCategoryType model, String identifier, Exception error) {
+    public synchronized void addBuildError(EReportCategoryType model, String identifier, Exception error) {
         ReportLog reportLog = new ReportLog(model.getLogLine() + "\t" + identifier, error);
         log.error(ANSIColour.doColour(String.format(MSG_ERROR_WHILE_BUILDING, identifier, model.getLogLine(), error.getMessage()) + "! Skipping.", ANSIColour.RED));
         loadReportMap.get(ReportType.BUILD_ERRORS).get(model).add(reportLog);
@@ -97,7 +99,7 @@ public class LoadReport {
      * @param identifier - Identifier include model's product and any relevant primary keys
      * @param error - related exception
      */
-    public void addPersistError(EReportCategoryType model, String identifier, Exception error) {
+    public synchronized void addPersistError(EReportCategoryType model, String identifier, Exception error) {
         ReportLog reportLog = new ReportLog(model.getLogLine() + "\t" + identifier, error);
         log.warnf(MSG_ERROR_WHILE_SAVING, identifier, model.getLogLine(), error.getMessage());
         loadReportMap.get(ReportType.PERSIST_ERRORS).get(model).add(reportLog);
@@ -120,12 +122,26 @@ public class LoadReport {
         return !hasErrors(model, ReportType.BUILD_ERRORS) || !hasErrors(model, ReportType.PERSIST_ERRORS);
     }
 
-    public void addSuccess(EReportCategoryType type, Integer successCount) {
+    public synchronized void addSuccess(EReportCategoryType type, Integer successCount) {
         // ReportLog reportLog = new ReportLog(type.getLogLine(), Integer.toString(successCount) + type.getLogLine() + " " + MSG_LOADED_SUCCESSFULLY);
         successes.add(new Tuple2<>(type, successCount));
     }
-    
-    public List<ReportLog> popReports(ReportType reportType, EReportCategoryType model) {
+
+    /**
+     * Record the time taken to load a stage
+     * @param type - model type of the stage
+     * @param items - number of rows in the stage
+     * @param elapsedMillis - time taken by the stage
+     */
+    public synchronized void addThroughput(EReportCategoryType type, int items, long elapsedMillis) {
+        throughputs.computeIfAbsent(type, t -> new StageThroughput()).add(items, elapsedMillis);
+    }
+
+    public synchronized StageThroughput getThroughput(EReportCategoryType type) {
+        return throughputs.get(type);
+    }
+
+    public synchronized List<ReportLog> popReports(ReportType reportType, EReportCategoryType model) {
         List<ReportLog> reports = loadReportMap.get(reportType).get(model);
         loadReportMap.get(reportType).get(model).clear();
         return reports;
@@ -144,12 +160,13 @@ public class LoadReport {
         return total;
     }
 
-    public void clear() {
+    public synchronized void clear() {
         for(ReportType reportType : ReportType.values()) {
             for(EReportCategoryType type : EReportCategoryType.values()) {
                 loadReportMap.get(reportType).get(type).clear();
             }
         }
+        throughputs.clear();
     }
 
     public void printCategory(ReportType reportType, Map.Entry<EReportCategoryType, List<ReportLog>> reportEntry, boolean showStackTraces) {
@@ -195,10 +212,45 @@ public class LoadReport {
             logAndDump(ANSIColour.doColour(TYPE_INDENTATION + "- NO Persist Errors :)", ANSIColour.GREEN));
         }
 
+        // Print the throughput of each stage (if recorded)
+        if(!throughputs.isEmpty()) {
+            logAndDump(ANSIColour.doColour(TYPE_INDENTATION + "- Throughput", ANSIColour.GREEN));
+            for(Map.Entry<EReportCategoryType, StageThroughput> entry : throughputs.entrySet()) {
+                logAndDump(CATEGORY_INDENTATION + "-" + entry.getKey().getLogLine() + ": " + entry.getValue());
+            }
+        }
+
         logAndDump(ANSIColour.doColour("/************ Load Summary END ************/", ANSIColour.YELLOW));
         clear();
     }
-    
-    
 
+    /**
+     * Items processed and time taken by a load stage
+     */
+    public static class StageThroughput {
+        private int items;
+        private long elapsedMillis;
+
+        void add(int items, long elapsedMillis) {
+            this.items += items;
+            this.elapsedMillis += elapsedMillis;
+        }
+
+        public int getItems() {
+            return items;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public double getItemsPerSecond() {
+            return elapsedMillis == 0 ? items : (items * 1000.0) / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return items + " items in " + elapsedMillis + " millSeconds (" + String.format("%.1f", getItemsPerSecond()) + " items/sec)";
+        }
+    }
 }
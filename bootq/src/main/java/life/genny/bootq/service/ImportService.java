@@ -41,6 +41,17 @@ public class ImportService {
     }
 
     public List<RealmUnit> fetchRealmUnit(String sheetURI) {
+        return fetchRealmUnit(sheetURI, true);
+    }
+
+    /**
+     * Fetch the projects of a sheet
+     * @param sheetURI - the id of the projects sheet
+     * @param loadModules - whether to fetch the module sheets of each project. When false, the
+     * rows of each project are left empty so they can be streamed instead
+     * @return the projects
+     */
+    public List<RealmUnit> fetchRealmUnit(String sheetURI, boolean loadModules) {
         String projects = "Projects";
         String key = sheetURI + projects;
         
@@ -49,7 +60,7 @@ public class ImportService {
         for (Map<String, String> rawData : createXlsImport
                 .mappingRawToHeaderAndValuesFmt(sheetURI, projects)) {
             if (!rawData.isEmpty()) {
-                RealmUnit name = new RealmUnit(rawData);
+                RealmUnit name = new RealmUnit(rawData, loadModules);
                 list.add(name);
             } else {
                 log.warn("No RAW DATA from sheet uri: " + sheetURI);
@@ -59,6 +70,16 @@ public class ImportService {
     }
 
     public List<ModuleUnit> fetchModuleUnits(String sheetURI) {
+        return fetchModuleUnits(sheetURI, true);
+    }
+
+    /**
+     * Fetch the modules of a project
+     * @param sheetURI - the id of the project's modules sheet
+     * @param loadSheets - whether to fetch the rows of each module
+     * @return the modules, in order of precedence
+     */
+    public List<ModuleUnit> fetchModuleUnits(String sheetURI, boolean loadSheets) {
         String key = sheetURI + "Modules";
         XlsxImport createXlsImport = createXlsImport(key);
         List<Map<String, String>> data = createXlsImport.mappingRawToHeaderAndValuesFmt(sheetURI, "Modules");
@@ -71,7 +92,9 @@ public class ImportService {
             moduleUnit.setName(module.get("name"));
             moduleUnit.setModuleName(module.get("module").replaceAll("^\"|\"$|_|-| ", ""));
             log.info("Loading Module: " + moduleUnit.getName() + " - " + moduleUnit.getModuleName());
-            moduleUnit.init(module.get("sheetid"));
+            moduleUnit.setSheetId(module.get("sheetid"));
+            if (loadSheets)
+                moduleUnit.init(module.get("sheetid"));
 			modules.add(moduleUnit);
         }
 
@@ -32,6 +32,8 @@ public class ModuleUnit extends DataUnit {
 
     private String moduleName;
 
+    private String sheetId;
+
     public ModuleUnit() {
         super();
     }
@@ -55,6 +57,14 @@ public class ModuleUnit extends DataUnit {
 
     }
 
+    public String getSheetId() {
+        return sheetId;
+    }
+
+    public void setSheetId(String sheetId) {
+        this.sheetId = sheetId;
+    }
+
     public String getModuleName() {
         return moduleName;
     }
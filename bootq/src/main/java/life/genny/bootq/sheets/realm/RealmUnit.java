@@ -122,6 +122,14 @@ public class RealmUnit extends DataUnit {
 
 
     public RealmUnit(Map<String, String> realm) {
+        this(realm, true);
+    }
+
+    /**
+     * @param realm - the project row
+     * @param loadModules - whether to fetch and merge the rows of every module up front
+     */
+    public RealmUnit(Map<String, String> realm, boolean loadModules) {
         Optional<String> disabelStr = Optional.ofNullable(realm.get("disable"));
         Boolean disableProject = disabelStr.map(Boolean::valueOf).orElse(false);
         Optional<String> skipGoogleDocStr = Optional.ofNullable(realm.get("skipGoogleDoc".toLowerCase().replaceAll("^\"|\"$|_|-", "")));
@@ -140,6 +148,8 @@ public class RealmUnit extends DataUnit {
 
         if (skipgoogledoc) {
             log.info("Skipping google doc for realm " + this.name);
+        } else if (!loadModules) {
+            log.info("Deferring module sheets for realm " + this.name);
         } else {
             module = new GennyModule(realm.get("sheetID".toLowerCase()));
             Optional<HashMap<String, Map<String, String>>> tmpOptional = module.getDataUnits().stream()
@@ -1,10 +1,10 @@
 package life.genny.bootq.utils;
 
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
-import javax.inject.Inject;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
@@ -14,9 +14,12 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @ApplicationScoped
 public class SqliteHelper {
@@ -50,8 +53,17 @@ public class SqliteHelper {
 
     public static char COMMA = ',';
 
-    @Inject
-    Logger log;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final Logger log = Logger.getLogger(SqliteHelper.class);
+
+    @ConfigProperty(name = "genny.bootq.sqlite.batch.size", defaultValue = "1000")
+    Integer batchSize;
+
+    @ConfigProperty(name = "genny.bootq.sqlite.fetch.size", defaultValue = "1000")
+    Integer fetchSize;
 
     public Connection getConnectionToDatabase(String databaseName) throws SQLException {
         if (StringUtils.isBlank(databaseName)) {
@@ -148,47 +160,80 @@ public class SqliteHelper {
         }
         log.infof("Found %s record(s) to be inserted into %s table", recordsMapCollection.size(), tableName);
         connection.setAutoCommit(false);
-        boolean logFlag = true;
-        for (Map<String, String> row : recordsMapCollection) {
-            StringBuilder columnNames = new StringBuilder(" ");
-            StringBuilder valuePlaceholders = new StringBuilder();
-            boolean isFirst = true;
-            for (Map.Entry<String, String> entry : row.entrySet()) {
-                if (StringUtils.isBlank(entry.getKey()) || entry.getKey().contains(" "))
-                    continue;
-                if (!isFirst) {
-                    columnNames.append(COMMA);
-                    valuePlaceholders.append(COMMA);
+        int batchSize = getBatchSize();
+        // rows of a sheet share their columns, so there is normally only one statement per table
+        Map<List<String>, InsertBatch> batches = new HashMap<>();
+        try {
+            for (Map<String, String> row : recordsMapCollection) {
+                List<String> columns = new ArrayList<>(row.size());
+                for (String column : row.keySet()) {
+                    if (StringUtils.isBlank(column) || column.contains(" "))
+                        continue;
+                    columns.add(column);
+                }
+                InsertBatch batch = batches.get(columns);
+                if (batch == null) {
+                    batch = new InsertBatch(connection, tableName, columns);
+                    batches.put(columns, batch);
                 }
-                isFirst = false;
-                columnNames.append(entry.getKey());
-                valuePlaceholders.append(QUESTION_MARK);
+                batch.add(row);
+                if (batch.pending >= batchSize)
+                    batch.execute();
             }
+            for (InsertBatch batch : batches.values())
+                batch.execute();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            for (InsertBatch batch : batches.values())
+                batch.statement.close();
+        }
+    }
+
+    /**
+     * A prepared insert for a single set of columns, along with the rows added since it was last executed.
+     */
+    private static class InsertBatch {
+        final List<String> columns;
+        final String sql;
+        final PreparedStatement statement;
+        int pending;
+
+        InsertBatch(Connection connection, String tableName, List<String> columns) throws SQLException {
+            this.columns = columns;
             StringBuilder insertSqlStatement = new StringBuilder(INSERT_INTO);
             insertSqlStatement.append(tableName).
-                    append(OPEN_PARENTHESIS).append(columnNames).append(CLOSE_PARENTHESIS).
+                    append(OPEN_PARENTHESIS).append(' ').append(String.join(String.valueOf(COMMA), columns)).append(CLOSE_PARENTHESIS).
                     append(VALUES).
-                    append(OPEN_PARENTHESIS).append(valuePlaceholders).append(CLOSE_PARENTHESIS);
-            if (logFlag) {
-                log.info("Constructed insert statement -> " + insertSqlStatement);
-                logFlag = false;
+                    append(OPEN_PARENTHESIS).append(StringUtils.repeat(String.valueOf(QUESTION_MARK), String.valueOf(COMMA), columns.size())).append(CLOSE_PARENTHESIS);
+            this.sql = insertSqlStatement.toString();
+            log.info("Constructed insert statement -> " + sql);
+            this.statement = connection.prepareStatement(sql);
+        }
+
+        void add(Map<String, String> row) throws SQLException {
+            int i = 1;
+            for (String column : columns) {
+                statement.setString(i, row.get(column));
+                i++;
             }
+            statement.addBatch();
+            pending++;
+        }
+
+        void execute() throws SQLException {
+            if (pending == 0)
+                return;
             try {
-                PreparedStatement preparedStatement = connection.prepareStatement(insertSqlStatement.toString());
-                int i = 1;
-                for (Map.Entry<String, String> entry : row.entrySet()) {
-                    if (StringUtils.isBlank(entry.getKey()) || entry.getKey().contains(" "))
-                        continue;
-                    preparedStatement.setString(i, entry.getValue());
-                    i++;
-                }
-                preparedStatement.execute();
-            } catch (Exception e) {
-                log.errorf("Problematic statement -> %s", insertSqlStatement.toString());
+                statement.executeBatch();
+            } catch (SQLException e) {
+                log.errorf("Problematic statement -> %s", sql);
                 throw e;
             }
+            pending = 0;
         }
-        connection.commit();
     }
 
     public void executeCrudStatement(Connection connection, String crudStatement) throws SQLException {
@@ -203,40 +248,69 @@ public class SqliteHelper {
     }
 
     public Map<String, Map<String, String>> fetchRecordsFromTable(Connection connection, String tableName) throws SQLException {
+        Map<String, Map<String, String>> recordsMap = new HashMap<>();
+        int rownum = forEachRecord(connection, tableName, record -> recordsMap.put("" + recordsMap.size(), record));
+        log.infof("Fetched %s record(s) from %s table in SQLite DB", rownum, tableName);
+        return recordsMap;
+    }
+
+    /**
+     * Stream the records of a table through a cursor, fetching them in blocks of the fetch size.
+     * Blank values are left out of each record, and records with no values are skipped.
+     *
+     * @param connection The connection to the SQLite DB
+     * @param tableName The table to read
+     * @param consumer Receives each record
+     * @return The number of records read
+     * @throws SQLException
+     */
+    public int forEachRecord(Connection connection, String tableName, Consumer<Map<String, String>> consumer) throws SQLException {
         if (connection == null) {
             throw new UnsupportedOperationException("Connection object is null!");
         }
         if (StringUtils.isBlank(tableName)) {
             throw new UnsupportedOperationException("Tablename cannot be empty!");
         }
-        Map<String, Map<String, String>> recordsMap = new HashMap<>();
 	    PreparedStatement preparedStatement;
         try {
             preparedStatement = connection.prepareStatement(SELECT_FROM + tableName);
         } catch (SQLException e) {
             log.errorf("Skipping loading records from table '%s' in SQLite because of an error while creating prepared-statement", tableName);
             log.error(e.getMessage());
-            return recordsMap;
+            return 0;
         }
-        ResultSet results = preparedStatement.executeQuery();
         int rownum = 0;
-        ResultSetMetaData resultsMetaData = results.getMetaData();
-        int columnCount = resultsMetaData.getColumnCount();
-        while(results.next()) {
-            Map<String, String> record = new HashMap<>();
-            for (int i = 1; i <= columnCount; i++) {
-                String columnName = resultsMetaData.getColumnName(i);
-                String value = results.getString(columnName);
-                if (!StringUtils.isBlank(value))
-                    record.put(columnName, value);
-            }
-            if (record.size() > 0) {
-                recordsMap.put("" + rownum, record);
-                rownum++;
+        try (preparedStatement) {
+            preparedStatement.setFetchSize(getFetchSize());
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                ResultSetMetaData resultsMetaData = results.getMetaData();
+                int columnCount = resultsMetaData.getColumnCount();
+                String[] columnNames = new String[columnCount + 1];
+                for (int i = 1; i <= columnCount; i++)
+                    columnNames[i] = resultsMetaData.getColumnName(i);
+                while (results.next()) {
+                    Map<String, String> record = new HashMap<>();
+                    for (int i = 1; i <= columnCount; i++) {
+                        String value = results.getString(i);
+                        if (!StringUtils.isBlank(value))
+                            record.put(columnNames[i], value);
+                    }
+                    if (record.size() > 0) {
+                        consumer.accept(record);
+                        rownum++;
+                    }
+                }
             }
         }
-        log.infof("Fetched %s record(s) from %s table in SQLite DB", rownum, tableName);
-        return recordsMap;
+        return rownum;
+    }
+
+    private int getBatchSize() {
+        return Math.max(1, batchSize != null ? batchSize : DEFAULT_BATCH_SIZE);
+    }
+
+    private int getFetchSize() {
+        return Math.max(1, fetchSize != null ? fetchSize : DEFAULT_FETCH_SIZE);
     }
 
     public void closeConnection(Connection connection) throws SQLException {
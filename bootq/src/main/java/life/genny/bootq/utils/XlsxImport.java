@@ -4,12 +4,15 @@ import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.Spreadsheet;
 import com.google.api.services.sheets.v4.model.ValueRange;
 import io.vavr.Tuple;
 import io.vavr.Tuple2;
@@ -140,6 +143,84 @@ public class XlsxImport {
         return k;
     }
 
+    /**
+     * Stream the rows of a sheet a page at a time, rather than fetching the whole sheet at once.
+     * Each page is stitched to the header and keyed like {@link #mappingKeyHeaderToHeaderValues},
+     * then handed to the consumer before the next page is fetched.
+     * Pages run up to the row count of the sheet, since a range ending in blank rows comes
+     * back short and cannot mark the end of the sheet by itself.
+     * @param sheetId - Id of the Google Doc to stream the sheet from
+     * @param sheetConfiguration - the sheet to stream
+     * @param pageSize - the number of rows to fetch per request
+     * @param consumer - receives each page of rows
+     * @return the number of rows streamed
+     * @throws IOException
+     */
+    public int streamRows(String sheetId, ESheetConfiguration sheetConfiguration, int pageSize,
+            Consumer<Map<String, Map<String, String>>> consumer) throws IOException {
+        String sheetName = sheetConfiguration.getTitle();
+        List<List<Object>> headerRow = fetchRange(sheetId, sheetName + "!A1:Z1");
+        if (headerRow == null || headerRow.isEmpty()) {
+            log.warn("No header found in SheetName:" + sheetName + " and SheetID:" + sheetId);
+            return 0;
+        }
+        List<String> header = normaliseHeader(headerRow.get(0));
+        int rowCount = fetchRowCount(sheetId, sheetName);
+
+        int total = 0;
+        for (int start = 2; start <= rowCount; start += pageSize) {
+            int end = Math.min(start + pageSize - 1, rowCount);
+            List<List<Object>> values = fetchRange(sheetId, sheetName + "!A" + start + ":Z" + end);
+            if (values == null || values.isEmpty())
+                continue;
+
+            Map<String, Map<String, String>> page = new LinkedHashMap<>();
+            for (List<Object> rawRow : values) {
+                if (rawRow.isEmpty())
+                    continue;
+                Map<String, String> row = stitchRow(header, rawRow);
+                page.put(joinKey(row, sheetConfiguration.getHeaderRow()), row);
+            }
+            total += page.size();
+            if (!page.isEmpty())
+                consumer.accept(page);
+        }
+        log.info("Streamed " + total + " rows from SheetName:" + sheetName);
+        return total;
+    }
+
+    private List<String> normaliseHeader(List<Object> headerRow) {
+        List<String> header = new ArrayList<>(headerRow.size());
+        for (Object cell : headerRow)
+            header.add(cell.toString().toLowerCase().replaceAll("^\"|\"$|_|-", ""));
+        return header;
+    }
+
+    private Map<String, String> stitchRow(List<String> header, List<Object> rawRow) {
+        Map<String, String> row = new HashMap<>();
+        for (int counter = 0; counter < rawRow.size() && counter < header.size(); counter++) {
+            row.put(header.get(counter), rawRow.get(counter).toString());
+        }
+        return row;
+    }
+
+    private String joinKey(Map<String, String> row, Set<String> sheetHeaders) {
+        return row.keySet().stream()
+                .filter(sheetHeaders::contains).map(row::get).collect(Collectors.joining());
+    }
+
+    private int fetchRowCount(String sheetId, String sheetName) throws IOException {
+        Spreadsheet spreadsheet = service.spreadsheets().get(sheetId)
+                .setRanges(List.of(sheetName))
+                .setFields("sheets.properties.gridProperties.rowCount")
+                .execute();
+        return spreadsheet.getSheets().get(0).getProperties().getGridProperties().getRowCount();
+    }
+
+    private List<List<Object>> fetchRange(String sheetId, String range) throws IOException {
+        return service.spreadsheets().values().get(sheetId, range).execute().getValues();
+    }
+
     public List<List<Object>> fetchSpreadSheet(String sheetId, String sheetName) throws IOException {
         final String absoluteRange = sheetName + RANGE;
         ValueRange response = service.spreadsheets().values().get(sheetId, absoluteRange).execute();
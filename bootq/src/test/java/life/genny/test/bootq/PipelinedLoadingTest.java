@@ -0,0 +1,192 @@
+package life.genny.test.bootq;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import life.genny.bootq.models.PipelinedLoading;
+import life.genny.bootq.models.Validator;
+import life.genny.bootq.models.reporting.LoadReport;
+import life.genny.bootq.models.reporting.LoadReport.ReportType;
+import life.genny.bootq.models.reporting.LoadReport.StageThroughput;
+import life.genny.bootq.models.sheets.EReportCategoryType;
+import life.genny.bootq.utils.GoogleSheetBuilder;
+import life.genny.qwandaq.CoreEntityPersistable;
+import life.genny.qwandaq.Question;
+import life.genny.qwandaq.attribute.Attribute;
+import life.genny.qwandaq.attribute.EntityAttribute;
+import life.genny.qwandaq.constants.ECacheRef;
+import life.genny.qwandaq.entity.BaseEntity;
+import life.genny.qwandaq.managers.CacheManager;
+import life.genny.qwandaq.managers.EntityMemo;
+import life.genny.qwandaq.managers.UniqueValueIndex;
+import life.genny.qwandaq.serialization.common.CoreEntityKey;
+import life.genny.qwandaq.utils.AttributeUtils;
+import life.genny.qwandaq.utils.EntityAttributeUtils;
+import life.genny.qwandaq.utils.QuestionUtils;
+import life.genny.serviceq.intf.GennyExecutors;
+
+/**
+ * Loads a small project through the pipelined stages and checks the batches
+ * saved with each putAll, the evictions run for them and the throughput
+ * reported for each stage.
+ */
+public class PipelinedLoadingTest {
+
+	private static final String REALM = "alpha";
+
+	// the payload of each putAll, by cache
+	private final Map<ECacheRef, Set<Map<String, String>>> saved = new ConcurrentHashMap<>();
+	private final Set<String> evictedEntities = ConcurrentHashMap.newKeySet();
+	private final Set<String> evictedQuestions = ConcurrentHashMap.newKeySet();
+	private final Set<String> invalidatedIndexes = ConcurrentHashMap.newKeySet();
+
+	private LoadReport loadReport;
+	private PipelinedLoading pipeline;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setup() throws Exception {
+		CacheManager cm = Mockito.mock(CacheManager.class);
+		Mockito.when(cm.getMaxBaseEntityId()).thenReturn(0L);
+		Mockito.when(cm.getMaxQuestionId()).thenReturn(0L);
+		Mockito.when(cm.getPersistableEntities(any(), any())).thenReturn(Map.of());
+		Mockito.doAnswer(i -> {
+			Map<String, String> batch = new HashMap<>();
+			((Map<?, ?>) i.getArgument(1)).forEach((key, entity) -> batch.put(((CoreEntityKey) key).getKeyString(),
+					describe((CoreEntityPersistable) entity)));
+			saved.computeIfAbsent(i.getArgument(0), ref -> ConcurrentHashMap.newKeySet()).add(batch);
+			return null;
+		}).when(cm).saveEntities(any(ECacheRef.class), anyMap());
+
+		GoogleSheetBuilder builder = Mockito.mock(GoogleSheetBuilder.class);
+		Mockito.when(builder.buildBaseEntity(anyMap(), eq(REALM))).thenAnswer(i -> baseEntity(i.getArgument(0)));
+		Mockito.when(builder.buildEntityAttribute(anyMap(), eq(REALM), any(), any())).thenAnswer(i -> {
+			EntityAttribute entityAttribute = new EntityAttribute(i.getArgument(2), i.getArgument(3));
+			entityAttribute.setRealm(REALM);
+			entityAttribute.setValueString(((Map<String, String>) i.getArgument(0)).get("valuestring"));
+			return entityAttribute;
+		});
+		Mockito.when(builder.buildQuestion(anyMap(), eq(REALM))).thenAnswer(i -> question(i.getArgument(0)));
+
+		Validator validator = Mockito.mock(Validator.class);
+		Mockito.when(validator.validateEntityAttribute(anyMap(), eq(REALM), any(), any())).thenAnswer(i -> {
+			Map<String, String> row = i.getArgument(0);
+			Map<Class<?>, Object> dependencies = new HashMap<>();
+			dependencies.put(BaseEntity.class, baseEntity(Map.of("code", row.get("baseentitycode"))));
+			dependencies.put(Attribute.class, new Attribute(row.get("attributecode"), row.get("attributecode")));
+			return dependencies;
+		});
+
+		EntityAttributeUtils beaUtils = Mockito.mock(EntityAttributeUtils.class);
+		Mockito.doAnswer(i -> evictedEntities.add(i.getArgument(1))).when(beaUtils).evict(eq(REALM), anyString());
+		QuestionUtils questionUtils = Mockito.mock(QuestionUtils.class);
+		Mockito.doAnswer(i -> evictedQuestions.add(i.getArgument(1))).when(questionUtils).evictQuestion(eq(REALM), anyString());
+
+		UniqueValueIndex uniqueIndex = Mockito.mock(UniqueValueIndex.class);
+		Mockito.doAnswer(i -> invalidatedIndexes.add(i.getArgument(0))).when(uniqueIndex).invalidate(anyString());
+
+		loadReport = new LoadReport();
+		pipeline = new PipelinedLoading(new GennyExecutors(), 2, 2, cm, Mockito.mock(EntityMemo.class),
+				Mockito.mock(AttributeUtils.class), questionUtils, beaUtils, uniqueIndex, builder, validator,
+				loadReport);
+	}
+
+	@AfterEach
+	public void teardown() {
+		pipeline.shutdown();
+	}
+
+	@Test
+	public void savesBatchesAndReportsThroughput() throws Exception {
+		pipeline.persistBaseEntities(List.of(
+				Map.of("code", "PRJ_ALPHA", "name", "Alpha"),
+				Map.of("code", "TEV_REMINDER", "name", "Reminder"),
+				Map.of("code", "PER_ONE", "name", "One"),
+				Map.of("code", "PER_TWO", "name", "Two"),
+				Map.of("code", "PER_THREE", "name", "Three")), REALM);
+		pipeline.persistBaseEntityAttributes(List.of(
+				Map.of("baseentitycode", "PRJ_ALPHA", "attributecode", "PRI_NAME", "valuestring", "Alpha"),
+				Map.of("baseentitycode", "TEV_REMINDER", "attributecode", "PRI_NAME", "valuestring", "Reminder"),
+				Map.of("baseentitycode", "PER_ONE", "attributecode", "PRI_NAME", "valuestring", "One"),
+				Map.of("baseentitycode", "PER_ONE", "attributecode", "PRI_EMAIL", "valuestring", "one@alpha.com"),
+				Map.of("baseentitycode", "PER_TWO", "attributecode", "PRI_NAME", "valuestring", "Two")), REALM);
+		pipeline.persistQuestions(List.of(
+				Map.of("code", "QUE_NAME", "name", "Name"),
+				Map.of("code", "QUE_EMAIL", "name", "Email"),
+				Map.of("code", "QUE_FORM_GRP", "name", "Form")), REALM);
+
+		// rows are saved in batches of two, one putAll each
+		assertEquals(Set.of(
+				Map.of("alpha|PRJ_ALPHA", "PRJ_ALPHA:Alpha", "alpha|TEV_REMINDER", "TEV_REMINDER:Reminder"),
+				Map.of("alpha|PER_ONE", "PER_ONE:One", "alpha|PER_TWO", "PER_TWO:Two"),
+				Map.of("alpha|PER_THREE", "PER_THREE:Three")),
+				saved.get(ECacheRef.BASEENTITY));
+		assertEquals(Set.of(
+				Map.of("alpha:PRJ_ALPHA:PRI_NAME", "PRJ_ALPHA:PRI_NAME=Alpha",
+						"alpha:TEV_REMINDER:PRI_NAME", "TEV_REMINDER:PRI_NAME=Reminder"),
+				Map.of("alpha:PER_ONE:PRI_NAME", "PER_ONE:PRI_NAME=One",
+						"alpha:PER_ONE:PRI_EMAIL", "PER_ONE:PRI_EMAIL=one@alpha.com"),
+				Map.of("alpha:PER_TWO:PRI_NAME", "PER_TWO:PRI_NAME=Two")),
+				saved.get(ECacheRef.BASEENTITY_ATTRIBUTE));
+		assertEquals(Set.of(
+				Map.of("alpha|QUE_NAME", "QUE_NAME:Name", "alpha|QUE_EMAIL", "QUE_EMAIL:Email"),
+				Map.of("alpha|QUE_FORM_GRP", "QUE_FORM_GRP:Form")),
+				saved.get(ECacheRef.QUESTION));
+
+		// the evictions saving each entity through the utils would have run
+		assertEquals(Set.of("PRJ_ALPHA", "TEV_REMINDER", "PER_ONE", "PER_TWO", "PER_THREE"), evictedEntities);
+		assertEquals(Set.of("QUE_NAME", "QUE_EMAIL", "QUE_FORM_GRP"), evictedQuestions);
+		// the entity attributes were not saved through the utils, so the unique indexes are rebuilt
+		assertEquals(Set.of(REALM), invalidatedIndexes);
+
+		assertThroughput(EReportCategoryType.BASE_ENTITY, 5);
+		assertThroughput(EReportCategoryType.BASEENTITY_ATTRIBUTE, 5);
+		assertThroughput(EReportCategoryType.QUESTION, 3);
+		assertEquals(0, loadReport.getReportSize(ReportType.BUILD_ERRORS, null));
+		assertEquals(0, loadReport.getReportSize(ReportType.PERSIST_ERRORS, null));
+	}
+
+	private void assertThroughput(EReportCategoryType type, int items) {
+		StageThroughput throughput = loadReport.getThroughput(type);
+		assertEquals(items, throughput.getItems());
+		assertTrue(throughput.getElapsedMillis() >= 0);
+	}
+
+	private static BaseEntity baseEntity(Map<String, String> row) {
+		BaseEntity baseEntity = new BaseEntity(row.get("code"), row.get("name"));
+		baseEntity.setRealm(REALM);
+		return baseEntity;
+	}
+
+	private static Question question(Map<String, String> row) {
+		Question question = new Question(row.get("code"), row.get("name"));
+		question.setRealm(REALM);
+		return question;
+	}
+
+	// ids are handed out in batch order, so they are left out of the comparison
+	private static String describe(CoreEntityPersistable entity) {
+		if (entity instanceof EntityAttribute entityAttribute)
+			return entityAttribute.getBaseEntityCode() + ":" + entityAttribute.getAttributeCode() + "=" + entityAttribute.getValueString();
+		if (entity instanceof BaseEntity baseEntity)
+			return baseEntity.getCode() + ":" + baseEntity.getName();
+		if (entity instanceof Question question)
+			return question.getCode() + ":" + question.getName();
+		return entity.toString();
+	}
+}
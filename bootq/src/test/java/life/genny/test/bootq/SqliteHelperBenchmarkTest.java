@@ -0,0 +1,66 @@
+package life.genny.test.bootq;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import life.genny.bootq.utils.SqliteHelper;
+
+/**
+ * Stages a large synthetic entity attribute sheet into a temp-file
+ * SQLite DB and reads it back through the bulk cursor.
+ */
+public class SqliteHelperBenchmarkTest {
+
+	private static final Logger log = Logger.getLogger(SqliteHelperBenchmarkTest.class);
+
+	private static final int ROWS = 100_000;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	public void insertAndFetchBenchmark() throws Exception {
+
+		List<Map<String, String>> rows = new ArrayList<>(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			Map<String, String> row = new HashMap<>();
+			row.put("baseentitycode", "PER_" + (i / 10));
+			row.put("attributecode", "PRI_ATTRIBUTE_" + (i % 10));
+			row.put("weight", "1.0");
+			row.put("valuestring", "value " + i);
+			row.put("privacy", "FALSE");
+			rows.add(row);
+		}
+
+		SqliteHelper helper = new SqliteHelper();
+		String url = "jdbc:sqlite:" + dir.resolve("benchmark" + SqliteHelper.SQLITE_EXTENSION);
+		try (Connection connection = DriverManager.getConnection(url)) {
+			helper.createTable(connection, "entityattribute", true);
+
+			long start = System.currentTimeMillis();
+			helper.insertRecordIntoDatabase(connection, "entityattribute", rows);
+			long inserted = System.currentTimeMillis() - start;
+
+			start = System.currentTimeMillis();
+			AtomicInteger count = new AtomicInteger();
+			int fetched = helper.forEachRecord(connection, "entityattribute", record -> count.incrementAndGet());
+			long read = System.currentTimeMillis() - start;
+
+			log.info("Inserted " + ROWS + " rows in " + inserted + "ms, read " + fetched + " rows in " + read + "ms");
+			assertEquals(ROWS, fetched);
+			assertEquals(ROWS, count.get());
+		}
+	}
+}
@@ -1,7 +1,8 @@
 package life.genny.dropkick.live.data;
 
 import io.quarkus.runtime.StartupEvent;
-import io.smallrye.reactive.messaging.annotations.Blocking;
+import life.genny.dropkick.typeahead.TypeaheadIndexes;
+import life.genny.qwandaq.Answer;
 import life.genny.qwandaq.attribute.Attribute;
 import life.genny.qwandaq.attribute.EntityAttribute;
 import life.genny.qwandaq.entity.BaseEntity;
@@ -16,14 +17,17 @@ import life.genny.qwandaq.graphql.ProcessData;
 import life.genny.qwandaq.kafka.KafkaTopic;
 import life.genny.qwandaq.managers.CacheManager;
 import life.genny.qwandaq.managers.capabilities.CapabilitiesManager;
+import life.genny.qwandaq.message.QDataAnswerMessage;
 import life.genny.qwandaq.message.QDataBaseEntityMessage;
 import life.genny.qwandaq.models.UserToken;
 import life.genny.qwandaq.utils.*;
 import life.genny.serviceq.Service;
 import life.genny.serviceq.intf.GennyScopeInit;
+import life.genny.serviceq.intf.KeyedMessageExecutor;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
 import org.jboss.logging.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -39,6 +43,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 
 @ApplicationScoped
@@ -52,6 +57,9 @@ public class InternalConsumer {
 	@Inject
 	GennyScopeInit scope;
 
+	@Inject
+	KeyedMessageExecutor executor;
+
 	@Inject
 	Service service;
 
@@ -82,6 +90,9 @@ public class InternalConsumer {
 	@Inject
 	FilterUtils filter;
 
+	@Inject
+	TypeaheadIndexes typeahead;
+
 	Jsonb jsonb = JsonbBuilder.create();
 
 	void onStart(@Observes StartupEvent ev) {
@@ -98,7 +109,28 @@ public class InternalConsumer {
 	 * Consume incoming answers for inference
 	 */
 	@Incoming("events")
-	@Blocking
+	public CompletionStage<Void> receiveEvent(Message<String> message) {
+		return executor.submit(message, this::getEvent);
+	}
+
+	/**
+	 * Consume answers, dropping the typeahead indexes they may change
+	 */
+	@Incoming("genny_data")
+	public CompletionStage<Void> receiveData(Message<String> message) {
+		return executor.submit(message, this::getData);
+	}
+
+	public void getData(String data) {
+
+		scope.init(data);
+		QDataAnswerMessage msg = jsonb.fromJson(data, QDataAnswerMessage.class);
+		String productCode = userToken.getProductCode();
+		for (Answer answer : msg.getItems())
+			typeahead.onAnswer(productCode, answer);
+		scope.destroy();
+	}
+
 	public void getEvent(String event) {
 
 		Instant start = Instant.now();
@@ -201,13 +233,6 @@ public class InternalConsumer {
 			throw new ItemNotFoundException(productCode, "SearchEntity", key);
 
 		log.debug("Using Search Entity: " + searchEntity);
-		// Filter by name wildcard provided by user
-		if(!StringUtils.isBlank(searchText)) {
-		searchEntity.add(new Or(
-			new Filter(Attribute.PRI_NAME, Operator.LIKE, searchText + "%"),
-			new Filter(Attribute.PRI_NAME, Operator.LIKE, "% " + searchText + "%")));
-		}
-		
 		searchEntity.add(new Column("PRI_NAME", "Name"));
 
 		// init context map
@@ -220,8 +245,19 @@ public class InternalConsumer {
 		searchEntity.setRealm(userToken.getProductCode());
 		searchEntity = searchUtils.mergeFilterValues(searchEntity, ctxMap);
 
-		// Perform search and evaluate columns
-		List<BaseEntity> results = searchUtils.searchBaseEntitys(searchEntity);
+		// serve the keystroke from the typeahead index where possible
+		List<BaseEntity> results = typeahead.search(searchEntity, searchText);
+		if (results == null) {
+			// Filter by name wildcard provided by user
+			if(!StringUtils.isBlank(searchText)) {
+			searchEntity.add(new Or(
+				new Filter(Attribute.PRI_NAME, Operator.LIKE, searchText + "%"),
+				new Filter(Attribute.PRI_NAME, Operator.LIKE, "% " + searchText + "%")));
+			}
+
+			// Perform search and evaluate columns
+			results = searchUtils.searchBaseEntitys(searchEntity);
+		}
 
 		if (results == null)
 			throw new DebugException("Dropdown search returned null");
@@ -0,0 +1,181 @@
+package life.genny.dropkick.typeahead;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+import life.genny.qwandaq.attribute.Attribute;
+import life.genny.qwandaq.attribute.EntityAttribute;
+import life.genny.qwandaq.entity.BaseEntity;
+
+/**
+ * The base results of a dropdown search, indexed by name.
+ *
+ * A name matches when one of its words starts with the text, as the
+ * search would with PRI_NAME LIKE 'text%' OR PRI_NAME LIKE '% text%'.
+ * The suffixes of each name starting at a word are kept sorted, so a
+ * match is a binary search and a scan. Text that matches no word start
+ * falls back to a trigram lookup for names containing the text.
+ *
+ * Results keep the order of the base search. The index is never
+ * modified once built.
+ */
+public class TypeaheadIndex {
+
+	private static final int GRAM = 3;
+
+	private final List<BaseEntity> entities;
+	private final String[] names;
+
+	// word start suffixes of every name, sorted, and the entity of each
+	private final String[] suffixes;
+	private final int[] owners;
+
+	private final Map<String, int[]> trigrams;
+
+	private final Set<String> filterCodes;
+	private final Set<String> prefixes;
+
+	/**
+	 * @param entities    The base results, in search order
+	 * @param filterCodes The attribute codes filtered on by the base search,
+	 *                    or null if they could not all be found
+	 * @param prefixes    The code prefixes the base search is limited to,
+	 *                    or null if it is not limited to any
+	 */
+	public TypeaheadIndex(List<BaseEntity> entities, Set<String> filterCodes, Set<String> prefixes) {
+		this.entities = Collections.unmodifiableList(new ArrayList<>(entities));
+		this.filterCodes = filterCodes;
+		this.prefixes = prefixes;
+		this.names = new String[entities.size()];
+
+		List<String> suffixList = new ArrayList<>();
+		List<Integer> ownerList = new ArrayList<>();
+		Map<String, Set<Integer>> grams = new HashMap<>();
+
+		for (int i = 0; i < names.length; i++) {
+			BaseEntity entity = entities.get(i);
+			String name = normalise(nameOf(entity));
+			names[i] = name;
+			for (int start = 0; start < name.length(); start++) {
+				if (start == 0 || name.charAt(start - 1) == ' ') {
+					suffixList.add(name.substring(start));
+					ownerList.add(i);
+				}
+			}
+			for (int start = 0; start + GRAM <= name.length(); start++)
+				grams.computeIfAbsent(name.substring(start, start + GRAM), k -> new HashSet<>()).add(i);
+		}
+
+		Integer[] order = new Integer[suffixList.size()];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, (a, b) -> suffixList.get(a).compareTo(suffixList.get(b)));
+
+		this.suffixes = new String[order.length];
+		this.owners = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			suffixes[i] = suffixList.get(order[i]);
+			owners[i] = ownerList.get(order[i]);
+		}
+
+		this.trigrams = new HashMap<>();
+		for (Map.Entry<String, Set<Integer>> gram : grams.entrySet())
+			trigrams.put(gram.getKey(), gram.getValue().stream().mapToInt(Integer::intValue).sorted().toArray());
+	}
+
+	/**
+	 * Lower case a name, trimming and collapsing its whitespace.
+	 *
+	 * @param text The text to normalise
+	 * @return The normalised text
+	 */
+	public static String normalise(String text) {
+		if (text == null)
+			return "";
+		return StringUtils.normalizeSpace(text).toLowerCase();
+	}
+
+	/**
+	 * Find the entities whose name matches the text.
+	 *
+	 * @param text  The text typed
+	 * @param limit The most entities to return
+	 * @return The matching entities, in search order
+	 */
+	public List<BaseEntity> search(String text, int limit) {
+		String query = normalise(text);
+		if (query.isEmpty())
+			return entities.subList(0, Math.min(limit, entities.size()));
+
+		BitSet matched = new BitSet(names.length);
+		int from = Arrays.binarySearch(suffixes, query);
+		if (from < 0)
+			from = -from - 1;
+		for (int i = from; i < suffixes.length && suffixes[i].startsWith(query); i++)
+			matched.set(owners[i]);
+
+		if (matched.isEmpty() && query.length() >= GRAM)
+			matchContaining(query, matched);
+
+		List<BaseEntity> results = new ArrayList<>(Math.min(limit, matched.cardinality()));
+		for (int i = matched.nextSetBit(0); i >= 0 && results.size() < limit; i = matched.nextSetBit(i + 1))
+			results.add(entities.get(i));
+		return results;
+	}
+
+	private void matchContaining(String query, BitSet matched) {
+		// start from the rarest trigram, then check the whole text
+		int[] candidates = null;
+		for (int start = 0; start + GRAM <= query.length(); start++) {
+			int[] postings = trigrams.get(query.substring(start, start + GRAM));
+			if (postings == null)
+				return;
+			if (candidates == null || postings.length < candidates.length)
+				candidates = postings;
+		}
+		for (int candidate : candidates) {
+			if (names[candidate].contains(query))
+				matched.set(candidate);
+		}
+	}
+
+	/**
+	 * Check if an update to an entity may change the results of the index.
+	 *
+	 * @param entityCode    The code of the updated entity
+	 * @param attributeCode The code of the updated attribute
+	 * @return True if the index should be rebuilt
+	 */
+	public boolean isAffectedBy(String entityCode, String attributeCode) {
+		boolean relevant = Attribute.PRI_NAME.equals(attributeCode) || filterCodes == null
+				|| filterCodes.contains(attributeCode);
+		// an entity of the kind searched for may have joined or left the results,
+		// taken from the search rather than the results so an empty index can be
+		return relevant && (prefixes == null || prefixes.contains(prefixOf(entityCode)));
+	}
+
+	public int size() {
+		return entities.size();
+	}
+
+	private static String nameOf(BaseEntity entity) {
+		if (!StringUtils.isBlank(entity.getName()))
+			return entity.getName();
+		return entity.findEntityAttribute(Attribute.PRI_NAME)
+				.map(EntityAttribute::getValueString)
+				.orElse("");
+	}
+
+	private static String prefixOf(String code) {
+		return code == null ? "" : StringUtils.substringBefore(code, "_");
+	}
+}
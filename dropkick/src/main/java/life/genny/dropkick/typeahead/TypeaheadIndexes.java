@@ -0,0 +1,253 @@
+package life.genny.dropkick.typeahead;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import life.genny.qwandaq.Answer;
+import life.genny.qwandaq.attribute.Attribute;
+import life.genny.qwandaq.attribute.EntityAttribute;
+import life.genny.qwandaq.constants.ECacheRef;
+import life.genny.qwandaq.entity.BaseEntity;
+import life.genny.qwandaq.entity.search.SearchEntity;
+import life.genny.qwandaq.entity.search.clause.Clause;
+import life.genny.qwandaq.entity.search.clause.ClauseContainer;
+import life.genny.qwandaq.entity.search.trait.Filter;
+import life.genny.qwandaq.managers.CacheManager;
+import life.genny.qwandaq.serialization.entityattribute.EntityAttributeKey;
+import life.genny.qwandaq.utils.ProductCache;
+import life.genny.qwandaq.utils.SearchUtils;
+
+/**
+ * Holds a {@link TypeaheadIndex} per product and dropdown search, so
+ * keystrokes are answered locally rather than by a search each.
+ *
+ * A search is identified by its merged form, so dropdowns filtered on
+ * their source or target get an index per source or target. Searches
+ * whose results depend on the user (capability requirements, or filters
+ * left for fyodor to merge) are never indexed.
+ *
+ * Indexes are dropped when an answer may change their results, and the
+ * ttl bounds how long any other change takes to show. Answers arrive
+ * before they are saved, so an answer is held until its value shows in
+ * the shared cache, and until then the indexes it affects are used for
+ * a single keystroke rather than kept.
+ */
+@ApplicationScoped
+public class TypeaheadIndexes {
+
+	private static final Logger log = Logger.getLogger(TypeaheadIndexes.class);
+
+	// marks searches with too many base results to index
+	private static final TypeaheadIndex UNINDEXABLE = new TypeaheadIndex(List.of(), Set.of(), Set.of());
+
+	@ConfigProperty(name = "genny.typeahead.max-size", defaultValue = "500")
+	Integer maxSize;
+
+	@ConfigProperty(name = "genny.typeahead.ttl-seconds", defaultValue = "60")
+	Long ttlSeconds;
+
+	@ConfigProperty(name = "genny.typeahead.max-entries", defaultValue = "5000")
+	Integer maxEntries;
+
+	@Inject
+	SearchUtils searchUtils;
+
+	@Inject
+	CacheManager cm;
+
+	Jsonb jsonb = JsonbBuilder.create();
+
+	private ProductCache<TypeaheadIndex> indexes;
+	// answers not yet seen saved, by target and attribute
+	private ProductCache<Answer> unsaved;
+
+	@PostConstruct
+	void init() {
+		indexes = new ProductCache<>(maxSize, ttlSeconds * 1000L);
+		unsaved = new ProductCache<>(maxEntries, ttlSeconds * 1000L);
+	}
+
+	/**
+	 * Find the base results of a merged dropdown search whose name matches the text.
+	 *
+	 * @param searchEntity The merged search, without a name filter
+	 * @param text         The text typed
+	 * @return The matching entities, or null if the search cannot be indexed
+	 */
+	public List<BaseEntity> search(SearchEntity searchEntity, String text) {
+
+		if (searchEntity.hasCapabilityRequirements())
+			return null;
+		String json = jsonb.toJson(searchEntity);
+		if (json.contains("[["))
+			return null;
+
+		String productCode = searchEntity.getRealm();
+		String key = searchEntity.getCode() + ":" + UUID.nameUUIDFromBytes(json.getBytes(StandardCharsets.UTF_8));
+		TypeaheadIndex index = indexes.get(productCode, key);
+		if (index == null) {
+			index = build(json);
+			if (index == null)
+				return null;
+			// an index that may miss an unsaved answer serves this keystroke only
+			if (index == UNINDEXABLE || !awaitingSave(productCode, index))
+				indexes.put(productCode, key, index);
+		}
+		if (index == UNINDEXABLE)
+			return null;
+
+		return index.search(text, searchEntity.getPageSize());
+	}
+
+	/**
+	 * Fetch every base result of a search and index them.
+	 *
+	 * @return The index, or null if the search failed
+	 */
+	private TypeaheadIndex build(String json) {
+
+		long start = System.currentTimeMillis();
+		SearchEntity base = jsonb.fromJson(json, SearchEntity.class);
+		base.setPageStart(0);
+		base.setPageSize(maxEntries + 1);
+
+		// streamed so a failed search can be told from an empty result, which is kept
+		List<BaseEntity> results = new ArrayList<>();
+		if (searchUtils.streamBaseEntitys(base, results::add) == null)
+			return null;
+		if (results.size() > maxEntries) {
+			log.info("Not indexing " + base.getCode() + ", it has more than " + maxEntries + " results");
+			return UNINDEXABLE;
+		}
+
+		TypeaheadIndex index = new TypeaheadIndex(results, filterCodes(base.getClauseContainers(), new HashSet<>()),
+				codePrefixes(base.getClauseContainers()));
+		log.info("Indexed " + index.size() + " results of " + base.getCode() + " in "
+				+ (System.currentTimeMillis() - start) + "ms");
+		return index;
+	}
+
+	private static Set<String> filterCodes(List<ClauseContainer> containers, Set<String> codes) {
+		for (ClauseContainer container : containers) {
+			if (container.getFilter() != null)
+				codes.add(container.getFilter().getCode());
+			Clause clause = container.getAnd() != null ? container.getAnd() : container.getOr();
+			if (clause != null)
+				filterCodes(clause.getClauseContainers(), codes);
+		}
+		return codes;
+	}
+
+	/**
+	 * Find the code prefixes the results of a search are limited to by its
+	 * PRI_CODE filters, such as PRI_CODE LIKE 'PER_%'.
+	 *
+	 * @param containers The clauses of the search
+	 * @return The prefixes, or null if the results are not limited to any
+	 */
+	public static Set<String> codePrefixes(List<ClauseContainer> containers) {
+		// every clause must hold, so any one limiting the prefix will do
+		Set<String> prefixes = null;
+		for (ClauseContainer container : containers) {
+			Set<String> found = null;
+			if (container.getFilter() != null)
+				found = codePrefixes(container.getFilter());
+			else if (container.getAnd() != null)
+				found = codePrefixes(container.getAnd().getClauseContainers());
+			else if (container.getOr() != null)
+				found = anyCodePrefixes(container.getOr().getClauseContainers());
+			if (found != null) {
+				if (prefixes == null)
+					prefixes = new HashSet<>();
+				prefixes.addAll(found);
+			}
+		}
+		return prefixes;
+	}
+
+	// only one clause must hold, so each must limit the prefix
+	private static Set<String> anyCodePrefixes(List<ClauseContainer> containers) {
+		Set<String> prefixes = new HashSet<>();
+		for (ClauseContainer container : containers) {
+			Set<String> found = codePrefixes(List.of(container));
+			if (found == null)
+				return null;
+			prefixes.addAll(found);
+		}
+		return prefixes.isEmpty() ? null : prefixes;
+	}
+
+	private static Set<String> codePrefixes(Filter filter) {
+		if (!Attribute.PRI_CODE.equals(filter.getCode()) || !(filter.getValue() instanceof String value))
+			return null;
+		boolean limiting = switch (filter.getOperator()) {
+			case LIKE, STARTS_WITH, EQUALS -> true;
+			default -> false;
+		};
+		String prefix = StringUtils.substringBefore(value, "_");
+		if (!limiting || !value.contains("_") || prefix.isEmpty() || prefix.contains("%"))
+			return null;
+		return Set.of(prefix);
+	}
+
+	/**
+	 * Drop the indexes whose results an answer may change, and hold the
+	 * answer until it is saved.
+	 *
+	 * @param productCode The product of the answer
+	 * @param answer      The answer
+	 */
+	public void onAnswer(String productCode, Answer answer) {
+		unsaved.put(productCode, answer.getTargetCode() + ":" + answer.getAttributeCode(), answer);
+		indexes.evictValuesIf(productCode, index -> index != UNINDEXABLE
+				&& index.isAffectedBy(answer.getTargetCode(), answer.getAttributeCode()));
+	}
+
+	/**
+	 * Check if an index may be missing an answer that has not been saved yet.
+	 * Answers seen saved are let go.
+	 */
+	private boolean awaitingSave(String productCode, TypeaheadIndex index) {
+
+		boolean awaiting = false;
+		for (Map.Entry<String, Answer> entry : unsaved.values(productCode).entrySet()) {
+			Answer answer = entry.getValue();
+			if (!index.isAffectedBy(answer.getTargetCode(), answer.getAttributeCode()))
+				continue;
+			if (isSaved(productCode, answer))
+				unsaved.evict(productCode, entry.getKey());
+			else
+				awaiting = true;
+		}
+		return awaiting;
+	}
+
+	private boolean isSaved(String productCode, Answer answer) {
+		EntityAttribute saved = (EntityAttribute) cm.getPersistableEntity(ECacheRef.BASEENTITY_ATTRIBUTE,
+				new EntityAttributeKey(productCode, answer.getTargetCode(), answer.getAttributeCode()));
+		return saved != null && StringUtils.equalsIgnoreCase(StringUtils.trim(saved.getAsLoopString()),
+				StringUtils.trim(answer.getValue()));
+	}
+
+	/**
+	 * @return The index cache, for its statistics
+	 */
+	public ProductCache<TypeaheadIndex> getIndexes() {
+		return indexes;
+	}
+}
@@ -0,0 +1,103 @@
+package life.genny.test.dropkick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import life.genny.dropkick.typeahead.TypeaheadIndex;
+import life.genny.dropkick.typeahead.TypeaheadIndexes;
+import life.genny.qwandaq.attribute.Attribute;
+import life.genny.qwandaq.entity.BaseEntity;
+import life.genny.qwandaq.entity.search.SearchEntity;
+import life.genny.qwandaq.entity.search.trait.Filter;
+import life.genny.qwandaq.entity.search.trait.Operator;
+
+/**
+ * Checks the index matches names as PRI_NAME LIKE 'text%' OR PRI_NAME LIKE '% text%'
+ * would, falling back to names containing the text, in the order of the base search.
+ */
+public class TypeaheadIndexTest {
+
+	// deliberately not in name order
+	private final TypeaheadIndex index = new TypeaheadIndex(List.of(
+			new BaseEntity("PER_BOB", "Bob Smithers"),
+			new BaseEntity("PER_ALICE", "  Alice   SMITH "),
+			new BaseEntity("PER_FELICITY", "Felicity Gusmith"),
+			new BaseEntity("PER_ALAN", "Alan Bobson")), Set.of("LNK_COMPANY"), Set.of("PER"));
+
+	private List<String> search(String text, int limit) {
+		return index.search(text, limit).stream()
+				.map(BaseEntity::getCode)
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void matchesNamePrefix() {
+		assertEquals(List.of("PER_ALICE", "PER_ALAN"), search("al", 10));
+		assertEquals(List.of("PER_ALICE"), search("ALICE smi", 10));
+		assertEquals(List.of(), search("alx", 10));
+	}
+
+	@Test
+	public void matchesWordStarts() {
+		// word starts win, so Gusmith is not matched by its middle
+		assertEquals(List.of("PER_BOB", "PER_ALICE"), search("smith", 10));
+		assertEquals(List.of("PER_BOB", "PER_ALAN"), search("bob", 10));
+	}
+
+	@Test
+	public void fallsBackToTrigrams() {
+		assertEquals(List.of("PER_ALICE", "PER_FELICITY"), search("lic", 10));
+		assertEquals(List.of("PER_FELICITY"), search("usmi", 10));
+		// too short to look up by trigram
+		assertEquals(List.of(), search("li", 10));
+	}
+
+	@Test
+	public void keepsSearchOrderAndLimit() {
+		assertEquals(List.of("PER_BOB", "PER_ALICE", "PER_FELICITY", "PER_ALAN"), search("", 10));
+		assertEquals(List.of("PER_BOB", "PER_ALICE"), search(" ", 2));
+		assertEquals(List.of("PER_ALICE"), search("al", 1));
+		assertEquals(List.of(), new TypeaheadIndex(List.of(), Set.of(), Set.of("PER")).search("al", 10));
+	}
+
+	@Test
+	public void isAffectedByNamesAndFiltersOfItsKind() {
+		assertTrue(index.isAffectedBy("PER_NEW", Attribute.PRI_NAME));
+		assertTrue(index.isAffectedBy("PER_BOB", "LNK_COMPANY"));
+		assertFalse(index.isAffectedBy("PER_BOB", "PRI_EMAIL"));
+		assertFalse(index.isAffectedBy("CPY_ACME", Attribute.PRI_NAME));
+
+		// an empty index is still affected by the entities it searches for
+		TypeaheadIndex empty = new TypeaheadIndex(List.of(), Set.of(), Set.of("PER"));
+		assertTrue(empty.isAffectedBy("PER_NEW", Attribute.PRI_NAME));
+		assertFalse(empty.isAffectedBy("CPY_ACME", Attribute.PRI_NAME));
+		// and without a code filter, by an entity of any kind
+		assertTrue(new TypeaheadIndex(List.of(), Set.of(), null).isAffectedBy("CPY_ACME", Attribute.PRI_NAME));
+	}
+
+	@Test
+	public void findsPrefixesInCodeFilters() {
+		SearchEntity search = new SearchEntity("SBE_PEOPLE", "People")
+				.add(new Filter(Attribute.PRI_CODE, Operator.LIKE, "PER_%"))
+				.add(new Filter("LNK_COMPANY", Operator.CONTAINS, "CPY_ACME"));
+		assertEquals(Set.of("PER"), TypeaheadIndexes.codePrefixes(search.getClauseContainers()));
+
+		SearchEntity starting = new SearchEntity("SBE_COMPANIES", "Companies")
+				.add(new Filter(Attribute.PRI_CODE, Operator.STARTS_WITH, "CPY_"));
+		assertEquals(Set.of("CPY"), TypeaheadIndexes.codePrefixes(starting.getClauseContainers()));
+
+		// not limited to a prefix
+		SearchEntity unlimited = new SearchEntity("SBE_ANY", "Any")
+				.add(new Filter(Attribute.PRI_CODE, Operator.LIKE, "%_ACME"))
+				.add(new Filter("LNK_COMPANY", Operator.CONTAINS, "CPY_ACME"));
+		assertNull(TypeaheadIndexes.codePrefixes(unlimited.getClauseContainers()));
+	}
+}
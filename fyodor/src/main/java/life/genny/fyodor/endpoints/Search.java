@@ -2,6 +2,7 @@ package life.genny.fyodor.endpoints;
 
 import io.vertx.core.http.HttpServerRequest;
 import life.genny.fyodor.utils.FyodorUltra;
+import life.genny.qwandaq.entity.BaseEntity;
 import life.genny.qwandaq.entity.search.SearchEntity;
 import life.genny.qwandaq.exception.runtime.ItemNotFoundException;
 import life.genny.qwandaq.models.Page;
@@ -12,6 +13,16 @@ import life.genny.qwandaq.utils.HttpUtils;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
 import javax.inject.Inject;
 import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbBuilder;
@@ -21,6 +32,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 /**
  * Search - Endpoints providing classic Genny Search functionality
@@ -83,6 +95,77 @@ public class Search {
 		}
 	}
 
+	/**
+	 * A POST request for search results based on a
+	 * {@link SearchEntity}, streaming each entity to the 
+	 * response as it is fetched. The response body has the 
+	 * same shape as {@link Page}, with the items written last.
+	 *
+	 * @return Success
+	 */
+	@POST
+	@Path("/api/search/stream")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response stream(SearchEntity searchEntity) {
+
+		log.info("Stream POST received..");
+
+		if (userToken == null) {
+			log.error("Bad or no header token in Search POST provided");
+			return Response.status(Response.Status.BAD_REQUEST).build();
+		}
+
+		// find codes and total up front, so errors are still reported
+		try {
+			List<String> codes = new ArrayList<>();
+			Page page = fyodor.fetchCodes(searchEntity, codes);
+			Set<String> allowed = searchEntity.allowedColumns();
+			log.info("Found " + page.getTotal() + " results!");
+
+			StreamingOutput output = out -> writePage(out, page, codes, allowed);
+			return Response.ok(output).build();
+
+		} catch (ItemNotFoundException e) {
+			log.error(e.getMessage(), e);
+			return Response.serverError().entity(HttpUtils.error(e.getMessage())).build();
+		}
+	}
+
+	/**
+	 * Write a page to a stream, fetching each entity only 
+	 * when it is about to be written.
+	 *
+	 * @param out The stream to write to
+	 * @param page The page details
+	 * @param codes The codes of the page items
+	 * @param allowed The allowed columns of the search
+	 */
+	private void writePage(OutputStream out, Page page, List<String> codes, Set<String> allowed) throws IOException {
+
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+		writer.write("{\"total\":" + page.getTotal());
+		writer.write(",\"pageNumber\":" + page.getPageNumber());
+		writer.write(",\"pageSize\":" + page.getPageSize());
+		writer.write(",\"pageStart\":" + page.getPageStart());
+		writer.write(",\"items\":[");
+
+		boolean first = true;
+		for (String code : codes) {
+			BaseEntity baseEntity = fyodor.fetchWithAttributes(code, 0, allowed);
+			if (baseEntity == null)
+				continue;
+			if (!first)
+				writer.write(",");
+			// entities are serialised one at a time to keep the heap flat
+			writer.write(jsonb.toJson(baseEntity));
+			first = false;
+		}
+
+		writer.write("]}");
+		writer.flush();
+	}
+
 	@POST
 	@Path("/api/search/count")
 	@Produces(MediaType.APPLICATION_JSON)
@@ -94,9 +177,7 @@ public class Search {
 		}
 
 		try {
-			Page page = fyodor.fetchBaseEntities(searchEntity);
-
-			Long count = page.getTotal();
+			Long count = fyodor.count(searchEntity);
 			log.infof("Found %s entities", count);
 
 			return "" + count;
@@ -107,4 +188,26 @@ public class Search {
 		}
 	}
 
+	@POST
+	@Path("/api/search/exists")
+	@Produces(MediaType.APPLICATION_JSON)
+	public String exists(SearchEntity searchEntity) {
+
+		if (userToken == null) {
+			log.error("Bad or no header token in Search POST provided");
+			return "false";
+		}
+
+		try {
+			Boolean exists = fyodor.exists(searchEntity);
+			log.infof("Match found: %s", exists);
+
+			return "" + exists;
+
+		} catch (ItemNotFoundException e) {
+			log.error(e.getMessage(), e);
+			return HttpUtils.error(e.getMessage());
+		}
+	}
+
 }
@@ -2,6 +2,7 @@ package life.genny.fyodor.live.data;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.CompletionStage;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
@@ -11,10 +12,10 @@ import javax.json.bind.JsonbBuilder;
 
 import life.genny.qwandaq.utils.AttributeUtils;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
 import org.jboss.logging.Logger;
 
 import io.quarkus.runtime.StartupEvent;
-import io.smallrye.reactive.messaging.annotations.Blocking;
 import life.genny.fyodor.utils.FyodorUltra;
 import life.genny.qwandaq.attribute.Attribute;
 import life.genny.qwandaq.attribute.EntityAttribute;
@@ -29,6 +30,7 @@ import life.genny.qwandaq.models.UserToken;
 import life.genny.qwandaq.utils.KafkaUtils;
 import life.genny.serviceq.Service;
 import life.genny.serviceq.intf.GennyScopeInit;
+import life.genny.serviceq.intf.KeyedMessageExecutor;
 
 @ApplicationScoped
 public class InternalConsumer {
@@ -40,6 +42,9 @@ public class InternalConsumer {
 	@Inject
 	GennyScopeInit scope;
 
+	@Inject
+	KeyedMessageExecutor executor;
+
 	@Inject
 	Service service;
 
@@ -66,7 +71,10 @@ public class InternalConsumer {
 	}
 
 	@Incoming("search_events")
-	@Blocking
+	public CompletionStage<Void> receiveSearchEvents(Message<String> message) {
+		return executor.submit(message, this::getSearchEvents);
+	}
+
 	public void getSearchEvents(String data) {
 
 		scope.init(data);
@@ -106,56 +106,89 @@ public class FyodorUltra {
 
 		// apply filter
 		int index = 0;
-		for (BaseEntity baseEntity : page.getItems()) {
-			baseEntity.setIndex(index);
-			beUtils.addNonLiteralAttributes(baseEntity);
-			List<String[]> missedCodes = new ArrayList<>(allowed.size());
-			for (String attributeCode : allowed) {
-				EntityAttribute ea = null;
-				if (attributeCode.startsWith("_")) {
-					// handle asociated columns
+		for (BaseEntity baseEntity : page.getItems())
+			addColumns(baseEntity, index, allowed);
+
+		return page;
+	}
+
+	/**
+	 * Fetch a single BaseEntity with the allowed columns of a search.
+	 *
+	 * @param code The code of the entity
+	 * @param index The index of the entity in the page
+	 * @param allowed The allowed columns of the search
+	 * @return The entity, or null if it could not be found
+	 */
+	public BaseEntity fetchWithAttributes(String code, int index, Set<String> allowed) {
+
+		BaseEntity baseEntity;
+		try {
+			baseEntity = beUtils.getBaseEntity(code);
+		} catch (ItemNotFoundException e) {
+			e.printStackTrace();
+			return null;
+		}
+
+		addColumns(baseEntity, index, allowed);
+		return baseEntity;
+	}
+
+	/**
+	 * Add the allowed column attributes to a BaseEntity.
+	 *
+	 * @param baseEntity The entity to add to
+	 * @param index The index of the entity in the page
+	 * @param allowed The allowed columns of the search
+	 */
+	private void addColumns(BaseEntity baseEntity, int index, Set<String> allowed) {
+
+		baseEntity.setIndex(index);
+		beUtils.addNonLiteralAttributes(baseEntity);
+		List<String[]> missedCodes = new ArrayList<>(allowed.size());
+		for (String attributeCode : allowed) {
+			EntityAttribute ea = null;
+			if (attributeCode.startsWith("_")) {
+				// handle asociated columns
+				try {
+					ea = getAssociatedColumnValue(baseEntity, attributeCode);
+					// De-escalate the known issue and skip the bad ea
+				} catch(BadDataException e) {
+					log.error(ANSIColour.doColour(e.getMessage(), ANSIColour.RED));
+					continue;
+				}
+				
+				// set attr codes to associated code
+				ea.setAttributeCode(attributeCode);
+				ea.getAttribute().setCode(attributeCode);
+			} else {
+				// otherwise fetch entity attribute
+				if (PRI_NAME.equals(attributeCode)) {
+					ea = new EntityAttribute(baseEntity, attributeUtils.getAttribute(PRI_NAME, true), 1.0, null);
+					ea.setValueString(baseEntity.getName());
+				}
+				else if (PRI_CREATED.equals(attributeCode)) {
+					ea = new EntityAttribute(baseEntity, attributeUtils.getAttribute(PRI_CREATED, true), 1.0, null);
+					ea.setValueDateTime(baseEntity.getCreated());
+				}
+				else {
 					try {
-						ea = getAssociatedColumnValue(baseEntity, attributeCode);
-						// De-escalate the known issue and skip the bad ea
-					} catch(BadDataException e) {
-						log.error(ANSIColour.doColour(e.getMessage(), ANSIColour.RED));
-						continue;
-					}
-					
-					// set attr codes to associated code
-					ea.setAttributeCode(attributeCode);
-					ea.getAttribute().setCode(attributeCode);
-				} else {
-					// otherwise fetch entity attribute
-					if (PRI_NAME.equals(attributeCode)) {
-						ea = new EntityAttribute(baseEntity, attributeUtils.getAttribute(PRI_NAME, true), 1.0, null);
-						ea.setValueString(baseEntity.getName());
-					}
-					else if (PRI_CREATED.equals(attributeCode)) {
-						ea = new EntityAttribute(baseEntity, attributeUtils.getAttribute(PRI_CREATED, true), 1.0, null);
-						ea.setValueDateTime(baseEntity.getCreated());
-					}
-					else {
-						try {
-							ea = beaUtils.getEntityAttribute(baseEntity.getRealm(), baseEntity.getCode(), attributeCode, true, true);
-						} catch (ItemNotFoundException e) {
-							missedCodes.add(new String[] {attributeCode, e.getMessage()});
-						}
+						ea = beaUtils.getEntityAttribute(baseEntity.getRealm(), baseEntity.getCode(), attributeCode, true, true);
+					} catch (ItemNotFoundException e) {
+						missedCodes.add(new String[] {attributeCode, e.getMessage()});
 					}
 				}
-				if (ea != null) {
-					baseEntity.addAttribute(ea);
-				} else 
-					missedCodes.add(new String[] {attributeCode, "Entity Attribute is null after processing"});
-			}
-
-			if(!missedCodes.isEmpty() && log.isTraceEnabled()) {
-				String missedCodeStr = CommonUtils.getArrayString(missedCodes, (code) -> code[0]);
-				log.trace("Could not find in BE: " + baseEntity.getCode() + ": " + missedCodeStr);
 			}
+			if (ea != null) {
+				baseEntity.addAttribute(ea);
+			} else 
+				missedCodes.add(new String[] {attributeCode, "Entity Attribute is null after processing"});
 		}
 
-		return page;
+		if(!missedCodes.isEmpty() && log.isTraceEnabled()) {
+			String missedCodeStr = CommonUtils.getArrayString(missedCodes, (code) -> code[0]);
+			log.trace("Could not find in BE: " + baseEntity.getCode() + ": " + missedCodeStr);
+		}
 	}
 
 	/**
@@ -166,29 +199,35 @@ public class FyodorUltra {
 	 */
 	public Page fetchBaseEntities(SearchEntity searchEntity) {
 
-		if (searchEntity == null)
-			throw new NullParameterException("searchEntity");
-
-		log.infof("Performing Search: code = (%s), realm = (%s)", searchEntity.getCode(), searchEntity.getRealm());
-		log.debug("SearchEntity: " + jsonb.toJson(searchEntity));
-		// apply capabilities to traits
-		capHandler.refineSearchFromCapabilities(searchEntity);
-		if (!CapHandler.hasSecureToken(userToken)) {
-			log.debug("Attempting Merging");
-			Map<String, Object> ctxMap = new HashMap<>();
-			ctxMap.put("SOURCE", beUtils.getUserBaseEntity());
-			ctxMap.put("USER", beUtils.getUserBaseEntity());
+		List<String> codes = new ArrayList<>();
+		Page page = fetchCodes(searchEntity, codes);
 
-			searchEntity.getClauseContainers().stream()
-					.map(cc -> cc.getFilter())
-					.filter(f -> f != null && String.class.equals(f.getC()))
-					.forEach(f -> {
-						log.debug("\tMerging: " + f.getValue());
-						String result =(String) mergeUtils.wordMerge((String) f.getValue(), ctxMap);
-						log.debug("\t\tResult: " + result); 
-						f.setValue(mergeUtils.wordMerge((String) f.getValue(), ctxMap));
-			});
+		List<BaseEntity> items = new ArrayList<>();
+		for (String code : codes) {
+			try {
+				BaseEntity be = beUtils.getBaseEntity(code);
+				items.add(be);
+			} catch (ItemNotFoundException e) {
+				e.printStackTrace();
+			}
 		}
+		page.setItems(items);
+
+		return page;
+	}
+
+	/**
+	 * Fetch a page of BaseEntity codes using a SearchEntity. The returned
+	 * page holds the total and paging details, but no items, allowing
+	 * callers to hydrate the entities one at a time.
+	 *
+	 * @param searchEntity
+	 * @param codes The list to add the codes of the page to
+	 * @return The page details
+	 */
+	public Page fetchCodes(SearchEntity searchEntity, List<String> codes) {
+
+		prepareSearch(searchEntity);
 
 		// setup search query
 		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
@@ -230,17 +269,81 @@ public class FyodorUltra {
 				.setMaxResults(pageSize)
 				.getResultList();
 
-		List<String> codes = tuples.stream().map(t -> (String) t.get(0)).collect(Collectors.toList());
-		
-		List<BaseEntity> items = new ArrayList<>();
-		for (String code : codes) {
-			try {
-				BaseEntity be = beUtils.getBaseEntity(code);
-				items.add(be);
-			} catch (ItemNotFoundException e) {
-				e.printStackTrace();
-			}
-		}
+		tuples.stream().map(t -> (String) t.get(0)).forEach(codes::add);
+
+		// perform count
+		Long total = countPrepared(searchEntity);
+
+		log.info("Total Results: " + total);
+
+		Page page = new Page();
+		page.setTotal(total);
+		page.setPageSize(pageSize);
+		page.setPageStart(Long.valueOf(pageStart));
+
+		Integer pageNumber = Math.floorDiv(pageStart, pageSize);
+		page.setPageNumber(pageNumber);
+
+		return page;
+	}
+
+	/**
+	 * Count the BaseEntities matching a SearchEntity, without 
+	 * running the page query or fetching any entities.
+	 *
+	 * @param searchEntity
+	 * @return The total number of matching entities
+	 */
+	public Long count(SearchEntity searchEntity) {
+
+		prepareSearch(searchEntity);
+
+		Long total = countPrepared(searchEntity);
+		log.info("Total Results: " + total);
+
+		return total;
+	}
+
+	/**
+	 * Check if any BaseEntity matches a SearchEntity. The query 
+	 * stops at the first match, so this is cheaper than a count
+	 * when only existence is needed (e.g. uniqueness checks).
+	 *
+	 * @param searchEntity
+	 * @return True if at least one entity matches
+	 */
+	public Boolean exists(SearchEntity searchEntity) {
+
+		prepareSearch(searchEntity);
+
+		CriteriaQuery<Tuple> query = entityManager.getCriteriaBuilder().createTupleQuery();
+		Root<HBaseEntity> baseEntity = query.from(HBaseEntity.class);
+
+		JoinContext jctx = new JoinContext(searchEntity);
+		jctx.setRoot(baseEntity);
+		aggregateQueryElements(query, jctx);
+
+		query.multiselect(baseEntity.get("code"));
+		query.where(jctx.getPredicates().toArray(Predicate[]::new));
+
+		List<Tuple> tuples = entityManager
+				.createQuery(query)
+				.setMaxResults(1)
+				.getResultList();
+
+		return !tuples.isEmpty();
+	}
+
+	/**
+	 * Run the count query for a SearchEntity that 
+	 * has already been prepared.
+	 *
+	 * @param searchEntity
+	 * @return The total number of matching entities
+	 */
+	private Long countPrepared(SearchEntity searchEntity) {
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
 
 		// build count query
 		CriteriaQuery<Long> count = cb.createQuery(Long.class);
@@ -253,25 +356,44 @@ public class FyodorUltra {
 
 		count.select(cb.count(countBaseEntity)).distinct(true);
 		count.where(countCtx.getPredicates().toArray(Predicate[]::new));
-		count.orderBy(countCtx.getOrders().toArray(Order[]::new));
 
 		// perform count
-		Long total = entityManager
+		return entityManager
 				.createQuery(count)
 				.getSingleResult();
+	}
 
-		log.info("Total Results: " + total);
+	/**
+	 * Apply capabilities and merge filter values of a SearchEntity 
+	 * before any query is built from it.
+	 *
+	 * @param searchEntity
+	 */
+	private void prepareSearch(SearchEntity searchEntity) {
 
-		Page page = new Page();
-		page.setTotal(total);
-		page.setItems(items);
-		page.setPageSize(pageSize);
-		page.setPageStart(Long.valueOf(pageStart));
+		if (searchEntity == null)
+			throw new NullParameterException("searchEntity");
 
-		Integer pageNumber = Math.floorDiv(pageStart, pageSize);
-		page.setPageNumber(pageNumber);
+		log.infof("Performing Search: code = (%s), realm = (%s)", searchEntity.getCode(), searchEntity.getRealm());
+		log.debug("SearchEntity: " + jsonb.toJson(searchEntity));
+		// apply capabilities to traits
+		capHandler.refineSearchFromCapabilities(searchEntity);
+		if (!CapHandler.hasSecureToken(userToken)) {
+			log.debug("Attempting Merging");
+			Map<String, Object> ctxMap = new HashMap<>();
+			ctxMap.put("SOURCE", beUtils.getUserBaseEntity());
+			ctxMap.put("USER", beUtils.getUserBaseEntity());
 
-		return page;
+			searchEntity.getClauseContainers().stream()
+					.map(cc -> cc.getFilter())
+					.filter(f -> f != null && String.class.equals(f.getC()))
+					.forEach(f -> {
+						log.debug("\tMerging: " + f.getValue());
+						String result =(String) mergeUtils.wordMerge((String) f.getValue(), ctxMap);
+						log.debug("\t\tResult: " + result); 
+						f.setValue(mergeUtils.wordMerge((String) f.getValue(), ctxMap));
+			});
+		}
 	}
 
 	/**
@@ -4,6 +4,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
@@ -12,9 +13,9 @@ import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
 import org.jboss.logging.Logger;
 import io.quarkus.runtime.StartupEvent;
-import io.smallrye.reactive.messaging.annotations.Blocking;
 import life.genny.gadaq.route.Events;
 import life.genny.kogito.common.kafka.KogitoServiceConsumerIntf;
 import life.genny.kogito.common.service.SearchService;
@@ -31,6 +32,7 @@ import life.genny.qwandaq.utils.SearchUtils;
 import life.genny.qwandaq.utils.SecurityUtils;
 import life.genny.serviceq.Service;
 import life.genny.serviceq.intf.GennyScopeInit;
+import life.genny.serviceq.intf.KeyedMessageExecutor;
 import life.genny.gadaq.search.FilterGroupService;
 import life.genny.gadaq.cache.SearchCaching;
 
@@ -45,6 +47,9 @@ public class InternalConsumer implements KogitoServiceConsumerIntf {
 	@Inject
 	GennyScopeInit scope;
 
+	@Inject
+	KeyedMessageExecutor executor;
+
 	@Inject
 	Service service;
 
@@ -89,7 +94,10 @@ public class InternalConsumer implements KogitoServiceConsumerIntf {
 	 * @param data The incoming data
 	 */
 	@Incoming("valid_data")
-	@Blocking
+	public CompletionStage<Void> receiveData(Message<String> message) {
+		return executor.submit(message, this::getData);
+	}
+
 	public void getData(String data) {
 
 		Instant start = Instant.now();
@@ -129,7 +137,10 @@ public class InternalConsumer implements KogitoServiceConsumerIntf {
 	 * @param event The incoming event
 	 */
 	@Incoming("events")
-	@Blocking
+	public CompletionStage<Void> receiveEvent(Message<String> message) {
+		return executor.submit(message, this::getEvent);
+	}
+
 	public void getEvent(String event) {
 
 		// init scope and process msg
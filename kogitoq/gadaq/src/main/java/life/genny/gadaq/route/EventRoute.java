@@ -0,0 +1,27 @@
+package life.genny.gadaq.route;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method as the handler of event codes for an {@link EventRouter}.
+ *
+ * The method must have the signature {@code boolean handler(QEventMessage msg, String code)},
+ * returning true if the event was handled and routing should stop.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface EventRoute {
+
+    /**
+     * @return Codes routed to the handler when they match exactly
+     */
+    String[] codes() default {};
+
+    /**
+     * @return Prefixes routed to the handler when no exact code matches
+     */
+    String[] prefixes() default {};
+}
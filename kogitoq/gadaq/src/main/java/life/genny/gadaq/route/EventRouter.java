@@ -0,0 +1,151 @@
+package life.genny.gadaq.route;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import life.genny.qwandaq.message.QEventMessage;
+
+/**
+ * Routes event codes to handlers.
+ *
+ * Exact codes are looked up in an immutable map, and prefixes in a trie that is
+ * walked once along the code, so routing takes time proportional to the length of
+ * the code rather than the number of routes. An exact code always wins over a prefix,
+ * and a longer prefix wins over a shorter one.
+ */
+public class EventRouter {
+
+    /**
+     * Handles a routed event.
+     */
+    @FunctionalInterface
+    public interface EventHandler {
+        /**
+         * @param msg The event
+         * @param code The code of the event
+         * @return True if the event was handled and routing should stop
+         */
+        boolean handle(QEventMessage msg, String code);
+    }
+
+    private static class Node {
+        final Map<Character, Node> children = new HashMap<>();
+        EventHandler handler;
+    }
+
+    private final Map<String, EventHandler> exact;
+    private final Node prefixes;
+
+    private EventRouter(Map<String, EventHandler> exact, Node prefixes) {
+        this.exact = Map.copyOf(exact);
+        this.prefixes = prefixes;
+    }
+
+    /**
+     * Find the handler of a code.
+     *
+     * @param code The event code
+     * @return The handler, or null if no route matches
+     */
+    public EventHandler find(String code) {
+        if (code == null)
+            return null;
+        EventHandler handler = exact.get(code);
+        if (handler != null)
+            return handler;
+
+        Node node = prefixes;
+        for (int i = 0; i < code.length(); i++) {
+            node = node.children.get(code.charAt(i));
+            if (node == null)
+                break;
+            if (node.handler != null)
+                handler = node.handler;
+        }
+        return handler;
+    }
+
+    /**
+     * Build a router from the {@link EventRoute} methods of an object.
+     *
+     * @param target The object declaring the handlers
+     * @return The router
+     */
+    public static EventRouter of(Object target) {
+        Builder builder = new Builder();
+        // walk up the hierarchy, as the target may be a generated subclass of the bean
+        for (Class<?> type = target.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Method method : type.getDeclaredMethods()) {
+                EventRoute route = method.getAnnotation(EventRoute.class);
+                if (route != null)
+                    register(builder, target, method, route);
+            }
+        }
+        return builder.build();
+    }
+
+    private static void register(Builder builder, Object target, Method method, EventRoute route) {
+        Class<?>[] params = method.getParameterTypes();
+        if (method.getReturnType() != boolean.class || params.length != 2
+                || params[0] != QEventMessage.class || params[1] != String.class)
+            throw new IllegalStateException("Event route " + method.getName() + " must be boolean (QEventMessage, String)");
+
+        method.setAccessible(true);
+        EventHandler handler = (msg, code) -> {
+            try {
+                return (boolean) method.invoke(target, msg, code);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw new IllegalStateException(e.getCause());
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        for (String code : route.codes())
+            builder.exact(code, handler);
+        for (String prefix : route.prefixes())
+            builder.prefix(prefix, handler);
+    }
+
+    /**
+     * Collects routes for a router.
+     */
+    public static class Builder {
+
+        private final Map<String, EventHandler> exact = new HashMap<>();
+        private final Node prefixes = new Node();
+
+        /**
+         * @param code The exact code to route
+         * @param handler The handler of the code
+         * @return This builder
+         */
+        public Builder exact(String code, EventHandler handler) {
+            if (exact.putIfAbsent(code, handler) != null)
+                throw new IllegalStateException("Duplicate event route for code " + code);
+            return this;
+        }
+
+        /**
+         * @param prefix The code prefix to route
+         * @param handler The handler of codes starting with the prefix
+         * @return This builder
+         */
+        public Builder prefix(String prefix, EventHandler handler) {
+            Node node = prefixes;
+            for (int i = 0; i < prefix.length(); i++)
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+            if (node.handler != null)
+                throw new IllegalStateException("Duplicate event route for prefix " + prefix);
+            node.handler = handler;
+            return this;
+        }
+
+        public EventRouter build() {
+            return new EventRouter(exact, prefixes);
+        }
+    }
+}
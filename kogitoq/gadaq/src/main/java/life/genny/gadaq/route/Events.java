@@ -4,6 +4,7 @@ import static life.genny.kogito.common.utils.KogitoUtils.UseService.SELF;
 
 import java.lang.invoke.MethodHandles;
 
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.json.Json;
@@ -12,6 +13,7 @@ import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbBuilder;
 
 import life.genny.qwandaq.message.QDataAnswerMessage;
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import org.apache.commons.lang3.StringUtils;
 import org.jboss.logging.Logger;
 
@@ -30,11 +32,13 @@ import life.genny.qwandaq.models.UserToken;
 import life.genny.qwandaq.utils.GraphQLUtils;
 import life.genny.qwandaq.utils.KafkaUtils;
 import life.genny.qwandaq.utils.QwandaUtils;
+import life.genny.gadaq.route.EventRouter.EventHandler;
 import life.genny.gadaq.search.FilterGroupService;
 
 /**
  * Events
  */
+@RegisterForReflection
 @ApplicationScoped
 public class Events {
 
@@ -75,6 +79,13 @@ public class Events {
     @Inject
     FilterGroupService filter;
 
+    private EventRouter router;
+
+    @PostConstruct
+    void init() {
+        router = EventRouter.of(this);
+    }
+
     /**
      * @param msg
      */
@@ -90,11 +101,6 @@ public class Events {
 			return;
 		}
 
-		String processId = data.getProcessId();
-
-        String parentCode = data.getParentCode();
-        String targetCode = data.getTargetCode();
-
         // Filter
         if (filter.isValidEvent(msg)) {
             filter.handleBtnEvents(msg);
@@ -106,120 +112,135 @@ public class Events {
 		if ("DD".equals(msg.getEvent_type()))
 			return;
 
-        // auth init
-        if (AUTH_INIT.equals(code)) {
-            kogitoUtils.triggerWorkflow(SELF, "authInit", "userCode", userToken.getUserCode());
-            // We may want services to enact something on auth init, so continue;
-        }
-
-        // submit, next and update
-        if (Question.QUE_SUBMIT.equals(code) || Question.QUE_NEXT.equals(code) || Question.QUE_UPDATE.equals(code)
-                || Question.QUE_PREVIEW.equals(code) || Question.QUE_PUBLISH.equals(code) || Question.QUE_DRAFT.equals(code)) {
-            kogitoUtils.sendSignal(SELF, "processQuestions", processId, "submit");
+        EventHandler handler = router.find(code);
+        if (handler != null && handler.handle(msg, code))
             return;
-        }
 
-        // cancel
-        if (Question.QUE_CANCEL.equals(code)) {
-            kogitoUtils.sendSignal(SELF, "processQuestions", processId, "cancel");
-            return;
-        }
+		/**
+		 * If no route exists within gadaq, the message should be
+		 * sent to the project specific service.
+		 */
+		log.info("Forwarding Event Message...");
+		KafkaUtils.writeMsg(KafkaTopic.GENNY_EVENTS, msg);
+    }
 
-        // reset
-        if (Question.QUE_RESET.equals(code)) {
-            kogitoUtils.sendSignal(SELF, "processQuestions", processId, "reset");
-            return;
-        }
+    @EventRoute(codes = AUTH_INIT)
+    boolean authInit(QEventMessage msg, String code) {
+        kogitoUtils.triggerWorkflow(SELF, "authInit", "userCode", userToken.getUserCode());
+        // We may want services to enact something on auth init, so continue;
+        return false;
+    }
 
-        // previous
-        if (Question.QUE_PREVIOUS.equals(code) || Question.QUE_BACK.equals(code)) {
-            kogitoUtils.sendSignal(SELF, "processQuestions", processId, "previous");
-            return;
-        }
+    // submit, next and update
+    @EventRoute(codes = { Question.QUE_SUBMIT, Question.QUE_NEXT, Question.QUE_UPDATE,
+            Question.QUE_PREVIEW, Question.QUE_PUBLISH, Question.QUE_DRAFT })
+    boolean submit(QEventMessage msg, String code) {
+        kogitoUtils.sendSignal(SELF, "processQuestions", msg.getData().getProcessId(), "submit");
+        return true;
+    }
 
-        // dashboard
-        if (Question.QUE_DASHBOARD.equals(code)) {
-            navigation.sendSummary();
-            return;
-        }
+    @EventRoute(codes = Question.QUE_CANCEL)
+    boolean cancel(QEventMessage msg, String code) {
+        kogitoUtils.sendSignal(SELF, "processQuestions", msg.getData().getProcessId(), "cancel");
+        return true;
+    }
 
-        // bucket view
-        if (Question.QUE_PROCESS.equals(code)) {
-            filter.init(code);
-            search.sendBuckets();
-            return;
-        }
+    @EventRoute(codes = Question.QUE_RESET)
+    boolean reset(QEventMessage msg, String code) {
+        kogitoUtils.sendSignal(SELF, "processQuestions", msg.getData().getProcessId(), "reset");
+        return true;
+    }
 
-        // detail view
-        if (ACT_VIEW.equals(code)) {
-            search.sendDetailView(targetCode);
-            return;
-        }
+    @EventRoute(codes = { Question.QUE_PREVIOUS, Question.QUE_BACK })
+    boolean previous(QEventMessage msg, String code) {
+        kogitoUtils.sendSignal(SELF, "processQuestions", msg.getData().getProcessId(), "previous");
+        return true;
+    }
 
-        // search pagination
-        if (GennyConstants.PAGINATION_NEXT.equals(code)) {
-            search.handleSearchPagination(targetCode, false);
-            return;
-        } else if (GennyConstants.PAGINATION_PREV.equals(code)) {
-            search.handleSearchPagination(targetCode, true);
-            return;
-        }
+    @EventRoute(codes = Question.QUE_DASHBOARD)
+    boolean dashboard(QEventMessage msg, String code) {
+        navigation.sendSummary();
+        return true;
+    }
 
-        // bucket pagination
-        if (Question.QUE_TABLE_LAZY_LOAD.equals(code)) {
-            search.handleSearchPagination(targetCode, false);
-            return;
-        }
+    // bucket view
+    @EventRoute(codes = Question.QUE_PROCESS)
+    boolean buckets(QEventMessage msg, String code) {
+        filter.init(code);
+        search.sendBuckets();
+        return true;
+    }
 
-        // table view (Default View Mode)
-        code = code.replace(QUE_EXPLORE_, QUE_TABLE_);
-        if (code.startsWith(QUE_TABLE_)) {
-            filter.init(code);
-            search.sendTable(code);
-            return;
-        }
+    // detail view
+    @EventRoute(codes = ACT_VIEW)
+    boolean detailView(QEventMessage msg, String code) {
+        search.sendDetailView(msg.getData().getTargetCode());
+        return true;
+    }
 
-        if (QUE_ADD_MESSAGE.equals(code)) {
-            kogitoUtils.triggerWorkflow(SELF, "messageLifecycle", "userCode", userToken.getUserCode());
-            return;
-        }
+    // search and bucket pagination
+    @EventRoute(codes = { GennyConstants.PAGINATION_NEXT, Question.QUE_TABLE_LAZY_LOAD })
+    boolean nextPage(QEventMessage msg, String code) {
+        search.handleSearchPagination(msg.getData().getTargetCode(), false);
+        return true;
+    }
 
-		// add item
-		if (code.startsWith(QUE_ADD_)) {
-            log.debug("QUE_ADD Triggered");
-			code = StringUtils.removeStart(code, QUE_ADD_);
-			String prefix = cm.getObject(userToken.getProductCode(), Prefix.DEF_ + code + ":PREFIX", String.class);
-            log.debug("prefix: "+ prefix);
-
-			JsonObject json = Json.createObjectBuilder()
-				.add("definitionCode", Prefix.DEF_.concat(code))
-				.add("sourceCode", userToken.getUserCode())
-				.build();
-
-			// TODO: determine if DEF depends on DEF_USER
-			if (Prefix.PER_.equals(prefix)) {
-				kogitoUtils.triggerWorkflow(SELF, "userLifecycle", json);
-                return;
-			}
-		}
+    @EventRoute(codes = GennyConstants.PAGINATION_PREV)
+    boolean previousPage(QEventMessage msg, String code) {
+        search.handleSearchPagination(msg.getData().getTargetCode(), true);
+        return true;
+    }
 
-		// edit item (TODO This needs to be moved into a timer based bpmn)
-        if (ACT_EDIT.equals(code) && parentCode.startsWith(Prefix.SBE_)) {
-            JsonObject payload = Json.createObjectBuilder()
-                    .add("userCode", userToken.getUserCode())
-                    .add("sourceCode", userToken.getUserCode())
-                    .add("targetCode", msg.getData().getTargetCode())
-                    .build();
-            kogitoUtils.triggerWorkflow(SELF, "edit", payload);
-            return;
+    // table view (Default View Mode)
+    @EventRoute(prefixes = { QUE_TABLE_, QUE_EXPLORE_ })
+    boolean table(QEventMessage msg, String code) {
+        code = code.replace(QUE_EXPLORE_, QUE_TABLE_);
+        filter.init(code);
+        search.sendTable(code);
+        return true;
+    }
+
+    @EventRoute(codes = QUE_ADD_MESSAGE)
+    boolean addMessage(QEventMessage msg, String code) {
+        kogitoUtils.triggerWorkflow(SELF, "messageLifecycle", "userCode", userToken.getUserCode());
+        return true;
+    }
+
+    // add item
+    @EventRoute(prefixes = QUE_ADD_)
+    boolean add(QEventMessage msg, String code) {
+        log.debug("QUE_ADD Triggered");
+        code = StringUtils.removeStart(code, QUE_ADD_);
+        String prefix = cm.getObject(userToken.getProductCode(), Prefix.DEF_ + code + ":PREFIX", String.class);
+        log.debug("prefix: "+ prefix);
+
+        JsonObject json = Json.createObjectBuilder()
+            .add("definitionCode", Prefix.DEF_.concat(code))
+            .add("sourceCode", userToken.getUserCode())
+            .build();
+
+        // TODO: determine if DEF depends on DEF_USER
+        if (Prefix.PER_.equals(prefix)) {
+            kogitoUtils.triggerWorkflow(SELF, "userLifecycle", json);
+            return true;
         }
+        return false;
+    }
 
-		/**
-		 * If no route exists within gadaq, the message should be
-		 * sent to the project specific service.
-		 */
-		log.info("Forwarding Event Message...");
-		KafkaUtils.writeMsg(KafkaTopic.GENNY_EVENTS, msg);
+    // edit item (TODO This needs to be moved into a timer based bpmn)
+    @EventRoute(codes = ACT_EDIT)
+    boolean edit(QEventMessage msg, String code) {
+        String parentCode = msg.getData().getParentCode();
+        if (parentCode == null || !parentCode.startsWith(Prefix.SBE_))
+            return false;
+
+        JsonObject payload = Json.createObjectBuilder()
+                .add("userCode", userToken.getUserCode())
+                .add("sourceCode", userToken.getUserCode())
+                .add("targetCode", msg.getData().getTargetCode())
+                .build();
+        kogitoUtils.triggerWorkflow(SELF, "edit", payload);
+        return true;
     }
 
     /**
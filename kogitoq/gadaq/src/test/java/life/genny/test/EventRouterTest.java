@@ -0,0 +1,93 @@
+package life.genny.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import life.genny.gadaq.route.EventRoute;
+import life.genny.gadaq.route.EventRouter;
+import life.genny.gadaq.route.EventRouter.EventHandler;
+import life.genny.qwandaq.message.QEventMessage;
+
+public class EventRouterTest {
+
+    static class Handlers {
+
+        List<String> calls = new ArrayList<>();
+
+        @EventRoute(codes = { "QUE_SUBMIT", "QUE_NEXT" })
+        boolean submit(QEventMessage msg, String code) {
+            calls.add("submit:" + code);
+            return true;
+        }
+
+        @EventRoute(codes = "QUE_TABLE_NEXT_BTN")
+        boolean nextPage(QEventMessage msg, String code) {
+            calls.add("next:" + code);
+            return true;
+        }
+
+        @EventRoute(prefixes = { "QUE_TABLE_", "QUE_EXPLORE_" })
+        boolean table(QEventMessage msg, String code) {
+            calls.add("table:" + code);
+            return true;
+        }
+
+        @EventRoute(prefixes = "QUE_TABLE_PER_")
+        boolean personTable(QEventMessage msg, String code) {
+            calls.add("person:" + code);
+            return false;
+        }
+    }
+
+    static class Bad {
+        @EventRoute(codes = "QUE_BAD")
+        void bad(QEventMessage msg) {
+        }
+    }
+
+    @Test
+    public void routesAnnotatedHandlers() {
+
+        Handlers handlers = new Handlers();
+        EventRouter router = EventRouter.of(handlers);
+
+        assertTrue(router.find("QUE_SUBMIT").handle(null, "QUE_SUBMIT"));
+        assertTrue(router.find("QUE_NEXT").handle(null, "QUE_NEXT"));
+
+        // exact codes win over prefixes
+        router.find("QUE_TABLE_NEXT_BTN").handle(null, "QUE_TABLE_NEXT_BTN");
+
+        // the longest prefix wins
+        router.find("QUE_EXPLORE_APPLICATIONS").handle(null, "QUE_EXPLORE_APPLICATIONS");
+        router.find("QUE_TABLE_INTERNS").handle(null, "QUE_TABLE_INTERNS");
+        assertFalse(router.find("QUE_TABLE_PER_INTERNS").handle(null, "QUE_TABLE_PER_INTERNS"));
+
+        assertEquals(List.of("submit:QUE_SUBMIT", "submit:QUE_NEXT", "next:QUE_TABLE_NEXT_BTN",
+                "table:QUE_EXPLORE_APPLICATIONS", "table:QUE_TABLE_INTERNS", "person:QUE_TABLE_PER_INTERNS"), handlers.calls);
+
+        assertNull(router.find("QUE_TABLE"));
+        assertNull(router.find("QUE_SUBMIT_X"));
+        assertNull(router.find("ACT_VIEW"));
+        assertNull(router.find(null));
+    }
+
+    @Test
+    public void rejectsBadRoutes() {
+
+        EventHandler handler = (msg, code) -> true;
+
+        assertThrows(IllegalStateException.class, () -> EventRouter.of(new Bad()));
+        assertThrows(IllegalStateException.class, () -> new EventRouter.Builder()
+                .exact("QUE_SUBMIT", handler).exact("QUE_SUBMIT", handler));
+        assertThrows(IllegalStateException.class, () -> new EventRouter.Builder()
+                .prefix("QUE_ADD_", handler).prefix("QUE_ADD_", handler));
+    }
+}
@@ -0,0 +1,86 @@
+package life.genny.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieBase;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieRuntimeBuilder;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.internal.utils.KieHelper;
+
+import life.genny.kogito.common.utils.KieSessionRunner;
+import life.genny.kogito.common.utils.KieSessionRunner.SessionMode;
+import life.genny.qwandaq.Answer;
+
+/**
+ * Compares the per message latency of each inference session mode
+ * using the gadaq Inference rule group.
+ */
+public class InferenceSessionBenchmarkTest {
+
+	private static final Logger log = Logger.getLogger(InferenceSessionBenchmarkTest.class);
+
+	private static final String DRL = "life/genny/gadaq/inference/Inference.drl";
+	private static final int WARMUP = 100;
+	private static final int RUNS = 500;
+
+	Jsonb jsonb = JsonbBuilder.create();
+
+	@Test
+	public void sessionModeBenchmark() {
+
+		KieBase kieBase = new KieHelper()
+				.addResource(ResourceFactory.newClassPathResource(DRL), ResourceType.DRL)
+				.build();
+
+		KieRuntimeBuilder builder = new KieRuntimeBuilder() {
+			public KieBase getKieBase() {
+				return kieBase;
+			}
+			public KieBase getKieBase(String name) {
+				return kieBase;
+			}
+			public KieSession newKieSession() {
+				return kieBase.newKieSession();
+			}
+			public KieSession newKieSession(String name) {
+				return kieBase.newKieSession();
+			}
+		};
+
+		KieSessionRunner runner = new KieSessionRunner(builder, () -> List.of(jsonb), 4);
+
+		// answers only match the logging rule, as the others require live utils
+		Answer[] answers = new Answer[] {
+				new Answer("PER_SOURCE", "PER_TARGET", "PRI_EMAIL", "test@gada.io"),
+				new Answer("PER_SOURCE", "PER_TARGET", "PRI_MOBILE", "61400000000"),
+				new Answer("PER_SOURCE", "PER_TARGET", "PRI_DOB", "2000-01-01")
+		};
+
+		for (SessionMode mode : SessionMode.values()) {
+
+			for (int i = 0; i < WARMUP; i++)
+				runner.run(mode, "Inference", answers);
+
+			long start = System.nanoTime();
+			for (int i = 0; i < RUNS; i++) {
+				List<Answer> results = runner.run(mode, "Inference", answers);
+				// pooled sessions must not leak answers between runs
+				assertEquals(answers.length, results.size());
+			}
+			long micros = (System.nanoTime() - start) / 1000 / RUNS;
+
+			log.info("Session mode " + mode + ": " + micros + " us per message");
+		}
+
+		assertEquals(1, runner.getPool().getIdleCount());
+	}
+}
@@ -22,8 +22,10 @@ import javax.json.bind.JsonbBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.jboss.logging.Logger;
 
+import life.genny.kogito.common.models.PCMDescriptor;
 import life.genny.kogito.common.service.TaskService;
 import life.genny.kogito.common.utils.KogitoUtils;
+import life.genny.kogito.common.utils.PCMCache;
 import life.genny.qwandaq.Ask;
 import life.genny.qwandaq.Question;
 import life.genny.qwandaq.attribute.Attribute;
@@ -93,6 +95,9 @@ public class Dispatch {
 	@Inject
 	AttributeUtils attributeUtils;
 
+	@Inject
+	PCMCache pcmCache;
+
 	private Set<String> processedTargetCodes = new HashSet<>();
 
 	private Set<String> traversedPCMs = new HashSet<>();
@@ -120,7 +125,7 @@ public class Dispatch {
 		BaseEntity target = beUtils.getBaseEntity(productCode, targetCode, false);
 		CapabilitySet userCapabilities = capMan.getUserCapabilities(source);
 
-		pcm = (pcm == null ? beUtils.getPCM(processData.getPcmCode()) : pcm);
+		pcm = (pcm == null ? pcmCache.get(productCode, processData.getPcmCode()).newPCM() : pcm);
 		// ensure target codes match
 		pcm.setTargetCode(targetCode);
 		QBulkMessage msg = new QBulkMessage();
@@ -154,7 +159,7 @@ public class Dispatch {
 		 * that requires a different target code.
 		 */
 		if (parent != null && !PCM_TREE.equals(parent)) {
-			PCM parentPCM = beUtils.getPCM(parent);
+			PCM parentPCM = pcmCache.get(productCode, parent).newPCM();
 			Integer loc = PCM.findLocation(location);
 			log.debug("Updating " + parentPCM.getCode() + " : Location " + loc + " -> " + processData.getPcmCode());
 			parentPCM.setLocation(loc, processData.getPcmCode());
@@ -239,6 +244,8 @@ public class Dispatch {
 
 	/**
 	 * Traverse a PCM looking for a non-readonly question.
+	 * The asks of every traversed PCM are generated together
+	 * once the traversal is done.
 	 *
 	 * @param pcm The PCM to Traverse
 	 * @param source The source baseEntity
@@ -248,6 +255,31 @@ public class Dispatch {
 	 */
 	public boolean traversePCM(CapabilitySet userCapabilities, PCM pcm, BaseEntity source, BaseEntity target,
 							String parent, String location, QBulkMessage msg, ProcessData processData) {
+
+		// read the target and question codes as saved, even if this pcm has been changed
+		PCMDescriptor descriptor;
+		try {
+			descriptor = pcmCache.get(userToken.getProductCode(), pcm.getCode());
+		} catch (ItemNotFoundException e) {
+			log.trace("PCM " + pcm.getCode() + " is not saved, describing it as is");
+			descriptor = pcmCache.describe(pcm);
+		}
+
+		List<String> questionCodes = new ArrayList<>();
+		boolean traversed = traversePCM(userCapabilities, descriptor, pcm, source, target, parent, location, msg, processData, questionCodes);
+
+		// add asks to bulk message
+		List<Ask> asks = qwandaUtils.generateAsksFromQuestionCodes(questionCodes, source, target, userCapabilities, new ReqConfig());
+		for (Ask ask : asks) {
+			ask.setTestTargetCode(target.getCode());
+			msg.add(ask);
+		}
+
+		return traversed;
+	}
+
+	private boolean traversePCM(CapabilitySet userCapabilities, PCMDescriptor descriptor, PCM pcm, BaseEntity source, BaseEntity target,
+							String parent, String location, QBulkMessage msg, ProcessData processData, List<String> questionCodes) {
 		// TODO: This is too many arguments
 
 		// check capability requirements are met
@@ -259,8 +291,10 @@ public class Dispatch {
 		}
 
 		// use pcm target if one is specified
-		try {
-			String targetCode = beaUtils.getValue(pcm, Attribute.PRI_TARGET_CODE);
+		String targetCode = descriptor.getTargetCode();
+		if (targetCode == null) {
+			log.trace("No target code found for " + pcmCode);
+		} else {
             log.debugf("pcmCode: %s, sourceCode: %s,  targetCode: %s, target.getCode(): %s", pcmCode, source.getCode(), targetCode, target.getCode());
 			if (!StringUtils.isBlank(targetCode) && !targetCode.equals(target.getCode()) && !processedTargetCodes.contains(targetCode+target.getCode())) {
 				// merge targetCode
@@ -280,20 +314,19 @@ public class Dispatch {
 				processedTargetCodes.add(targetCode+target.getCode());
 				return true;
 			}
-		} catch (ItemNotFoundException e) {
-			log.trace("No target code found for " + pcm.getCode());
 		}
 
-		Set<Map.Entry<String, EntityAttribute>> pcmAttributeMap = pcm.getBaseEntityAttributesMap().entrySet();
-		pcmAttributeMap.removeIf(loc -> {
+		String productCode = userToken.getProductCode();
+		Map<String, EntityAttribute> pcmAttributeMap = pcm.getBaseEntityAttributesMap();
+		pcmAttributeMap.entrySet().removeIf(loc -> {
 			if(!loc.getValue().requirementsMet(userCapabilities))
 				return true;
 			String value = loc.getValue().getAsString();
 			if(!value.startsWith(Prefix.PCM_)) {
 				return false;
 			}
-			// check the base entity as well
-			PCM childPCM = beUtils.getPCM(value);
+			// check the child pcm as well
+			PCM childPCM = pcmCache.get(productCode, value).getPrototype();
 
 			if(!childPCM.requirementsMet(userCapabilities)) {
 				log.debug("PCM capability requirements not met for location: " + loc.getKey() + " (" + loc.getValue().getValueString() + ")");
@@ -301,14 +334,18 @@ public class Dispatch {
 			}
 			return false;
 		});
-		
+
 		// iterate locations
-		List<EntityAttribute> locations = pcmAttributeMap.stream().filter(val -> val.getKey().startsWith(Prefix.PRI_LOC)).map(Map.Entry::getValue).collect(Collectors.toList());
-		for(EntityAttribute entityAttribute : locations) {
+		for (EntityAttribute slot : descriptor.getLocations()) {
+			EntityAttribute entityAttribute = pcmAttributeMap.get(slot.getAttributeCode());
+			if (entityAttribute == null)
+				continue;
 			log.debug("Passed Capabilities check for: " + entityAttribute.getBaseEntityCode() + ":" + entityAttribute.getAttributeCode());
 
-			Attribute attribute = attributeUtils.getAttribute(entityAttribute.getRealm(), entityAttribute.getAttributeCode(), true);
-			entityAttribute.setAttribute(attribute);
+			if (entityAttribute.getAttribute() == null) {
+				Attribute attribute = attributeUtils.getAttribute(entityAttribute.getRealm(), entityAttribute.getAttributeCode(), true);
+				entityAttribute.setAttribute(attribute);
+			}
 			// recursively check PCM fields
 			String value = entityAttribute.getAsString();
 			if (value.startsWith(Prefix.PCM_)) {
@@ -318,8 +355,8 @@ public class Dispatch {
 					log.debugf("The PCM %s already traversed for parent %s, skipping traversal.", value, processData.getParent());
 				} else {
 					traversedPCMs.add(value);
-					PCM childPcm = beUtils.getPCM(value);
-					traversePCM(userCapabilities, childPcm, source, target, parent, location, msg, processData);
+					PCMDescriptor child = pcmCache.get(productCode, value);
+					traversePCM(userCapabilities, child, child.newPCM(), source, target, parent, location, msg, processData, questionCodes);
 				}
 			} else if (value.startsWith(Prefix.SBE_)) {
 				processData.getSearches().add(value);
@@ -329,17 +366,12 @@ public class Dispatch {
 		msg.add(pcm);
 
 		// check for a question code
-		String questionCode = null;
-		try {
-			questionCode = beaUtils.getValue(pcm, Attribute.PRI_QUESTION_CODE);
-		} catch (ItemNotFoundException e) {
+		String questionCode = descriptor.getQuestionCode();
+		if (questionCode == null) {
 			log.warn("Question Code is null for " + pcmCode + ". Checking ProcessData");
 		}
 		if (!Question.QUE_EVENTS.equals(questionCode) && !StringUtils.isBlank(questionCode)) {
-			// add ask to bulk message
-			Ask ask = qwandaUtils.generateAskFromQuestionCode(questionCode, source, target, userCapabilities, new ReqConfig());
-			ask.setTestTargetCode(target.getCode());
-			msg.add(ask);
+			questionCodes.add(questionCode);
 		}
 
 		return true;
@@ -0,0 +1,79 @@
+package life.genny.kogito.common.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import life.genny.qwandaq.attribute.Attribute;
+import life.genny.qwandaq.attribute.EntityAttribute;
+import life.genny.qwandaq.entity.PCM;
+
+/**
+ * A PCM with its target code, question code and location slots parsed
+ * out, so it can be traversed without further entity lookups.
+ *
+ * Descriptors are shared between users and must not be modified. Each
+ * traversal works on a fresh PCM from {@link PCMDescriptor#newPCM}.
+ */
+public class PCMDescriptor {
+
+    private final PCM prototype;
+    private final String targetCode;
+    private final String questionCode;
+    private final List<EntityAttribute> locations;
+
+    /**
+     * @param prototype The PCM, with the attributes of its locations set
+     */
+    public PCMDescriptor(PCM prototype) {
+        this.prototype = prototype;
+        this.targetCode = prototype.getTargetCode();
+        this.questionCode = prototype.getQuestionCode();
+
+        List<EntityAttribute> locations = new ArrayList<>(prototype.getLocations());
+        // PRI_LOC10 comes after PRI_LOC9
+        locations.sort(Comparator.comparing((EntityAttribute ea) -> ea.getAttributeCode().length())
+                .thenComparing(EntityAttribute::getAttributeCode));
+        this.locations = Collections.unmodifiableList(locations);
+    }
+
+    public String getCode() {
+        return prototype.getCode();
+    }
+
+    /**
+     * @return The shared PCM. Use it for reads only
+     */
+    public PCM getPrototype() {
+        return prototype;
+    }
+
+    /**
+     * @return The value of {@link Attribute#PRI_TARGET_CODE}, or null if there is none
+     */
+    public String getTargetCode() {
+        return targetCode;
+    }
+
+    /**
+     * @return The value of {@link Attribute#PRI_QUESTION_CODE}, or null if there is none
+     */
+    public String getQuestionCode() {
+        return questionCode;
+    }
+
+    /**
+     * @return The location slots, in location order
+     */
+    public List<EntityAttribute> getLocations() {
+        return locations;
+    }
+
+    /**
+     * @return A copy of the PCM that can be filtered and sent
+     */
+    public PCM newPCM() {
+        return PCM.from(prototype);
+    }
+}
@@ -25,6 +25,7 @@ public class TimerData implements Serializable {
     static final Long DEFAULT_TIMER_INTERVAL_MIN = 1L;
     static final Long OFFSET_EXPIRY_SECONDS = 7L * 24L * 60L * 60L; // Add a week
     static final Integer PRIORITY_QUEUE_INITIAL_SIZE = 3;
+    public static final Long RELATIVE_LIMIT_MIN = 1000000L; // timestamps below this are minutes from the start
     static final Long DEFAULT_TIMER_EXPIRY_SECONDS = 12448167224L; // This must be set during init, default to 20th June
                                                                    // 2364
 
@@ -67,6 +68,35 @@ public class TimerData implements Serializable {
         return this.elapsedMin;
     }
 
+    /**
+     * Convert milestones given in minutes from the start into UTC timestamps,
+     * and an expiry seeded from them into a week after the last of them.
+     *
+     * @param startEpoch The UTC timestamp in seconds to measure from
+     */
+    public void anchor(Long startEpoch) {
+        boolean relative = false;
+        for (TimerEvent event : timerEventsArray) {
+            if (event.getTimeStamp() < RELATIVE_LIMIT_MIN) {
+                event.setTimeStamp(startEpoch + (event.getTimeStamp() * 60L));
+                relative = true;
+            }
+        }
+        if (this.startEpoch == null || this.startEpoch == 0L) {
+            this.startEpoch = startEpoch;
+        }
+        if (!relative) {
+            return;
+        }
+        Arrays.sort(this.timerEventsArray, new TimerEventComparator());
+        // an expiry seeded by add() from minutes is far below any real timestamp
+        if (this.expiryTimeStamp < RELATIVE_LIMIT_MIN + OFFSET_EXPIRY_SECONDS) {
+            TimerEvent last = this.timerEventsArray[this.timerEventsArray.length - 1];
+            this.expiryTimeStamp = last.getTimeStamp() + OFFSET_EXPIRY_SECONDS;
+        }
+        this.currentMilestone = this.getNextMilestone();
+    }
+
     public Boolean hasExpired() {
         Long currentTimeStampUTC = getNow();
         expired = expired || (currentTimeStampUTC >= this.expiryTimeStamp);
@@ -0,0 +1,112 @@
+package life.genny.kogito.common.models;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A reverse index from question codes to the TimerEvents linked to them,
+ * holding the milestone settings of each TimerEvent so no further
+ * entity lookups are needed when building TimerData.
+ */
+public class TimerEventIndex implements Serializable {
+
+    private Map<String, List<Entry>> events = new HashMap<>();
+
+    private Long builtAt = System.currentTimeMillis();
+
+    public TimerEventIndex() {
+    }
+
+    /**
+     * Add a TimerEvent entry under a question code.
+     *
+     * @param questionCode The question the TimerEvent is linked to
+     * @param entry        The TimerEvent entry
+     */
+    public void add(String questionCode, Entry entry) {
+        events.computeIfAbsent(questionCode.toUpperCase(), k -> new ArrayList<>()).add(entry);
+    }
+
+    /**
+     * Get the TimerEvent entries linked to a question code.
+     *
+     * @param questionCode The question code
+     * @return The entries, or an empty list if there are none
+     */
+    public List<Entry> get(String questionCode) {
+        List<Entry> entries = events.get(questionCode.toUpperCase());
+        return entries != null ? entries : new ArrayList<>(0);
+    }
+
+    public Map<String, List<Entry>> getEvents() {
+        return events;
+    }
+
+    public void setEvents(Map<String, List<Entry>> events) {
+        this.events = events;
+    }
+
+    public Long getBuiltAt() {
+        return builtAt;
+    }
+
+    public void setBuiltAt(Long builtAt) {
+        this.builtAt = builtAt;
+    }
+
+    /**
+     * The pre-parsed milestone settings of a single TimerEvent.
+     */
+    public static class Entry implements Serializable {
+
+        private String code;
+        private String milestone;
+        private String updatePairs;
+        private Integer minutes;
+
+        public Entry() {
+        }
+
+        public Entry(String code, String milestone, String updatePairs, Integer minutes) {
+            this.code = code;
+            this.milestone = milestone;
+            this.updatePairs = updatePairs;
+            this.minutes = minutes;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+
+        public String getMilestone() {
+            return milestone;
+        }
+
+        public void setMilestone(String milestone) {
+            this.milestone = milestone;
+        }
+
+        public String getUpdatePairs() {
+            return updatePairs;
+        }
+
+        public void setUpdatePairs(String updatePairs) {
+            this.updatePairs = updatePairs;
+        }
+
+        public Integer getMinutes() {
+            return minutes;
+        }
+
+        public void setMinutes(Integer minutes) {
+            this.minutes = minutes;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package life.genny.kogito.common.models;
+
+import java.io.Serializable;
+
+/**
+ * The timer state of a single process, as registered with the
+ * TimerScheduler. Saved in the cache so that schedules can be
+ * rehydrated after a restart.
+ */
+public class TimerSchedule implements Serializable {
+
+    private String productCode;
+    private String service;
+    private String workflowId;
+    private String processId;
+    private Long startEpoch; // UTC timestamp in seconds that relative milestones are measured from
+    private TimerData timerData;
+
+    public TimerSchedule() {
+    }
+
+    public TimerSchedule(String productCode, String service, String workflowId, String processId,
+            Long startEpoch, TimerData timerData) {
+        this.productCode = productCode;
+        this.service = service;
+        this.workflowId = workflowId;
+        this.processId = processId;
+        this.startEpoch = startEpoch;
+        this.timerData = timerData;
+    }
+
+    public String getProductCode() {
+        return productCode;
+    }
+
+    public void setProductCode(String productCode) {
+        this.productCode = productCode;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public void setService(String service) {
+        this.service = service;
+    }
+
+    public String getWorkflowId() {
+        return workflowId;
+    }
+
+    public void setWorkflowId(String workflowId) {
+        this.workflowId = workflowId;
+    }
+
+    public String getProcessId() {
+        return processId;
+    }
+
+    public void setProcessId(String processId) {
+        this.processId = processId;
+    }
+
+    public Long getStartEpoch() {
+        return startEpoch;
+    }
+
+    public void setStartEpoch(Long startEpoch) {
+        this.startEpoch = startEpoch;
+    }
+
+    public TimerData getTimerData() {
+        return timerData;
+    }
+
+    public void setTimerData(TimerData timerData) {
+        this.timerData = timerData;
+    }
+
+    @Override
+    public String toString() {
+        return "TimerSchedule [productCode=" + productCode + ", workflowId=" + workflowId + ", processId="
+                + processId + ", startEpoch=" + startEpoch + "]";
+    }
+}
@@ -0,0 +1,48 @@
+package life.genny.kogito.common.models;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The payload of a timer signal, sent by the TimerScheduler to a
+ * process when its milestones become due or its timer expires.
+ */
+public class TimerSignal implements Serializable {
+
+    private List<TimerEvent> milestones = new ArrayList<>();
+    private Boolean expired = false;
+
+    public TimerSignal() {
+    }
+
+    public TimerSignal(List<TimerEvent> milestones, Boolean expired) {
+        this.milestones = milestones;
+        this.expired = expired;
+    }
+
+    public List<TimerEvent> getMilestones() {
+        return milestones;
+    }
+
+    public void setMilestones(List<TimerEvent> milestones) {
+        this.milestones = milestones;
+    }
+
+    public Boolean getExpired() {
+        return expired;
+    }
+
+    public Boolean isExpired() {
+        return expired;
+    }
+
+    public void setExpired(Boolean expired) {
+        this.expired = expired;
+    }
+
+    @Override
+    public String toString() {
+        return "TimerSignal [milestones=" + milestones.size() + ", expired=" + expired + "]";
+    }
+}
@@ -12,6 +12,8 @@ import javax.inject.Inject;
 import org.jboss.logging.Logger;
 
 import life.genny.kogito.common.core.Dispatch;
+import life.genny.kogito.common.models.TimerEvent;
+import life.genny.kogito.common.models.TimerSignal;
 import life.genny.qwandaq.Answer;
 import life.genny.qwandaq.Ask;
 import life.genny.qwandaq.constants.Prefix;
@@ -21,6 +23,7 @@ import life.genny.qwandaq.exception.runtime.ItemNotFoundException;
 import life.genny.qwandaq.exception.runtime.NullParameterException;
 import life.genny.qwandaq.graphql.ProcessData;
 import life.genny.qwandaq.message.QBulkMessage;
+import life.genny.qwandaq.message.QDataAnswerMessage;
 import life.genny.qwandaq.utils.QwandaUtils;
 import life.genny.qwandaq.kafka.KafkaTopic;
 import life.genny.qwandaq.message.QDataAskMessage;
@@ -33,6 +36,12 @@ public class TaskService extends KogitoService {
 	@Inject
 	Logger log;
 
+	@Inject
+	TimerEventService timerEventService;
+
+	@Inject
+	BaseEntityService baseEntityService;
+
 	/**
 	 * @param processData
 	 */
@@ -122,6 +131,9 @@ public class TaskService extends KogitoService {
 		// update cached process data
 		qwandaUtils.storeProcessData(processData);
 
+		// milestones run whether or not the source is the user
+		timerEventService.scheduleTimers(userToken.getProductCode(), processId, questionCode, pcmCode);
+
 		// TODO: Not every task has a userCode
 		if (!sourceCode.equals(userCode)) {
 			log.info("Task on hold: User is not source");
@@ -196,6 +208,46 @@ public class TaskService extends KogitoService {
 		if (!processAnswers.isValid(answer, processData))
 			return processData;
 
+		saveAnswer(answer, processData);
+
+		return updateProcessData(processData);
+	}
+
+	/**
+	 * Save a batch of incoming answers to the process baseentity.
+	 * Answers are applied in the order they were received, and the 
+	 * process data is only refreshed and stored once for the batch.
+	 *
+	 * @param msg         The incoming answer message
+	 * @param processData The process entity to store the answer data
+	 * @return The updated process baseentity
+	 */
+	public ProcessData answers(QDataAnswerMessage msg, ProcessData processData) {
+
+		boolean updated = false;
+		for (Answer answer : msg.getItems()) {
+			// validate answer
+			if (!processAnswers.isValid(answer, processData))
+				continue;
+
+			saveAnswer(answer, processData);
+			updated = true;
+		}
+
+		if (!updated)
+			return processData;
+
+		return updateProcessData(processData);
+	}
+
+	/**
+	 * Replace any previous answer for the same attribute with the incoming answer.
+	 *
+	 * @param answer      The incoming answer
+	 * @param processData The process entity to store the answer data
+	 */
+	private void saveAnswer(Answer answer, ProcessData processData) {
+
 		// remove previous answers for this attribute
 		List<Answer> answers = processData.getAnswers();
 		for (int i = 0; i < answers.size();) {
@@ -210,6 +262,15 @@ public class TaskService extends KogitoService {
 		// add new answer
 		answers.add(answer);
 		processData.setAnswers(answers);
+	}
+
+	/**
+	 * Handle non-readonly asks, check uniqueness and store the process data.
+	 *
+	 * @param processData The process entity containing the answer data
+	 * @return The updated process baseentity
+	 */
+	private ProcessData updateProcessData(ProcessData processData) {
 
 		Set<Ask> asks = qwandaUtils.fetchAsks(processData);
 		Map<String, Ask> flatMapOfAsks = QwandaUtils.buildAskFlatMap(asks);
@@ -251,6 +312,7 @@ public class TaskService extends KogitoService {
 
 		// clear cache entry
 		qwandaUtils.clearProcessData(processData.getProcessId());
+		timerEventService.cancelTimers(userToken.getProductCode(), processData.getProcessId());
 
 		return true;
 	}
@@ -270,12 +332,34 @@ public class TaskService extends KogitoService {
 		return processData;
 	}
 
+	/**
+	 * Apply the updates of the milestones that have fallen due for a task.
+	 *
+	 * @param signal      The timer signal
+	 * @param processData The process data
+	 * @return The process data
+	 */
+	public ProcessData timer(TimerSignal signal, ProcessData processData) {
+
+		log.info("Timer signal for process " + processData.getProcessId() + ": " + signal);
+		for (TimerEvent milestone : signal.getMilestones()) {
+			log.info("Milestone " + milestone.getUniqueCode() + " reached");
+			if (milestone.getUpdatePairs() != null)
+				baseEntityService.updatePairsBaseEntity(processData.getTargetCode(), milestone.getUpdatePairs());
+		}
+		if (signal.getExpired())
+			log.info("Timer expired for process " + processData.getProcessId());
+
+		return processData;
+	}
+
 	/**
 	 * @param processData
 	 */
 	public void cancel(ProcessData processData) {
 		// clear cache entry
 		qwandaUtils.clearProcessData(processData.getProcessId());
+		timerEventService.cancelTimers(userToken.getProductCode(), processData.getProcessId());
 		// default redirect
 		navigationService.redirect();
 	}
@@ -1,18 +1,26 @@
 package life.genny.kogito.common.service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import life.genny.qwandaq.attribute.EntityAttribute;
+import life.genny.qwandaq.constants.GennyConstants;
+import life.genny.qwandaq.constants.Prefix;
+import life.genny.qwandaq.managers.CacheManager;
 import life.genny.qwandaq.models.ServiceToken;
-import life.genny.qwandaq.utils.EntityAttributeUtils;
+import life.genny.qwandaq.utils.CommonUtils;
 import life.genny.qwandaq.utils.SearchUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import life.genny.kogito.common.models.TimerData;
 import life.genny.kogito.common.models.TimerEvent;
+import life.genny.kogito.common.models.TimerEventIndex;
+import life.genny.kogito.common.utils.KogitoUtils.UseService;
+import life.genny.kogito.common.utils.TimerScheduler;
 import life.genny.qwandaq.attribute.Attribute;
 import life.genny.qwandaq.entity.BaseEntity;
 import life.genny.qwandaq.entity.search.SearchEntity;
@@ -23,6 +31,12 @@ import life.genny.qwandaq.entity.search.trait.Operator;
 @ApplicationScoped
 public class TimerEventService extends KogitoService {
 
+	private static final int INDEX_PAGE_SIZE = 500;
+	private static final String PROCESS_QUESTIONS = "processQuestions";
+
+	@ConfigProperty(name = "genny.timer.index.ttl-seconds", defaultValue = "300")
+	Long indexTtlSeconds;
+
 	@Inject
 	Logger log;
 
@@ -30,10 +44,47 @@ public class TimerEventService extends KogitoService {
 	ServiceToken serviceToken;
 
 	@Inject
-	EntityAttributeUtils beaUtils;
+	SearchUtils searchUtils;
 
 	@Inject
-	SearchUtils searchUtils;
+	CacheManager cacheManager;
+
+	@Inject
+	TimerScheduler timerScheduler;
+
+	/**
+	 * Register the TimerEvents of a question for a processQuestions process,
+	 * unless the process already has a schedule.
+	 *
+	 * @param productCode  The product of the process
+	 * @param processId    The process id
+	 * @param questionCode The question code of the task
+	 * @param pcmCode      The pcm code of the task
+	 */
+	public void scheduleTimers(String productCode, String processId, String questionCode, String pcmCode) {
+
+		if (!timerScheduler.isEnabled() || timerScheduler.isRegistered(productCode, processId))
+			return;
+
+		TimerData timerData = fetchTimerData(productCode, questionCode, pcmCode);
+		if (timerData.getNextMilestone() == null)
+			return;
+
+		log.info("Scheduling " + timerData.getTimerEvents().size() + " TimerEvents for process " + processId);
+		timerScheduler.register(productCode, UseService.GADAQ, PROCESS_QUESTIONS, processId, timerData);
+	}
+
+	/**
+	 * Cancel the TimerEvents of a process.
+	 *
+	 * @param productCode The product of the process
+	 * @param processId   The process id
+	 */
+	public void cancelTimers(String productCode, String processId) {
+
+		if (timerScheduler.isEnabled())
+			timerScheduler.cancel(productCode, processId);
+	}
 
 	/**
 	 * Fetch the TimerData for a questionCode.
@@ -47,47 +98,105 @@ public class TimerEventService extends KogitoService {
 
 		log.debug("Fetching TimerEvents " + productCode + " and " + questionCode);
 
-		// TODO, fetch the TimerEvent codes from the questionCode BE
+		TimerData timerData = new TimerData();
 
-		SearchEntity searchEntity = new SearchEntity("SBE_TIMEREVENTS", "TimerEvents")
-				.add(new Filter(Attribute.PRI_CODE, Operator.LIKE, "TEV_%"))
-				.add(new Filter("LNK_QUESTION", Operator.LIKE, "%\"" + questionCode.toUpperCase() + "\"%"))
-				.add(new Column("PRI_MILESTONE", "Milestone"))
-				.add(new Column("PRI_ATTRIBUTECODE_VALUES", "Settings"))
-				.add(new Column("PRI_MINUTES", "Minutes"))
-				.setPageStart(0)
-				.setPageSize(100);
+		timerData.setElapsedMin(0L);
+		for (TimerEventIndex.Entry entry : fetchTimerEventIndex(productCode).get(questionCode)) {
+
+			log.info("Processing TimerEvent " + entry.getCode());
+			log.info(" PRI_MILESTONE : " + entry.getMilestone());
+			log.info(" PRI_ATTRIBUTECODE_VALUES : " + entry.getUpdatePairs());
+			log.info(" PRI_MINUTES : " + entry.getMinutes());
+			TimerEvent timerEvent = new TimerEvent();
+			timerEvent.setTimeStamp((long) entry.getMinutes());
+			timerEvent.setUniqueCode(entry.getMilestone());
+			timerEvent.setUpdatePairs(entry.getUpdatePairs());
+			timerData.add(timerEvent);
+		}
 
-		searchEntity.setRealm(productCode);
+		return timerData;
+	}
 
-		List<BaseEntity> timerEventBEs = searchUtils.searchBaseEntitys(searchEntity);
+	/**
+	 * Fetch the question to TimerEvent index of a product, building 
+	 * and caching it if needed. The cached index is dropped whenever 
+	 * a TimerEvent entity is changed, and rebuilt once older than its ttl.
+	 * An index whose search failed is used but not cached.
+	 *
+	 * @param productCode The product to fetch for
+	 * @return The index
+	 */
+	public TimerEventIndex fetchTimerEventIndex(String productCode) {
 
-		TimerData timerData = new TimerData();
+		TimerEventIndex index = cacheManager.getObject(productCode, GennyConstants.TIMER_EVENT_INDEX, TimerEventIndex.class);
+		if (index != null && index.getBuiltAt() != null
+				&& System.currentTimeMillis() - index.getBuiltAt() < indexTtlSeconds * 1000L)
+			return index;
 
-		timerData.setElapsedMin(0L);
-		if (timerEventBEs != null) {
+		index = buildTimerEventIndex(productCode);
+		if (index == null)
+			return new TimerEventIndex();
+		cacheManager.putObject(productCode, GennyConstants.TIMER_EVENT_INDEX, index);
+
+		return index;
+	}
+
+	/**
+	 * Build the question to TimerEvent index of a product, using 
+	 * the search columns instead of separate attribute lookups.
+	 *
+	 * @param productCode The product to build for
+	 * @return The index, or null if a search failed
+	 */
+	private TimerEventIndex buildTimerEventIndex(String productCode) {
+
+		log.info("Building TimerEvent index for " + productCode);
+
+		TimerEventIndex index = new TimerEventIndex();
+		int pageStart = 0;
+		List<BaseEntity> timerEventBEs = new ArrayList<>(INDEX_PAGE_SIZE);
+
+		do {
+			SearchEntity searchEntity = new SearchEntity("SBE_TIMEREVENTS", "TimerEvents")
+					.add(new Filter(Attribute.PRI_CODE, Operator.LIKE, Prefix.TEV_ + "%"))
+					.add(new Column("LNK_QUESTION", "Questions"))
+					.add(new Column("PRI_MILESTONE", "Milestone"))
+					.add(new Column("PRI_ATTRIBUTECODE_VALUES", "Settings"))
+					.add(new Column("PRI_MINUTES", "Minutes"))
+					.setPageStart(pageStart)
+					.setPageSize(INDEX_PAGE_SIZE);
+
+			searchEntity.setRealm(productCode);
+
+			timerEventBEs.clear();
+			if (searchUtils.streamBaseEntitys(searchEntity, timerEventBEs::add) == null) {
+				log.error("Could not search the TimerEvents of " + productCode + ", not caching the index");
+				return null;
+			}
 			for (BaseEntity timerEventBE : timerEventBEs) {
 
-				String timerEventBECode = timerEventBE.getCode();
-				log.info("Processing TimerEvent " + timerEventBECode);
-				EntityAttribute milestoneAttribute = beaUtils.getEntityAttribute(productCode, timerEventBE.getCode(), "PRI_MILESTONE");
-				String milestoneValue = milestoneAttribute != null ? milestoneAttribute.getValueString() : null;
-				log.info(" PRI_MILESTONE : " + milestoneValue);
-				EntityAttribute attributeCodeValues = beaUtils.getEntityAttribute(productCode, timerEventBE.getCode(), "PRI_ATTRIBUTECODE_VALUES");
-				String updatePairs = attributeCodeValues != null ? attributeCodeValues.getValueString() : null;
-				log.info(" PRI_ATTRIBUTECODE_VALUES : " + attributeCodeValues);
-				EntityAttribute priMinutes = beaUtils.getEntityAttribute(productCode, timerEventBE.getCode(), "PRI_MINUTES");
-				Integer priMinutesVal = priMinutes != null ? priMinutes.getValueInteger() : 0;
-				log.info(" PRI_MINUTES : " + priMinutesVal);
-				TimerEvent timerEvent = new TimerEvent();
-				timerEvent.setTimeStamp((long) priMinutesVal);
-				timerEvent.setUniqueCode(milestoneValue);
-				timerEvent.setUpdatePairs(updatePairs);
-				timerData.add(timerEvent);
+				String questions = timerEventBE.findEntityAttribute("LNK_QUESTION")
+						.map(EntityAttribute::getValueString).orElse(null);
+				if (questions == null)
+					continue;
+
+				TimerEventIndex.Entry entry = new TimerEventIndex.Entry(
+						timerEventBE.getCode(),
+						timerEventBE.findEntityAttribute("PRI_MILESTONE").map(EntityAttribute::getValueString).orElse(null),
+						timerEventBE.findEntityAttribute("PRI_ATTRIBUTECODE_VALUES").map(EntityAttribute::getValueString).orElse(null),
+						timerEventBE.findEntityAttribute("PRI_MINUTES").map(EntityAttribute::getValueInteger).orElse(0));
+
+				List<String> questionCodes = questions.startsWith("[")
+						? CommonUtils.getListFromString(questions)
+						: List.of(questions);
+				for (String questionCode : questionCodes)
+					index.add(questionCode.strip(), entry);
 			}
-		}
+			pageStart += INDEX_PAGE_SIZE;
 
-		return timerData;
+		} while (timerEventBEs.size() == INDEX_PAGE_SIZE);
+
+		return index;
 	}
 
 }
@@ -0,0 +1,128 @@
+package life.genny.kogito.common.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.jboss.logging.Logger;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+
+/**
+ * A bounded pool of reusable KieSessions.
+ *
+ * Sessions are initialised once with their long lived facts (utils, beans etc).
+ * When a session is released, every fact inserted after initialisation is
+ * deleted so the session can be safely handed to the next caller.
+ */
+public class KieSessionPool {
+
+	private static final Logger log = Logger.getLogger(KieSessionPool.class);
+
+	private final Supplier<KieSession> factory;
+	private final Consumer<KieSession> initialiser;
+	private final BlockingQueue<KieSession> idle;
+
+	// the fact handles inserted during initialisation, per session
+	private final Map<KieSession, Collection<FactHandle>> baseline = new ConcurrentHashMap<>();
+
+	/**
+	 * @param factory     Creates a brand new session
+	 * @param initialiser Inserts the long lived facts into a new session
+	 * @param maxIdle     The maximum number of idle sessions kept for reuse
+	 */
+	public KieSessionPool(Supplier<KieSession> factory, Consumer<KieSession> initialiser, int maxIdle) {
+		if (maxIdle < 1)
+			throw new IllegalArgumentException("maxIdle must be at least 1");
+
+		this.factory = factory;
+		this.initialiser = initialiser;
+		this.idle = new ArrayBlockingQueue<>(maxIdle);
+	}
+
+	/**
+	 * Borrow a session from the pool, creating one if none are idle.
+	 *
+	 * @return An initialised session
+	 */
+	public KieSession borrow() {
+		KieSession session = idle.poll();
+		if (session != null)
+			return session;
+
+		session = factory.get();
+		initialiser.accept(session);
+		baseline.put(session, new HashSet<>(session.<FactHandle>getFactHandles()));
+		log.debug("Created new pooled session");
+		return session;
+	}
+
+	/**
+	 * Reset a session and return it to the pool. If the pool
+	 * is already full, the session is disposed of instead.
+	 *
+	 * @param session The session to release
+	 */
+	public void release(KieSession session) {
+		try {
+			reset(session);
+		} catch (Exception e) {
+			log.error("Could not reset session, disposing: " + e.getMessage());
+			invalidate(session);
+			return;
+		}
+
+		if (!idle.offer(session))
+			invalidate(session);
+	}
+
+	/**
+	 * Dispose of a session without returning it to the pool.
+	 * Should be used when a session has been left in an unknown state.
+	 *
+	 * @param session The session to dispose
+	 */
+	public void invalidate(KieSession session) {
+		baseline.remove(session);
+		session.dispose();
+	}
+
+	/**
+	 * Dispose of all idle sessions.
+	 */
+	public void clear() {
+		KieSession session;
+		while ((session = idle.poll()) != null)
+			invalidate(session);
+	}
+
+	/**
+	 * @return The number of idle sessions
+	 */
+	public int getIdleCount() {
+		return idle.size();
+	}
+
+	/**
+	 * Delete every fact that was not present after initialisation.
+	 *
+	 * @param session The session to reset
+	 */
+	private void reset(KieSession session) {
+		Collection<FactHandle> keep = baseline.get(session);
+		if (keep == null)
+			throw new IllegalStateException("Session was not created by this pool");
+
+		for (FactHandle handle : new ArrayList<>(session.<FactHandle>getFactHandles())) {
+			if (!keep.contains(handle))
+				session.delete(handle);
+		}
+	}
+
+}
@@ -0,0 +1,185 @@
+package life.genny.kogito.common.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jboss.logging.Logger;
+import org.kie.api.KieServices;
+import org.kie.api.command.Command;
+import org.kie.api.command.KieCommands;
+import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.KieRuntimeBuilder;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.StatelessKieSession;
+
+import life.genny.qwandaq.Answer;
+
+/**
+ * Runs a rule group over a set of answers using a configurable
+ * session strategy.
+ */
+public class KieSessionRunner {
+
+	private static final Logger log = Logger.getLogger(KieSessionRunner.class);
+
+	private static final String RESULTS = "results";
+
+	/**
+	 * How KieSessions are obtained for each run.
+	 * NEW creates and disposes a session per run, POOLED reuses
+	 * reset sessions from a bounded pool, and STATELESS runs a single
+	 * batch execution against a stateless session.
+	 */
+	public static enum SessionMode {
+		NEW,
+		POOLED,
+		STATELESS;
+
+		/**
+		 * Parse a session mode, falling back to NEW if unknown.
+		 *
+		 * @param mode The mode string
+		 * @return The session mode
+		 */
+		public static SessionMode parse(String mode) {
+			if (StringUtils.isBlank(mode))
+				return NEW;
+			try {
+				return valueOf(mode.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				log.warn("Unknown session mode " + mode + ", defaulting to " + NEW);
+				return NEW;
+			}
+		}
+	}
+
+	private final KieRuntimeBuilder kieRuntimeBuilder;
+	private final Supplier<List<Object>> beans;
+	private final KieSessionPool pool;
+
+	/**
+	 * @param kieRuntimeBuilder The runtime builder to create sessions from
+	 * @param beans             Supplies the utils and beans inserted into every session
+	 * @param poolSize          The maximum number of idle pooled sessions
+	 */
+	public KieSessionRunner(KieRuntimeBuilder kieRuntimeBuilder, Supplier<List<Object>> beans, int poolSize) {
+		this.kieRuntimeBuilder = kieRuntimeBuilder;
+		this.beans = beans;
+		this.pool = new KieSessionPool(kieRuntimeBuilder::newKieSession,
+				session -> beans.get().forEach(session::insert), poolSize);
+	}
+
+	/**
+	 * Insert the answers, fire the rule group and collect all resulting answers.
+	 *
+	 * @param mode  The session mode to use
+	 * @param group The agenda group to focus
+	 * @param items The answers to insert
+	 * @return All answers present after firing
+	 */
+	public List<Answer> run(SessionMode mode, String group, Answer[] items) {
+		return switch (mode) {
+			case POOLED -> runPooled(group, items);
+			case STATELESS -> runStateless(group, items);
+			default -> runNew(group, items);
+		};
+	}
+
+	/**
+	 * @return The session pool
+	 */
+	public KieSessionPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Run in a brand new session that is disposed of afterwards.
+	 */
+	private List<Answer> runNew(String group, Answer[] items) {
+
+		KieSession session = kieRuntimeBuilder.newKieSession();
+		session.getAgenda().getAgendaGroup(group).setFocus();
+		beans.get().forEach(session::insert);
+
+		try {
+			return fireAndCollect(session, items);
+		} finally {
+			session.dispose();
+		}
+	}
+
+	/**
+	 * Run in a session borrowed from the pool.
+	 */
+	private List<Answer> runPooled(String group, Answer[] items) {
+
+		KieSession session = pool.borrow();
+		session.getAgenda().getAgendaGroup(group).setFocus();
+
+		List<Answer> answers;
+		try {
+			answers = fireAndCollect(session, items);
+		} catch (RuntimeException e) {
+			// do not hand a broken session to the next caller
+			pool.invalidate(session);
+			throw e;
+		}
+		pool.release(session);
+		return answers;
+	}
+
+	/**
+	 * Run as a single batch execution on a stateless session.
+	 */
+	private List<Answer> runStateless(String group, Answer[] items) {
+
+		KieCommands commands = KieServices.get().getCommands();
+
+		List<Object> facts = new ArrayList<>(beans.get());
+		facts.addAll(Arrays.asList(items));
+
+		List<Command<?>> batch = new ArrayList<>();
+		batch.add(commands.newAgendaGroupSetFocus(group));
+		batch.add(commands.newInsertElements(facts));
+		batch.add(commands.newFireAllRules());
+		batch.add(commands.newGetObjects(o -> o instanceof Answer, RESULTS));
+
+		StatelessKieSession session = kieRuntimeBuilder.getKieBase().newStatelessKieSession();
+		ExecutionResults results = session.execute(commands.newBatchExecution(batch));
+
+		@SuppressWarnings("unchecked")
+		Collection<Object> objects = (Collection<Object>) results.getValue(RESULTS);
+
+		return objects.stream()
+				.map(o -> (Answer) o)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Insert answers, fire the rules and collect the resulting answers.
+	 */
+	private List<Answer> fireAndCollect(KieSession session, Answer[] items) {
+
+		// insert answers from message
+		for (Answer answer : items) {
+			log.debug("Inserting answer: " + answer.getAttributeCode() + "=" + answer.getValue() + " into session");
+			session.insert(answer);
+		}
+		log.debug("Inserted " + items.length + " answers into session");
+
+		// Infer data
+		session.fireAllRules();
+
+		// Collect all new answers from the rules
+		return session.getObjects().stream()
+				.filter(o -> (o instanceof Answer))
+				.map(o -> (Answer) o)
+				.collect(Collectors.toList());
+	}
+
+}
@@ -3,7 +3,11 @@ package life.genny.kogito.common.utils;
 import java.net.http.HttpResponse;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -18,16 +22,18 @@ import javax.json.bind.JsonbBuilder;
 import javax.ws.rs.core.Response;
 
 import life.genny.qwandaq.managers.CacheManager;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 import org.kie.api.runtime.KieRuntimeBuilder;
 import org.kie.api.runtime.KieSession;
-import org.apache.commons.lang3.StringUtils;
 
 import life.genny.kogito.common.service.BaseEntityService;
 import life.genny.kogito.common.service.ImportGithubService;
+import life.genny.kogito.common.utils.KieSessionRunner.SessionMode;
 import life.genny.qwandaq.Answer;
 import life.genny.qwandaq.message.QDataAnswerMessage;
 import life.genny.qwandaq.models.GennySettings;
+import life.genny.qwandaq.models.GennyToken;
 import life.genny.qwandaq.models.UserToken;
 import life.genny.qwandaq.utils.BaseEntityUtils;
 import life.genny.qwandaq.utils.DefUtils;
@@ -77,6 +83,17 @@ public class KogitoUtils {
 	@Inject
 	CacheManager cacheManager;
 
+	@ConfigProperty(name = "genny.inference.session.mode", defaultValue = "NEW")
+	String sessionMode;
+
+	@ConfigProperty(name = "genny.inference.session.pool.size", defaultValue = "16")
+	Integer sessionPoolSize;
+
+	@ConfigProperty(name = "genny.kogito.signal.max-in-flight", defaultValue = "8")
+	Integer signalMaxInFlight;
+
+	private volatile KieSessionRunner sessionRunner;
+
 	public static enum UseService {
 		SELF(GennySettings.kogitoServiceUrl()),
 		GADAQ(GennySettings.gadaqServiceUrl());
@@ -170,6 +187,49 @@ public class KogitoUtils {
 		return response.body();
 	}
 
+	/**
+	 * Send a workflow signal asynchronously
+	 *
+	 * @param workflowId The workflow Id
+	 * @param processId  The process Id
+	 * @param signal     the signal code
+	 * @param payload    Th payload to send
+	 * @return A future completing with the response
+	 */
+	public CompletableFuture<HttpResponse<String>> sendSignalAsync(final UseService useService, final String workflowId,
+			final String processId, final String signal, final String payload) {
+
+		return sendSignalAsync(useService, workflowId, processId, signal, payload, userToken);
+	}
+
+	/**
+	 * Send a workflow signal asynchronously using a specific token. 
+	 * Used when sending outside of a request, such as from timers.
+	 *
+	 * @param workflowId The workflow Id
+	 * @param processId  The process Id
+	 * @param signal     the signal code
+	 * @param payload    Th payload to send
+	 * @param token      The token to send with
+	 * @return A future completing with the response
+	 */
+	public CompletableFuture<HttpResponse<String>> sendSignalAsync(final UseService useService, final String workflowId,
+			final String processId, final String signal, final String payload, final GennyToken token) {
+
+		String uri = selectServiceURI(useService) + "/" + workflowId + "/" + processId + "/" + signal;
+		log.info("Sending Signal to uri: " + uri);
+
+		return HttpUtils.postAsync(uri, payload, "application/json", token)
+				.thenApply(response -> {
+					if((int)Math.floor(response.statusCode() / 100) != 2) {
+						log.error("Got " + response.statusCode() + " back from signal sent to " + uri);
+						log.error("payload: " + payload);
+						log.error("Response body: " + response.body());
+					}
+					return response;
+				});
+	}
+
 	/**
 	 * Trigger a workflow.
 	 *
@@ -313,56 +373,85 @@ public class KogitoUtils {
 			return new ArrayList<>();
 		}
 
-		// start new session
-		KieSession session = kieRuntimeBuilder.newKieSession();
-		initSession(session, "Inference");
-
-		// insert answers from message
+		// run inference using the configured session mode
 		int answerCount = msg.getItems().length;
-
-		for (Answer answer : msg.getItems()) {
-			log.debug("Inserting answer: " + answer.getAttributeCode() + "=" + answer.getValue() + " into session");
-			session.insert(answer);
-		}
-		log.debug("Inserted " + answerCount + " answers into session");
-
-		// Infer data
-		session.fireAllRules();
-
-		// Collect all new answers from the rules
-		List<Answer> answers = session.getObjects().stream()
-				.filter(o -> (o instanceof Answer))
-				.map(o -> (Answer) o)
-				.collect(Collectors.toList());
+		List<Answer> answers = getSessionRunner().run(SessionMode.parse(sessionMode), "Inference", msg.getItems());
 
 		answerCount = answers.size() - answerCount;
 
 		log.debug("Inferred " + answerCount + " answers");
-		session.dispose();
 		return answers;
 	}
 
+	/**
+	 * Lazily create the session runner used for data inference.
+	 *
+	 * @return The session runner
+	 */
+	private KieSessionRunner getSessionRunner() {
+		if (sessionRunner == null) {
+			synchronized (this) {
+				if (sessionRunner == null)
+					sessionRunner = new KieSessionRunner(kieRuntimeBuilder, this::getSessionBeans, sessionPoolSize);
+			}
+		}
+		return sessionRunner;
+	}
+
 	/**
 	 * Funnel a list of answers into ProcessQuestions.
 	 * 
+	 * Answers are grouped by processId and sent as a single signal per process, 
+	 * preserving the order of answers within each process. Signals for different 
+	 * processes are sent concurrently, bounded by the max in flight setting.
+	 *
 	 * @param answers List of answers
 	 */
 	public void funnelAnswers(List<Answer> answers) {
-		// feed all answers from facts into ProcessQuestions
-		answers.stream()
+
+		// group answers from facts by process, keeping their order
+		Map<String, List<Answer>> answersByProcess = answers.stream()
 				.filter(answer -> answer.getProcessId() != null)
 				.filter(answer -> !"no-id".equals(answer.getProcessId()))
-				.forEach(answer -> {
-					try {
-						sendSignal(UseService.GADAQ, "processQuestions", answer.getProcessId(),
-								"answer", jsonb.toJson(answer));
-					} catch (Exception e) {
-						log.error("Cannot send answer!");
-						e.printStackTrace();
-						return;
-					}
-				});
-		return;
+				.collect(Collectors.groupingBy(Answer::getProcessId, LinkedHashMap::new, Collectors.toList()));
+
+		Semaphore inFlight = new Semaphore(Math.max(1, signalMaxInFlight));
+		List<CompletableFuture<HttpResponse<String>>> signals = new ArrayList<>();
+
+		for (Map.Entry<String, List<Answer>> entry : answersByProcess.entrySet()) {
+			String processId = entry.getKey();
+			List<Answer> items = entry.getValue();
+
+			// single answers use the original signal
+			String signal = items.size() == 1 ? "answer" : "answers";
+			String payload = items.size() == 1 ? jsonb.toJson(items.get(0)) : jsonb.toJson(new QDataAnswerMessage(items));
+
+			try {
+				inFlight.acquire();
+			} catch (InterruptedException e) {
+				log.error("Interrupted while sending answers!");
+				Thread.currentThread().interrupt();
+				break;
+			}
+
+			try {
+				signals.add(sendSignalAsync(UseService.GADAQ, "processQuestions", processId, signal, payload)
+						.whenComplete((response, e) -> inFlight.release()));
+			} catch (Exception e) {
+				inFlight.release();
+				log.error("Cannot send answers to process " + processId + "!");
+				e.printStackTrace();
+			}
+		}
+
+		// wait for all processes to receive their answers
+		for (CompletableFuture<HttpResponse<String>> future : signals) {
+			try {
+				future.join();
+			} catch (CompletionException e) {
+				log.error("Cannot send answers: " + e.getCause().getMessage());
+			}
+		}
 	}
 
 	/**
@@ -428,20 +517,14 @@ public class KogitoUtils {
 		throw new GraphQLException("All intances are complete");
 	}
 
-	private void initSession(KieSession session, String focus) {
-		if (!StringUtils.isBlank(focus))
-			session.getAgenda().getAgendaGroup(focus).setFocus();
-
-		// insert utils and other beans
-		session.insert(kogitoUtils);
-		session.insert(jsonb);
-		session.insert(defUtils);
-		session.insert(qwandaUtils);
-		session.insert(beUtils);
-		session.insert(userToken);
-		session.insert(baseEntityService);
-		session.insert(importGithubService);
-		session.insert(cacheManager);
+	/**
+	 * The utils and other beans made available to rule sessions.
+	 *
+	 * @return The list of beans
+	 */
+	private List<Object> getSessionBeans() {
+		return List.of(kogitoUtils, jsonb, defUtils, qwandaUtils, beUtils, userToken,
+				baseEntityService, importGithubService, cacheManager);
 	}
 
 	/**
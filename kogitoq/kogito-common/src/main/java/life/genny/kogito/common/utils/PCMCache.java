@@ -0,0 +1,108 @@
+package life.genny.kogito.common.utils;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import life.genny.kogito.common.models.PCMDescriptor;
+import life.genny.qwandaq.attribute.Attribute;
+import life.genny.qwandaq.attribute.EntityAttribute;
+import life.genny.qwandaq.constants.Prefix;
+import life.genny.qwandaq.entity.PCM;
+import life.genny.qwandaq.serialization.baseentity.BaseEntityKey;
+import life.genny.qwandaq.utils.AttributeUtils;
+import life.genny.qwandaq.utils.BaseEntityUtils;
+import life.genny.qwandaq.utils.ProductCache;
+
+/**
+ * Holds a {@link PCMDescriptor} per product and PCM code, so the
+ * headers, sidebars and dashboards shared by every user are only
+ * resolved once.
+ *
+ * Descriptors are evicted as their PCM is updated through this service,
+ * and the ttl bounds how long updates made by other services take to show.
+ */
+@ApplicationScoped
+public class PCMCache {
+
+	private static final Logger log = Logger.getLogger(PCMCache.class);
+
+	@ConfigProperty(name = "genny.pcm.cache.max-size", defaultValue = "1000")
+	Integer maxSize;
+
+	@ConfigProperty(name = "genny.pcm.cache.ttl-seconds", defaultValue = "300")
+	Long ttlSeconds;
+
+	@Inject
+	BaseEntityUtils beUtils;
+
+	@Inject
+	AttributeUtils attributeUtils;
+
+	private ProductCache<PCMDescriptor> descriptors;
+
+	@PostConstruct
+	void init() {
+		descriptors = new ProductCache<>(maxSize, ttlSeconds * 1000L);
+	}
+
+	/**
+	 * Get the descriptor of a PCM, fetching and describing it if need be.
+	 *
+	 * @param productCode The product of the PCM
+	 * @param code The code of the PCM
+	 * @return The PCMDescriptor
+	 */
+	public PCMDescriptor get(String productCode, String code) {
+		PCMDescriptor descriptor = descriptors.get(productCode, code);
+		if (descriptor == null) {
+			descriptor = describe(PCM.from(beUtils.getBaseEntity(productCode, code, true)));
+			descriptors.put(productCode, code, descriptor);
+		}
+		return descriptor;
+	}
+
+	/**
+	 * Describe a PCM without caching it.
+	 *
+	 * @param pcm The PCM to describe. The attributes of its locations are set
+	 * @return The PCMDescriptor
+	 */
+	public PCMDescriptor describe(PCM pcm) {
+		for (EntityAttribute location : pcm.getLocations()) {
+			if (location.getAttribute() == null) {
+				Attribute attribute = attributeUtils.getAttribute(location.getRealm(), location.getAttributeCode(), true);
+				location.setAttribute(attribute);
+			}
+		}
+		return new PCMDescriptor(pcm);
+	}
+
+	/**
+	 * Evict the descriptor of a PCM.
+	 *
+	 * @param productCode The product of the PCM
+	 * @param code The code of the PCM
+	 */
+	public void evict(String productCode, String code) {
+		descriptors.evict(productCode, code);
+	}
+
+	/**
+	 * @return The descriptor cache, for its statistics
+	 */
+	public ProductCache<PCMDescriptor> getDescriptors() {
+		return descriptors;
+	}
+
+	void onEviction(@Observes BaseEntityKey key) {
+		if (key.getCode() != null && key.getCode().startsWith(Prefix.PCM_)) {
+			log.debug("Evicting PCM descriptor " + key.getKeyString());
+			evict(key.getRealm(), key.getCode());
+		}
+	}
+}
@@ -0,0 +1,406 @@
+package life.genny.kogito.common.utils;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.StartupEvent;
+import life.genny.kogito.common.models.TimerData;
+import life.genny.kogito.common.models.TimerEvent;
+import life.genny.kogito.common.models.TimerSchedule;
+import life.genny.kogito.common.models.TimerSignal;
+import life.genny.kogito.common.utils.KogitoUtils.UseService;
+import life.genny.kogito.common.utils.TimingWheel.Timeout;
+import life.genny.qwandaq.managers.CacheManager;
+import life.genny.qwandaq.models.ServiceToken;
+import life.genny.qwandaq.utils.CommonUtils;
+
+/**
+ * Fires TimerData milestones and expiry to their owning processes.
+ *
+ * Registered timers are held in a hierarchical timing wheel, so the
+ * scheduler only does work when a milestone or expiry is actually due,
+ * rather than each process polling its TimerData. Everything due for a
+ * process in the same tick is sent as a single timer signal, and signals
+ * are sent concurrently up to the max in flight setting.
+ *
+ * Schedules are saved in the product cache, and are rehydrated on startup
+ * by every instance. Before firing a schedule an instance takes a short
+ * lease on it with an atomic putIfAbsent and reloads the saved schedule,
+ * so each milestone is signalled by one instance only. An instance that
+ * finds the lease held looks again once the lease has run out.
+ */
+@ApplicationScoped
+public class TimerScheduler {
+
+	private static final Logger log = Logger.getLogger(TimerScheduler.class);
+	private static final Jsonb jsonb = JsonbBuilder.create();
+
+	public static final String SIGNAL = "timer";
+	public static final String KEY_PREFIX = "TIMER:";
+	public static final String LEASE_PREFIX = "TIMER_LEASE:";
+
+	@ConfigProperty(name = "genny.timer.scheduler.enabled", defaultValue = "false")
+	Boolean enabled;
+
+	@ConfigProperty(name = "genny.timer.tick-ms", defaultValue = "1000")
+	Long tickMillis;
+
+	@ConfigProperty(name = "genny.timer.wheel-size", defaultValue = "64")
+	Integer wheelSize;
+
+	@ConfigProperty(name = "genny.timer.signal.max-in-flight", defaultValue = "8")
+	Integer signalMaxInFlight;
+
+	@ConfigProperty(name = "genny.timer.lease-seconds", defaultValue = "30")
+	Long leaseSeconds;
+
+	@Inject
+	KogitoUtils kogitoUtils;
+
+	@Inject
+	CacheManager cm;
+
+	@Inject
+	ServiceToken serviceToken;
+
+	private TimingWheel<String> wheel;
+	private ScheduledExecutorService ticker;
+
+	// identifies the leases of this instance
+	private final String instanceId = UUID.randomUUID().toString();
+
+	// the schedule and wheel handles of each registered process
+	private final Map<String, TimerSchedule> schedules = new ConcurrentHashMap<>();
+	private final Map<String, List<Timeout<String>>> timeouts = new ConcurrentHashMap<>();
+
+	public TimerScheduler() {
+	}
+
+	public TimerScheduler(KogitoUtils kogitoUtils, CacheManager cm, ServiceToken serviceToken, Long tickMillis,
+			Long leaseSeconds) {
+		this.enabled = true;
+		this.kogitoUtils = kogitoUtils;
+		this.cm = cm;
+		this.serviceToken = serviceToken;
+		this.tickMillis = tickMillis;
+		this.wheelSize = 64;
+		this.signalMaxInFlight = 8;
+		this.leaseSeconds = leaseSeconds;
+	}
+
+	void onStart(@Observes StartupEvent event) {
+		start();
+	}
+
+	/**
+	 * Rehydrate the saved schedules and start ticking.
+	 */
+	public void start() {
+
+		if (!enabled) {
+			log.info("Timer scheduler disabled");
+			return;
+		}
+
+		wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+		rehydrate();
+
+		ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "genny-timer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+		log.info("Timer scheduler started with " + schedules.size() + " schedules");
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (ticker != null)
+			ticker.shutdown();
+	}
+
+	/**
+	 * Register the TimerData of a process, replacing any existing schedule.
+	 * Milestones given in minutes are measured from now.
+	 *
+	 * @param productCode The product of the process
+	 * @param useService  The service running the process
+	 * @param workflowId  The workflow id of the process
+	 * @param processId   The process id
+	 * @param timerData   The timer data to schedule
+	 */
+	public void register(String productCode, UseService useService, String workflowId, String processId, TimerData timerData) {
+
+		if (!enabled) {
+			log.warn("Timer scheduler disabled, cannot register " + processId);
+			return;
+		}
+
+		long now = System.currentTimeMillis() / 1000L;
+		timerData.anchor(now);
+		TimerSchedule schedule = new TimerSchedule(productCode, useService.name(), workflowId, processId, now, timerData);
+
+		save(schedule);
+		arm(schedule, 0L);
+	}
+
+	/**
+	 * Check if a process has a saved schedule.
+	 *
+	 * @param productCode The product of the process
+	 * @param processId   The process id
+	 * @return True if registered
+	 */
+	public boolean isRegistered(String productCode, String processId) {
+		return cm.readCache(productCode, KEY_PREFIX + processId) != null;
+	}
+
+	/**
+	 * Cancel the schedule of a process.
+	 *
+	 * @param productCode The product of the process
+	 * @param processId   The process id
+	 */
+	public void cancel(String productCode, String processId) {
+
+		forget(processId);
+		cm.removeEntry(productCode, KEY_PREFIX + processId);
+	}
+
+	/**
+	 * @return True if the scheduler is enabled
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return The number of registered schedules
+	 */
+	public int getScheduleCount() {
+		return schedules.size();
+	}
+
+	/**
+	 * Load the saved schedules of every product.
+	 */
+	void rehydrate() {
+
+		String productCodes = CommonUtils.getSystemEnv("PRODUCT_CODES", "");
+		if (StringUtils.isBlank(productCodes))
+			return;
+
+		for (String productCode : productCodes.split(":")) {
+			try {
+				for (String key : cm.getKeysWithPrefix(productCode, KEY_PREFIX)) {
+					TimerSchedule schedule = cm.getObject(productCode, key, TimerSchedule.class);
+					if (schedule == null)
+						continue;
+					// schedules saved before milestones were anchored at registration
+					schedule.getTimerData().anchor(schedule.getStartEpoch());
+					arm(schedule, 0L);
+				}
+			} catch (Exception e) {
+				log.error("Could not rehydrate timers for " + productCode + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Advance the wheel and fire everything that has become due.
+	 */
+	void tick() {
+
+		try {
+			List<String> due = wheel.advance(System.currentTimeMillis());
+			if (due.isEmpty())
+				return;
+
+			// one signal per process, regardless of how many items fired
+			Map<String, TimerSchedule> fired = new LinkedHashMap<>();
+			for (String processId : due) {
+				TimerSchedule schedule = schedules.get(processId);
+				if (schedule != null)
+					fired.put(processId, schedule);
+			}
+
+			fire(fired.values());
+		} catch (Exception e) {
+			// never let an exception cancel the ticker
+			log.error("Timer tick failed: " + e.getMessage());
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Update the TimerData of each schedule and send the timer signals.
+	 *
+	 * @param fired The schedules with something due
+	 */
+	void fire(Iterable<TimerSchedule> fired) {
+
+		Semaphore inFlight = new Semaphore(Math.max(1, signalMaxInFlight));
+
+		for (TimerSchedule local : fired) {
+			String lease = claim(local);
+			if (lease == null)
+				continue;
+
+			TimerSchedule schedule = cm.getObject(local.getProductCode(), KEY_PREFIX + local.getProcessId(), TimerSchedule.class);
+			if (schedule == null) {
+				// cancelled by another instance
+				forget(local.getProcessId());
+				release(local, lease);
+				continue;
+			}
+
+			long now = System.currentTimeMillis() / 1000L;
+			TimerData timerData = schedule.getTimerData();
+
+			// move past every milestone that is due
+			List<TimerEvent> milestones = new ArrayList<>();
+			TimerEvent next = timerData.getNextMilestone();
+			while (next != null && next.getTimeStamp() <= now) {
+				milestones.add(next);
+				timerData.updateMilestone();
+				next = timerData.getNextMilestone();
+			}
+
+			boolean expired = timerData.hasExpired();
+			if (expired) {
+				cancel(schedule.getProductCode(), schedule.getProcessId());
+			} else {
+				if (!milestones.isEmpty())
+					save(schedule);
+				arm(schedule, 0L);
+			}
+			release(schedule, lease);
+
+			// already signalled by another instance
+			if (milestones.isEmpty() && !expired)
+				continue;
+
+			String payload = jsonb.toJson(new TimerSignal(milestones, expired));
+
+			try {
+				inFlight.acquire();
+			} catch (InterruptedException e) {
+				log.error("Interrupted while firing timers!");
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			try {
+				CompletableFuture<HttpResponse<String>> signal = kogitoUtils.sendSignalAsync(
+						UseService.valueOf(schedule.getService()), schedule.getWorkflowId(),
+						schedule.getProcessId(), SIGNAL, payload, serviceToken);
+				signal.whenComplete((response, e) -> inFlight.release());
+			} catch (Exception e) {
+				inFlight.release();
+				log.error("Cannot send timer signal to process " + schedule.getProcessId() + "!");
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Take the lease of a schedule, so no other instance fires it meanwhile.
+	 * If another instance holds it, the schedule is looked at again once
+	 * the lease runs out.
+	 *
+	 * @param schedule The schedule to fire
+	 * @return The lease taken, or null if held by another instance
+	 */
+	private String claim(TimerSchedule schedule) {
+
+		String productCode = schedule.getProductCode();
+		String key = LEASE_PREFIX + schedule.getProcessId();
+		long now = System.currentTimeMillis();
+		String lease = instanceId + "@" + now;
+
+		// an expired lease is removed and the claim retried once
+		String current = null;
+		for (int attempt = 0; attempt < 2; attempt++) {
+			current = cm.writeCacheIfAbsent(productCode, key, lease);
+			if (current == null)
+				return lease;
+			long takenAt = Long.parseLong(StringUtils.substringAfterLast(current, "@"));
+			if (now - takenAt < leaseSeconds * 1000L)
+				break;
+			cm.removeEntryIfEquals(productCode, key, current);
+		}
+
+		long takenAt = Long.parseLong(StringUtils.substringAfterLast(current, "@"));
+		arm(schedule, takenAt + leaseSeconds * 1000L);
+		return null;
+	}
+
+	private void release(TimerSchedule schedule, String lease) {
+		cm.removeEntryIfEquals(schedule.getProductCode(), LEASE_PREFIX + schedule.getProcessId(), lease);
+	}
+
+	/**
+	 * Place the next milestone and the expiry of a schedule on the wheel.
+	 *
+	 * @param schedule  The schedule to arm
+	 * @param notBefore The earliest time in millis to fire at
+	 */
+	void arm(TimerSchedule schedule, long notBefore) {
+
+		String processId = schedule.getProcessId();
+		disarm(processId);
+		schedules.put(processId, schedule);
+
+		TimerData timerData = schedule.getTimerData();
+		List<Timeout<String>> handles = new ArrayList<>(2);
+
+		TimerEvent next = timerData.getNextMilestone();
+		if (next != null)
+			handles.add(wheel.schedule(processId, Math.max(notBefore, next.getTimeStamp() * 1000L)));
+		handles.add(wheel.schedule(processId, Math.max(notBefore, timerData.getExpiryTimeStamp() * 1000L)));
+
+		timeouts.put(processId, handles);
+	}
+
+	/**
+	 * Cancel the wheel handles of a process.
+	 *
+	 * @param processId The process id
+	 */
+	private void disarm(String processId) {
+		List<Timeout<String>> handles = timeouts.remove(processId);
+		if (handles != null)
+			handles.forEach(Timeout::cancel);
+	}
+
+	private void forget(String processId) {
+		disarm(processId);
+		schedules.remove(processId);
+	}
+
+	private void save(TimerSchedule schedule) {
+		cm.putObject(schedule.getProductCode(), KEY_PREFIX + schedule.getProcessId(), schedule);
+	}
+}
@@ -0,0 +1,207 @@
+package life.genny.kogito.common.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel.
+ *
+ * The lowest wheel holds items due within one rotation, one bucket per tick.
+ * Items further out are placed in coarser overflow wheels, created as needed,
+ * and cascade down into finer wheels as their time approaches. Scheduling and
+ * cancelling are constant time, and advancing only touches the buckets of
+ * the ticks that have passed.
+ *
+ * Items are never fired early, and at most one tick late.
+ *
+ * @param <T> The type of item scheduled
+ */
+public class TimingWheel<T> {
+
+	private final long tickMillis;
+	private final int wheelSize;
+
+	private final Wheel<T> root;
+	private long currentTime;
+	private int size;
+
+	/**
+	 * @param tickMillis The duration of a tick of the lowest wheel
+	 * @param wheelSize  The number of buckets in each wheel
+	 * @param startMillis The time to start the wheel at
+	 */
+	public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+		if (tickMillis < 1)
+			throw new IllegalArgumentException("tickMillis must be at least 1");
+		if (wheelSize < 2)
+			throw new IllegalArgumentException("wheelSize must be at least 2");
+
+		this.tickMillis = tickMillis;
+		this.wheelSize = wheelSize;
+		this.currentTime = startMillis - (startMillis % tickMillis);
+		this.root = new Wheel<>(tickMillis, wheelSize, currentTime);
+	}
+
+	/**
+	 * Schedule an item. An item whose deadline has already
+	 * passed is fired on the next call to {@link #advance(long)}.
+	 *
+	 * @param item     The item to schedule
+	 * @param deadline The time the item is due, in epoch millis
+	 * @return A handle that can be used to cancel the item
+	 */
+	public synchronized Timeout<T> schedule(T item, long deadline) {
+		Timeout<T> timeout = new Timeout<>(item, Math.max(deadline, currentTime));
+		root.add(timeout);
+		size++;
+		return timeout;
+	}
+
+	/**
+	 * Advance the wheel, collecting every item that has become due.
+	 *
+	 * @param nowMillis The current time in epoch millis
+	 * @return The due items, in deadline order per tick
+	 */
+	public synchronized List<T> advance(long nowMillis) {
+
+		List<T> due = new ArrayList<>();
+
+		while (currentTime + tickMillis <= nowMillis) {
+
+			// the bucket covering the current tick has passed and is now due
+			for (Timeout<T> timeout : root.drain(currentTime)) {
+				size--;
+				if (!timeout.cancelled)
+					due.add(timeout.item);
+			}
+
+			// then cascade coarser buckets starting at the next tick into finer wheels,
+			// which may reuse the bucket that was just drained
+			currentTime += tickMillis;
+			root.advanceClock(currentTime);
+		}
+
+		return due;
+	}
+
+	/**
+	 * @return The number of scheduled items, including cancelled
+	 * items that have not yet been passed over
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * @return The time the wheel has advanced to, in epoch millis
+	 */
+	public synchronized long getCurrentTime() {
+		return currentTime;
+	}
+
+	public long getTickMillis() {
+		return tickMillis;
+	}
+
+	public int getWheelSize() {
+		return wheelSize;
+	}
+
+	/**
+	 * A handle to a scheduled item.
+	 */
+	public static class Timeout<T> {
+
+		private final T item;
+		private final long deadline;
+		private volatile boolean cancelled;
+
+		Timeout(T item, long deadline) {
+			this.item = item;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Cancel the item, preventing it from being fired.
+		 */
+		public void cancel() {
+			cancelled = true;
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		public T getItem() {
+			return item;
+		}
+
+		public long getDeadline() {
+			return deadline;
+		}
+	}
+
+	/**
+	 * A single level of the hierarchy.
+	 */
+	private static class Wheel<T> {
+
+		private final long tick;
+		private final int wheelSize;
+		private final long interval;
+		private final List<List<Timeout<T>>> buckets;
+
+		private long currentTime;
+		private Wheel<T> overflow;
+
+		Wheel(long tick, int wheelSize, long startTime) {
+			this.tick = tick;
+			this.wheelSize = wheelSize;
+			this.interval = tick * wheelSize;
+			this.currentTime = startTime - (startTime % tick);
+			this.buckets = new ArrayList<>(wheelSize);
+			for (int i = 0; i < wheelSize; i++)
+				buckets.add(new ArrayList<>());
+		}
+
+		void add(Timeout<T> timeout) {
+			if (timeout.deadline < currentTime + interval) {
+				buckets.get(index(timeout.deadline)).add(timeout);
+			} else {
+				if (overflow == null)
+					overflow = new Wheel<>(interval, wheelSize, currentTime);
+				overflow.add(timeout);
+			}
+		}
+
+		/**
+		 * Move this wheel and its overflows to a new time, re-adding the
+		 * items of any overflow bucket that starts at that time.
+		 */
+		void advanceClock(long time) {
+			currentTime = time - (time % tick);
+			if (overflow == null)
+				return;
+
+			overflow.advanceClock(time);
+			if (time % overflow.tick == 0) {
+				for (Timeout<T> timeout : overflow.drain(time))
+					add(timeout);
+			}
+		}
+
+		List<Timeout<T>> drain(long time) {
+			int index = index(time);
+			List<Timeout<T>> bucket = buckets.get(index);
+			if (bucket.isEmpty())
+				return bucket;
+			buckets.set(index, new ArrayList<>());
+			return bucket;
+		}
+
+		private int index(long time) {
+			return (int) ((time / tick) % wheelSize);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package life.genny.test.kogito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+
+import org.junit.jupiter.api.Test;
+
+import life.genny.kogito.common.models.TimerData;
+import life.genny.kogito.common.models.TimerEvent;
+import life.genny.kogito.common.models.TimerSignal;
+import life.genny.kogito.common.utils.KogitoUtils;
+import life.genny.kogito.common.utils.KogitoUtils.UseService;
+import life.genny.kogito.common.utils.TimerScheduler;
+import life.genny.qwandaq.managers.CacheManager;
+import life.genny.qwandaq.models.GennyToken;
+
+public class TimerSchedulerTest {
+
+	private static final String PRODUCT = "alpha";
+	private static final Jsonb jsonb = JsonbBuilder.create();
+
+	/**
+	 * A product cache shared by every scheduler, holding objects as json like the real one.
+	 */
+	static class SharedCache extends CacheManager {
+
+		final Map<String, String> entries = new ConcurrentHashMap<>();
+
+		@Override
+		public Object readCache(String realm, String key) {
+			return entries.get(realm + ":" + key);
+		}
+
+		@Override
+		public String writeCacheIfAbsent(String realm, String key, String value) {
+			return entries.putIfAbsent(realm + ":" + key, value);
+		}
+
+		@Override
+		public boolean removeEntryIfEquals(String realm, String key, String value) {
+			return entries.remove(realm + ":" + key, value);
+		}
+
+		@Override
+		public void removeEntry(String realm, String key) {
+			entries.remove(realm + ":" + key);
+		}
+
+		@Override
+		public <T> T getObject(String realm, String key, Class<T> c) {
+			String json = entries.get(realm + ":" + key);
+			return json == null ? null : jsonb.fromJson(json, c);
+		}
+
+		@Override
+		public void putObject(String realm, String key, Object obj) {
+			entries.put(realm + ":" + key, jsonb.toJson(obj));
+		}
+	}
+
+	/**
+	 * Records the signals sent, and when.
+	 */
+	static class SignalRecorder extends KogitoUtils {
+
+		final List<TimerSignal> signals = new CopyOnWriteArrayList<>();
+		final List<Long> sentAt = new CopyOnWriteArrayList<>();
+
+		@Override
+		public CompletableFuture<HttpResponse<String>> sendSignalAsync(UseService useService, String workflowId,
+				String processId, String signal, String payload, GennyToken token) {
+			signals.add(jsonb.fromJson(payload, TimerSignal.class));
+			sentAt.add(System.currentTimeMillis());
+			return CompletableFuture.completedFuture(null);
+		}
+	}
+
+	@Test
+	public void firesOnceAcrossInstancesAtTheMilestone() throws InterruptedException {
+
+		SharedCache cache = new SharedCache();
+		SignalRecorder recorder = new SignalRecorder();
+		TimerScheduler first = new TimerScheduler(recorder, cache, null, 20L, 30L);
+		TimerScheduler second = new TimerScheduler(recorder, cache, null, 20L, 30L);
+		first.start();
+		second.start();
+
+		try {
+			long due = System.currentTimeMillis() / 1000L + 1;
+			// both instances hold the schedule, as they would after rehydrating
+			first.register(PRODUCT, UseService.GADAQ, "processQuestions", "process-1", timerData(due));
+			second.register(PRODUCT, UseService.GADAQ, "processQuestions", "process-1", timerData(due));
+
+			Thread.sleep(2500);
+
+			assertEquals(1, recorder.signals.size());
+			TimerSignal signal = recorder.signals.get(0);
+			assertEquals("MILESTONE_1", signal.getMilestones().get(0).getUniqueCode());
+			assertFalse(signal.getExpired());
+			assertTrue(recorder.sentAt.get(0) >= due * 1000L, "fired early");
+
+			// the lease is given back and the schedule kept until it expires
+			assertTrue(first.isRegistered(PRODUCT, "process-1"));
+			assertFalse(cache.entries.containsKey(PRODUCT + ":" + TimerScheduler.LEASE_PREFIX + "process-1"));
+		} finally {
+			first.shutdown();
+			second.shutdown();
+		}
+	}
+
+	@Test
+	public void anchorsRelativeMilestonesAtRegistration() throws InterruptedException {
+
+		SharedCache cache = new SharedCache();
+		SignalRecorder recorder = new SignalRecorder();
+		TimerScheduler scheduler = new TimerScheduler(recorder, cache, null, 20L, 30L);
+		scheduler.start();
+
+		try {
+			// due a minute after registration, not a minute after the epoch
+			TimerData timerData = new TimerData();
+			TimerEvent event = new TimerEvent();
+			event.setTimeStamp(1L);
+			event.setUniqueCode("MILESTONE_1");
+			timerData.add(event);
+
+			long now = System.currentTimeMillis() / 1000L;
+			scheduler.register(PRODUCT, UseService.GADAQ, "processQuestions", "process-2", timerData);
+			Thread.sleep(200);
+
+			assertTrue(recorder.signals.isEmpty());
+			assertEquals(1, scheduler.getScheduleCount());
+			long anchored = timerData.getNextMilestone().getTimeStamp();
+			assertTrue(anchored >= now + 60 && anchored <= now + 61);
+			assertEquals(anchored + 7L * 24L * 60L * 60L, timerData.getExpiryTimeStamp());
+		} finally {
+			scheduler.shutdown();
+		}
+	}
+
+	private static TimerData timerData(long due) {
+		TimerData timerData = new TimerData();
+		TimerEvent event = new TimerEvent();
+		event.setTimeStamp(due);
+		event.setUniqueCode("MILESTONE_1");
+		timerData.add(event);
+		return timerData;
+	}
+}
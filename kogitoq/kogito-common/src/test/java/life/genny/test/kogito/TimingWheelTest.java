@@ -0,0 +1,75 @@
+package life.genny.test.kogito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import life.genny.kogito.common.utils.TimingWheel;
+import life.genny.kogito.common.utils.TimingWheel.Timeout;
+
+public class TimingWheelTest {
+
+	private static final long TICK = 1000L;
+	private static final long START = 1_700_000_000_123L;
+
+	@Test
+	public void firesWithinOneTick() {
+
+		TimingWheel<Long> wheel = new TimingWheel<>(TICK, 8, START);
+		Random random = new Random(42);
+
+		// deadlines spread over several wheel levels
+		Map<Long, Long> deadlines = new HashMap<>();
+		for (long i = 0; i < 2000; i++) {
+			long deadline = START + (long) (random.nextDouble() * TICK * 8 * 8 * 8 * 4);
+			deadlines.put(i, deadline);
+			wheel.schedule(i, deadline);
+		}
+
+		Map<Long, Long> fired = new HashMap<>();
+		long now = START;
+		while (fired.size() < deadlines.size()) {
+			now += TICK / 2;
+			for (Long item : wheel.advance(now))
+				fired.put(item, now);
+		}
+
+		for (Map.Entry<Long, Long> entry : deadlines.entrySet()) {
+			long at = fired.get(entry.getKey());
+			assertTrue(at >= entry.getValue(), "fired early");
+			assertTrue(at < entry.getValue() + 2 * TICK, "fired late");
+		}
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void cancelledItemsDoNotFire() {
+
+		TimingWheel<String> wheel = new TimingWheel<>(TICK, 4, START);
+		Timeout<String> kept = wheel.schedule("KEPT", START + 30 * TICK);
+		Timeout<String> cancelled = wheel.schedule("CANCELLED", START + 30 * TICK);
+		cancelled.cancel();
+
+		List<String> due = wheel.advance(START + 40 * TICK);
+
+		assertEquals(List.of("KEPT"), due);
+		assertFalse(kept.isCancelled());
+	}
+
+	@Test
+	public void pastDeadlinesFireOnNextAdvance() {
+
+		TimingWheel<String> wheel = new TimingWheel<>(TICK, 4, START);
+		wheel.advance(START + 10 * TICK);
+		wheel.schedule("LATE", START);
+
+		assertEquals(List.of("LATE"), wheel.advance(START + 11 * TICK));
+	}
+}
@@ -1,21 +1,24 @@
 package life.genny.lauchy.live.data;
 
+import java.util.concurrent.CompletionStage;
+
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
 import org.jboss.logging.Logger;
 
 import io.quarkus.runtime.StartupEvent;
-import io.smallrye.reactive.messaging.annotations.Blocking;
 import life.genny.lauchy.Validator;
 import life.genny.qwandaq.kafka.KafkaTopic;
 import life.genny.qwandaq.utils.KafkaUtils;
 import life.genny.qwandaq.utils.SecurityUtils;
 import life.genny.serviceq.Service;
 import life.genny.serviceq.intf.GennyScopeInit;
+import life.genny.serviceq.intf.KeyedMessageExecutor;
 
 @ApplicationScoped
 public class InternalConsumer {
@@ -28,6 +31,9 @@ public class InternalConsumer {
 
 	@Inject
 	GennyScopeInit scope;
+
+	@Inject
+	KeyedMessageExecutor executor;
     
 	@Inject
 	Service service;
@@ -46,7 +52,10 @@ public class InternalConsumer {
     
 	// TODO: Test async filtering of data. (running beUtils.getBaseEntity(processData.getTargetCode()) in a threaded ctx
 	@Incoming("data")
-	@Blocking
+	public CompletionStage<Void> receiveData(Message<String> message) {
+		return executor.submit(message, this::getData);
+	}
+
 	public void getData(String data) {
 
         log.info("Received Message: ".concat(SecurityUtils.obfuscate(data)));
@@ -2,6 +2,7 @@ package life.genny.messages.live.data;
 
 import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.StartupEvent;
+import io.smallrye.reactive.messaging.annotations.Blocking;
 import life.genny.messages.process.MessageProcessor;
 import life.genny.qwandaq.message.QMessageGennyMSG;
 import life.genny.qwandaq.models.ANSIColour;
@@ -44,6 +45,7 @@ public class InternalConsumer {
     }
 
     @Incoming("messages")
+    @Blocking
     public void getFromMessages(String data) {
         log.info(ANSIColour.doColour("################################################################", ANSIColour.GREEN));
         log.info(ANSIColour.doColour(">>>>>>>>>>>>>>>>>> PROCESSING NEW MESSAGE <<<<<<<<<<<<<<<<<<<<<<", ANSIColour.GREEN));
@@ -64,6 +66,7 @@ public class InternalConsumer {
             scope.destroy();
             return;
         }
+        // blocks while the message queue is full
         messageProcessor.processGenericMessage(message);
         scope.destroy();
     }
@@ -1,6 +1,7 @@
 package life.genny.messages.managers;
 
 
+import life.genny.messages.process.MessageTemplateCache;
 import life.genny.qwandaq.models.UserToken;
 import life.genny.qwandaq.utils.AttributeUtils;
 import life.genny.qwandaq.utils.BaseEntityUtils;
@@ -11,6 +12,7 @@ import javax.inject.Inject;
 import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbBuilder;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @ApplicationScoped
 public abstract class QMessageProvider  {
@@ -27,8 +29,27 @@ public abstract class QMessageProvider  {
     @Inject
     protected UserToken userToken;
 
+    @Inject
+    protected MessageTemplateCache templates;
+
     protected static Jsonb jsonb = JsonbBuilder.create();
 
     public abstract void sendMessage(Map<String, Object> contextMap);
 
+    /**
+     * Send a message, completing with whether it was sent. Providers that
+     * buffer messages complete the future once the buffer is sent.
+     */
+    public CompletableFuture<Boolean> send(Map<String, Object> contextMap) {
+        sendMessage(contextMap);
+        return CompletableFuture.completedFuture(true);
+    }
+
+    /**
+     * Send anything the provider has buffered. Called once every
+     * recipient of a message has been passed to {@link #sendMessage(Map)}.
+     */
+    public void flush() {
+    }
+
 }
\ No newline at end of file
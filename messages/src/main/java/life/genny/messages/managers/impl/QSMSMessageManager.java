@@ -40,25 +40,25 @@ public final class QSMSMessageManager extends QMessageProvider {
         String recipientCode = (String) contextMap.get("RECIPIENT");
         log.info(ANSIColour.doColour("recipientCode: "+ recipientCode, ANSIColour.GREEN));
 
-        String recipientPhoneNumber = required(() -> beaUtils.getEntityAttribute(realm, messageCode, "PRI_MOBILE").getValueString());
+        String recipientPhoneNumber = required(() -> templates.getTemplate(realm, messageCode, projectCode).getValue("PRI_MOBILE"));
         log.info(ANSIColour.doColour("recipientPhoneNumber: "+ recipientPhoneNumber, ANSIColour.GREEN));
 
         String body = null;
         if (contextMap.containsKey("BODY")) {
             body = (String) contextMap.get("BODY");
         } else {
-            body = required(() -> beaUtils.getEntityAttribute(realm, messageCode, "PRI_SHORT_BODY").getValueString());
+            body = required(() -> templates.getTemplate(realm, messageCode, projectCode).getValue("PRI_SHORT_BODY"));
             log.info(ANSIColour.doColour("body: "+ body, ANSIColour.GREEN));
         }
 
         body = mergeUtils.merge(body, contextMap);
         log.info(ANSIColour.doColour("merge body: "+ body, ANSIColour.GREEN));
 
-        String accountSid = required(() -> beaUtils.getEntityAttribute(realm, projectCode, "ENV_TWILIO_ACCOUNT_SID").getValueString());
+        String accountSid = required(() -> templates.getTemplate(realm, messageCode, projectCode).getSetting("ENV_TWILIO_ACCOUNT_SID"));
         log.info(ANSIColour.doColour("accountSid: "+ accountSid, ANSIColour.GREEN));
-        String senderPhoneNumber = required(() -> beaUtils.getEntityAttribute(realm, projectCode, "ENV_TWILIO_SOURCE_PHONE").getValueString());
+        String senderPhoneNumber = required(() -> templates.getTemplate(realm, messageCode, projectCode).getSetting("ENV_TWILIO_SOURCE_PHONE"));
         log.info(ANSIColour.doColour("senderPhoneNumber: "+ senderPhoneNumber, ANSIColour.GREEN));
-        String twilioAuthToken = required(() -> beaUtils.getEntityAttribute(realm, projectCode, "ENV_TWILIO_AUTH_TOKEN").getValueString());
+        String twilioAuthToken = required(() -> templates.getTemplate(realm, messageCode, projectCode).getSetting("ENV_TWILIO_AUTH_TOKEN"));
         log.info(ANSIColour.doColour("twilioAuthToken: "+ twilioAuthToken, ANSIColour.GREEN));
 
         try {
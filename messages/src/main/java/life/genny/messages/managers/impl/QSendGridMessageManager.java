@@ -1,10 +1,5 @@
 package life.genny.messages.managers.impl;
 
-import com.sendgrid.Method;
-import com.sendgrid.Request;
-import com.sendgrid.Response;
-import com.sendgrid.SendGrid;
-import com.sendgrid.helpers.mail.Mail;
 import com.sendgrid.helpers.mail.objects.Email;
 import com.sendgrid.helpers.mail.objects.Personalization;
 import life.genny.messages.live.qualifer.MessageType;
@@ -18,20 +13,21 @@ import org.jboss.logging.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static life.genny.qwandaq.utils.FailureHandler.optional;
 import static life.genny.qwandaq.utils.FailureHandler.required;
 import static life.genny.qwandaq.message.QBaseMSGMessageType.SENDGRID;
 
 /**
- * Sends email using sendgrid along with the email template id and data for the email template
+ * Sends email using sendgrid along with the email template id and data for the email template.
+ * Recipients sharing a template and sender are batched into a single request.
  */
 @ApplicationScoped
 @MessageType(type = SENDGRID)
@@ -40,8 +36,20 @@ public final class QSendGridMessageManager extends QMessageProvider {
     @Inject
     Logger log;
 
+    @Inject
+    SendGridBatcher batcher;
+
     @Override
     public void sendMessage(Map<String, Object> contextMap) {
+        send(contextMap);
+    }
+
+    /**
+     * Add the recipient to a SendGrid batch. The returned future completes
+     * once the batch has been sent, which may not be until {@link #flush()}.
+     */
+    @Override
+    public CompletableFuture<Boolean> send(Map<String, Object> contextMap) {
         log.info(ANSIColour.doColour(">>>>>>>>>>> Triggering Sendgrid email <<<<<<<<<<<<<<", ANSIColour.GREEN));
 
         String recipientCode = (String) required(() -> contextMap.get("RECIPIENT"));
@@ -55,15 +63,15 @@ public final class QSendGridMessageManager extends QMessageProvider {
 
         String recipientEmail = required(() -> beaUtils.getEntityAttribute(realm, recipientCode, "PRI_EMAIL").getValueString()).trim();
         log.info(ANSIColour.doColour("recipientEmail: "+ recipientEmail, ANSIColour.GREEN));
-        String templateId = required(() -> beaUtils.getEntityAttribute(realm, messageCode, "PRI_SENDGRID_ID").getValueString());
+        String templateId = required(() -> templates.getTemplate(realm, messageCode, projectCode).getValue("PRI_SENDGRID_ID"));
         log.info(ANSIColour.doColour("templateId: "+ templateId, ANSIColour.GREEN));
-        String subject = required(() -> beaUtils.getEntityAttribute(realm, messageCode, "PRI_SUBJECT").getValueString());
+        String subject = required(() -> templates.getTemplate(realm, messageCode, projectCode).getValue("PRI_SUBJECT"));
         log.info(ANSIColour.doColour("subject: "+ subject, ANSIColour.GREEN));
-        String emailSender = required(() -> beaUtils.getEntityAttribute(realm, projectCode, "ENV_SENDGRID_EMAIL_SENDER").getValueString());
+        String emailSender = required(() -> templates.getTemplate(realm, messageCode, projectCode).getSetting("ENV_SENDGRID_EMAIL_SENDER"));
         log.info(ANSIColour.doColour("emailSender: "+ emailSender, ANSIColour.GREEN));
-        String emailNameSender = required(() -> beaUtils.getEntityAttribute(realm, projectCode, "ENV_SENDGRID_EMAIL_NAME_SENDER").getValueString());
+        String emailNameSender = required(() -> templates.getTemplate(realm, messageCode, projectCode).getSetting("ENV_SENDGRID_EMAIL_NAME_SENDER"));
         log.info(ANSIColour.doColour("emailNameSender: "+ emailNameSender, ANSIColour.GREEN));
-        String emailApiKey = required(() -> beaUtils.getEntityAttribute(realm, projectCode, "ENV_SENDGRID_API_KEY").getValueString());
+        String emailApiKey = required(() -> templates.getTemplate(realm, messageCode, projectCode).getSetting("ENV_SENDGRID_API_KEY"));
         log.info(ANSIColour.doColour("emailApiKey: "+ emailApiKey, ANSIColour.GREEN));
 
         Email from = new Email(emailSender, emailNameSender);
@@ -92,9 +100,12 @@ public final class QSendGridMessageManager extends QMessageProvider {
             personalization.addDynamicTemplateData(entry.getKey(), entry.getValue());
         }
 
-        Mail mail = buildMail(templateId, from, personalization);
+        return batcher.add(emailApiKey, templateId, from, personalization);
+    }
 
-        sendEmail(mail, emailApiKey);
+    @Override
+    public void flush() {
+        batcher.flush();
     }
 
     private Map<String, Object> formatValue(Map<String, Object> contextMap, String messageCode, String recipientCode) {
@@ -181,33 +192,4 @@ public final class QSendGridMessageManager extends QMessageProvider {
             log.info(ANSIColour.doColour("Found BCC Email: " + email, ANSIColour.BLUE));
         }
     }
-
-    private Mail buildMail(String templateId, Email from, Personalization personalization) {
-        Mail mail = new Mail();
-        mail.addPersonalization(personalization);
-        mail.setTemplateId(templateId);
-        mail.setFrom(from);
-        return mail;
-    }
-
-    private void sendEmail(Mail mail, String emailApiKey) {
-        SendGrid sg = new SendGrid(emailApiKey);
-        Request request = new Request();
-        try {
-            request.setMethod(Method.POST);
-            request.setEndpoint("mail/send");
-            request.setBody(mail.build());
-            Response response = sg.api(request);
-            if (response.getStatusCode() == javax.ws.rs.core.Response.Status.ACCEPTED.getStatusCode()) {
-                log.info(ANSIColour.doColour("SendGrid Message Sent!", ANSIColour.GREEN));
-            } else {
-                log.error(ANSIColour.doColour("Error sending to SendGrid!", ANSIColour.RED));
-                log.error(ANSIColour.doColour(response.getStatusCode(), ANSIColour.RED));
-                log.error(ANSIColour.doColour(response.getBody(), ANSIColour.RED));
-                log.error(ANSIColour.doColour(response.getHeaders(), ANSIColour.RED));
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
 }
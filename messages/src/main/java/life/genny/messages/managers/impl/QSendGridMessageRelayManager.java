@@ -57,17 +57,17 @@ public final class QSendGridMessageRelayManager extends QMessageProvider {
 
         String recipientEmail = required(() -> beaUtils.getEntityAttribute(realm, recipientCode, "PRI_EMAIL").getValueString()).trim();
         log.info(ANSIColour.doColour("recipientEmail: " + recipientEmail, ANSIColour.GREEN));
-        String subject = required(() -> beaUtils.getEntityAttribute(realm, messageCode, "PRI_SUBJECT").getValueString());
+        String subject = required(() -> templates.getTemplate(realm, messageCode, projectCode).getValue("PRI_SUBJECT"));
         log.info(ANSIColour.doColour("subject: " + subject, ANSIColour.GREEN));
-        String body = required(() -> beaUtils.getEntityAttribute(realm, messageCode, "PRI_BODY").getValueString());
+        String body = required(() -> templates.getTemplate(realm, messageCode, projectCode).getValue("PRI_BODY"));
         log.info(ANSIColour.doColour("body: " + body, ANSIColour.GREEN));
-        String emailSender = required(() -> beaUtils.getEntityAttribute(realm, projectCode, "ENV_SENDGRID_EMAIL_SENDER").getValueString());
+        String emailSender = required(() -> templates.getTemplate(realm, messageCode, projectCode).getSetting("ENV_SENDGRID_EMAIL_SENDER"));
         log.info(ANSIColour.doColour("emailSender: " + emailSender, ANSIColour.GREEN));
-        String emailNameSender = required(() -> beaUtils.getEntityAttribute(realm, projectCode, "ENV_SENDGRID_EMAIL_NAME_SENDER").getValueString());
+        String emailNameSender = required(() -> templates.getTemplate(realm, messageCode, projectCode).getSetting("ENV_SENDGRID_EMAIL_NAME_SENDER"));
         log.info(ANSIColour.doColour("emailNameSender: " + emailNameSender, ANSIColour.GREEN));
-        String emailApiKey = required(() -> beaUtils.getEntityAttribute(realm, projectCode, "ENV_SENDGRID_API_KEY").getValueString());
+        String emailApiKey = required(() -> templates.getTemplate(realm, messageCode, projectCode).getSetting("ENV_SENDGRID_API_KEY"));
         log.info(ANSIColour.doColour("emailApiKey: " + emailApiKey, ANSIColour.GREEN));
-        String apiPath = required(() -> beaUtils.getEntityAttribute(realm, projectCode, "ENV_SENDGRID_API_PATH").getValueString());
+        String apiPath = required(() -> templates.getTemplate(realm, messageCode, projectCode).getSetting("ENV_SENDGRID_API_PATH"));
         log.info(ANSIColour.doColour("apiPath: " + apiPath, ANSIColour.GREEN));
 
         HashMap<String, Object> templateData = formatValue(contextMap, recipientCode);
@@ -49,7 +49,7 @@ public final class QSlackMessageManager extends QMessageProvider {
         if (contextMap.containsKey("BODY")) {
             body = (String) contextMap.get("BODY");
         } else {
-            body = required(() -> beaUtils.getEntityAttribute(realm, messageCode, "PRI_SLACK_BODY").getValueString());
+            body = required(() -> templates.getTemplate(realm, messageCode, project).getValue("PRI_SLACK_BODY"));
             log.info(ANSIColour.doColour("body: "+ body, ANSIColour.GREEN));
         }
 
@@ -33,6 +33,8 @@ public final class QToastMessageManager extends QMessageProvider {
 
         String messageCode = (String) contextMap.get("MESSAGE");
         log.info(ANSIColour.doColour("messageCode: "+ messageCode, ANSIColour.GREEN));
+        String projectCode = (String) contextMap.get("PROJECT");
+        log.info(ANSIColour.doColour("projectCode: "+ projectCode, ANSIColour.GREEN));
         String realm = userToken.getRealm();
         log.info(ANSIColour.doColour("realm: "+ realm, ANSIColour.GREEN));
 
@@ -40,7 +42,7 @@ public final class QToastMessageManager extends QMessageProvider {
         if (contextMap.containsKey("BODY")) {
             body = (String) contextMap.get("BODY");
         } else {
-            body = required(() -> beaUtils.getEntityAttribute(realm, messageCode, "PRI_SHORT_BODY").getValueString());
+            body = required(() -> templates.getTemplate(realm, messageCode, projectCode).getValue("PRI_SHORT_BODY"));
             log.info(ANSIColour.doColour("body: "+ body, ANSIColour.GREEN));
         }
 
@@ -48,7 +50,7 @@ public final class QToastMessageManager extends QMessageProvider {
         if (contextMap.containsKey("STYLE")) {
             style = (String) contextMap.get("STYLE");
         } else {
-            style = optional(() -> beaUtils.getEntityAttribute(realm, messageCode, "PRI_STYLE").getValueString(), "INFO");
+            style = optional(() -> templates.getTemplate(realm, messageCode, projectCode).getValue("PRI_STYLE"), "INFO");
             log.info(ANSIColour.doColour("style: "+ style, ANSIColour.GREEN));
         }
 
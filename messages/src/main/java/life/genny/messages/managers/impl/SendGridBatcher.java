@@ -0,0 +1,288 @@
+package life.genny.messages.managers.impl;
+
+import com.sendgrid.Method;
+import com.sendgrid.Request;
+import com.sendgrid.Response;
+import com.sendgrid.SendGrid;
+import com.sendgrid.helpers.mail.Mail;
+import com.sendgrid.helpers.mail.objects.Email;
+import com.sendgrid.helpers.mail.objects.Personalization;
+import life.genny.qwandaq.models.ANSIColour;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects SendGrid personalizations that share an api key, template and sender,
+ * and sends them together in a single mail/send request.
+ *
+ * A batch is sent once it reaches the batch size, or when flushed. Clients are
+ * pooled per api key. Setting genny.sendgrid.host and genny.sendgrid.test allows
+ * sending to a local http stub instead of the SendGrid api.
+ *
+ * Each personalization's future completes with whether SendGrid accepted it.
+ * A batch failing with a rate limit, server or connection error is retried as
+ * a whole. A batch rejected as a bad request is split in half and each half
+ * is sent, so one bad personalization fails alone rather than failing its whole
+ * batch. Any other rejection, such as a bad api key or too large a request,
+ * fails the whole batch at once.
+ */
+@ApplicationScoped
+public class SendGridBatcher {
+
+    private static final Logger log = Logger.getLogger(SendGridBatcher.class);
+
+    // the most personalizations SendGrid accepts in one request
+    public static final int MAX_PERSONALIZATIONS = 1000;
+
+    @ConfigProperty(name = "genny.sendgrid.batch.size", defaultValue = "1000")
+    Integer batchSize;
+
+    @ConfigProperty(name = "genny.sendgrid.host", defaultValue = "api.sendgrid.com")
+    String host;
+
+    @ConfigProperty(name = "genny.sendgrid.test", defaultValue = "false")
+    Boolean test;
+
+    @ConfigProperty(name = "genny.sendgrid.retries", defaultValue = "2")
+    Integer retries;
+
+    @ConfigProperty(name = "genny.sendgrid.retry.delay-ms", defaultValue = "1000")
+    Long retryDelayMillis;
+
+    private final Map<String, SendGrid> clients = new ConcurrentHashMap<>();
+    private final Map<BatchKey, List<Pending>> batches = new HashMap<>();
+
+    public SendGridBatcher() { /* no-arg constructor */ }
+
+    public SendGridBatcher(Integer batchSize, Integer retries, Long retryDelayMillis) {
+        this.batchSize = batchSize;
+        this.retries = retries;
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    public SendGridBatcher(Integer batchSize, Integer retries, Long retryDelayMillis, String host, Boolean test) {
+        this(batchSize, retries, retryDelayMillis);
+        this.host = host;
+        this.test = test;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    /**
+     * Add a personalization to the batch of its template and sender.
+     *
+     * @param apiKey          The SendGrid api key
+     * @param templateId      The dynamic template id
+     * @param from            The sender
+     * @param personalization The personalization of a single recipient
+     * @return A future completing with whether SendGrid accepted the personalization
+     */
+    public CompletableFuture<Boolean> add(String apiKey, String templateId, Email from, Personalization personalization) {
+
+        BatchKey key = new BatchKey(apiKey, templateId, from.getEmail(), from.getName());
+        Pending pending = new Pending(personalization);
+        List<Pending> full = null;
+
+        synchronized (batches) {
+            List<Pending> batch = batches.computeIfAbsent(key, k -> new ArrayList<>());
+            batch.add(pending);
+            if (batch.size() >= getBatchSize())
+                full = batches.remove(key);
+        }
+
+        // send outside the lock so other batches can keep filling
+        if (full != null)
+            send(key, full);
+        return pending.sent;
+    }
+
+    /**
+     * Send every pending batch.
+     */
+    public void flush() {
+
+        Map<BatchKey, List<Pending>> pending;
+        synchronized (batches) {
+            if (batches.isEmpty())
+                return;
+            pending = new HashMap<>(batches);
+            batches.clear();
+        }
+
+        for (Map.Entry<BatchKey, List<Pending>> entry : pending.entrySet())
+            send(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * @return The number of personalizations waiting to be sent
+     */
+    public int getPendingCount() {
+        synchronized (batches) {
+            return batches.values().stream().mapToInt(List::size).sum();
+        }
+    }
+
+    private int getBatchSize() {
+        int size = batchSize != null ? batchSize : MAX_PERSONALIZATIONS;
+        return Math.max(1, Math.min(size, MAX_PERSONALIZATIONS));
+    }
+
+    private void send(BatchKey key, List<Pending> batch) {
+        try {
+            send(key, batch, retries != null ? retries : 0);
+        } catch (InterruptedException e) {
+            log.error("Interrupted sending batch of " + batch.size() + " to SendGrid");
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Could not send batch of " + batch.size() + " to SendGrid: " + e.getMessage());
+        } finally {
+            // anything not settled by now was not sent
+            batch.forEach(pending -> pending.sent.complete(false));
+        }
+    }
+
+    private void send(BatchKey key, List<Pending> batch, int retriesLeft) throws InterruptedException {
+
+        int status = post(key, batch);
+        if (status == javax.ws.rs.core.Response.Status.ACCEPTED.getStatusCode()) {
+            log.info(ANSIColour.doColour("SendGrid Message Sent to " + batch.size() + " recipients!", ANSIColour.GREEN));
+            batch.forEach(pending -> pending.sent.complete(true));
+            return;
+        }
+
+        if (isRetryable(status)) {
+            if (retriesLeft > 0) {
+                long delay = retryDelayMillis != null ? retryDelayMillis : 0L;
+                log.warn("Retrying batch of " + batch.size() + " to SendGrid in " + delay + "ms after status " + status);
+                Thread.sleep(delay);
+                send(key, batch, retriesLeft - 1);
+            }
+            return;
+        }
+
+        // a bad request is split until the personalizations at fault are alone,
+        // while any other rejection would fail every half the same way
+        if (status == javax.ws.rs.core.Response.Status.BAD_REQUEST.getStatusCode() && batch.size() > 1) {
+            int half = batch.size() / 2;
+            log.warn("Splitting rejected batch of " + batch.size() + " to SendGrid");
+            send(key, new ArrayList<>(batch.subList(0, half)), retriesLeft);
+            send(key, new ArrayList<>(batch.subList(half, batch.size())), retriesLeft);
+        }
+    }
+
+    /**
+     * Post a batch to SendGrid.
+     *
+     * @return The response status, or -1 if the request could not be made
+     */
+    private int post(BatchKey key, List<Pending> batch) {
+
+        Mail mail = new Mail();
+        mail.setTemplateId(key.templateId);
+        mail.setFrom(new Email(key.senderEmail, key.senderName));
+        batch.forEach(pending -> mail.addPersonalization(pending.personalization));
+
+        Request request = new Request();
+        try {
+            request.setMethod(Method.POST);
+            request.setEndpoint("mail/send");
+            request.setBody(mail.build());
+            Response response = api(key.apiKey, request);
+            if (response.getStatusCode() != javax.ws.rs.core.Response.Status.ACCEPTED.getStatusCode()) {
+                log.error(ANSIColour.doColour("Error sending to SendGrid!", ANSIColour.RED));
+                log.error(ANSIColour.doColour(response.getStatusCode(), ANSIColour.RED));
+                log.error(ANSIColour.doColour(response.getBody(), ANSIColour.RED));
+                log.error(ANSIColour.doColour(response.getHeaders(), ANSIColour.RED));
+            }
+            return response.getStatusCode();
+        } catch (IOException e) {
+            log.error("Could not send batch of " + batch.size() + " to SendGrid: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Make a request to the SendGrid api.
+     *
+     * @param apiKey  The SendGrid api key
+     * @param request The request
+     * @return The response
+     */
+    protected Response api(String apiKey, Request request) throws IOException {
+        return getClient(apiKey).api(request);
+    }
+
+    private static boolean isRetryable(int status) {
+        return status < 0 || status == 429 || status >= 500;
+    }
+
+    private SendGrid getClient(String apiKey) {
+        return clients.computeIfAbsent(apiKey, k -> {
+            SendGrid sg = new SendGrid(k, Boolean.TRUE.equals(test));
+            if (host != null)
+                sg.setHost(host);
+            return sg;
+        });
+    }
+
+    /**
+     * A personalization waiting to be sent, and whether it was.
+     */
+    static final class Pending {
+
+        final Personalization personalization;
+        final CompletableFuture<Boolean> sent = new CompletableFuture<>();
+
+        Pending(Personalization personalization) {
+            this.personalization = personalization;
+        }
+    }
+
+    /**
+     * Personalizations can only share a request if they share all of these.
+     */
+    static final class BatchKey {
+
+        final String apiKey;
+        final String templateId;
+        final String senderEmail;
+        final String senderName;
+
+        BatchKey(String apiKey, String templateId, String senderEmail, String senderName) {
+            this.apiKey = apiKey;
+            this.templateId = templateId;
+            this.senderEmail = senderEmail;
+            this.senderName = senderName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof BatchKey))
+                return false;
+            BatchKey other = (BatchKey) o;
+            return Objects.equals(apiKey, other.apiKey) && Objects.equals(templateId, other.templateId)
+                    && Objects.equals(senderEmail, other.senderEmail) && Objects.equals(senderName, other.senderName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(apiKey, templateId, senderEmail, senderName);
+        }
+    }
+}
@@ -17,24 +17,77 @@ import life.genny.qwandaq.utils.CommonUtils;
 import life.genny.qwandaq.utils.EntityAttributeUtils;
 import life.genny.qwandaq.utils.KeycloakUtils;
 import life.genny.qwandaq.utils.MergeUtils;
+import life.genny.serviceq.intf.GennyExecutors;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.context.ManagedExecutor;
 import org.jboss.logging.Logger;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import static life.genny.qwandaq.utils.FailureHandler.optional;
 
+/**
+ * Processes generic messages.
+ *
+ * Messages are admitted through a bounded queue, blocking the consumer when
+ * it is full. The recipients of each message are then sent concurrently, with
+ * the number of sends in flight to each provider limited separately, so that a
+ * slow provider cannot starve the others. The limit of a provider may be set
+ * with genny.messages.provider.&lt;TYPE&gt;.max-in-flight.
+ */
 @ApplicationScoped
 public class MessageProcessor {
 
     private static final Logger log = Logger.getLogger(MessageProcessor.class);
 
-    private static final ManagedExecutor executor = ManagedExecutor.builder().build();
+    private static final Pattern BE_CODE_PATTERN = Pattern.compile("[A-Z]{3}\\_.*");
+
+    // how long to wait for a provider send slot before flushing the provider
+    private static final long PROVIDER_FLUSH_WAIT_MS = 100;
+
+    @ConfigProperty(name = "genny.messages.executor.threads", defaultValue = "64")
+    Integer executorThreads;
+
+    @ConfigProperty(name = "genny.messages.recipient.threads", defaultValue = "32")
+    Integer recipientThreads;
+
+    @ConfigProperty(name = "genny.messages.queue.capacity", defaultValue = "256")
+    Integer queueCapacity;
+
+    @ConfigProperty(name = "genny.messages.provider.max-in-flight", defaultValue = "8")
+    Integer providerMaxInFlight;
+
+    @ConfigProperty(name = "genny.messages.progress.interval", defaultValue = "100")
+    Integer progressInterval;
+
+    @Inject
+    GennyExecutors executors;
+
+    private ManagedExecutor executor;
+    private ManagedExecutor recipientExecutor;
+
+    // admits messages to the executor, providing backpressure to the consumer
+    private Semaphore queue;
+
+    // limits the sends in flight to each provider
+    private final Map<QBaseMSGMessageType, Semaphore> providerLimits = new ConcurrentHashMap<>();
 
     @Inject
     KeycloakUtils keycloakUtils;
@@ -60,20 +113,56 @@ public class MessageProcessor {
     @Inject
     MergeUtils mergeUtils;
 
+    @Inject
+    MessageTemplateCache templates;
+
     @Inject
     AttributeUtils attributeUtils;
 
-    public void processGenericMessage(QMessageGennyMSG message) {
-        executor.supplyAsync(() -> {
-            boolean success = false;
-            try {
-                processMessageHelper(message);
-                success = true;
-            } catch (Exception e) {
-                success = false;
-            }
-            return success;
-        });
+    @PostConstruct
+    void setup() {
+        executor = executors.newManagedExecutor("genny-messages", executorThreads);
+        recipientExecutor = executors.newManagedExecutor("genny-messages-recipient", recipientThreads);
+        queue = new Semaphore(Math.max(1, queueCapacity));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        recipientExecutor.shutdown();
+    }
+
+    /**
+     * Queue a message for processing, blocking while the queue is full.
+     *
+     * @param message The message to process
+     * @return A future completing with the success of the message
+     */
+    public CompletableFuture<Boolean> processGenericMessage(QMessageGennyMSG message) {
+        try {
+            queue.acquire();
+        } catch (InterruptedException e) {
+            log.error("Interrupted while waiting for the message queue!");
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(false);
+        }
+
+        try {
+            return executor.supplyAsync(() -> {
+                try {
+                    processMessageHelper(message);
+                    return true;
+                } catch (Exception e) {
+                    log.error("Error processing message: " + e.getMessage());
+                    return false;
+                } finally {
+                    queue.release();
+                }
+            });
+        } catch (Exception e) {
+            queue.release();
+            throw e;
+        }
     }
 
     /**
@@ -97,8 +186,11 @@ public class MessageProcessor {
 
         List<QBaseMSGMessageType> messageTypeList = Arrays.asList(message.getMessageTypeArr());
 
-        String cc = optional(() -> beaUtils.getEntityAttribute(realm, messageCode, "PRI_CC").getValueString());
-        String bcc = optional(() -> beaUtils.getEntityAttribute(realm, messageCode, "PRI_BCC").getValueString());
+        String projectCode = "PRJ_" + realm.toUpperCase();
+        MessageTemplate template = optional(() -> templates.getTemplate(realm, messageCode, projectCode));
+
+        String cc = template != null ? template.getValue("PRI_CC") : null;
+        String bcc = template != null ? template.getValue("PRI_BCC") : null;
 
         if (cc != null) {
             log.info(ANSIColour.doColour("CC found", ANSIColour.GREEN));
@@ -114,76 +206,154 @@ public class MessageProcessor {
         // Create context map with BaseEntities
         Map<String, Object> baseEntityContextMap;
         baseEntityContextMap = createBaseEntityContextMap(message);
-        baseEntityContextMap.put("PROJECT", "PRJ_" + realm.toUpperCase());
+        baseEntityContextMap.put("PROJECT", projectCode);
         baseEntityContextMap.put("MESSAGE", messageCode);
 
-        String contextAssociations = optional(() -> beaUtils.getEntityAttribute(realm, messageCode, "PRI_CONTEXT_ASSOCIATIONS").getValueString());
+        String contextAssociations = template != null ? template.getValue("PRI_CONTEXT_ASSOCIATIONS") : null;
 
         if (contextAssociations != null) {
             mergeUtils.addAssociatedContexts(beUtils, baseEntityContextMap, contextAssociations, false);
         }
 
         String[] recipientArr = message.getRecipientArr();
+        MessageProgress progress = new MessageProgress(messageCode, recipientArr.length, progressInterval);
+
+        // a recipient is recorded once its providers report the outcome, which for
+        // batching providers is only once the batch holding it has been sent
+        List<CompletableFuture<Void>> futures = new ArrayList<>(recipientArr.length);
+        List<CompletableFuture<Void>> outcomes = Collections.synchronizedList(new ArrayList<>(recipientArr.length));
         for (String recipient : recipientArr) {
-            recipient = CommonUtils.cleanUpAttributeValue(recipient);
-            // Set our current recipient
-            baseEntityContextMap.put("RECIPIENT", recipient);
-
-            // Process any URL contexts for this recipient
-            if (baseEntityContextMap.containsKey("URL:ENCODE")) {
-                // Fetch form contexts
-                String[] componentArray = ((String) baseEntityContextMap.get("URL:ENCODE")).split("/");
-                // Init and grab url structure
-                String parentCode = null;
-                String code = null;
-                String targetCode = null;
-                if (componentArray.length > 0) {
-                    parentCode = componentArray[0];
+            futures.add(recipientExecutor.runAsync(() -> {
+                long recipientStart = System.currentTimeMillis();
+                CompletableFuture<Boolean> outcome;
+                try {
+                    outcome = processRecipient(baseEntityContextMap, recipient, messageTypeList);
+                } catch (Exception e) {
+                    log.error("Error sending message " + messageCode + " to " + recipient + ": " + e.getMessage());
+                    outcome = CompletableFuture.completedFuture(false);
                 }
-                if (componentArray.length > 1) {
-                    code = componentArray[1];
-                }
-                if (componentArray.length > 2) {
-                    targetCode = componentArray[2];
-                }
-
-                log.info("Fetching Token from " + serviceToken.getKeycloakUrl() + " for user " + recipient + " with realm " + serviceToken.getRealm());
+                outcomes.add(outcome.exceptionally(e -> false)
+                        .thenAccept(success -> progress.record(success, System.currentTimeMillis() - recipientStart)));
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
 
-                // Fetch access token
-                String accessToken = keycloakUtils.getImpersonatedToken(recipient, serviceToken);
+        // send anything the providers have batched
+        for (QBaseMSGMessageType msgType : messageTypeList) {
+            try {
+                messageFactory.getMessageProvider(msgType).flush();
+            } catch (Exception e) {
+                log.error("Provider " + msgType + " failed to flush: " + e.getMessage());
+            }
+        }
+        CompletableFuture.allOf(outcomes.toArray(new CompletableFuture[0])).join();
 
-                // Encode URL and put back in the map
-                String url = MsgUtils.encodedUrlBuilder(GennySettings.projectUrl() + "/home", parentCode, code, targetCode, accessToken);
+        long duration = System.currentTimeMillis() - start;
+        log.info(progress);
+        log.info("FINISHED PROCESSING MESSAGE :: time taken = " + duration + "ms");
+    }
 
-                log.info("URL: " + url);
-                baseEntityContextMap.put("URL", url);
+    /**
+     * Send a message to a single recipient.
+     *
+     * @param contextMap      The context map shared by every recipient
+     * @param recipient       The recipient
+     * @param messageTypeList The providers to send with
+     * @return A future completing with true if every provider sent successfully
+     */
+    private CompletableFuture<Boolean> processRecipient(Map<String, Object> contextMap, String recipient, List<QBaseMSGMessageType> messageTypeList) {
+
+        recipient = CommonUtils.cleanUpAttributeValue(recipient);
+
+        // each recipient gets its own copy, as they are processed concurrently
+        Map<String, Object> baseEntityContextMap = new HashMap<>(contextMap);
+        // Set our current recipient
+        baseEntityContextMap.put("RECIPIENT", recipient);
+
+        // Process any URL contexts for this recipient
+        if (baseEntityContextMap.containsKey("URL:ENCODE")) {
+            // Fetch form contexts
+            String[] componentArray = ((String) baseEntityContextMap.get("URL:ENCODE")).split("/");
+            // Init and grab url structure
+            String parentCode = null;
+            String code = null;
+            String targetCode = null;
+            if (componentArray.length > 0) {
+                parentCode = componentArray[0];
+            }
+            if (componentArray.length > 1) {
+                code = componentArray[1];
+            }
+            if (componentArray.length > 2) {
+                targetCode = componentArray[2];
             }
 
-            sendToProvider(baseEntityContextMap, messageTypeList);
+            log.info("Fetching Token from " + serviceToken.getKeycloakUrl() + " for user " + recipient + " with realm " + serviceToken.getRealm());
 
+            // Fetch access token
+            String accessToken = keycloakUtils.getImpersonatedToken(recipient, serviceToken);
+
+            // Encode URL and put back in the map
+            String url = MsgUtils.encodedUrlBuilder(GennySettings.projectUrl() + "/home", parentCode, code, targetCode, accessToken);
+
+            log.info("URL: " + url);
+            baseEntityContextMap.put("URL", url);
         }
 
-        long duration = System.currentTimeMillis() - start;
-        log.info("FINISHED PROCESSING MESSAGE :: time taken = " + duration + "ms");
+        return sendToProvider(baseEntityContextMap, messageTypeList);
     }
 
-    private void sendToProvider(Map<String, Object> baseEntityContextMap, List<QBaseMSGMessageType> messageTypeList) {
+    private CompletableFuture<Boolean> sendToProvider(Map<String, Object> baseEntityContextMap, List<QBaseMSGMessageType> messageTypeList) {
         if (messageTypeList == null) {
             log.error("messageTypeList is null");
-            return;
+            return CompletableFuture.completedFuture(false);
         }
+        CompletableFuture<Boolean> success = CompletableFuture.completedFuture(true);
         // Iterate our array of send types
         for (QBaseMSGMessageType msgType : messageTypeList) {
             log.info("msgType:  " + msgType.toString());
             QMessageProvider provider = messageFactory.getMessageProvider(msgType);
-            provider.sendMessage(baseEntityContextMap);
+            Semaphore limit = providerLimits.computeIfAbsent(msgType, this::createProviderLimit);
+            try {
+                // the sends in flight may be waiting in the provider's buffer,
+                // so it is flushed rather than waiting on them forever
+                while (!limit.tryAcquire(PROVIDER_FLUSH_WAIT_MS, TimeUnit.MILLISECONDS))
+                    provider.flush();
+            } catch (InterruptedException e) {
+                log.error("Interrupted while waiting for provider " + msgType + "!");
+                Thread.currentThread().interrupt();
+                return CompletableFuture.completedFuture(false);
+            }
+            CompletableFuture<Boolean> sent;
+            try {
+                sent = provider.send(baseEntityContextMap);
+            } catch (Exception e) {
+                log.error("Provider " + msgType + " failed: " + e.getMessage());
+                sent = CompletableFuture.completedFuture(false);
+            }
+            // held until the provider has actually sent the message
+            sent.whenComplete((result, e) -> limit.release());
+            success = success.thenCombine(sent, Boolean::logicalAnd);
         }
+        return success;
+    }
+
+    private Semaphore createProviderLimit(QBaseMSGMessageType msgType) {
+        int limit = ConfigProvider.getConfig()
+                .getOptionalValue("genny.messages.provider." + msgType.name() + ".max-in-flight", Integer.class)
+                .orElse(providerMaxInFlight);
+        log.info("Limiting provider " + msgType + " to " + limit + " sends in flight");
+        return new Semaphore(Math.max(1, limit));
     }
 
     private HashMap<String, Object> createBaseEntityContextMap(QMessageGennyMSG message) {
 
         HashMap<String, Object> baseEntityContextMap = new HashMap<>();
 
+        // collect the codes of every entity context first, so they can be fetched together
+        Map<String, String[]> entityContexts = new HashMap<>();
+        Set<String> codes = new LinkedHashSet<>();
+
         for (Map.Entry<String, String> entry : message.getMessageContextMap().entrySet()) {
             String key = entry.getKey();
             String value = entry.getValue();
@@ -191,29 +361,34 @@ public class MessageProcessor {
             String logStr = "key: " + key + ", value: " + (key.equalsIgnoreCase("PASSWORD") ? "REDACTED" : value);
             log.info(logStr);
 
-            if ((value != null) && (value.length() > 4)) {
+            // MUST CONTAIN A BE CODE
+            if ((value != null) && (value.length() > 4) && BE_CODE_PATTERN.matcher(value).matches() && !key.startsWith("URL")) {
+                // Create Array of Codes
+                String[] codeArr = CommonUtils.cleanUpAttributeValue(value).split(",");
+                log.info("Fetching contextCodeArray :: " + Arrays.toString(codeArr));
+                entityContexts.put(key, codeArr);
+                codes.addAll(Arrays.asList(codeArr));
+                continue;
+            }
+
+            // By Default, add it as is
+            baseEntityContextMap.put(key.toUpperCase(), value);
+        }
 
-                // MUST CONTAIN A BE CODE
-                if (value.matches("[A-Z]{3}\\_.*") && !key.startsWith("URL")) {
-                    // Create Array of Codes
-                    String[] codeArr = CommonUtils.cleanUpAttributeValue(value).split(",");
-                    log.info("Fetching contextCodeArray :: " + Arrays.toString(codeArr));
-                    // Convert to BEs
-                    BaseEntity[] beArray = Arrays.stream(codeArr).map(itemCode -> beUtils.getBaseEntity(itemCode, true)).toArray(BaseEntity[]::new);
+        if (codes.isEmpty())
+            return baseEntityContextMap;
 
-                    if (beArray.length == 1) {
-                        baseEntityContextMap.put(entry.getKey().toUpperCase(), beArray[0]);
-                    } else {
-                        baseEntityContextMap.put(entry.getKey().toUpperCase(), beArray);
-                    }
+        // Convert to BEs
+        Map<String, BaseEntity> baseEntities = beUtils.getBaseEntities(userToken.getProductCode(), codes, true);
 
-                    continue;
+        for (Map.Entry<String, String[]> entry : entityContexts.entrySet()) {
+            BaseEntity[] beArray = Arrays.stream(entry.getValue()).map(baseEntities::get).toArray(BaseEntity[]::new);
 
-                }
+            if (beArray.length == 1) {
+                baseEntityContextMap.put(entry.getKey().toUpperCase(), beArray[0]);
+            } else {
+                baseEntityContextMap.put(entry.getKey().toUpperCase(), beArray);
             }
-
-            // By Default, add it as is
-            baseEntityContextMap.put(entry.getKey().toUpperCase(), value);
         }
 
         return baseEntityContextMap;
@@ -0,0 +1,84 @@
+package life.genny.messages.process;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Tracks the recipients of a single message as they are sent concurrently.
+ */
+public class MessageProgress {
+
+    private static final Logger log = Logger.getLogger(MessageProgress.class);
+
+    private final String messageCode;
+    private final int total;
+    private final int interval;
+    private final long start = System.currentTimeMillis();
+
+    private final AtomicInteger sent = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong recipientMillis = new AtomicLong();
+
+    /**
+     * @param messageCode The template code of the message
+     * @param total       The number of recipients
+     * @param interval    Log progress every this many recipients
+     */
+    public MessageProgress(String messageCode, int total, int interval) {
+        this.messageCode = messageCode;
+        this.total = total;
+        this.interval = Math.max(1, interval);
+    }
+
+    /**
+     * Record a finished recipient.
+     *
+     * @param success  Whether every provider sent successfully
+     * @param duration The time taken for the recipient in millis
+     */
+    public void record(boolean success, long duration) {
+        recipientMillis.addAndGet(duration);
+        if (!success)
+            failed.incrementAndGet();
+
+        int done = sent.incrementAndGet();
+        if (done % interval == 0 && done < total)
+            log.info(this);
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getDone() {
+        return sent.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return The time since the message started processing in millis
+     */
+    public long getElapsed() {
+        return System.currentTimeMillis() - start;
+    }
+
+    /**
+     * @return The average time taken per recipient in millis
+     */
+    public long getAverageRecipientMillis() {
+        int done = sent.get();
+        return done == 0 ? 0 : recipientMillis.get() / done;
+    }
+
+    @Override
+    public String toString() {
+        return "Message " + messageCode + ": " + getDone() + "/" + total + " recipients processed ("
+                + getFailed() + " failed), elapsed = " + getElapsed() + "ms, avg per recipient = "
+                + getAverageRecipientMillis() + "ms";
+    }
+}
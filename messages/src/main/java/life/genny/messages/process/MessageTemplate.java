@@ -0,0 +1,53 @@
+package life.genny.messages.process;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The attribute values of a message template, along with the
+ * ENV_ provider settings of its project. The project is only
+ * fetched once a setting is asked for.
+ */
+public class MessageTemplate {
+
+    private final String code;
+    private final Map<String, String> values;
+    private final Supplier<Map<String, String>> settings;
+
+    /**
+     * @param code     The template code
+     * @param values   The attribute values of the template, keyed by attribute code
+     * @param settings Supplies the ENV_ attribute values of the project, keyed by attribute code
+     */
+    public MessageTemplate(String code, Map<String, String> values, Supplier<Map<String, String>> settings) {
+        this.code = code;
+        this.values = Collections.unmodifiableMap(values);
+        this.settings = settings;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * @param attributeCode The attribute code
+     * @return The value of a template attribute, or null if not set
+     */
+    public String getValue(String attributeCode) {
+        return values.get(attributeCode);
+    }
+
+    /**
+     * @param attributeCode The ENV_ attribute code
+     * @return The value of a project setting, or null if not set
+     */
+    public String getSetting(String attributeCode) {
+        return settings.get().get(attributeCode);
+    }
+
+    @Override
+    public String toString() {
+        return "MessageTemplate [code=" + code + ", values=" + values.keySet() + "]";
+    }
+}
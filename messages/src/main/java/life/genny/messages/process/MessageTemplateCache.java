@@ -0,0 +1,125 @@
+package life.genny.messages.process;
+
+import life.genny.qwandaq.attribute.EntityAttribute;
+import life.genny.qwandaq.entity.BaseEntity;
+import life.genny.qwandaq.serialization.baseentity.BaseEntityKey;
+import life.genny.qwandaq.utils.BaseEntityUtils;
+import life.genny.qwandaq.utils.ProductCache;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches the attributes of each message template, and the provider settings
+ * of each project, per realm, so that they are fetched once rather than per
+ * recipient and provider. A project is only fetched by the providers that
+ * read its settings.
+ *
+ * Entries expire after genny.messages.template.ttl-seconds, and are evicted
+ * when their entity is updated.
+ */
+@ApplicationScoped
+public class MessageTemplateCache {
+
+    private static final Logger log = Logger.getLogger(MessageTemplateCache.class);
+
+    public static final String SETTING_PREFIX = "ENV_";
+
+    // the most templates or projects held per realm
+    static final int MAX_ENTRIES = 1000;
+
+    @ConfigProperty(name = "genny.messages.template.ttl-seconds", defaultValue = "60")
+    Long ttlSeconds;
+
+    @Inject
+    BaseEntityUtils beUtils;
+
+    private ProductCache<Map<String, String>> templates;
+    private ProductCache<Map<String, String>> settings;
+
+    @PostConstruct
+    void init() {
+        templates = new ProductCache<>(MAX_ENTRIES, ttlSeconds * 1000L);
+        settings = new ProductCache<>(MAX_ENTRIES, ttlSeconds * 1000L);
+    }
+
+    /**
+     * Get the descriptor of a message template.
+     *
+     * @param realm        The realm of the template
+     * @param templateCode The template code
+     * @param projectCode  The project holding the provider settings
+     * @return The template
+     */
+    public MessageTemplate getTemplate(String realm, String templateCode, String projectCode) {
+
+        Map<String, String> values = templates.get(realm, templateCode);
+        if (values == null) {
+            values = values(beUtils.getBaseEntity(realm, templateCode, true));
+            templates.put(realm, templateCode, values);
+            log.debug("Loaded message template " + templateCode + " with " + values.size() + " attributes");
+        }
+        return new MessageTemplate(templateCode, values, () -> getSettings(realm, projectCode));
+    }
+
+    /**
+     * Get the ENV_ provider settings of a project.
+     *
+     * @param realm       The realm of the project
+     * @param projectCode The project code
+     * @return The settings, keyed by attribute code
+     */
+    public Map<String, String> getSettings(String realm, String projectCode) {
+
+        Map<String, String> values = settings.get(realm, projectCode);
+        if (values == null) {
+            values = values(beUtils.getBaseEntity(realm, projectCode, true));
+            values.keySet().removeIf(code -> !code.startsWith(SETTING_PREFIX));
+            values = Collections.unmodifiableMap(values);
+            settings.put(realm, projectCode, values);
+        }
+        return values;
+    }
+
+    /**
+     * Evict a message template or project.
+     *
+     * @param realm The realm of the entity
+     * @param code  The template or project code
+     */
+    public void evict(String realm, String code) {
+        templates.evict(realm, code);
+        settings.evict(realm, code);
+    }
+
+    /**
+     * Evict a template or project when its entity is updated.
+     */
+    void onEviction(@Observes BaseEntityKey key) {
+        evict(key.getRealm(), key.getCode());
+    }
+
+    /**
+     * Evict every template and project of a realm.
+     *
+     * @param realm The realm
+     */
+    public void clear(String realm) {
+        templates.clear(realm);
+        settings.clear(realm);
+    }
+
+    private static Map<String, String> values(BaseEntity baseEntity) {
+        Map<String, String> values = new HashMap<>();
+        for (EntityAttribute ea : baseEntity.getBaseEntityAttributes())
+            values.put(ea.getAttributeCode(), ea.getValueString());
+        return values;
+    }
+}
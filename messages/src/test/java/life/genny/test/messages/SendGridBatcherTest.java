@@ -0,0 +1,174 @@
+package life.genny.test.messages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.sendgrid.Request;
+import com.sendgrid.Response;
+import com.sendgrid.helpers.mail.objects.Email;
+import com.sendgrid.helpers.mail.objects.Personalization;
+import com.sun.net.httpserver.HttpServer;
+
+import life.genny.messages.managers.impl.SendGridBatcher;
+
+/**
+ * Sends batches through a stub transport, and through a local http stub,
+ * and checks the outcome reported for each recipient.
+ */
+public class SendGridBatcherTest {
+
+    private static final Email FROM = new Email("sender@alpha.com", "Alpha");
+
+    /**
+     * Rejects any request holding a bad address, and answers with the queued
+     * statuses before that.
+     */
+    static class StubBatcher extends SendGridBatcher {
+
+        final List<Request> requests = Collections.synchronizedList(new ArrayList<>());
+        final LinkedList<Integer> statuses = new LinkedList<>();
+
+        StubBatcher(int batchSize, int retries) {
+            super(batchSize, retries, 0L);
+        }
+
+        @Override
+        protected Response api(String apiKey, Request request) throws IOException {
+            requests.add(request);
+            Integer status = statuses.poll();
+            if (status != null && status < 0)
+                throw new IOException("connection reset");
+            if (status == null)
+                status = request.getBody().contains("bad@") ? 400 : 202;
+            return new Response(status, "", new HashMap<>());
+        }
+    }
+
+    private static Personalization to(String email) {
+        Personalization personalization = new Personalization();
+        personalization.addTo(new Email(email));
+        return personalization;
+    }
+
+    private static Map<String, CompletableFuture<Boolean>> addAll(SendGridBatcher batcher, String... emails) {
+        Map<String, CompletableFuture<Boolean>> sent = new HashMap<>();
+        for (String email : emails)
+            sent.put(email, batcher.add("key", "template", FROM, to(email)));
+        return sent;
+    }
+
+    @Test
+    public void sendsBatchOnFlush() {
+        StubBatcher batcher = new StubBatcher(10, 0);
+        Map<String, CompletableFuture<Boolean>> sent = addAll(batcher, "one@alpha.com", "two@alpha.com");
+
+        assertFalse(sent.get("one@alpha.com").isDone());
+        assertEquals(2, batcher.getPendingCount());
+
+        batcher.flush();
+        assertEquals(1, batcher.requests.size());
+        assertTrue(sent.get("one@alpha.com").join());
+        assertTrue(sent.get("two@alpha.com").join());
+        assertEquals(0, batcher.getPendingCount());
+    }
+
+    @Test
+    public void splitsRejectedBatchDownToBadRecipient() {
+        StubBatcher batcher = new StubBatcher(4, 0);
+        Map<String, CompletableFuture<Boolean>> sent = addAll(batcher,
+                "one@alpha.com", "two@alpha.com", "bad@alpha.com", "four@alpha.com");
+
+        // the full batch is sent as it fills
+        assertTrue(sent.get("one@alpha.com").join());
+        assertTrue(sent.get("two@alpha.com").join());
+        assertFalse(sent.get("bad@alpha.com").join());
+        assertTrue(sent.get("four@alpha.com").join());
+        // the batch, its two halves, then the two recipients of the rejected half
+        assertEquals(5, batcher.requests.size());
+    }
+
+    @Test
+    public void retriesServerErrors() {
+        StubBatcher batcher = new StubBatcher(10, 2);
+        batcher.statuses.add(500);
+        batcher.statuses.add(-1);
+        Map<String, CompletableFuture<Boolean>> sent = addAll(batcher, "one@alpha.com", "two@alpha.com");
+
+        batcher.flush();
+        assertTrue(sent.get("one@alpha.com").join());
+        assertTrue(sent.get("two@alpha.com").join());
+        assertEquals(3, batcher.requests.size());
+    }
+
+    @Test
+    public void failsBatchOnceRetriesRunOut() {
+        StubBatcher batcher = new StubBatcher(10, 1);
+        batcher.statuses.add(429);
+        batcher.statuses.add(503);
+        Map<String, CompletableFuture<Boolean>> sent = addAll(batcher, "one@alpha.com", "two@alpha.com");
+
+        batcher.flush();
+        assertFalse(sent.get("one@alpha.com").join());
+        assertFalse(sent.get("two@alpha.com").join());
+        assertEquals(2, batcher.requests.size());
+    }
+
+    @Test
+    public void failsWholeBatchOnOtherRejections() {
+        StubBatcher batcher = new StubBatcher(10, 2);
+        batcher.statuses.add(401);
+        Map<String, CompletableFuture<Boolean>> sent = addAll(batcher, "one@alpha.com", "two@alpha.com");
+
+        // neither split nor retried, as every half would be rejected the same way
+        batcher.flush();
+        assertFalse(sent.get("one@alpha.com").join());
+        assertFalse(sent.get("two@alpha.com").join());
+        assertEquals(1, batcher.requests.size());
+    }
+
+    @Test
+    public void sendsThroughConfiguredHost() throws IOException {
+        List<String> paths = Collections.synchronizedList(new ArrayList<>());
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            paths.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            byte[] response = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(body.contains("bad@") ? 400 : 202, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+
+        try {
+            // test mode sends over plain http
+            SendGridBatcher batcher = new SendGridBatcher(10, 0, 0L,
+                    "localhost:" + server.getAddress().getPort(), true);
+            Map<String, CompletableFuture<Boolean>> sent = addAll(batcher, "one@alpha.com", "bad@alpha.com");
+
+            batcher.flush();
+            assertTrue(sent.get("one@alpha.com").join());
+            assertFalse(sent.get("bad@alpha.com").join());
+            // the batch, then each recipient alone
+            assertEquals(List.of("POST /v3/mail/send", "POST /v3/mail/send", "POST /v3/mail/send"), paths);
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -556,6 +556,38 @@ public class Question extends CodedEntity implements CoreEntityPersistable, ICap
 		return foundEntity;
 	}
 
+	/**
+	 * Clone a Question. The attribute and capability requirements are shared
+	 * with the original, child questions are not copied.
+	 *
+	 * @return Question
+	 */
+	public Question clone() {
+
+		Question question = new Question();
+		question.setId(getId());
+		question.setCode(getCode());
+		question.setName(getName());
+		question.setRealm(getRealm());
+		question.setStatus(getStatus());
+		question.setIndex(getIndex());
+		question.setCreated(getCreated());
+		question.setUpdated(getUpdated());
+		question.attribute = this.attribute;
+		question.attributeCode = this.attributeCode;
+		question.attributeId = this.attributeId;
+		question.capabilityRequirements = this.capabilityRequirements;
+		question.mandatory = this.mandatory;
+		question.readonly = this.readonly;
+		question.oneshot = this.oneshot;
+		question.placeholder = this.placeholder;
+		question.directions = this.directions;
+		question.html = this.html;
+		question.helper = this.helper;
+		question.icon = this.icon;
+		return question;
+	}
+
 	/**
 	 * @return String
 	 */
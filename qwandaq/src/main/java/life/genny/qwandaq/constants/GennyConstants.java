@@ -35,6 +35,9 @@ public final class GennyConstants {
 	//Message
 	public static final String SBE_TABLE_MESSAGE = "SBE_TABLE_MESSAGE";
 
+	// cache key of the question code to timer event index
+	public static final String TIMER_EVENT_INDEX = "TIMER_EVENT_INDEX";
+
     public static final String ERROR_FALLBACK_MSG = "Error Occurred!";
 	public static final char COMMA = ',';
 
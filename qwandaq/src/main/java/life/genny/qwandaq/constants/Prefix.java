@@ -19,6 +19,7 @@ public class Prefix {
 	public static final String PER_ = "PER_";
 	public static final String CPY_ = "CPY_";
 	public static final String MSG_ = "MSG_";
+	public static final String TEV_ = "TEV_";
 
 	// attribute
 	public static final String PRI_ = "PRI_";
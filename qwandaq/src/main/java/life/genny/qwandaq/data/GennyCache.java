@@ -269,6 +269,38 @@ public class GennyCache {
 		return true;
 	}
 
+	/**
+	 * Put several CoreEntities into the cache in a single request.
+	 *
+	 * @param cacheRef The cache to put into
+	 * @param entities The entities, keyed by the key to put them under
+	 */
+	public void putEntitiesIntoCache(ECacheRef cacheRef, Map<CoreEntityKey, CoreEntityPersistable> entities) {
+		if (entities.isEmpty()) {
+			return;
+		}
+		RemoteCache<CoreEntityKey, CoreEntityPersistable> cache = getRemoteCacheForEntity(cacheRef);
+		if (cache == null) {
+			throw new NullPointerException("Cache not found: " + cacheRef.cacheName);
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+		for (CoreEntityPersistable value : entities.values()) {
+			if (value.getCreated() == null) {
+				value.setCreated(now);
+			}
+			value.setUpdated(now);
+		}
+
+		try {
+			cache.putAll(entities);
+		} catch (Exception e) {
+			log.error(ANSIColour.doColour("Exception when inserting " + entities.size() + " entities into cache: " + cacheRef.cacheName, ANSIColour.RED));
+			log.error(e.getMessage());
+			throw e;
+		}
+	}
+
 	/**
 	 * Put a CoreEntity into the cache.
 	 *
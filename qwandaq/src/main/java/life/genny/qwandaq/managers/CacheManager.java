@@ -31,8 +31,11 @@ import life.genny.qwandaq.utils.CommonUtils;
 import life.genny.qwandaq.utils.QuestionUtils;
 import life.genny.qwandaq.validation.Validation;
 import org.apache.commons.lang3.StringUtils;
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.MetadataValue;
 import org.infinispan.client.hotrod.RemoteCache;
 import org.infinispan.client.hotrod.Search;
+import org.infinispan.commons.util.CloseableIterator;
 import org.infinispan.query.dsl.Query;
 import org.infinispan.query.dsl.QueryFactory;
 import org.infinispan.query.dsl.QueryResult;
@@ -116,6 +119,37 @@ public class CacheManager {
 		return remoteCache.get(key);
 	}
 
+	/**
+	 * Write a stringified item to a realm cache, unless the key already holds a value.
+	 * The check and the write are a single atomic operation.
+	 *
+	 * @param realm The realm cache to use.
+	 * @param key   The key to save under.
+	 * @param value The value to save.
+	 * 
+	 * @return the value already held, or null if the value was written
+	 */
+	public String writeCacheIfAbsent(String realm, String key, String value) {
+		return cache.getRemoteCache(realm).withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(key, value);
+	}
+
+	/**
+	 * Remove an entry from a realm cache, only if it still holds a value.
+	 *
+	 * @param realm The realm cache to remove from.
+	 * @param key   The key of the entry to remove.
+	 * @param value The value the entry must hold.
+	 * 
+	 * @return true if the entry was removed
+	 */
+	public boolean removeEntryIfEquals(String realm, String key, String value) {
+		RemoteCache<String, String> remoteCache = cache.getRemoteCache(realm);
+		MetadataValue<String> current = remoteCache.getWithMetadata(key);
+		if (current == null || !value.equals(current.getValue()))
+			return false;
+		return remoteCache.removeWithVersion(key, current.getVersion());
+	}
+
 	/**
 	* Remove an entry from a realm cache.
 	*
@@ -126,6 +160,27 @@ public class CacheManager {
 		cache.getRemoteCache(realm).remove(key);
 	}
 
+	/**
+	 * Find the keys of a realm cache starting with a prefix. This iterates
+	 * the whole remote cache, so should be kept away from hot paths.
+	 *
+	 * @param realm  The realm cache to search
+	 * @param prefix The key prefix
+	 * @return The matching keys
+	 */
+	public List<String> getKeysWithPrefix(String realm, String prefix) {
+		RemoteCache<String, String> remoteCache = cache.getRemoteCache(realm);
+		List<String> keys = new ArrayList<>();
+		try (CloseableIterator<String> iterator = remoteCache.keySet().iterator()) {
+			while (iterator.hasNext()) {
+				String key = iterator.next();
+				if (key.startsWith(prefix))
+					keys.add(key);
+			}
+		}
+		return keys;
+	}
+
 	/**
 	 * Get an object from a realm cache using a {@link Class}.
 	 *
@@ -202,6 +257,19 @@ public class CacheManager {
 		return cache.getPersistableEntityFromCache(cacheRef, key);
 	}
 
+	/**
+	 * Get several CoreEntity objects from the cache in a single request.
+	 *
+	 * @param cacheRef The cache to read from
+	 * @param keys The keys the items are saved against
+	 * @return The entities found, keyed by their keys. Missing keys are absent.
+	 */
+	public Map<CoreEntityKey, CoreEntityPersistable> getPersistableEntities(ECacheRef cacheRef, Set<CoreEntityKey> keys) {
+		if (keys.isEmpty())
+			return Collections.emptyMap();
+		return cache.getRemoteCacheForEntity(cacheRef).getAll(keys);
+	}
+
 	/**
 	 * Get a CoreEntity object from the cache using a CoreEntityKey.
 	 *
@@ -225,6 +293,16 @@ public class CacheManager {
 		return cache.putEntityIntoCache(cacheRef, key, entity);
 	}
 
+	/**
+	 * Save several {@link CoreEntity}s to the cache in a single request.
+	 *
+	 * @param cacheRef The cache to save to
+	 * @param entities The entities, keyed by the key to save them under
+	 */
+	public void saveEntities(ECacheRef cacheRef, Map<CoreEntityKey, CoreEntityPersistable> entities) {
+		cache.putEntitiesIntoCache(cacheRef, entities);
+	}
+
 	/**
 	 * Get a list of {@link CoreEntity}s to from cache by prefix.
 	 * @param cacheName - Product Code / Cache to retrieve from
@@ -467,6 +545,56 @@ public class CacheManager {
 		return new LinkedHashSet<>(entityAttributeList);
 	}
 
+	/**
+	 * Get the {@link EntityAttribute}s of several BaseEntities using a single query.
+	 *
+	 * @param productCode - Product Code / Cache to retrieve from
+	 * @param baseEntityCodes - Base Entity codes to use
+	 * @return the entity attributes of each base entity, keyed by base entity code
+	 */
+	public Map<String, Set<EntityAttribute>> getAllBaseEntityAttributesForBaseEntities(String productCode, Collection<String> baseEntityCodes) {
+		Map<String, Set<EntityAttribute>> entityAttributes = new HashMap<>();
+		if (baseEntityCodes.isEmpty())
+			return entityAttributes;
+		String codes = baseEntityCodes.stream().map(code -> "'" + code + "'").collect(Collectors.joining(","));
+		RemoteCache<CoreEntityKey, CoreEntityPersistable> remoteCache = cache.getRemoteCacheForEntity(ECacheRef.BASEENTITY_ATTRIBUTE);
+		QueryFactory queryFactory = Search.getQueryFactory(remoteCache);
+		Query<EntityAttribute> query = queryFactory
+				.create("from " + EntityAttributeMessageMarshaller.TYPE_NAME + " where realm = '" + productCode
+						+ "' and baseEntityCode in (" + codes + ")");
+		QueryResult<EntityAttribute> queryResult = query.maxResults(Integer.MAX_VALUE).execute();
+		for (EntityAttribute entityAttribute : queryResult.list()) {
+			if (entityAttribute == null)
+				continue;
+			entityAttributes.computeIfAbsent(entityAttribute.getBaseEntityCode(), k -> new LinkedHashSet<>()).add(entityAttribute);
+		}
+		return entityAttributes;
+	}
+
+	/**
+	 * Get some {@link EntityAttribute}s of every BaseEntity with a code prefix using a single query.
+	 *
+	 * @param productCode - Product Code / Cache to retrieve from
+	 * @param baseEntityCodePrefix - Prefix of the Base Entity codes to use
+	 * @param attributeCodes - Attribute codes to fetch
+	 * @return the entity attributes found
+	 */
+	public Set<EntityAttribute> getEntityAttributesForBaseEntitiesWithPrefix(String productCode, String baseEntityCodePrefix, Collection<String> attributeCodes) {
+		if (attributeCodes.isEmpty())
+			return Collections.EMPTY_SET;
+		String codes = attributeCodes.stream().map(code -> "'" + code + "'").collect(Collectors.joining(","));
+		RemoteCache<CoreEntityKey, CoreEntityPersistable> remoteCache = cache.getRemoteCacheForEntity(ECacheRef.BASEENTITY_ATTRIBUTE);
+		QueryFactory queryFactory = Search.getQueryFactory(remoteCache);
+		Query<EntityAttribute> query = queryFactory
+				.create("from " + EntityAttributeMessageMarshaller.TYPE_NAME + " where realm = '" + productCode
+						+ "' and baseEntityCode like '" + baseEntityCodePrefix + "%' and attributeCode in (" + codes + ")");
+		QueryResult<EntityAttribute> queryResult = query.maxResults(Integer.MAX_VALUE).execute();
+		List<EntityAttribute> entityAttributeList = queryResult.list();
+		if (entityAttributeList.size() == 1 && entityAttributeList.get(0) == null)
+			return Collections.EMPTY_SET;
+		return new LinkedHashSet<>(entityAttributeList);
+	}
+
 	/**
 	 * Get a list of {@link EntityAttribute}s to from cache for a BaseEntity.
 	 *
@@ -694,6 +822,24 @@ public class CacheManager {
 		return (Question) getPersistableEntity(ECacheRef.QUESTION, questionKey);
 	}
 
+	/**
+	 * Fetch every question group of a product using a single query.
+	 *
+	 * @param productCode The product of the questions
+	 * @return The questions whose attribute is {@link Attribute#QQQ_QUESTION_GROUP}
+	 */
+	public Set<Question> getQuestionGroups(String productCode) {
+		QueryFactory queryFactory = Search.getQueryFactory(cache.getRemoteCacheForEntity(ECacheRef.QUESTION));
+		Query<Question> query = queryFactory
+				.create("from " + QuestionMessageMarshaller.TYPE_NAME + " where realm = '" + productCode
+						+ "' and attributeCode like '" + Attribute.QQQ_QUESTION_GROUP + "%'");
+		QueryResult<Question> queryResult = query.maxResults(Integer.MAX_VALUE).execute();
+		List<Question> questionList = queryResult.list();
+		if (questionList.size() == 1 && questionList.get(0) == null)
+			return Collections.EMPTY_SET;
+		return new LinkedHashSet<>(questionList);
+	}
+
 	/**
 	 * @param productCode
 	 * @param questionCode
@@ -0,0 +1,152 @@
+package life.genny.qwandaq.managers;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.arc.Arc;
+import life.genny.qwandaq.attribute.EntityAttribute;
+import life.genny.qwandaq.entity.BaseEntity;
+
+/**
+ * An opt-in, request scoped identity map for entities fetched from the cache.
+ *
+ * While enabled and a request context is active (e.g. the one activated by
+ * GennyScopeInit for each consumed message), each key is fetched at most once.
+ * Every caller is given its own copy of the memoized value, so a caller
+ * modifying what it was given does not change what later callers read.
+ * Entries are evicted by the utils whenever the underlying entity is saved
+ * or removed.
+ **/
+@ApplicationScoped
+public class EntityMemo {
+
+	public static final String BASEENTITY = "BE";
+	public static final String ENTITY_ATTRIBUTE = "EA";
+	public static final String ATTRIBUTE = "ATT";
+
+	@ConfigProperty(name = "genny.request.memo.enabled", defaultValue = "false")
+	Boolean enabled;
+
+	@Inject
+	EntityMemoStore store;
+
+	public EntityMemo() {
+	}
+
+	/**
+	 * @return True if memoization applies to the current thread
+	 **/
+	public boolean isActive() {
+		return enabled && Arc.container().requestContext().isActive();
+	}
+
+	/**
+	 * Get a copy of a memoized value, or load and memoize it.
+	 * Null values are never memoized.
+	 *
+	 * @param <T>    The type of value
+	 * @param key    The memo key
+	 * @param loader Loads the value if it is not memoized
+	 * @param copier Copies the memoized value for the caller
+	 * @return The value
+	 **/
+	@SuppressWarnings("unchecked")
+	public <T> T get(String key, Supplier<T> loader, UnaryOperator<T> copier) {
+		if (!isActive())
+			return loader.get();
+
+		Map<String, Object> entries = store.getEntries();
+		T value = (T) entries.get(key);
+		if (value != null)
+			return copier.apply(value);
+
+		// not computeIfAbsent, as loaders may memoize other keys
+		value = loader.get();
+		if (value == null)
+			return null;
+		entries.put(key, value);
+		return copier.apply(value);
+	}
+
+	/**
+	 * Evict every memoized value whose key starts with a prefix.
+	 *
+	 * @param prefix The key prefix
+	 **/
+	public void evict(String prefix) {
+		if (!isActive())
+			return;
+		store.getEntries().keySet().removeIf(key -> key.startsWith(prefix));
+	}
+
+	/**
+	 * Copy a BaseEntity and each of its EntityAttributes.
+	 *
+	 * @param baseEntity The entity to copy
+	 * @return The copy
+	 **/
+	public static BaseEntity copy(BaseEntity baseEntity) {
+		BaseEntity copy = baseEntity.clone(false);
+		copy.setId(baseEntity.getId());
+		copy.setIndex(baseEntity.getIndex());
+		copy.setFromCache(baseEntity.getFromCache());
+		Map<String, EntityAttribute> entityAttributes = new HashMap<>(baseEntity.getBaseEntityAttributesMap().size());
+		for (Map.Entry<String, EntityAttribute> entry : baseEntity.getBaseEntityAttributesMap().entrySet())
+			entityAttributes.put(entry.getKey(), copy(entry.getValue()));
+		copy.setBaseEntityAttributes(entityAttributes);
+		return copy;
+	}
+
+	/**
+	 * Copy an EntityAttribute. An embedded Attribute is shared with the copy.
+	 *
+	 * @param entityAttribute The entity attribute to copy
+	 * @return The copy
+	 **/
+	public static EntityAttribute copy(EntityAttribute entityAttribute) {
+		EntityAttribute copy = entityAttribute.clone();
+		copy.setAttributeName(entityAttribute.getAttributeName());
+		copy.setIndex(entityAttribute.getIndex());
+		copy.setFeedback(entityAttribute.getFeedback());
+		copy.setValueTime(entityAttribute.getValueTime());
+		copy.setAttribute(entityAttribute.getAttribute());
+		return copy;
+	}
+
+	/**
+	 * Copy a set of EntityAttributes.
+	 *
+	 * @param entityAttributes The entity attributes to copy
+	 * @return The copies
+	 **/
+	public static Set<EntityAttribute> copy(Set<EntityAttribute> entityAttributes) {
+		Set<EntityAttribute> copy = new HashSet<>(entityAttributes.size());
+		for (EntityAttribute entityAttribute : entityAttributes)
+			copy.add(copy(entityAttribute));
+		return copy;
+	}
+
+	/**
+	 * Build a memo key prefix. Parts are terminated so that
+	 * the prefix of one code never matches a longer code.
+	 *
+	 * @param type  The type of memoized entity
+	 * @param parts The identifying parts of the key
+	 * @return The key prefix
+	 **/
+	public static String key(String type, Object... parts) {
+		StringBuilder builder = new StringBuilder(type).append(':');
+		for (Object part : parts)
+			builder.append(part).append(':');
+		return builder.toString();
+	}
+}
@@ -0,0 +1,21 @@
+package life.genny.qwandaq.managers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.enterprise.context.RequestScoped;
+
+/**
+ * Holds the entities memoized by {@link EntityMemo} for 
+ * the lifetime of a single request or kafka consumption flow.
+ **/
+@RequestScoped
+public class EntityMemoStore {
+
+	// may be reached from propagated contexts on other threads
+	private final Map<String, Object> entries = new ConcurrentHashMap<>();
+
+	public Map<String, Object> getEntries() {
+		return entries;
+	}
+}
@@ -0,0 +1,374 @@
+package life.genny.qwandaq.managers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import life.genny.qwandaq.attribute.EntityAttribute;
+import life.genny.qwandaq.constants.ECacheRef;
+import life.genny.qwandaq.serialization.entityattribute.EntityAttributeKey;
+import life.genny.qwandaq.utils.CommonUtils;
+import life.genny.qwandaq.utils.LastUpdatedMarker;
+import life.genny.qwandaq.utils.ProductCache;
+
+/**
+ * An index of the values of the UNQ_ attributes of each definition, held
+ * in the product cache as (definition, unique attribute, normalised value)
+ * to the code of the entity holding the value.
+ *
+ * Values are claimed with an atomic putIfAbsent, so two entities saving
+ * the same value at once cannot both succeed. An entity's claim is given
+ * back when it claims another value or fails a later uniqueness check.
+ * Any other entry whose entity no longer holds the value is treated as
+ * stale and replaced by the next claim. A claim made moments ago is
+ * honoured before its entity is saved, for a few seconds' grace period.
+ *
+ * Saves through {@link life.genny.qwandaq.utils.EntityAttributeUtils} record
+ * the saved value of the entity, giving back its old one. The unique attribute
+ * combinations of each entity prefix are kept in the cache for this, so any
+ * service can tell which saves to record.
+ *
+ * The index of each unique attribute is built from the existing entities
+ * the first time it is used, and rebuilt after a loader that writes to the
+ * cache directly calls {@link #invalidate(String)}.
+ **/
+@ApplicationScoped
+public class UniqueValueIndex {
+
+	static final Logger log = Logger.getLogger(UniqueValueIndex.class);
+
+	public static final String KEY_PREFIX = "UNQ:";
+	// the name of the time the indexes of a product were last invalidated
+	public static final String INDEX_UPDATED = "unique";
+	static final String BUILT = "#built";
+	static final String COMBINATIONS = "#combinations:";
+
+	@ConfigProperty(name = "genny.unique.claim-grace-seconds", defaultValue = "10")
+	Long claimGraceSeconds;
+
+	@ConfigProperty(name = "genny.unique.check-ms", defaultValue = "1000")
+	Long checkMillis;
+
+	@Inject
+	CacheManager cm;
+
+	public UniqueValueIndex() {
+	}
+
+	public UniqueValueIndex(CacheManager cm, Long claimGraceSeconds, Long checkMillis) {
+		this.cm = cm;
+		this.claimGraceSeconds = claimGraceSeconds;
+		this.checkMillis = checkMillis;
+		init();
+	}
+
+	// unique attributes known to be indexed, to save a cache read per check
+	private final Set<String> built = ConcurrentHashMap.newKeySet();
+	private LastUpdatedMarker lastUpdated;
+	// the unique attribute combinations of each entity prefix, as held in the cache
+	private ProductCache<String> combinations;
+
+	@PostConstruct
+	void init() {
+		lastUpdated = new LastUpdatedMarker(cm, INDEX_UPDATED, checkMillis);
+		combinations = new ProductCache<>(1000, checkMillis);
+	}
+
+	/**
+	 * Build an index key.
+	 *
+	 * @param definitionCode The code of the definition
+	 * @param uniqueCode     The code of the UNQ_ attribute
+	 * @param value          The normalised value
+	 * @return The key
+	 **/
+	public static String key(String definitionCode, String uniqueCode, String value) {
+		return KEY_PREFIX + definitionCode + ":" + uniqueCode + ":" + value;
+	}
+
+	// the value last claimed by an entity, kept apart from the values by the @
+	static String claimKey(String definitionCode, String uniqueCode, String entityCode) {
+		return KEY_PREFIX + definitionCode + ":" + uniqueCode + "@" + entityCode;
+	}
+
+	// the unique attribute combinations of the entities with a prefix
+	static String combinationsKey(String prefix) {
+		return KEY_PREFIX + COMBINATIONS + prefix;
+	}
+
+	/**
+	 * Normalise the values of a unique attribute combination, so that
+	 * case, surrounding whitespace and code list brackets do not matter.
+	 *
+	 * @param values The value of each attribute of the combination
+	 * @return The normalised value, or null if any value is blank
+	 **/
+	public static String normalise(List<String> values) {
+		List<String> normalised = new ArrayList<>(values.size());
+		for (String value : values) {
+			if (value != null && value.contains("[") && value.contains("]"))
+				value = CommonUtils.cleanUpAttributeValue(value);
+			if (StringUtils.isBlank(value))
+				return null;
+			normalised.add(value.trim().toLowerCase());
+		}
+		return String.join("|", normalised);
+	}
+
+	/**
+	 * Index the existing values of a unique attribute, if not done already.
+	 *
+	 * @param productCode    The product of the definition
+	 * @param definitionCode The code of the definition
+	 * @param uniqueCode     The code of the UNQ_ attribute
+	 * @param prefix         The code prefix of the definition's entities
+	 * @param codes          The attribute codes of the combination
+	 **/
+	public void ensureBuilt(String productCode, String definitionCode, String uniqueCode, String prefix, List<String> codes) {
+
+		if (lastUpdated.changed(productCode))
+			built.removeIf(key -> key.startsWith(productCode + ":"));
+		String builtKey = key(definitionCode, uniqueCode, BUILT);
+		if (built.contains(productCode + ":" + builtKey))
+			return;
+
+		// an index built before the last invalidation is built again
+		String builtAt = (String) cm.readCache(productCode, builtKey);
+		Long invalidatedAt = cm.getEntityLastUpdatedAt(INDEX_UPDATED, productCode);
+		if (builtAt == null || (invalidatedAt != null && Long.parseLong(builtAt) <= invalidatedAt)) {
+			long start = System.currentTimeMillis();
+			// registered first, so saves made while building are recorded
+			register(productCode, prefix, definitionCode + "|" + uniqueCode + "|" + String.join(",", codes));
+			int count = build(productCode, definitionCode, uniqueCode, prefix, codes);
+			cm.writeCache(productCode, builtKey, String.valueOf(start));
+			log.info("Indexed " + count + " values of " + definitionCode + ":" + uniqueCode + " in "
+					+ (System.currentTimeMillis() - start) + "ms");
+		}
+		built.add(productCode + ":" + builtKey);
+	}
+
+	/**
+	 * Have the indexes of a product built again the next time they are used,
+	 * after entities were saved without going through {@link #onSaved}.
+	 *
+	 * @param productCode The product
+	 **/
+	public void invalidate(String productCode) {
+		lastUpdated.touch(productCode);
+		built.removeIf(key -> key.startsWith(productCode + ":"));
+	}
+
+	/**
+	 * Add a unique attribute combination to those of an entity prefix.
+	 **/
+	private void register(String productCode, String prefix, String combination) {
+
+		String key = combinationsKey(prefix);
+		for (int attempt = 0; attempt < 5; attempt++) {
+			String current = (String) cm.readCache(productCode, key);
+			if (current != null && Arrays.asList(current.split("\n")).contains(combination))
+				break;
+			if (current == null) {
+				if (cm.writeCacheIfAbsent(productCode, key, combination) == null)
+					break;
+			} else if (cm.removeEntryIfEquals(productCode, key, current)
+					&& cm.writeCacheIfAbsent(productCode, key, current + "\n" + combination) == null) {
+				break;
+			}
+		}
+		combinations.evict(productCode, prefix);
+	}
+
+	/**
+	 * Get the unique attribute combinations of an entity prefix, each as
+	 * definition code, unique attribute code and attribute codes.
+	 **/
+	private List<String[]> getCombinations(String productCode, String prefix) {
+
+		String registered = combinations.get(productCode, prefix);
+		if (registered == null) {
+			registered = (String) cm.readCache(productCode, combinationsKey(prefix));
+			if (registered == null)
+				registered = "";
+			combinations.put(productCode, prefix, registered);
+		}
+
+		List<String[]> found = new ArrayList<>();
+		for (String combination : StringUtils.split(registered, '\n'))
+			found.add(StringUtils.splitPreserveAllTokens(combination, '|'));
+		return found;
+	}
+
+	/**
+	 * Record the saved value of an entity in the indexes of the unique attribute
+	 * combinations holding an attribute, giving back the value it held before.
+	 *
+	 * @param productCode    The product of the entity
+	 * @param baseEntityCode The code of the saved entity
+	 * @param attributeCode  The code of the saved attribute, or null for every attribute
+	 **/
+	public void onSaved(String productCode, String baseEntityCode, String attributeCode) {
+
+		if (baseEntityCode == null || !baseEntityCode.contains("_"))
+			return;
+		String prefix = StringUtils.substringBefore(baseEntityCode, "_");
+		for (String[] combination : getCombinations(productCode, prefix)) {
+			List<String> codes = Arrays.asList(combination[2].split(","));
+			if (attributeCode != null && !codes.contains(attributeCode))
+				continue;
+
+			String definitionCode = combination[0];
+			String uniqueCode = combination[1];
+			BiPredicate<String, String> holds = (code, value) -> value.equals(normalise(savedValues(productCode, code, codes)));
+			String value = normalise(savedValues(productCode, baseEntityCode, codes));
+			if (value == null) {
+				String previous = (String) cm.readCache(productCode, claimKey(definitionCode, uniqueCode, baseEntityCode));
+				if (previous != null)
+					release(productCode, definitionCode, uniqueCode, previous, baseEntityCode, holds);
+				continue;
+			}
+			String owner = claim(productCode, definitionCode, uniqueCode, value, baseEntityCode, holds);
+			if (owner != null)
+				log.warn(baseEntityCode + " was saved with the " + uniqueCode + " value of " + owner);
+		}
+	}
+
+	private List<String> savedValues(String productCode, String baseEntityCode, List<String> codes) {
+		List<String> values = new ArrayList<>(codes.size());
+		for (String code : codes) {
+			EntityAttribute ea = (EntityAttribute) cm.getPersistableEntity(ECacheRef.BASEENTITY_ATTRIBUTE,
+					new EntityAttributeKey(productCode, baseEntityCode, code));
+			values.add(ea != null ? ea.getAsLoopString() : null);
+		}
+		return values;
+	}
+
+	private int build(String productCode, String definitionCode, String uniqueCode, String prefix, List<String> codes) {
+
+		Map<String, Map<String, String>> values = new HashMap<>();
+		for (EntityAttribute ea : cm.getEntityAttributesForBaseEntitiesWithPrefix(productCode, prefix + "_", codes))
+			values.computeIfAbsent(ea.getBaseEntityCode(), k -> new HashMap<>()).put(ea.getAttributeCode(), ea.getAsLoopString());
+
+		int count = 0;
+		for (Map.Entry<String, Map<String, String>> entity : values.entrySet()) {
+			List<String> combination = new ArrayList<>(codes.size());
+			for (String code : codes)
+				combination.add(entity.getValue().get(code));
+			String value = normalise(combination);
+			if (value == null)
+				continue;
+			// entries of saved entities have no grace period
+			if (cm.writeCacheIfAbsent(productCode, key(definitionCode, uniqueCode, value), entity.getKey() + "@0") == null)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Claim a unique value for an entity.
+	 *
+	 * An entity claiming a new value gives back the value it claimed before,
+	 * unless that is still its saved value.
+	 *
+	 * @param productCode    The product of the definition
+	 * @param definitionCode The code of the definition
+	 * @param uniqueCode     The code of the UNQ_ attribute
+	 * @param value          The normalised value
+	 * @param entityCode     The code of the entity claiming the value, or null to only check it
+	 * @param holds          Tests if an entity's saved value is the given value
+	 * @return The code of the other entity holding the value, or null if it is free
+	 **/
+	public String claim(String productCode, String definitionCode, String uniqueCode, String value,
+			String entityCode, BiPredicate<String, String> holds) {
+
+		String key = key(definitionCode, uniqueCode, value);
+		String claim = entityCode + "@" + System.currentTimeMillis();
+
+		// a stale entry is removed and the claim retried once
+		for (int attempt = 0; attempt < 2; attempt++) {
+			String current = entityCode != null
+					? cm.writeCacheIfAbsent(productCode, key, claim)
+					: (String) cm.readCache(productCode, key);
+			if (current == null) {
+				claimed(productCode, definitionCode, uniqueCode, value, entityCode, holds);
+				return null;
+			}
+
+			String owner = StringUtils.substringBeforeLast(current, "@");
+			if (owner.equals(entityCode)) {
+				claimed(productCode, definitionCode, uniqueCode, value, entityCode, holds);
+				return null;
+			}
+
+			// a saved value is always honoured, an unsaved claim only briefly
+			long claimedAt = Long.parseLong(StringUtils.substringAfterLast(current, "@"));
+			if (holds.test(owner, value) || System.currentTimeMillis() - claimedAt < claimGraceSeconds * 1000L)
+				return owner;
+
+			log.debug("Removing stale unique value " + key + " of " + owner);
+			cm.removeEntryIfEquals(productCode, key, current);
+			cm.removeEntryIfEquals(productCode, claimKey(definitionCode, uniqueCode, owner), value);
+			if (entityCode == null)
+				return null;
+		}
+
+		// lost the retry to another claim
+		String current = (String) cm.readCache(productCode, key);
+		return current == null ? null : StringUtils.substringBeforeLast(current, "@");
+	}
+
+	/**
+	 * Record the value an entity has claimed, giving back its previous claim.
+	 **/
+	private void claimed(String productCode, String definitionCode, String uniqueCode, String value,
+			String entityCode, BiPredicate<String, String> holds) {
+
+		if (entityCode == null)
+			return;
+		String claimKey = claimKey(definitionCode, uniqueCode, entityCode);
+		String previous = (String) cm.readCache(productCode, claimKey);
+		if (value.equals(previous))
+			return;
+		cm.writeCache(productCode, claimKey, value);
+		if (previous != null)
+			release(productCode, definitionCode, uniqueCode, previous, entityCode, holds);
+	}
+
+	/**
+	 * Give back a value claimed by an entity, unless it is the entity's saved value,
+	 * along with the entity's record of claiming it.
+	 *
+	 * @param productCode    The product of the definition
+	 * @param definitionCode The code of the definition
+	 * @param uniqueCode     The code of the UNQ_ attribute
+	 * @param value          The normalised value
+	 * @param entityCode     The code of the entity that claimed the value
+	 * @param holds          Tests if an entity's saved value is the given value
+	 **/
+	public void release(String productCode, String definitionCode, String uniqueCode, String value,
+			String entityCode, BiPredicate<String, String> holds) {
+
+		if (holds.test(entityCode, value))
+			return;
+		String key = key(definitionCode, uniqueCode, value);
+		String current = (String) cm.readCache(productCode, key);
+		if (current != null && StringUtils.substringBeforeLast(current, "@").equals(entityCode)) {
+			log.debug("Releasing unique value " + key + " of " + entityCode);
+			cm.removeEntryIfEquals(productCode, key, current);
+		}
+		cm.removeEntryIfEquals(productCode, claimKey(definitionCode, uniqueCode, entityCode), value);
+	}
+}
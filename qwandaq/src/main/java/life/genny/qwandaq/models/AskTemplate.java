@@ -0,0 +1,75 @@
+package life.genny.qwandaq.models;
+
+import java.util.Collections;
+import java.util.List;
+
+import life.genny.qwandaq.Question;
+import life.genny.qwandaq.QuestionQuestion;
+
+/**
+ * The user independent part of an Ask tree: the question hierarchy
+ * with attributes, icons, ordering and the flags of each link.
+ *
+ * Templates are shared between requests and must not be modified.
+ * Asks are stamped from them with a source, target and capabilities.
+ */
+public class AskTemplate {
+
+	private final Question question;
+	private final boolean group;
+	private final boolean baseEntityGroup;
+	private final List<Link> children;
+
+	/**
+	 * @param question The question, with its attribute and icon resolved
+	 * @param group Whether the question is a question group
+	 * @param children The child links, ordered by weight
+	 */
+	public AskTemplate(Question question, boolean group, List<Link> children) {
+		this.question = question;
+		this.group = group;
+		this.baseEntityGroup = Question.QUE_BASEENTITY_GRP.equals(question.getCode());
+		this.children = Collections.unmodifiableList(children);
+	}
+
+	public Question getQuestion() {
+		return question;
+	}
+
+	public boolean isGroup() {
+		return group;
+	}
+
+	/**
+	 * @return Whether the asks of this template depend on the attributes of the target
+	 */
+	public boolean isBaseEntityGroup() {
+		return baseEntityGroup;
+	}
+
+	public List<Link> getChildren() {
+		return children;
+	}
+
+	/**
+	 * A child template and the QuestionQuestion linking it to its parent.
+	 */
+	public static class Link {
+
+		private final QuestionQuestion questionQuestion;
+		private final AskTemplate template;
+
+		public Link(QuestionQuestion questionQuestion, AskTemplate template) {
+			this.questionQuestion = questionQuestion;
+			this.template = template;
+		}
+
+		public QuestionQuestion getQuestionQuestion() {
+			return questionQuestion;
+		}
+
+		public AskTemplate getTemplate() {
+			return template;
+		}
+	}
+}
@@ -5,14 +5,17 @@ import life.genny.qwandaq.constants.ECacheRef;
 import life.genny.qwandaq.datatype.DataType;
 import life.genny.qwandaq.exception.runtime.ItemNotFoundException;
 import life.genny.qwandaq.managers.CacheManager;
+import life.genny.qwandaq.managers.EntityMemo;
 import life.genny.qwandaq.models.UserToken;
 import life.genny.qwandaq.serialization.attribute.AttributeKey;
 import life.genny.qwandaq.serialization.datatype.DataTypeKey;
 import life.genny.qwandaq.serialization.validation.ValidationKey;
 import life.genny.qwandaq.validation.Validation;
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.json.bind.Jsonb;
@@ -39,6 +42,30 @@ public class AttributeUtils {
     @Inject
     CacheManager cm;
 
+    @Inject
+    EntityMemo memo;
+
+    @ConfigProperty(name = "genny.attribute.cache.max-size", defaultValue = "20000")
+    Integer cacheMaxSize;
+
+    @ConfigProperty(name = "genny.attribute.cache.ttl-seconds", defaultValue = "300")
+    Long cacheTtlSeconds;
+
+    @ConfigProperty(name = "genny.attribute.cache.check-ms", defaultValue = "1000")
+    Long cacheCheckMillis;
+
+    // attributes as stored, without their datatype. Callers are handed copies
+    private ProductCache<Attribute> attributes;
+
+    // the attributes last updated at time, so changes made by other instances drop the cache
+    private LastUpdatedMarker lastUpdated;
+
+    @PostConstruct
+    void init() {
+        attributes = new ProductCache<>(cacheMaxSize, cacheTtlSeconds * 1000L);
+        lastUpdated = new LastUpdatedMarker(cm, ECacheRef.ATTRIBUTE.cacheName, cacheCheckMillis);
+    }
+
     /**
      * Create and save a new id-safe {@link Attribute} object (if it does not already exist)
      * @param productCode - product to store attribute in
@@ -199,9 +226,28 @@ public class AttributeUtils {
      * @see {@link Validation}
      */
     public Attribute getAttribute(String productCode, String code, boolean bundleDataType, boolean bundleValidationList) {
-        Attribute attribute = cm.getAttribute(productCode, code);
-        if (attribute == null) {
-            throw new ItemNotFoundException(productCode, "attribute", code);
+        String key = EntityMemo.key(EntityMemo.ATTRIBUTE, productCode, code, bundleDataType, bundleValidationList);
+        return memo.get(key, () -> fetchAttribute(productCode, code, bundleDataType, bundleValidationList), attribute -> {
+            Attribute copy = copy(attribute);
+            copy.setDataType(attribute.getDataType());
+            return copy;
+        });
+    }
+
+    /**
+     * Fetch an Attribute through the attribute cache, bypassing the request memo.
+     */
+    private Attribute fetchAttribute(String productCode, String code, boolean bundleDataType, boolean bundleValidationList) {
+        evictIfUpdated(productCode);
+        Attribute attribute = attributes.get(productCode, code);
+        if (attribute != null) {
+            attribute = copy(attribute);
+        } else {
+            attribute = cm.getAttribute(productCode, code);
+            if (attribute == null) {
+                throw new ItemNotFoundException(productCode, "attribute", code);
+            }
+            attributes.put(productCode, code, copy(attribute));
         }
         if(bundleDataType) {
             try {
@@ -287,6 +333,7 @@ public class AttributeUtils {
         String productCode = validation.getRealm();
         ValidationKey key = new ValidationKey(productCode, validation.getCode());
         cm.saveEntity(ECacheRef.VALIDATION, key, validation);
+        memo.evict(EntityMemo.key(EntityMemo.ATTRIBUTE, productCode));
         updateAttributesLastUpdatedAt(productCode, System.currentTimeMillis());
     }
 
@@ -297,6 +344,7 @@ public class AttributeUtils {
         String productCode = dataType.getRealm();
         DataTypeKey key = new DataTypeKey(productCode, dataType.getDttCode());
         cm.saveEntity(ECacheRef.DATATYPE, key, dataType);
+        memo.evict(EntityMemo.key(EntityMemo.ATTRIBUTE, productCode));
         updateAttributesLastUpdatedAt(productCode, System.currentTimeMillis());
     }
 
@@ -307,9 +355,75 @@ public class AttributeUtils {
         String productCode = attribute.getRealm();
         AttributeKey key = new AttributeKey(productCode, attribute.getCode());
         cm.saveEntity(ECacheRef.ATTRIBUTE, key, attribute);
+        memo.evict(EntityMemo.key(EntityMemo.ATTRIBUTE, productCode, attribute.getCode()));
+        attributes.evict(productCode, attribute.getCode());
         updateAttributesLastUpdatedAt(productCode, System.currentTimeMillis());
     }
 
+    /**
+     * Load every attribute of a product into the attribute cache
+     * using a single query.
+     *
+     * @param productCode The product to load
+     * @return The number of attributes loaded
+     */
+    public int warmAttributes(String productCode) {
+        evictIfUpdated(productCode);
+        Set<Attribute> loaded = cm.getAttributesForProduct(productCode);
+        for (Attribute attribute : loaded) {
+            attributes.put(productCode, attribute.getCode(), copy(attribute));
+        }
+        return loaded.size();
+    }
+
+    /**
+     * Drop the cached attributes of a product, for when they were
+     * written without going through this class.
+     *
+     * @param productCode The product to evict
+     */
+    public void evictAttributes(String productCode) {
+        attributes.clear(productCode);
+    }
+
+    /**
+     * Drop the cached attributes of a product if its attributes, datatypes
+     * or validations have been updated since they were cached.
+     */
+    private void evictIfUpdated(String productCode) {
+        if (lastUpdated.changed(productCode))
+            attributes.clear(productCode);
+    }
+
+    /**
+     * @return The attribute cache, for its statistics
+     */
+    public ProductCache<Attribute> getAttributeCache() {
+        return attributes;
+    }
+
+    /**
+     * Copy an attribute, so the cached one is never handed out to be modified.
+     * The datatype is left unset.
+     */
+    private static Attribute copy(Attribute attribute) {
+        Attribute copy = new Attribute(attribute.getCode(), attribute.getName());
+        copy.setId(attribute.getId());
+        copy.setRealm(attribute.getRealm());
+        copy.setCreated(attribute.getCreated());
+        copy.setUpdated(attribute.getUpdated());
+        copy.setIndex(attribute.getIndex());
+        copy.setStatus(attribute.getStatus());
+        copy.setDttCode(attribute.getDttCode());
+        copy.setDefaultPrivacyFlag(attribute.getDefaultPrivacyFlag());
+        copy.setDescription(attribute.getDescription());
+        copy.setHelp(attribute.getHelp());
+        copy.setPlaceholder(attribute.getPlaceholder());
+        copy.setDefaultValue(attribute.getDefaultValue());
+        copy.setIcon(attribute.getIcon());
+        return copy;
+    }
+
 	/**
      * Fetch all attributes for a product.
      *
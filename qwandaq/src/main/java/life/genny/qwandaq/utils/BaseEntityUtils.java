@@ -1,5 +1,6 @@
 package life.genny.qwandaq.utils;
 
+import life.genny.qwandaq.CoreEntityPersistable;
 import life.genny.qwandaq.attribute.Attribute;
 import life.genny.qwandaq.constants.ECacheRef;
 import life.genny.qwandaq.constants.Prefix;
@@ -12,10 +13,12 @@ import life.genny.qwandaq.exception.runtime.DefinitionException;
 import life.genny.qwandaq.exception.runtime.ItemNotFoundException;
 import life.genny.qwandaq.exception.runtime.NullParameterException;
 import life.genny.qwandaq.managers.CacheManager;
+import life.genny.qwandaq.managers.EntityMemo;
 import life.genny.qwandaq.models.ANSIColour;
 import life.genny.qwandaq.models.ServiceToken;
 import life.genny.qwandaq.models.UserToken;
 import life.genny.qwandaq.serialization.baseentity.BaseEntityKey;
+import life.genny.qwandaq.serialization.common.CoreEntityKey;
 import life.genny.qwandaq.attribute.EntityAttribute;
 import org.apache.commons.lang3.StringUtils;
 import org.jboss.logging.Logger;
@@ -29,7 +32,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -62,6 +69,9 @@ public class BaseEntityUtils {
 	@Inject
 	CacheManager cm;
 
+	@Inject
+	EntityMemo memo;
+
 	@Inject
 	EntityAttributeUtils beaUtils;
 
@@ -182,6 +192,56 @@ public class BaseEntityUtils {
 	 * @throws {@link ItemNotFoundException} if entity linked to the code is not persisted/cannot be found
 	 */
 	public BaseEntity getBaseEntity(String productCode, String code, boolean bundleAttributes) {
+		String key = EntityMemo.key(EntityMemo.BASEENTITY, productCode, code, bundleAttributes);
+		return memo.get(key, () -> fetchBaseEntity(productCode, code, bundleAttributes), EntityMemo::copy);
+	}
+
+	/**
+	 * Get several base entities using a single batched fetch, rather than one
+	 * request per code. The fetched entities are memoized for the request.
+	 *
+	 * @param productCode - the product the BaseEntities belong to
+	 * @param codes - The codes of the base entities
+	 * @param bundleAttributes - whether or not to bundle the EntityAttributes
+	 * @return The BaseEntities keyed by code, in the order requested
+	 * 
+	 * @throws {@link ItemNotFoundException} if any of the codes cannot be found
+	 */
+	public Map<String, BaseEntity> getBaseEntities(String productCode, Collection<String> codes, boolean bundleAttributes) {
+
+		Set<CoreEntityKey> keys = new LinkedHashSet<>();
+		for (String code : codes)
+			keys.add(new BaseEntityKey(productCode, code));
+
+		Map<CoreEntityKey, CoreEntityPersistable> found = cm.getPersistableEntities(ECacheRef.BASEENTITY, keys);
+		Map<String, Set<EntityAttribute>> entityAttributes = bundleAttributes
+				? cm.getAllBaseEntityAttributesForBaseEntities(productCode, codes)
+				: Collections.emptyMap();
+
+		Map<String, BaseEntity> baseEntities = new LinkedHashMap<>();
+		for (CoreEntityKey key : keys) {
+			String code = key.getEntityCode();
+			BaseEntity baseEntity = (BaseEntity) found.get(key);
+			if (baseEntity == null)
+				throw new ItemNotFoundException(productCode, "baseentity", code);
+			if (bundleAttributes)
+				baseEntity.setBaseEntityAttributes(entityAttributes.getOrDefault(code, Collections.emptySet()));
+
+			String memoKey = EntityMemo.key(EntityMemo.BASEENTITY, productCode, code, bundleAttributes);
+			baseEntities.put(code, memo.get(memoKey, () -> baseEntity, EntityMemo::copy));
+		}
+		return baseEntities;
+	}
+
+	/**
+	 * Fetch a base entity from the cache, bypassing the request memo.
+	 *
+	 * @param productCode - the product the BaseEntity belongs to
+	 * @param code - The code of the base entity
+	 * @param bundleAttributes - whether or not to bundle the EntityAttributes
+	 * @return The BaseEntity with its EntityAttributes if bundleAttributes is <b>true</b>
+	 */
+	private BaseEntity fetchBaseEntity(String productCode, String code, boolean bundleAttributes) {
 		// fetch entity
 		BaseEntityKey key = new BaseEntityKey(productCode, code);
 		BaseEntity baseEntity = (BaseEntity) cm.getPersistableEntity(ECacheRef.BASEENTITY, key);
@@ -227,6 +287,7 @@ public class BaseEntityUtils {
 			baseEntity.setId(id);
 		}
 		boolean savedSuccessfully = cm.saveEntity(ECacheRef.BASEENTITY, key, baseEntity);
+		memo.evict(EntityMemo.key(EntityMemo.BASEENTITY, baseEntity.getRealm(), baseEntity.getCode()));
 		if (updateBaseEntityAttributes) {
 			baseEntity.getBaseEntityAttributes().forEach(bea -> {
 				// ensure for all entityAttribute that baseentity and attribute are not null
@@ -727,6 +788,7 @@ public class BaseEntityUtils {
 	 */
 	public int removeBaseEntity(String productCode, String beCode) {
 		int numAffected = beaUtils.removeBaseEntityAttributesForBaseEntity(productCode, beCode);
+		memo.evict(EntityMemo.key(EntityMemo.BASEENTITY, productCode, beCode));
 		return numAffected + cm.removeBaseEntity(productCode, beCode);
 	}
 }
@@ -1,15 +1,22 @@
 package life.genny.qwandaq.utils;
 
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbBuilder;
 
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 import life.genny.qwandaq.Answer;
 import life.genny.qwandaq.attribute.Attribute;
@@ -28,6 +35,7 @@ import life.genny.qwandaq.managers.CacheManager;
 import life.genny.qwandaq.models.ANSIColour;
 import life.genny.qwandaq.models.AttributeCodeValueString;
 import life.genny.qwandaq.models.UserToken;
+import life.genny.qwandaq.serialization.baseentity.BaseEntityKey;
 
 /*
  * A static utility class for operations regarding 
@@ -75,9 +83,32 @@ public class DefUtils {
 	@Inject
 	AttributeUtils attributeUtils;
 
+	@ConfigProperty(name = "genny.def.cache.max-size", defaultValue = "1000")
+	Integer defCacheMaxSize;
+
+	@ConfigProperty(name = "genny.def.cache.ttl-seconds", defaultValue = "300")
+	Long defCacheTtlSeconds;
+
+	@ConfigProperty(name = "genny.def.cache.check-ms", defaultValue = "1000")
+	Long defCacheCheckMillis;
+
+	static final String DEFINITIONS_UPDATED = "definition";
+
+	// definitions with the attributes of their includes merged in, shared and read only
+	private ProductCache<Definition> flattenedDefs;
+
+	// the definitions last updated at time, so changes made by other instances drop the cache
+	private LastUpdatedMarker lastUpdated;
+
 	public DefUtils() { /* no-arg constructor */
 	}
 
+	@PostConstruct
+	void init() {
+		flattenedDefs = new ProductCache<>(defCacheMaxSize, defCacheTtlSeconds * 1000L);
+		lastUpdated = new LastUpdatedMarker(cm, DEFINITIONS_UPDATED, defCacheCheckMillis);
+	}
+
 	/**
 	 * Find the corresponding definition for a given {@link BaseEntity}.
 	 *
@@ -221,19 +252,17 @@ public class DefUtils {
 			return true;
 		}
 
-		// just make use of the faster attribute lookup
-		EntityAttribute ea = beaUtils.getEntityAttribute(definition.getRealm(), definition.getCode(), Prefix.ATT_ + attributeCode);
-		if (ea != null) {
-			return true;
-		}
-		// if not found, we can check in the parent defs
-		List<String> parentCodes = beUtils.getBaseEntityCodeArrayFromLinkAttribute(definition, Attribute.LNK_INCLUDE);
-		if (parentCodes != null) {
-			for (String code : parentCodes) {
-				Definition parent = beUtils.getDefinition(code, false);
-				if (answerValidForDEF(parent, answer)) {
-					return true;
-				}
+		// the flattened definition holds the attributes of its includes too
+		try {
+			Definition flattened = getFlattenedDEF(definition.getRealm(), definition.getCode());
+			if (flattened.containsEntityAttribute(Prefix.ATT_ + attributeCode)) {
+				return true;
+			}
+		} catch (ItemNotFoundException e) {
+			// not in the cache, so only its own attributes can be checked
+			EntityAttribute ea = beaUtils.getEntityAttribute(definition.getRealm(), definition.getCode(), Prefix.ATT_ + attributeCode);
+			if (ea != null) {
+				return true;
 			}
 		}
 		log.error(ANSIColour.doColour("Invalid attribute " + attributeCode + " for " + answer.getTargetCode()
@@ -242,6 +271,117 @@ public class DefUtils {
 		return false;
 	}
 
+	/**
+	 * Get a definition with the attributes of all the definitions it includes
+	 * merged in. Its own attributes win over those of its includes, and
+	 * earlier includes win over later ones. An include that cannot be found
+	 * is skipped.
+	 *
+	 * The definition is shared and must not be modified.
+	 *
+	 * @param productCode The product of the definition
+	 * @param code The code of the definition
+	 * @return The flattened definition
+	 *
+	 * @throws ItemNotFoundException if the definition cannot be found
+	 */
+	public Definition getFlattenedDEF(String productCode, String code) {
+		evictIfUpdated(productCode);
+		Definition flattened = flattenedDefs.get(productCode, code);
+		if (flattened == null)
+			flattened = flatten(productCode, code, include -> beUtils.getBaseEntity(productCode, include, true), new HashSet<>());
+		return flattened;
+	}
+
+	/**
+	 * Flatten every definition of a product, fetching the definitions and
+	 * their attributes with one query each.
+	 *
+	 * @param productCode The product to load
+	 * @return The number of definitions loaded
+	 */
+	public int warmDefinitions(String productCode) {
+		evictIfUpdated(productCode);
+		Map<String, BaseEntity> definitions = new LinkedHashMap<>();
+		for (BaseEntity definition : cm.getBaseEntitiesByPrefixUsingIckle(productCode, Prefix.DEF_))
+			definitions.put(definition.getCode(), definition);
+
+		Map<String, Set<EntityAttribute>> entityAttributes = cm.getAllBaseEntityAttributesForBaseEntities(productCode, definitions.keySet());
+		for (BaseEntity definition : definitions.values())
+			definition.setBaseEntityAttributes(entityAttributes.getOrDefault(definition.getCode(), Collections.emptySet()));
+
+		Function<String, BaseEntity> loader = code -> definitions.containsKey(code) ? definitions.get(code)
+				: beUtils.getBaseEntity(productCode, code, true);
+		for (String code : definitions.keySet()) {
+			if (flattenedDefs.get(productCode, code) == null)
+				flatten(productCode, code, loader, new HashSet<>());
+		}
+		return definitions.size();
+	}
+
+	private Definition flatten(String productCode, String code, Function<String, BaseEntity> loader, Set<String> visited) {
+		visited.add(code);
+		BaseEntity entity = loader.apply(code);
+
+		Map<String, EntityAttribute> attributes = new LinkedHashMap<>();
+		for (EntityAttribute ea : entity.getBaseEntityAttributes())
+			attributes.put(ea.getAttributeCode(), ea);
+
+		String includes = entity.findEntityAttribute(Attribute.LNK_INCLUDE)
+				.map(EntityAttribute::getValueString)
+				.map(CommonUtils::cleanUpAttributeValue)
+				.orElse("");
+		for (String include : StringUtils.split(includes, ",")) {
+			// guard against include cycles
+			if (visited.contains(include))
+				continue;
+			Definition parent = flattenedDefs.get(productCode, include);
+			if (parent == null) {
+				try {
+					parent = flatten(productCode, include, loader, visited);
+				} catch (ItemNotFoundException e) {
+					log.warn("Skipping missing include " + include + " of " + code);
+					continue;
+				}
+			}
+			for (EntityAttribute ea : parent.getBaseEntityAttributes())
+				attributes.putIfAbsent(ea.getAttributeCode(), ea);
+		}
+
+		Definition flattened = Definition.from(entity);
+		flattened.setBaseEntityAttributes(attributes);
+		flattenedDefs.put(productCode, code, flattened);
+		return flattened;
+	}
+
+	/**
+	 * Drop the flattened definitions of a product when one of its definitions
+	 * changes, since any of the others may include it. Other instances see
+	 * the change through the shared last updated time.
+	 */
+	void onEviction(@Observes BaseEntityKey key) {
+		if (key.getCode() != null && key.getCode().startsWith(Prefix.DEF_)) {
+			flattenedDefs.clear(key.getRealm());
+			lastUpdated.touch(key.getRealm());
+		}
+	}
+
+	/**
+	 * Drop the flattened definitions of a product if any of its definitions
+	 * have been updated since they were cached.
+	 */
+	private void evictIfUpdated(String productCode) {
+		if (lastUpdated.changed(productCode))
+			flattenedDefs.clear(productCode);
+	}
+
+	/**
+	 * @return The flattened definition cache, for its statistics
+	 */
+	public ProductCache<Definition> getFlattenedDefCache() {
+		return flattenedDefs;
+	}
+
 	/**
 	 * Get the prefix for a definition.
 	 *
@@ -3,11 +3,15 @@ package life.genny.qwandaq.utils;
 import life.genny.qwandaq.attribute.Attribute;
 import life.genny.qwandaq.attribute.EntityAttribute;
 import life.genny.qwandaq.constants.ECacheRef;
+import life.genny.qwandaq.constants.GennyConstants;
+import life.genny.qwandaq.constants.Prefix;
 import life.genny.qwandaq.datatype.DataType;
 import life.genny.qwandaq.entity.BaseEntity;
 import life.genny.qwandaq.entity.Definition;
 import life.genny.qwandaq.exception.runtime.ItemNotFoundException;
 import life.genny.qwandaq.managers.CacheManager;
+import life.genny.qwandaq.managers.EntityMemo;
+import life.genny.qwandaq.managers.UniqueValueIndex;
 import life.genny.qwandaq.serialization.baseentity.BaseEntityKey;
 import life.genny.qwandaq.serialization.common.CoreEntityKey;
 import life.genny.qwandaq.serialization.entityattribute.EntityAttributeKey;
@@ -17,6 +21,7 @@ import org.jboss.logging.Logger;
 import org.jetbrains.annotations.NotNull;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
 import java.util.HashMap;
@@ -43,12 +48,25 @@ public class EntityAttributeUtils {
 	@Inject
 	CacheManager cm;
 
+	@Inject
+	EntityMemo memo;
+
 	@Inject
 	BaseEntityUtils beUtils;
 
 	@Inject
 	AttributeUtils attributeUtils;
 
+	@Inject
+	QuestionUtils questionUtils;
+
+	@Inject
+	UniqueValueIndex uniqueIndex;
+
+	// lets caches outside of qwandaq drop entities as they change
+	@Inject
+	Event<BaseEntityKey> evictions;
+
 	/**
 	 * Get all DEF EntityAttributes for a BaseEntity that is a {@link Definition}
 	 * using Breadth-First Search.
@@ -258,6 +276,17 @@ public class EntityAttributeUtils {
 	 */
 	public EntityAttribute getEntityAttribute(String productCode, String baseEntityCode, String attributeCode,
 			boolean embedAttribute, boolean embedDataType, boolean embedValidationInfo) {
+		String memoKey = EntityMemo.key(EntityMemo.ENTITY_ATTRIBUTE, productCode, baseEntityCode, attributeCode,
+				embedAttribute, embedDataType, embedValidationInfo);
+		return memo.get(memoKey, () -> fetchEntityAttribute(productCode, baseEntityCode, attributeCode,
+				embedAttribute, embedDataType, embedValidationInfo), EntityMemo::copy);
+	}
+
+	/**
+	 * Fetch a {@link EntityAttribute} from the cache, bypassing the request memo.
+	 */
+	private EntityAttribute fetchEntityAttribute(String productCode, String baseEntityCode, String attributeCode,
+			boolean embedAttribute, boolean embedDataType, boolean embedValidationInfo) {
 		EntityAttributeKey key = new EntityAttributeKey(productCode, baseEntityCode, attributeCode);
 		EntityAttribute entityAttribute = (EntityAttribute) cm
 				.getPersistableEntity(ECacheRef.BASEENTITY_ATTRIBUTE, key);
@@ -297,7 +326,11 @@ public class EntityAttributeUtils {
 	public boolean updateEntityAttribute(EntityAttribute baseEntityAttribute) {
 		EntityAttributeKey key = new EntityAttributeKey(baseEntityAttribute.getRealm(),
 				baseEntityAttribute.getBaseEntityCode(), baseEntityAttribute.getAttributeCode());
-		return cm.saveEntity(ECacheRef.BASEENTITY_ATTRIBUTE, key, baseEntityAttribute);
+		boolean saved = cm.saveEntity(ECacheRef.BASEENTITY_ATTRIBUTE, key, baseEntityAttribute);
+		evict(baseEntityAttribute.getRealm(), baseEntityAttribute.getBaseEntityCode());
+		recordUniqueValues(baseEntityAttribute.getRealm(), baseEntityAttribute.getBaseEntityCode(),
+				baseEntityAttribute.getAttributeCode());
+		return saved;
 	}
 
 	/**
@@ -393,6 +426,16 @@ public class EntityAttributeUtils {
 	 */
 	public Set<EntityAttribute> getAllEntityAttributesForBaseEntity(String productCode, String baseEntityCode,
 			boolean embedAttribute) {
+		String memoKey = EntityMemo.key(EntityMemo.ENTITY_ATTRIBUTE, productCode, baseEntityCode, "*", embedAttribute);
+		return memo.get(memoKey, () -> fetchAllEntityAttributesForBaseEntity(productCode, baseEntityCode, embedAttribute),
+				EntityMemo::copy);
+	}
+
+	/**
+	 * Fetch all {@link EntityAttribute}s of a BaseEntity from the cache, bypassing the request memo.
+	 */
+	private Set<EntityAttribute> fetchAllEntityAttributesForBaseEntity(String productCode, String baseEntityCode,
+			boolean embedAttribute) {
 		Set<EntityAttribute> entityAttributes = cm.getAllBaseEntityAttributesForBaseEntity(productCode,
 				baseEntityCode);
 		if (!embedAttribute) {
@@ -443,7 +486,10 @@ public class EntityAttributeUtils {
 	}
 
 	public int removeBaseEntityAttributesForBaseEntity(String productCode, String baseEntityCode) {
-		return cm.removeAllEntityAttributesOfBaseEntity(productCode, baseEntityCode);
+		evict(productCode, baseEntityCode);
+		int removed = cm.removeAllEntityAttributesOfBaseEntity(productCode, baseEntityCode);
+		recordUniqueValues(productCode, baseEntityCode, null);
+		return removed;
 	}
 
 	/**
@@ -455,6 +501,46 @@ public class EntityAttributeUtils {
 	 * @return the number of changed entities (if any)
 	 */
 	public int removeBaseEntityAttribute(String productCode, String baseEntityCode, String attributeCode) {
-		return cm.removeEntityAttribute(productCode, baseEntityCode, attributeCode);
+		evict(productCode, baseEntityCode);
+		int removed = cm.removeEntityAttribute(productCode, baseEntityCode, attributeCode);
+		recordUniqueValues(productCode, baseEntityCode, attributeCode);
+		return removed;
+	}
+
+	/**
+	 * Record the saved unique values of an entity in the {@link UniqueValueIndex}.
+	 * A failure is logged rather than failing the save, as the index gives up
+	 * entries whose entity no longer holds their value.
+	 */
+	private void recordUniqueValues(String productCode, String baseEntityCode, String attributeCode) {
+		try {
+			uniqueIndex.onSaved(productCode, baseEntityCode, attributeCode);
+		} catch (Exception e) {
+			log.error("Could not record the unique values of " + baseEntityCode + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Evict the memoized EntityAttributes of a BaseEntity, along with 
+	 * the memoized BaseEntity itself, as it may bundle them. Changes to
+	 * a TimerEvent also drop the cached timer event index of the product,
+	 * and changes to the project drop its cached keycloak config. Observers
+	 * of the fired BaseEntityKey can drop their own copies of the entity.
+	 * Loaders writing EntityAttributes straight to the cache call this
+	 * for each BaseEntity they touched.
+	 *
+	 * @param productCode    The product of the BaseEntity
+	 * @param baseEntityCode The code of the BaseEntity
+	 */
+	public void evict(String productCode, String baseEntityCode) {
+		memo.evict(EntityMemo.key(EntityMemo.ENTITY_ATTRIBUTE, productCode, baseEntityCode));
+		memo.evict(EntityMemo.key(EntityMemo.BASEENTITY, productCode, baseEntityCode));
+		if (baseEntityCode != null && baseEntityCode.startsWith(Prefix.TEV_))
+			cm.removeEntry(productCode, GennyConstants.TIMER_EVENT_INDEX);
+		if (baseEntityCode != null && baseEntityCode.startsWith(Prefix.PRJ_))
+			KeycloakUtils.evictKeycloakConfig(productCode);
+		if (baseEntityCode != null && baseEntityCode.startsWith(Prefix.QUE_))
+			questionUtils.evictQuestion(productCode, baseEntityCode);
+		evictions.fire(new BaseEntityKey(productCode, baseEntityCode));
 	}
 }
@@ -1,6 +1,7 @@
 package life.genny.qwandaq.utils;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -8,6 +9,7 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.Builder;
 import java.net.http.HttpTimeoutException;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 import java.net.http.HttpResponse;
 import javax.json.Json;
 import javax.json.JsonObject;
@@ -184,6 +186,72 @@ public class HttpUtils {
 		return null;
 	}
 
+	/**
+	 * Create and send a POST request asynchronously.
+	 *
+	 * @param uri         The target URI of the request.
+	 * @param body        The json string to use as the body.
+	 * @param contentType The contentType to use in the header.
+	 * @param token       The token to use in authorization.
+	 * @return A future completing with the returned response object.
+	 */
+	public static CompletableFuture<HttpResponse<String>> postAsync(String uri, String body, String contentType, GennyToken token) {
+
+		Builder requestBuilder = HttpRequest.newBuilder()
+				.uri(createURI(uri))
+				.setHeader(HttpHeaders.CONTENT_TYPE, contentType)
+				.setHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+				.timeout(DEFAULT_TIMEOUT);
+
+		if (token != null)
+			requestBuilder.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken());
+
+		HttpRequest request = requestBuilder
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+
+		return getNewHttpClient().sendAsync(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	/**
+	 * Create and send a POST request, returning the response body as a stream.
+	 * The caller is responsible for closing the stream.
+	 *
+	 * @param uri   The target URI of the request.
+	 * @param body  The json string to use as the body.
+	 * @param token The token to use in authorization.
+	 * @return The returned response object.
+	 */
+	public static HttpResponse<InputStream> postStream(String uri, String body, GennyToken token) {
+
+		Builder requestBuilder = HttpRequest.newBuilder()
+				.uri(createURI(uri))
+				.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+				.setHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+				.timeout(DEFAULT_TIMEOUT);
+
+		if (token != null)
+			requestBuilder.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken());
+
+		HttpRequest request = requestBuilder
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+
+		try {
+			return getNewHttpClient().send(request, HttpResponse.BodyHandlers.ofInputStream());
+		} catch (IOException | InterruptedException e) {
+			GennyResponseException.newBuilder(uri, e)
+					.setRequestBody(body)
+					.setToken(token != null ? token.getToken() : null)
+					.setRequestType(POST)
+					.includeRequest(request)
+					.build()
+					.printStackTrace();
+		}
+
+		return null;
+	}
+
 	/**
 	 * Create and send a GET request.
 	 *
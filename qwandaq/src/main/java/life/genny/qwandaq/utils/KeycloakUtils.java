@@ -23,6 +23,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.json.Json;
@@ -69,6 +70,24 @@ public class KeycloakUtils {
 
     static Jsonb jsonb = JsonbBuilder.create();
 
+    // seconds before expiry that a cached impersonated token is no longer used, at the least
+    static final long IMPERSONATION_EXPIRY_MARGIN = 30L;
+    // the fraction of its lifetime a cached impersonated token must have left to be reused,
+    // so that a token handed out for a link is never close to expiry
+    static final double IMPERSONATION_MIN_REMAINING = 0.5;
+    // the most impersonated tokens held per realm, the least recently used going first
+    static final int IMPERSONATION_CACHE_SIZE = 10000;
+    // the longest an impersonated token is held, in seconds, whatever its lifetime
+    static final long IMPERSONATION_CACHE_TTL = 3600L;
+    // seconds that the parsed keycloak config of a project is kept
+    static final long KEYCLOAK_CONFIG_TTL = 300L;
+
+    // realm -> clientId:subject -> impersonated access token
+    private static final ProductCache<Expiring<String>> impersonatedTokens =
+            new ProductCache<>(IMPERSONATION_CACHE_SIZE, IMPERSONATION_CACHE_TTL * 1000L);
+    // realm -> client secret from the project ENV_KEYCLOAK_JSON
+    private static final Map<String, Expiring<String>> clientSecrets = new ConcurrentHashMap<>();
+
     /**
      * Fetch a GennyToken for a user using a username, password and client details.
      *
@@ -193,11 +212,7 @@ public class KeycloakUtils {
             uuid = uuid.toLowerCase();
         }
 
-        // fetch keycloak json from project entity
-        String keycloakJson = beaUtils.getEntityAttribute(realm, "PRJ_" + realm.toUpperCase(), "ENV_KEYCLOAK_JSON").getValueString();
-        JsonReader reader = Json.createReader(new StringReader(keycloakJson));
-        String secret = reader.readObject().getJsonObject("credentials").getString("secret");
-        reader.close();
+        String secret = getClientSecret(realm);
 
         // setup param map
         HashMap<String, String> params = new HashMap<>();
@@ -210,7 +225,41 @@ public class KeycloakUtils {
             params.put("client_secret", secret);
         }
 
-        return fetchOIDCToken(keycloakUrl, realm, params);
+        return fetchImpersonatedToken(keycloakUrl, realm, uuid, params);
+    }
+
+    /**
+     * Fetch the client secret of a realm from the ENV_KEYCLOAK_JSON of
+     * its project, caching it for a short time.
+     *
+     * @param realm the realm of the project
+     * @return String
+     */
+    String getClientSecret(String realm) {
+
+        long now = System.currentTimeMillis();
+        Expiring<String> cached = clientSecrets.get(realm);
+        if (cached != null && cached.isValid(now))
+            return cached.value;
+
+        // fetch keycloak json from project entity
+        String keycloakJson = beaUtils.getEntityAttribute(realm, "PRJ_" + realm.toUpperCase(), "ENV_KEYCLOAK_JSON").getValueString();
+        JsonReader reader = Json.createReader(new StringReader(keycloakJson));
+        String secret = reader.readObject().getJsonObject("credentials").getString("secret");
+        reader.close();
+
+        clientSecrets.put(realm, new Expiring<>(secret, now + KEYCLOAK_CONFIG_TTL * 1000L));
+        return secret;
+    }
+
+    /**
+     * Drop the cached keycloak config of a realm.
+     *
+     * @param realm the realm to evict
+     */
+    public static void evictKeycloakConfig(String realm) {
+        if (realm != null)
+            clientSecrets.remove(realm);
     }
 
     /**
@@ -237,7 +286,7 @@ public class KeycloakUtils {
         params.put("client_secret", System.getenv("GENNY_CLIENT_SECRET"));
 
         log.debug("client_secret=" + System.getenv("GENNY_CLIENT_SECRET"));
-        String token = fetchOIDCToken(keycloakUrl, productCode, params);
+        String token = fetchImpersonatedToken(keycloakUrl, productCode, uuid, params);
         log.debug("impersonated token=" + token);
         return token;
     }
@@ -251,6 +300,18 @@ public class KeycloakUtils {
      * @return String
      */
     public static String fetchOIDCToken(String keycloakUrl, String realm, Map<String, String> params) {
+        return fetchOIDCTokenResponse(keycloakUrl, realm, params).getString("access_token");
+    }
+
+    /**
+     * Fetch an OIDC token response from keycloak.
+     *
+     * @param keycloakUrl the keycloakUrl to fetch from
+     * @param realm       the realm to fetch in
+     * @param params      the params to use
+     * @return JsonObject
+     */
+    static JsonObject fetchOIDCTokenResponse(String keycloakUrl, String realm, Map<String, String> params) {
         log.info("Keycloak Realm is " + realm);
 
         String uri = keycloakUrl + "/realms/" + realm + "/protocol/openid-connect/token";
@@ -258,9 +319,37 @@ public class KeycloakUtils {
 
         String str = executeEncodedPostRequest(uri, params);
         // log.info("encodedPostRequest:[" + str + "]");
-        JsonObject json = jsonb.fromJson(str, JsonObject.class);
+        return jsonb.fromJson(str, JsonObject.class);
+    }
+
+    /**
+     * Fetch an impersonated token using a token exchange, reusing a cached token
+     * for the same realm, client and subject while at least half its lifetime remains.
+     *
+     * @param keycloakUrl the keycloakUrl to fetch from
+     * @param realm       the realm to fetch in
+     * @param subject     the requested subject
+     * @param params      the token exchange params
+     * @return String
+     */
+    static String fetchImpersonatedToken(String keycloakUrl, String realm, String subject, Map<String, String> params) {
+
+        String key = params.get("client_id") + ":" + subject;
+        long now = System.currentTimeMillis();
+
+        Expiring<String> cached = impersonatedTokens.get(realm, key);
+        if (cached != null && cached.isValid(now))
+            return cached.value;
+
+        JsonObject json = fetchOIDCTokenResponse(keycloakUrl, realm, params);
         String token = json.getString("access_token");
 
+        long expiresIn = json.containsKey("expires_in") ? json.getJsonNumber("expires_in").longValue() : 0L;
+        long ttl = Math.min(expiresIn - IMPERSONATION_EXPIRY_MARGIN,
+                (long) (expiresIn * (1 - IMPERSONATION_MIN_REMAINING)));
+        if (ttl > 0)
+            impersonatedTokens.put(realm, key, new Expiring<>(token, now + ttl * 1000L));
+
         return token;
     }
 
@@ -570,5 +659,21 @@ public class KeycloakUtils {
         return updateUserPassword(userCode, true);
     }
 
+    /**
+     * A cached value and the time it expires in epoch millis.
+     */
+    static class Expiring<T> {
+
+        final T value;
+        final long expiresAt;
+
+        Expiring(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
 
+        boolean isValid(long now) {
+            return now < expiresAt;
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package life.genny.qwandaq.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import life.genny.qwandaq.managers.CacheManager;
+
+/**
+ * A last updated time per product, shared through the cache, that tells
+ * a local cache when another instance has changed what it holds.
+ *
+ * The shared time is read at most once per interval, so a change made
+ * elsewhere shows within that interval rather than the ttl of the cache.
+ **/
+public class LastUpdatedMarker {
+
+	private final CacheManager cm;
+	private final String entityName;
+	private final long checkMillis;
+
+	// the last time seen for each product, and when it was read
+	private final Map<String, long[]> seen = new ConcurrentHashMap<>();
+
+	/**
+	 * @param cm          The cache manager holding the shared times
+	 * @param entityName  The name the times are kept under
+	 * @param checkMillis The time between reads of the shared time, in millis
+	 **/
+	public LastUpdatedMarker(CacheManager cm, String entityName, long checkMillis) {
+		this.cm = cm;
+		this.entityName = entityName;
+		this.checkMillis = checkMillis;
+	}
+
+	/**
+	 * Check if the shared time has moved since it was last seen.
+	 *
+	 * @param productCode The product to check
+	 * @return True if the product has been updated since the last check
+	 **/
+	public boolean changed(String productCode) {
+		long now = System.currentTimeMillis();
+		long[] last = seen.get(productCode);
+		if (last != null && now - last[1] < checkMillis)
+			return false;
+
+		Long updatedAt = cm.getEntityLastUpdatedAt(entityName, productCode);
+		long current = updatedAt == null ? 0L : updatedAt;
+		seen.put(productCode, new long[] { current, now });
+		return last != null && last[0] != current;
+	}
+
+	/**
+	 * Mark a product as updated now.
+	 *
+	 * @param productCode The product that was updated
+	 **/
+	public void touch(String productCode) {
+		cm.updateEntityLastUpdatedAt(entityName, productCode, System.currentTimeMillis());
+	}
+}
@@ -0,0 +1,200 @@
+package life.genny.qwandaq.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+
+/**
+ * A merge string parsed once into literal, [[EXPRESSION]] and {{VARIABLE}}
+ * segments, so that it can be rendered repeatedly in a single pass.
+ *
+ * @see MergeUtils
+ */
+public class MergeTemplate {
+
+	/**
+	 * The type of a template segment.
+	 */
+	public static enum Type {
+		LITERAL,
+		EXPRESSION,
+		VARIABLE
+	}
+
+	/**
+	 * A single segment of a template.
+	 */
+	public static class Segment {
+
+		private final Type type;
+		private final String text;
+		private final Expression expression;
+
+		Segment(Type type, String text) {
+			this.type = type;
+			this.text = text;
+			this.expression = type == Type.EXPRESSION ? Expression.parse(text) : null;
+		}
+
+		public Type getType() {
+			return type;
+		}
+
+		/**
+		 * @return The literal text, or the contents between the delimiters
+		 */
+		public String getText() {
+			return text;
+		}
+
+		public Expression getExpression() {
+			return expression;
+		}
+	}
+
+	/**
+	 * A parsed [[KEY.ATTRIBUTE.((FORMAT))]] expression.
+	 */
+	public static class Expression {
+
+		private final String text;
+		private final String key;
+		private final String attributeCode;
+		private final String format;
+		private final String formatText;
+
+		private Expression(String text, String key, String attributeCode, String formatText, String format) {
+			this.text = text;
+			this.key = key;
+			this.attributeCode = attributeCode;
+			this.formatText = formatText;
+			this.format = format;
+		}
+
+		/**
+		 * Parse an expression, with or without its square brackets.
+		 *
+		 * @param mergeText The expression text
+		 * @return The expression, or null if blank
+		 */
+		public static Expression parse(String mergeText) {
+
+			if (mergeText == null || mergeText.isBlank())
+				return null;
+
+			mergeText = mergeText.strip();
+			if (mergeText.startsWith(MergeUtils.REGEX_START))
+				mergeText = mergeText.substring(2);
+			if (mergeText.endsWith(MergeUtils.REGEX_END))
+				mergeText = mergeText.substring(0, mergeText.length() - 2);
+
+			// BE.PRI_X.((FORMAT)) becomes [BE, PRI_X, ((FORMAT))]
+			String[] entityArr = mergeText.split("\\.");
+			if (entityArr.length == 0)
+				return new Expression(mergeText, null, null, null, null);
+
+			String attributeCode = entityArr.length > 1 ? entityArr[1] : null;
+			String formatText = entityArr.length > 2 ? entityArr[2] : null;
+			String format = null;
+			if (formatText != null) {
+				Matcher matchFormat = MergeUtils.FORMAT_PATTERN_VARIABLE.matcher(formatText);
+				if (matchFormat.find())
+					format = matchFormat.group(1);
+			}
+
+			return new Expression(mergeText, entityArr[0], attributeCode, formatText, format);
+		}
+
+		/**
+		 * @return The expression without its square brackets
+		 */
+		public String getText() {
+			return text;
+		}
+
+		/**
+		 * @return The context key, or null if there is none
+		 */
+		public String getKey() {
+			return key;
+		}
+
+		public String getAttributeCode() {
+			return attributeCode;
+		}
+
+		/**
+		 * @return The format inside the round brackets, or null if unformatted
+		 */
+		public String getFormat() {
+			return format;
+		}
+
+		/**
+		 * @return The raw third component of the expression
+		 */
+		public String getFormatText() {
+			return formatText;
+		}
+	}
+
+	private final List<Segment> segments;
+	private final boolean requiresMerging;
+
+	private MergeTemplate(List<Segment> segments) {
+		this.segments = Collections.unmodifiableList(segments);
+		this.requiresMerging = segments.stream().anyMatch(s -> s.getType() != Type.LITERAL);
+	}
+
+	/**
+	 * Compile a merge string. Expressions are found first, and variables
+	 * are then found in the text between them.
+	 *
+	 * @param mergeStr The merge string
+	 * @return The compiled template
+	 */
+	public static MergeTemplate compile(String mergeStr) {
+
+		List<Segment> segments = new ArrayList<>();
+
+		Matcher match = MergeUtils.PATTERN_MATCHER.matcher(mergeStr);
+		int last = 0;
+		while (match.find()) {
+			addVariables(segments, mergeStr.substring(last, match.start()));
+			segments.add(new Segment(Type.EXPRESSION, match.group(1)));
+			last = match.end();
+		}
+		addVariables(segments, mergeStr.substring(last));
+
+		return new MergeTemplate(segments);
+	}
+
+	/**
+	 * Split text without expressions into literal and variable segments.
+	 */
+	private static void addVariables(List<Segment> segments, String text) {
+
+		Matcher matchVariables = MergeUtils.PATTERN_VARIABLE.matcher(text);
+		int last = 0;
+		while (matchVariables.find()) {
+			if (matchVariables.start() > last)
+				segments.add(new Segment(Type.LITERAL, text.substring(last, matchVariables.start())));
+			segments.add(new Segment(Type.VARIABLE, matchVariables.group(1)));
+			last = matchVariables.end();
+		}
+		if (last < text.length())
+			segments.add(new Segment(Type.LITERAL, text.substring(last)));
+	}
+
+	public List<Segment> getSegments() {
+		return segments;
+	}
+
+	/**
+	 * @return True if the template has any expressions or variables
+	 */
+	public boolean requiresMerging() {
+		return requiresMerging;
+	}
+}
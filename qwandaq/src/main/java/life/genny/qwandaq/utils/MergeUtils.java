@@ -2,9 +2,10 @@ package life.genny.qwandaq.utils;
 
 import java.io.StringReader;
 import java.text.DecimalFormat;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -15,9 +16,12 @@ import javax.json.JsonObject;
 import javax.json.JsonReader;
 
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 import life.genny.qwandaq.attribute.EntityAttribute;
 import life.genny.qwandaq.entity.BaseEntity;
+import life.genny.qwandaq.utils.MergeTemplate.Expression;
+import life.genny.qwandaq.utils.MergeTemplate.Segment;
 
 /**
  * A utiltity used in the MailMerge feature of Genny.
@@ -59,6 +63,17 @@ public class MergeUtils {
 	@Inject
 	EntityAttributeUtils beaUtils;
 
+	private static final int DEFAULT_TEMPLATE_CACHE_SIZE = 4096;
+
+	@ConfigProperty(name = "genny.merge.template.cache.size", defaultValue = "" + DEFAULT_TEMPLATE_CACHE_SIZE)
+	Integer templateCacheSize;
+
+	// compiled templates and expressions, keyed by their source string. Only strings
+	// that merge are kept, so the values passed through merging do not fill them,
+	// and the least recently used are dropped once full
+	private final Map<String, MergeTemplate> templates = lruCache();
+	private final Map<String, Expression> expressions = lruCache();
+
 	public void mergeBaseEntity(BaseEntity baseEntity, Map<String, Object> contexts) {
 		beaUtils.getAllEntityAttributesForBaseEntity(baseEntity).forEach(ea -> {
 			if (ea == null || ea.getValueString() == null)
@@ -76,38 +91,81 @@ public class MergeUtils {
 	 */
 	public String merge(String mergeStr, Map<String, Object> templateEntityMap) {
 		
-		if (mergeStr != null) {
+		if (mergeStr == null) {
+			log.warn("mergeStr is NULL");
+			return mergeStr;
+		}
 
-		Matcher match = PATTERN_MATCHER.matcher(mergeStr);
-		Matcher matchVariables = PATTERN_VARIABLE.matcher(mergeStr);
+		if (templateEntityMap == null || templateEntityMap.isEmpty())
+			return mergeStr;
+
+		MergeTemplate template = getTemplate(mergeStr);
+		if (!template.requiresMerging())
+			return mergeStr;
+
+		// render every segment in a single pass
+		StringBuilder result = new StringBuilder(mergeStr.length());
+		for (Segment segment : template.getSegments()) {
+			Object merged = switch (segment.getType()) {
+				case EXPRESSION -> wordMerge(segment.getExpression(), templateEntityMap);
+				case VARIABLE -> templateEntityMap.get(segment.getText());
+				default -> segment.getText();
+			};
+			if (merged != null)
+				result.append(merged);
+		}
 
-		if (templateEntityMap != null && templateEntityMap.size() > 0) {
+		return result.toString();
+	}
 
-			while (match.find()) {
+	/**
+	 * Get the compiled form of a merge string, compiling and caching it if needed.
+	 *
+	 * @param mergeStr the mergeStr to compile
+	 * @return MergeTemplate
+	 */
+	public MergeTemplate getTemplate(String mergeStr) {
 
-				Object mergedObject = wordMerge(match.group(1), templateEntityMap);
-				if (mergedObject != null)
-					mergeStr = mergeStr.replace(REGEX_START + match.group(1) + REGEX_END, mergedObject.toString());
-				else
-					mergeStr = mergeStr.replace(REGEX_START + match.group(1) + REGEX_END, "");
-			}
+		MergeTemplate template = templates.get(mergeStr);
+		if (template != null)
+			return template;
 
-			// NOTE: duplicating this for now. ideally wordMerge should be a bit more flexible and allows all kind of data to be passed
-			while (matchVariables.find()) {
+		template = MergeTemplate.compile(mergeStr);
+		if (template.requiresMerging())
+			templates.put(mergeStr, template);
 
-				Object mergedText = templateEntityMap.get(matchVariables.group(1));
-				if (mergedText != null)
-					mergeStr = mergeStr.replace(VARIABLE_REGEX_START + matchVariables.group(1) + VARIABLE_REGEX_END, mergedText.toString());
-				else
-					mergeStr = mergeStr.replace(VARIABLE_REGEX_START + matchVariables.group(1) + VARIABLE_REGEX_END, "");
-			}
-		}
+		return template;
+	}
 
-		} else {
-			log.warn("mergeStr is NULL");
-		}
+	/**
+	 * Get the parsed form of a merge expression, parsing it if needed. It is only
+	 * cached if its key is a context, as plain values parse to expressions too.
+	 *
+	 * @param mergeText the mergeText to parse
+	 * @param entitymap the contexts it is merged with
+	 * @return Expression
+	 */
+	private Expression getExpression(String mergeText, Map<String, Object> entitymap) {
 
-		return mergeStr;
+		Expression expression = expressions.get(mergeText);
+		if (expression != null)
+			return expression;
+
+		expression = Expression.parse(mergeText);
+		if (expression != null && expression.getKey() != null && entitymap != null
+				&& entitymap.containsKey(expression.getKey()))
+			expressions.put(mergeText, expression);
+
+		return expression;
+	}
+
+	private <V> Map<String, V> lruCache() {
+		return Collections.synchronizedMap(new LinkedHashMap<String, V>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+				return size() > (templateCacheSize != null ? templateCacheSize : DEFAULT_TEMPLATE_CACHE_SIZE);
+			}
+		});
 	}
 
 	/** 
@@ -118,25 +176,24 @@ public class MergeUtils {
 	public Object wordMerge(String mergeText, Map<String, Object> entitymap) {
 		if (StringUtils.isBlank(mergeText))
 			return DEFAULT;
-		mergeText = mergeText.strip();
-		if(mergeText.startsWith("[[")) {
-			mergeText = mergeText.substring(2);
-		}
-
-		if(mergeText.endsWith("]]")) {
-			mergeText = mergeText.substring(0, mergeText.length() - 2);
-		}
 
-		// we split the text to merge into 2 components: BE.PRI... becomes [BE, PRI...]
-		String[] entityArr = mergeText.split("\\.");
-		String keyCode = entityArr[0];
-		log.debug("looking for key in map: " + keyCode);
+		return wordMerge(getExpression(mergeText, entitymap), entitymap);
+	}
 
-		if ((entityArr.length == 0))
+	/** 
+	 * @param expression the parsed expression to merge
+	 * @param entitymap the entitymap to merge with
+	 * @return Object
+	 */
+	public Object wordMerge(Expression expression, Map<String, Object> entitymap) {
+		if (expression == null || expression.getKey() == null)
 			return DEFAULT;
 
+		String keyCode = expression.getKey();
+		log.debug("looking for key in map: " + keyCode);
+
 		if (!entitymap.containsKey(keyCode))
-			return mergeText;
+			return expression.getText();
 
 		Object value = entitymap.get(keyCode);
 
@@ -148,7 +205,11 @@ public class MergeUtils {
 		if (value.getClass().equals(BaseEntity.class)) {
 
 			BaseEntity be = (BaseEntity) value;
-			String attributeCode = entityArr[1];
+			String attributeCode = expression.getAttributeCode();
+			if (attributeCode == null) {
+				log.warn("No attribute code in merge expression " + expression.getText());
+				return DEFAULT;
+			}
 
 			if (attributeCode.equals("PRI_CODE")) {
 				log.debug("context: " + keyCode + ", attr: " + attributeCode + ", value: " + be.getCode());
@@ -165,10 +226,7 @@ public class MergeUtils {
 			}
 			log.debug("context: " + keyCode + ", attr: " + attributeCode + ", value: " + attributeValue);
 
-			Matcher matchFormat = null;
-			if (entityArr != null && entityArr.length > 2) {
-				matchFormat = FORMAT_PATTERN_VARIABLE.matcher(entityArr[2]);
-			}
+			String format = expression.getFormat();
 
 			if (attributeValue instanceof org.javamoney.moneta.Money money) {
 
@@ -186,9 +244,9 @@ public class MergeUtils {
 				   2nd component -> attribute code 
 				   3rd component -> (date-Format)
 				   */
-				if (matchFormat != null && matchFormat.find()) {
-					log.debug("Datetime attribute " + attributeCode + " needs formatting. Format is " + entityArr[2]);
-					return TimeUtils.formatDateTime(ldtValue, matchFormat.group(1));
+				if (format != null) {
+					log.debug("Datetime attribute " + attributeCode + " needs formatting. Format is " + expression.getFormatText());
+					return TimeUtils.formatDateTime(ldtValue, format);
 				} else {
 					log.debug("DateTime attribute " + attributeCode + " does NOT need formatting");
 					return ldtValue;
@@ -196,9 +254,9 @@ public class MergeUtils {
 
 			} else if (attributeValue instanceof java.time.LocalDate ldValue) {
 
-				if (matchFormat != null && matchFormat.find()) {
-					log.debug("Date attribute " + attributeCode + " needs formatting. Format is " + entityArr[2]);
-					return TimeUtils.formatDate(ldValue, matchFormat.group(1));
+				if (format != null) {
+					log.debug("Date attribute " + attributeCode + " needs formatting. Format is " + expression.getFormatText());
+					return TimeUtils.formatDate(ldValue, format);
 				} else {
 					log.debug("Date attribute " + attributeCode + " does NOT need formatting");
 					return ldValue;
@@ -207,9 +265,9 @@ public class MergeUtils {
 			} else if (attributeValue instanceof java.lang.String sValue) {
 
 				String result = null;
-				if (matchFormat != null && matchFormat.find()) {
-					result = getFormattedString(sValue, matchFormat.group(1));
-					log.debug("String attribute " + attributeCode + " needs formatting. Format is " + entityArr[2] + ", Result is " + result);
+				if (format != null) {
+					result = getFormattedString(sValue, format);
+					log.debug("String attribute " + attributeCode + " needs formatting. Format is " + expression.getFormatText() + ", Result is " + result);
 				} else {
 					result = be.getValueAsString(attributeCode);
 					log.debug("String attribute " + attributeCode + " does NOT need formatting. Result is " + result);
@@ -247,37 +305,32 @@ public class MergeUtils {
 	 */
 	public boolean contextsArePresent(String mergeStr, Map<String, Object> templateEntityMap) {
 		
-		if (mergeStr != null) {
-
-		Matcher match = PATTERN_MATCHER.matcher(mergeStr);
-		Matcher matchVariables = PATTERN_VARIABLE.matcher(mergeStr);
-
-		if (templateEntityMap != null && templateEntityMap.size() > 0) {
+		if (mergeStr == null) {
+			log.warn("mergeStr is NULL");
+			return true;
+		}
 
-			while (match.find()) {
+		if (templateEntityMap == null || templateEntityMap.isEmpty())
+			return true;
 
-				Object mergedObject = wordMerge(match.group(1), templateEntityMap);
-				if (mergedObject == null || mergedObject.toString().isEmpty()) {
-					return false;
+		for (Segment segment : getTemplate(mergeStr).getSegments()) {
+			switch (segment.getType()) {
+				case EXPRESSION -> {
+					Object mergedObject = wordMerge(segment.getExpression(), templateEntityMap);
+					if (mergedObject == null || mergedObject.toString().isEmpty())
+						return false;
 				}
-			}
-
-			while(matchVariables.find()) {
-
-				Object mergedText = templateEntityMap.get(matchVariables.group(1));
-				if (mergedText == null) {
-					return false;
+				case VARIABLE -> {
+					if (templateEntityMap.get(segment.getText()) == null)
+						return false;
 				}
+				default -> { }
 			}
 		}
 
-		} else {
-			log.warn("mergeStr is NULL");
-		}
 		return true;
 	}
 
-	
 	/** 
 	 * @param mergeStr the mergeStr to check
 	 * @return Boolean
@@ -289,10 +342,7 @@ public class MergeUtils {
 			return null;
 		}
 
-		Matcher match = PATTERN_MATCHER.matcher(mergeStr);
-		Matcher matchVariables = PATTERN_VARIABLE.matcher(mergeStr);
-
-		return (match.find() || matchVariables.find());
+		return getTemplate(mergeStr).requiresMerging();
 	}
 
 	/**
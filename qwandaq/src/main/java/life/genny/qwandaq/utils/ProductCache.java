@@ -0,0 +1,213 @@
+package life.genny.qwandaq.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * A thread safe, in memory cache partitioned by product.
+ *
+ * Each product holds at most maxSize entries, evicting the least recently
+ * used entry when full, and entries expire ttlMillis after they are put.
+ * Hits, misses and evictions are counted across all products.
+ *
+ * @param <V> The type of cached value
+ **/
+public class ProductCache<V> {
+
+	private static class Entry<V> {
+		final V value;
+		final long expiresAt;
+
+		Entry(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private final int maxSize;
+	private final long ttlMillis;
+
+	private final Map<String, Map<String, Entry<V>>> products = new ConcurrentHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * @param maxSize   The most entries held per product
+	 * @param ttlMillis The time an entry is held for, in millis
+	 **/
+	public ProductCache(int maxSize, long ttlMillis) {
+		this.maxSize = Math.max(1, maxSize);
+		this.ttlMillis = ttlMillis;
+	}
+
+	/**
+	 * Get a cached value.
+	 *
+	 * @param productCode The product of the value
+	 * @param key         The key of the value
+	 * @return The value, or null if it is not cached or has expired
+	 **/
+	public V get(String productCode, String key) {
+		Map<String, Entry<V>> entries = products.get(productCode);
+		if (entries != null) {
+			synchronized (entries) {
+				Entry<V> entry = entries.get(key);
+				if (entry != null) {
+					if (entry.expiresAt > System.currentTimeMillis()) {
+						hits.incrementAndGet();
+						return entry.value;
+					}
+					entries.remove(key);
+					evictions.incrementAndGet();
+				}
+			}
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Cache a value. Null values are not cached.
+	 *
+	 * @param productCode The product of the value
+	 * @param key         The key of the value
+	 * @param value       The value
+	 **/
+	public void put(String productCode, String key, V value) {
+		if (value == null)
+			return;
+		Map<String, Entry<V>> entries = products.computeIfAbsent(productCode, p -> new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+				if (size() <= maxSize)
+					return false;
+				evictions.incrementAndGet();
+				return true;
+			}
+		});
+		synchronized (entries) {
+			entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+		}
+	}
+
+	/**
+	 * Evict a cached value.
+	 *
+	 * @param productCode The product of the value
+	 * @param key         The key of the value
+	 **/
+	public void evict(String productCode, String key) {
+		evictIf(productCode, key::equals);
+	}
+
+	/**
+	 * Evict every cached value of a product whose key matches.
+	 *
+	 * @param productCode The product of the values
+	 * @param matcher     Matches the keys to evict
+	 **/
+	public void evictIf(String productCode, Predicate<String> matcher) {
+		Map<String, Entry<V>> entries = products.get(productCode);
+		if (entries == null)
+			return;
+		synchronized (entries) {
+			int before = entries.size();
+			entries.keySet().removeIf(matcher);
+			evictions.addAndGet(before - entries.size());
+		}
+	}
+
+	/**
+	 * Evict every cached value of a product that matches.
+	 *
+	 * @param productCode The product of the values
+	 * @param matcher     Matches the values to evict
+	 **/
+	public void evictValuesIf(String productCode, Predicate<V> matcher) {
+		Map<String, Entry<V>> entries = products.get(productCode);
+		if (entries == null)
+			return;
+		synchronized (entries) {
+			int before = entries.size();
+			entries.values().removeIf(entry -> matcher.test(entry.value));
+			evictions.addAndGet(before - entries.size());
+		}
+	}
+
+	/**
+	 * Evict every cached value of a product.
+	 *
+	 * @param productCode The product
+	 **/
+	public void clear(String productCode) {
+		Map<String, Entry<V>> entries = products.remove(productCode);
+		if (entries == null)
+			return;
+		synchronized (entries) {
+			evictions.addAndGet(entries.size());
+		}
+	}
+
+	/**
+	 * @param productCode The product
+	 * @return A snapshot of the unexpired values cached for a product, by key
+	 **/
+	public Map<String, V> values(String productCode) {
+		Map<String, V> values = new LinkedHashMap<>();
+		Map<String, Entry<V>> entries = products.get(productCode);
+		if (entries == null)
+			return values;
+		long now = System.currentTimeMillis();
+		synchronized (entries) {
+			entries.forEach((key, entry) -> {
+				if (entry.expiresAt > now)
+					values.put(key, entry.value);
+			});
+		}
+		return values;
+	}
+
+	/**
+	 * @param productCode The product
+	 * @return The number of values cached for a product, including any expired ones not yet evicted
+	 **/
+	public int size(String productCode) {
+		Map<String, Entry<V>> entries = products.get(productCode);
+		if (entries == null)
+			return 0;
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return The fraction of lookups that were hits
+	 **/
+	public double getHitRatio() {
+		long total = hits.get() + misses.get();
+		return total == 0 ? 0 : (double) hits.get() / total;
+	}
+
+	@Override
+	public String toString() {
+		return "hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions()
+				+ ", hitRatio=" + String.format("%.2f", getHitRatio());
+	}
+}
@@ -1,19 +1,24 @@
 package life.genny.qwandaq.utils;
 
 import life.genny.qwandaq.Question;
+import life.genny.qwandaq.CoreEntityPersistable;
 import life.genny.qwandaq.QuestionQuestion;
 import life.genny.qwandaq.constants.ECacheRef;
 import life.genny.qwandaq.exception.runtime.ItemNotFoundException;
 import life.genny.qwandaq.managers.CacheManager;
+import life.genny.qwandaq.models.AskTemplate;
 import life.genny.qwandaq.serialization.baseentity.BaseEntity;
 import life.genny.qwandaq.serialization.baseentity.BaseEntityKey;
 import life.genny.qwandaq.attribute.EntityAttribute;
+import life.genny.qwandaq.serialization.common.CoreEntityKey;
 import life.genny.qwandaq.serialization.question.QuestionKey;
 import life.genny.qwandaq.serialization.questionquestion.QuestionQuestionKey;
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.javamoney.moneta.Money;
 import org.jboss.logging.Logger;
 
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import java.time.LocalDate;
@@ -21,6 +26,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -47,10 +53,21 @@ public class QuestionUtils {
     public static final String PARENT_CODE = "parentCode";
     public static final String CHILD_CODE = "childCode";
 
-    public static Map<BaseEntityKey, Question> questionsLocalCache = new HashMap<>();
+    @ConfigProperty(name = "genny.question.cache.max-size", defaultValue = "10000")
+    Integer cacheMaxSize;
+
+    @ConfigProperty(name = "genny.question.cache.ttl-seconds", defaultValue = "300")
+    Long cacheTtlSeconds;
+
+    // Questions and QuestionQuestions built from their base entities, keyed by product and code.
+    // Local changes evict them, and the ttl bounds how long changes made by other services take to show
+    private ProductCache<Question> questionsLocalCache;
+
+    private ProductCache<QuestionQuestion> questionQuestionsLocalCache;
+
+    // Ask trees compiled by QwandaUtils. A template holds many questions, so any question edit clears the product
+    private ProductCache<AskTemplate> askTemplates;
 
-    public static Map<BaseEntityKey, QuestionQuestion> questionQuestionsLocalCache = new HashMap<>();
-    
     @Inject
     Logger log;
 
@@ -63,6 +80,47 @@ public class QuestionUtils {
     @Inject
     AttributeUtils attributeUtils;
 
+    @PostConstruct
+    void init() {
+        questionsLocalCache = new ProductCache<>(cacheMaxSize, cacheTtlSeconds * 1000L);
+        questionQuestionsLocalCache = new ProductCache<>(cacheMaxSize, cacheTtlSeconds * 1000L);
+        askTemplates = new ProductCache<>(cacheMaxSize, cacheTtlSeconds * 1000L);
+    }
+
+    public ProductCache<Question> getQuestionCache() {
+        return questionsLocalCache;
+    }
+
+    public ProductCache<QuestionQuestion> getQuestionQuestionCache() {
+        return questionQuestionsLocalCache;
+    }
+
+    public ProductCache<AskTemplate> getAskTemplateCache() {
+        return askTemplates;
+    }
+
+    /**
+     * Evict a question from the local caches, along with every QuestionQuestion
+     * it is the parent or child of, as those hold the question too, and every
+     * Ask template of the product.
+     *
+     * @param productCode The product of the question
+     * @param code The code of the question, or of a QuestionQuestion (parent|child)
+     */
+    public void evictQuestion(String productCode, String code) {
+        if (code == null)
+            return;
+        askTemplates.clear(productCode);
+        if (code.indexOf(BaseEntityKey.BE_KEY_DELIMITER) >= 0) {
+            questionQuestionsLocalCache.evict(productCode, code);
+            return;
+        }
+        questionsLocalCache.evict(productCode, code);
+        String parentPrefix = code + BaseEntityKey.BE_KEY_DELIMITER;
+        String childSuffix = BaseEntityKey.BE_KEY_DELIMITER + code;
+        questionQuestionsLocalCache.evictIf(productCode, key -> key.startsWith(parentPrefix) || key.endsWith(childSuffix));
+    }
+
     public life.genny.qwandaq.entity.BaseEntity getPersistableBaseEntityFromQuestion(Question question) {
         life.genny.qwandaq.entity.BaseEntity baseEntity = (life.genny.qwandaq.entity.BaseEntity) getSerializableBaseEntityFromQuestion(question).toPersistableCoreEntity();
         List<life.genny.qwandaq.attribute.EntityAttribute> persistableBaseEntityAttributes = new LinkedList<>();
@@ -195,27 +253,39 @@ public class QuestionUtils {
         return question;
     }
 
+    /**
+     * Fetch several questions from the cache in a single request.
+     *
+     * @param productCode The product of the questions
+     * @param questionCodes The codes of the questions
+     * @return The found questions by code. Missing codes are left out
+     */
+    public Map<String, Question> getQuestionsFromQuestionCodes(String productCode, Collection<String> questionCodes) {
+        Set<CoreEntityKey> keys = new HashSet<>();
+        for (String questionCode : questionCodes)
+            keys.add(new QuestionKey(productCode, questionCode));
+        Map<String, Question> questions = new HashMap<>();
+        for (CoreEntityPersistable entity : cacheManager.getPersistableEntities(ECacheRef.QUESTION, keys).values()) {
+            if (entity != null) {
+                Question question = (Question) entity;
+                questions.put(question.getCode(), question);
+            }
+        }
+        return questions;
+    }
+
     public Question getQuestionFromBaseEntityCode(String productCode, String baseEntityCode) {
-        BaseEntityKey baseEntityKey = new BaseEntityKey(productCode, baseEntityCode);
-        Question question = getQuestionInLocalCache(baseEntityKey);
+        Question question = questionsLocalCache.get(productCode, baseEntityCode);
         if (question != null) {
             return question;
         }
         life.genny.qwandaq.entity.BaseEntity questionBE = beUtils.getBaseEntity(productCode, baseEntityCode);
         log.info("Question Code From BaseEntity = " + baseEntityCode);
         question = createQuestionFromBaseEntity(questionBE);
-        questionsLocalCache.put(baseEntityKey, question);
+        questionsLocalCache.put(productCode, baseEntityCode, question);
         return question;
     }
 
-    private Question getQuestionInLocalCache(BaseEntityKey baseEntityKey) {
-        Question question = questionsLocalCache.get(baseEntityKey);
-        if (question != null) {// && !question.getUpdated().isBefore(baseEntity.getUpdated())) {
-            return question;
-        }
-        return null;
-    }
-
     private Question createQuestionFromBaseEntity(life.genny.qwandaq.entity.BaseEntity baseEntity) {
         Question question = new Question();
         String productCode = baseEntity.getRealm();
@@ -267,30 +337,21 @@ public class QuestionUtils {
         String productCode = parent.getRealm();
         entityAttributes.forEach(entityAttribute -> {
             String baseEntityCode = entityAttribute.getBaseEntityCode();
-            BaseEntityKey baseEntityKey = new BaseEntityKey(productCode, baseEntityCode);
-            QuestionQuestion questionQuestion = getQuestionQuestionInLocalCache(baseEntityKey);
-            if (questionQuestion == null) {// && !question.getUpdated().isBefore(baseEntity.getUpdated())) {
+            QuestionQuestion questionQuestion = questionQuestionsLocalCache.get(productCode, baseEntityCode);
+            if (questionQuestion == null) {
                 log.debug("Fetching QuesQues -> " + baseEntityCode);
                 String[] codes = StringUtils.split(baseEntityCode, '|');
                 String childCode = codes[1];
                 log.debug("Fetching question for child code -> " + childCode);
                 Question child = cacheManager.getQuestionFromBECache(productCode, childCode);
                 questionQuestion = new QuestionQuestion(parent, child);
+                questionQuestionsLocalCache.put(productCode, baseEntityCode, questionQuestion);
             }
-            questionQuestionsLocalCache.put(baseEntityKey, questionQuestion);
             questionQuestions.add(questionQuestion);
         });
         return questionQuestions;
     }
 
-    private QuestionQuestion getQuestionQuestionInLocalCache(BaseEntityKey baseEntityKey) {
-        QuestionQuestion questionQuestion = questionQuestionsLocalCache.get(baseEntityKey);
-        if (questionQuestion != null) {// && !questionQuestion.getUpdated().isBefore(baseEntity.getUpdated())) {
-            return questionQuestion;
-        }
-        return null;
-    }
-
     public QuestionQuestion getQuestionQuestionFromBaseEntity(life.genny.qwandaq.entity.BaseEntity baseEntity) {
         QuestionQuestion questionQuestion = new QuestionQuestion();
         String beCode = baseEntity.getCode();
@@ -325,11 +386,13 @@ public class QuestionUtils {
 
     public boolean saveQuestion(Question question) {
         QuestionKey key = new QuestionKey(question.getRealm(), question.getCode());
+        evictQuestion(question.getRealm(), question.getCode());
         return cacheManager.saveEntity(ECacheRef.QUESTION, key, question);
     }
 
     public boolean saveQuestionQuestion(QuestionQuestion questionQuestion) {
         QuestionQuestionKey key = new QuestionQuestionKey(questionQuestion.getRealm(), questionQuestion.getParentCode(), questionQuestion.getChildCode());
+        evictQuestion(questionQuestion.getRealm(), questionQuestion.getParentCode() + BaseEntityKey.BE_KEY_DELIMITER + questionQuestion.getChildCode());
         return cacheManager.saveEntity(ECacheRef.QUESTIONQUESTION, key, questionQuestion);
     }
 
@@ -343,10 +406,14 @@ public class QuestionUtils {
     }
 
     public int removeQuestionQuestion(String productCode, String sourceCode, String targetCode) {
+        evictQuestion(productCode, sourceCode + BaseEntityKey.BE_KEY_DELIMITER + targetCode);
 		return cacheManager.removeQuestionQuestion(productCode, sourceCode, targetCode);
     }
 
     public int removeAllQuestionQuestionsForSource(String productCode, String sourceCode) {
+        String parentPrefix = sourceCode + BaseEntityKey.BE_KEY_DELIMITER;
+        questionQuestionsLocalCache.evictIf(productCode, key -> key.startsWith(parentPrefix));
+        askTemplates.clear(productCode);
         return cacheManager.removeAllQuestionQuestionsInGroup(productCode, sourceCode);
     }
 }
@@ -13,9 +13,6 @@ import life.genny.qwandaq.datatype.capability.core.CapabilitySet;
 import life.genny.qwandaq.datatype.capability.requirement.ReqConfig;
 import life.genny.qwandaq.entity.BaseEntity;
 import life.genny.qwandaq.entity.Definition;
-import life.genny.qwandaq.entity.search.SearchEntity;
-import life.genny.qwandaq.entity.search.trait.Filter;
-import life.genny.qwandaq.entity.search.trait.Operator;
 import life.genny.qwandaq.exception.runtime.DebugException;
 import life.genny.qwandaq.exception.runtime.ItemNotFoundException;
 import life.genny.qwandaq.exception.runtime.NullParameterException;
@@ -23,9 +20,11 @@ import life.genny.qwandaq.exception.runtime.QwandaException;
 import life.genny.qwandaq.graphql.ProcessData;
 import life.genny.qwandaq.kafka.KafkaTopic;
 import life.genny.qwandaq.managers.CacheManager;
+import life.genny.qwandaq.managers.UniqueValueIndex;
 import life.genny.qwandaq.message.QDataAskMessage;
 import life.genny.qwandaq.message.QDataAttributeMessage;
 import life.genny.qwandaq.message.QDataBaseEntityMessage;
+import life.genny.qwandaq.models.AskTemplate;
 import life.genny.qwandaq.models.GennySettings;
 import life.genny.qwandaq.models.UserToken;
 import life.genny.qwandaq.validation.Validation;
@@ -39,13 +38,11 @@ import javax.json.JsonObject;
 import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbBuilder;
 import java.util.*;
+import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import static life.genny.qwandaq.attribute.Attribute.PRI_CODE;
-import static life.genny.qwandaq.entity.search.SearchEntity.SBE_COUNT_UNIQUE_PAIRS;
-
 /**
  * A utility class to assist in any Qwanda Engine Question
  * and Answer operations.
@@ -89,6 +86,9 @@ public class QwandaUtils {
 	@Inject
 	AttributeUtils attributeUtils;
 
+	@Inject
+	UniqueValueIndex uniqueIndex;
+
 	public QwandaUtils() {
 	}
 
@@ -190,7 +190,10 @@ public class QwandaUtils {
 
 		if (code == null)
 			throw new NullParameterException("code");
-		// don't need to check source, target since they are checked in generateAskFromQuestion
+		if (source == null)
+			throw new NullParameterException("source");
+		if (target == null)
+			throw new NullParameterException("target");
 
 		// if the code is QUE_BASEENTITY_GRP then display all the attributes
 		if (Question.QUE_BASEENTITY_GRP.equals(code)) {
@@ -198,14 +201,67 @@ public class QwandaUtils {
 		}
 
 		String productCode = userToken.getProductCode();
-		log.debug("Fetching Question: " + code);
+		AskTemplate template = getAskTemplate(productCode, code);
 
-		// find the question in the database
-		Question question = questionUtils.getQuestionFromQuestionCode(productCode, code);
-		Attribute attribute = attributeUtils.getAttribute(productCode, question.getAttributeCode(), true);
-		question.setAttribute(attribute);
+		return stampAsk(template, productCode, source, target, capSet, requirementsConfig);
+	}
 
-		return generateAskFromQuestion(question, source, target, capSet, requirementsConfig);
+	/**
+	 * Generate the asks for several question codes. Questions without a
+	 * cached Ask template are fetched together in a single request.
+	 *
+	 * @param codes  The codes of the questions
+	 * @param source The source entity
+	 * @param target The target entity
+	 * @return The generated Asks, in the order of the codes
+	 */
+	public List<Ask> generateAsksFromQuestionCodes(final List<String> codes, final BaseEntity source, final BaseEntity target, final CapabilitySet capSet, ReqConfig requirementsConfig) {
+
+		if (codes == null)
+			throw new NullParameterException("codes");
+		if (source == null)
+			throw new NullParameterException("source");
+		if (target == null)
+			throw new NullParameterException("target");
+
+		String productCode = userToken.getProductCode();
+		ProductCache<AskTemplate> templates = questionUtils.getAskTemplateCache();
+
+		Map<String, AskTemplate> found = new HashMap<>();
+		Set<String> missing = new HashSet<>();
+		for (String code : codes) {
+			if (Question.QUE_BASEENTITY_GRP.equals(code) || found.containsKey(code))
+				continue;
+			AskTemplate template = templates.get(productCode, code);
+			if (template != null)
+				found.put(code, template);
+			else
+				missing.add(code);
+		}
+
+		if (!missing.isEmpty()) {
+			Map<String, Question> questions = questionUtils.getQuestionsFromQuestionCodes(productCode, missing);
+			for (Question question : questions.values()) {
+				Attribute attribute = attributeUtils.getAttribute(productCode, question.getAttributeCode(), true);
+				question.setAttribute(attribute);
+				AskTemplate template = compileAskTemplate(productCode, question);
+				templates.put(productCode, question.getCode(), template);
+				found.put(question.getCode(), template);
+			}
+		}
+
+		List<Ask> asks = new ArrayList<>(codes.size());
+		for (String code : codes) {
+			if (Question.QUE_BASEENTITY_GRP.equals(code)) {
+				asks.add(generateAskGroupUsingBaseEntity(target));
+				continue;
+			}
+			AskTemplate template = found.get(code);
+			if (template == null)
+				throw new ItemNotFoundException(productCode, "question", code);
+			asks.add(stampAsk(template, productCode, source, target, capSet, requirementsConfig));
+		}
+		return asks;
 	}
 
 	/**
@@ -226,14 +282,74 @@ public class QwandaUtils {
 		if (target == null)
 			throw new NullParameterException("target");
 
-		String productCode = userToken.getProductCode();
-		// init new parent ask
-		Ask ask = new Ask(question, source.getCode(), target.getCode(), 0.0);
-		ask.setRealm(productCode);
-
 		if (Question.QUE_BASEENTITY_GRP.equals(question.getCode()))
 			return generateAskGroupUsingBaseEntity(target);
 
+		String productCode = userToken.getProductCode();
+		AskTemplate template = compileAskTemplate(productCode, question);
+
+		return stampAsk(template, productCode, source, target, capSet, requirementsConfig);
+	}
+
+	/**
+	 * Get the compiled Ask template of a question, compiling
+	 * and caching it if need be.
+	 *
+	 * @param productCode The product of the question
+	 * @param code The code of the question
+	 * @return The AskTemplate
+	 */
+	public AskTemplate getAskTemplate(String productCode, String code) {
+
+		ProductCache<AskTemplate> templates = questionUtils.getAskTemplateCache();
+		AskTemplate template = templates.get(productCode, code);
+		if (template != null)
+			return template;
+
+		log.debug("Fetching Question: " + code);
+		// find the question in the database
+		Question question = questionUtils.getQuestionFromQuestionCode(productCode, code);
+		Attribute attribute = attributeUtils.getAttribute(productCode, question.getAttributeCode(), true);
+		question.setAttribute(attribute);
+
+		template = compileAskTemplate(productCode, question);
+		templates.put(productCode, code, template);
+		return template;
+	}
+
+	/**
+	 * Compile the Ask templates of every question group of a product,
+	 * fetching the groups with a single query.
+	 *
+	 * @param productCode The product to load
+	 * @return The number of question groups loaded
+	 */
+	public int warmAskTemplates(String productCode) {
+
+		ProductCache<AskTemplate> templates = questionUtils.getAskTemplateCache();
+		Set<Question> groups = cm.getQuestionGroups(productCode);
+		for (Question group : groups) {
+			// groups nested in an earlier group are already compiled
+			if (templates.get(productCode, group.getCode()) != null)
+				continue;
+			Attribute attribute = attributeUtils.getAttribute(productCode, group.getAttributeCode(), true);
+			group.setAttribute(attribute);
+			templates.put(productCode, group.getCode(), compileAskTemplate(productCode, group));
+		}
+		return groups.size();
+	}
+
+	/**
+	 * Compile the user independent part of an Ask tree for a question.
+	 * Child templates are fetched through the template cache.
+	 *
+	 * @param productCode The product of the question
+	 * @param question The question, with its attribute set
+	 * @return The AskTemplate
+	 */
+	private AskTemplate compileAskTemplate(String productCode, Question question) {
+
+		question = question.clone();
 		// override with Attribute icon if question icon is null
 		Attribute attribute = question.getAttribute();
 		if (attribute != null && attribute.getIcon() != null) {
@@ -242,48 +358,85 @@ public class QwandaUtils {
 		}
 
 		// check if it is a question group
-		if (question.getAttributeCode() != null && question.getAttributeCode().startsWith(Attribute.QQQ_QUESTION_GROUP)) {
-
-			log.info("[*] Parent Question: " + question.getCode());
-			// groups always readonly
-			ask.setReadonly(true);
-			// fetch questionQuestions from the cache
-			Set<QuestionQuestion> questionQuestions = cm.getQuestionQuestionsForParentQuestion(question);
-			if (questionQuestions.isEmpty()) {
-				log.debugf("No child questions found for the question: [%s,%s]", question.getRealm(), question.getCode());
-			} else {
-				// recursively operate on child questions
-				questionQuestions.forEach(questionQuestion -> {
-					log.debug("   [-] Found Child Question:  " + questionQuestion.getParentCode() + ":"
-							+ questionQuestion.getChildCode() + ". Weight: " + questionQuestion.getWeight());
-
-					if (!questionQuestion.requirementsMet(capSet, requirementsConfig)) { // For now all caps are needed. I'll make this more comprehensive later
-						return;
-					}
-					Ask child = generateAskFromQuestionCode(questionQuestion.getChildCode(), source, target, capSet, requirementsConfig);
-
-					// Do not include PRI_SUBMIT
-					if (Attribute.PRI_SUBMIT.equals(child.getQuestion().getAttribute().getCode())) {
-						return;
-					}
-
-					// set boolean fields
-					child.setMandatory(questionQuestion.getMandatory());
-					child.setDisabled(questionQuestion.getDisabled());
-					child.setHidden(questionQuestion.getHidden());
-					child.setDisabled(questionQuestion.getDisabled());
-					child.setReadonly(questionQuestion.getReadonly());
-					child.setWeight(questionQuestion.getWeight());
-
-					// override with QuestionQuestion icon if exists
-					if (questionQuestion.getIcon() != null) {
-						child.getQuestion().setIcon(questionQuestion.getIcon());
-					}
-					ask.add(child);
-				});
+		if (question.getAttributeCode() == null || !question.getAttributeCode().startsWith(Attribute.QQQ_QUESTION_GROUP)) {
+			return new AskTemplate(question, false, Collections.emptyList());
+		}
+
+		log.info("[*] Compiling Parent Question: " + question.getCode());
+		List<AskTemplate.Link> children = new ArrayList<>();
+		// fetch questionQuestions from the cache
+		Set<QuestionQuestion> questionQuestions = cm.getQuestionQuestionsForParentQuestion(question);
+		if (questionQuestions.isEmpty()) {
+			log.debugf("No child questions found for the question: [%s,%s]", question.getRealm(), question.getCode());
+		}
+		for (QuestionQuestion questionQuestion : questionQuestions) {
+			log.debug("   [-] Found Child Question:  " + questionQuestion.getParentCode() + ":"
+					+ questionQuestion.getChildCode() + ". Weight: " + questionQuestion.getWeight());
+
+			String childCode = questionQuestion.getChildCode();
+			// the attributes of QUE_BASEENTITY_GRP depend on the target
+			if (Question.QUE_BASEENTITY_GRP.equals(childCode)) {
+				Question placeholder = new Question(childCode, childCode);
+				children.add(new AskTemplate.Link(questionQuestion, new AskTemplate(placeholder, false, Collections.emptyList())));
+				continue;
 			}
-		} else {
-			ask.setReadonly(question.getReadonly());
+
+			AskTemplate child = getAskTemplate(productCode, childCode);
+			// Do not include PRI_SUBMIT
+			if (Attribute.PRI_SUBMIT.equals(child.getQuestion().getAttributeCode())) {
+				continue;
+			}
+			children.add(new AskTemplate.Link(questionQuestion, child));
+		}
+
+		return new AskTemplate(question, true, children);
+	}
+
+	/**
+	 * Stamp an Ask tree from a template for a source and target,
+	 * leaving out children whose capability requirements are not met.
+	 *
+	 * @param template The template to stamp
+	 * @param productCode The product of the asks
+	 * @param source The source entity
+	 * @param target The target entity
+	 * @return The Ask
+	 */
+	private Ask stampAsk(AskTemplate template, String productCode, BaseEntity source, BaseEntity target, CapabilitySet capSet, ReqConfig requirementsConfig) {
+
+		if (template.isBaseEntityGroup())
+			return generateAskGroupUsingBaseEntity(target);
+
+		// init new parent ask
+		Ask ask = new Ask(template.getQuestion().clone(), source.getCode(), target.getCode(), 0.0);
+		ask.setRealm(productCode);
+
+		if (!template.isGroup()) {
+			ask.setReadonly(template.getQuestion().getReadonly());
+			return ask;
+		}
+
+		// groups always readonly
+		ask.setReadonly(true);
+		for (AskTemplate.Link link : template.getChildren()) {
+			QuestionQuestion questionQuestion = link.getQuestionQuestion();
+			if (!questionQuestion.requirementsMet(capSet, requirementsConfig)) { // For now all caps are needed. I'll make this more comprehensive later
+				continue;
+			}
+			Ask child = stampAsk(link.getTemplate(), productCode, source, target, capSet, requirementsConfig);
+
+			// set boolean fields
+			child.setMandatory(questionQuestion.getMandatory());
+			child.setDisabled(questionQuestion.getDisabled());
+			child.setHidden(questionQuestion.getHidden());
+			child.setReadonly(questionQuestion.getReadonly());
+			child.setWeight(questionQuestion.getWeight());
+
+			// override with QuestionQuestion icon if exists
+			if (questionQuestion.getIcon() != null) {
+				child.getQuestion().setIcon(questionQuestion.getIcon());
+			}
+			ask.add(child);
 		}
 
 		return ask;
@@ -842,6 +995,8 @@ public class QwandaUtils {
 
 	/**
 	 * Check if a baseentity satisfies a definitions uniqueness checks.
+	 * Each unique value is looked up in, and claimed for the last target
+	 * through, the {@link UniqueValueIndex}.
 	 * 
 	 * @param definition The definition to check against
 	 * @param answer     An incoming answer
@@ -856,8 +1011,12 @@ public class QwandaUtils {
 		String definitionCode = definition.getCode();
 		Set<EntityAttribute> uniques = beaUtils.getBaseEntityAttributesForBaseEntityWithAttributeCodePrefix(productCode, definitionCode, Prefix.UNQ_);
 		log.info("Found " + uniques.size() + " UNQ attributes");
+		if (uniques.isEmpty())
+			return false;
 
 		String prefix = beaUtils.getEntityAttribute(productCode, definitionCode, Attribute.PRI_PREFIX).getValueString();
+		String entityCode = targets.length > 0 ? targets[targets.length - 1].getCode() : null;
+		List<Runnable> releases = new ArrayList<>();
 
 		for (EntityAttribute entityAttribute : uniques) {
 
@@ -866,51 +1025,72 @@ public class QwandaUtils {
 					entityAttribute.getAttributeCode());
 
 			// skip if no value found
-			if (codes == null)
+			if (codes == null || codes.isEmpty())
 				continue;
 
-			SearchEntity searchEntity = new SearchEntity(SBE_COUNT_UNIQUE_PAIRS, "Count Unique Pairs")
-					.add(new Filter(PRI_CODE, Operator.STARTS_WITH, prefix.concat("_")))
-					.setPageStart(0)
-					.setPageSize(1);
+			List<String> values = new ArrayList<>(codes.size());
+			for (String code : codes)
+				values.add(getUniqueValue(code, answer, targets));
 
-			// ensure we are not counting any of our targets
-			for (BaseEntity target : targets) {
-				log.info("adding not equal " + target.getCode());
-				searchEntity.add(new Filter(PRI_CODE, Operator.NOT_EQUALS, target.getCode()));
-			}
-
-			for (String code : codes) {
-
-				String value = null;
-				if (answer != null && answer.getAttributeCode().equals(code)) {
-					value = answer.getValue();
-				}
-
-				// value has not yet been answered, not a duplicate
-				if (value == null) {
-					return false;
-				}
+			// value has not yet been answered, not a duplicate
+			String value = UniqueValueIndex.normalise(values);
+			if (value == null)
+				return false;
 
-				// clean it up if it is a code
-				if (value.contains("[") && value.contains("]"))
-					value = CommonUtils.cleanUpAttributeValue(value);
+			String uniqueCode = entityAttribute.getAttributeCode();
+			BiPredicate<String, String> holds = (code, held) -> held.equals(
+					UniqueValueIndex.normalise(getUniqueValues(productCode, code, codes)));
+			uniqueIndex.ensureBuilt(productCode, definitionCode, uniqueCode, prefix, codes);
+			String owner = uniqueIndex.claim(productCode, definitionCode, uniqueCode, value, entityCode, holds);
 
-				log.info("Adding unique filter: " + code + " like " + value);
-				searchEntity.add(new Filter(code, Operator.LIKE, "%" + value + "%"));
+			for (BaseEntity target : targets) {
+				if (target.getCode().equals(owner))
+					owner = null;
 			}
-
-			// set realm and count results
-			searchEntity.setRealm(userToken.getProductCode());
-			Long count = searchUtils.countBaseEntitys(searchEntity);
-			log.infof("Found %s entities", count);
-			if (count != 0) {
+			log.infof("Duplicate found: %s", owner != null);
+			if (owner != null) {
+				// the entity will not be saved, so give back what it claimed
+				releases.forEach(Runnable::run);
 				return true;
 			}
+			if (entityCode != null)
+				releases.add(() -> uniqueIndex.release(productCode, definitionCode, uniqueCode, value, entityCode, holds));
 		}
 		return false;
 	}
 
+	/**
+	 * Get the value of a unique attribute from the answer if it is for the
+	 * attribute, otherwise from the first target holding a value.
+	 */
+	private String getUniqueValue(String code, Answer answer, BaseEntity... targets) {
+		if (answer != null && answer.getAttributeCode().equals(code))
+			return answer.getValue();
+		for (BaseEntity target : targets) {
+			Optional<EntityAttribute> ea = target.findEntityAttribute(code);
+			if (ea.isPresent() && StringUtils.isNotBlank(ea.get().getAsLoopString()))
+				return ea.get().getAsLoopString();
+		}
+		return null;
+	}
+
+	/**
+	 * Get the saved values of a unique attribute combination for an entity.
+	 */
+	private List<String> getUniqueValues(String productCode, String baseEntityCode, List<String> codes) {
+		List<String> values = new ArrayList<>(codes.size());
+		for (String code : codes) {
+			EntityAttribute ea;
+			try {
+				ea = beaUtils.getEntityAttribute(productCode, baseEntityCode, code);
+			} catch (ItemNotFoundException e) {
+				ea = null;
+			}
+			values.add(ea != null ? ea.getAsLoopString() : null);
+		}
+		return values;
+	}
+
 	/**
 	 * Send a baseentity with a feedback message to be displayed.
 	 *
@@ -1,14 +1,21 @@
 package life.genny.qwandaq.utils;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.http.HttpResponse;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import javax.json.Json;
+import javax.json.JsonObject;
 import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbBuilder;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
 import javax.ws.rs.core.Response;
 
 import life.genny.qwandaq.entity.search.clause.ClauseContainer;
@@ -104,6 +111,97 @@ public class SearchUtils {
 		}
 	}
 
+	/**
+	 * Call the Fyodor API to stream the {@link BaseEntity} results
+	 * of a {@link SearchEntity}. Each entity is handed to the consumer
+	 * as soon as it is read, so the full page is never held in memory.
+	 *
+	 * @param searchEntity A {@link SearchEntity} object used to determine the
+	 *                     results
+	 * @param consumer     The consumer to receive each entity
+	 * @return The page details without items, or null on failure
+	 */
+	public Page streamBaseEntitys(SearchEntity searchEntity, Consumer<BaseEntity> consumer) {
+
+		// build uri, serialize payload and open stream from fyodor
+		String uri = GennySettings.fyodorServiceUrl() + "/api/search/stream";
+		String json = jsonb.toJson(searchEntity);
+		HttpResponse<InputStream> response = HttpUtils.postStream(uri, json, userToken);
+
+		if (response == null) {
+			log.error("Null response from " + uri);
+			return null;
+		}
+
+		try (InputStream body = response.body()) {
+			Integer status = response.statusCode();
+
+			if (Response.Status.Family.familyOf(status) != Response.Status.Family.SUCCESSFUL) {
+				log.errorf("Bad response status %s from %s", status, uri);
+				return null;
+			}
+
+			return readPage(body, consumer);
+		} catch (Exception e) {
+			log.error(e.getMessage());
+			e.printStackTrace();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Read a {@link Page} from a stream, handing each item to a consumer
+	 * instead of collecting them.
+	 *
+	 * @param stream   The stream to read
+	 * @param consumer The consumer to receive each entity
+	 * @return The page details without items
+	 */
+	public static Page readPage(InputStream stream, Consumer<BaseEntity> consumer) throws IOException {
+
+		Page page = new Page();
+
+		try (JsonParser parser = Json.createParser(stream)) {
+			if (!parser.hasNext() || parser.next() != Event.START_OBJECT)
+				throw new IOException("Expected a json object");
+
+			while (parser.hasNext()) {
+				Event event = parser.next();
+				if (event == Event.END_OBJECT)
+					break;
+
+				String key = parser.getString();
+				event = parser.next();
+
+				if ("items".equals(key) && event == Event.START_ARRAY) {
+					while (parser.next() == Event.START_OBJECT) {
+						JsonObject item = parser.getObject();
+						consumer.accept(jsonb.fromJson(item.toString(), BaseEntity.class));
+					}
+					continue;
+				}
+				if (event != Event.VALUE_NUMBER) {
+					if (event == Event.START_OBJECT)
+						parser.skipObject();
+					else if (event == Event.START_ARRAY)
+						parser.skipArray();
+					continue;
+				}
+
+				switch (key) {
+					case "total" -> page.setTotal(parser.getLong());
+					case "pageNumber" -> page.setPageNumber(parser.getInt());
+					case "pageSize" -> page.setPageSize(parser.getInt());
+					case "pageStart" -> page.setPageStart(parser.getLong());
+					default -> { }
+				}
+			}
+		}
+
+		return page;
+	}
+
 	/**
 	 * Call the Fyodor API to fetch a count of {@link BaseEntity}
 	 * objects using a {@link SearchEntity} object.
@@ -142,6 +240,42 @@ public class SearchUtils {
 		return null;
 	}
 
+	/**
+	 * Check if any BaseEntity matches a SearchEntity, without counting every match.
+	 *
+	 * @param searchEntity A {@link SearchEntity} object used to determine the results
+	 * @return True if a match exists, or null on failure
+	 */
+	public Boolean existsBaseEntity(SearchEntity searchEntity) {
+
+		// build uri, serialize payload and fetch data from fyodor
+		String uri = GennySettings.fyodorServiceUrl() + "/api/search/exists";
+		String json = jsonb.toJson(searchEntity);
+		HttpResponse<String> response = HttpUtils.post(uri, json, userToken);
+
+		if (response == null) {
+			log.error("Null response from " + uri);
+			return null;
+		}
+
+		Integer status = response.statusCode();
+
+		if (Response.Status.Family.familyOf(status) != Response.Status.Family.SUCCESSFUL) {
+			log.error("Bad response status " + status + " from " + uri);
+		}
+
+		try {
+			// deserialise and return result
+			Boolean result = jsonb.fromJson(response.body(), Boolean.class);
+			return result;
+		} catch (Exception e) {
+			log.error(e.getMessage());
+			e.printStackTrace();
+		}
+
+		return null;
+	}
+
 	/**
 	 * Perform a table like search in Genny using a {@link SearchEntity} code.
 	 * The respective {@link SearchEntity} will be fetched from the cache befor
@@ -0,0 +1,34 @@
+package life.genny.test.qwandaq;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import life.genny.qwandaq.Question;
+import life.genny.qwandaq.attribute.Attribute;
+import life.genny.qwandaq.datatype.DataType;
+
+public class QuestionTest {
+
+    @Test
+    public void cloneKeepsOrderingAndAttribute() {
+        Attribute name = new Attribute(Attribute.PRI_NAME, "Name", new DataType(String.class));
+        Question question = new Question("QUE_NAME", "Name", name);
+        question.setRealm("alpha");
+        question.setIndex(3);
+        question.setMandatory(true);
+
+        Question clone = question.clone();
+
+        assertNotSame(question, clone);
+        // asks stamped from a template are ordered by the index of their question
+        assertEquals(3, clone.getIndex());
+        assertEquals("QUE_NAME", clone.getCode());
+        assertEquals("alpha", clone.getRealm());
+        assertTrue(clone.getMandatory());
+        assertSame(name, clone.getAttribute());
+    }
+}
@@ -1,6 +1,12 @@
 package life.genny.test.qwandaq.json;
 
 import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbBuilder;
@@ -14,6 +20,8 @@ import life.genny.qwandaq.entity.search.trait.Filter;
 import life.genny.qwandaq.entity.search.trait.Operator;
 import life.genny.qwandaq.entity.search.trait.Ord;
 import life.genny.qwandaq.entity.search.trait.Sort;
+import life.genny.qwandaq.models.Page;
+import life.genny.qwandaq.utils.SearchUtils;
 
 public class JsonTest {
 
@@ -42,4 +50,23 @@ public class JsonTest {
 		searchEntity.setRealm("genny");
 		assert(searchEntity.equals(serializeDeserialize(searchEntity, BaseEntity.class)));
 	}
+
+	@Test
+	public void streamPageTest() throws Exception
+	{
+		Page page = new Page();
+		page.setTotal(2L);
+		page.setPageSize(20);
+		page.setPageStart(0L);
+		page.setPageNumber(0);
+		page.setItems(List.of(new BaseEntity("TST_ONE", "One"), new BaseEntity("TST_TWO", "Two")));
+
+		List<BaseEntity> items = new ArrayList<>();
+		byte[] json = jsonb.toJson(page).getBytes(StandardCharsets.UTF_8);
+		Page result = SearchUtils.readPage(new ByteArrayInputStream(json), items::add);
+
+		assertEquals(page.getTotal(), result.getTotal());
+		assertEquals(page.getPageSize(), result.getPageSize());
+		assertEquals(page.getItems(), items);
+	}
 }
@@ -0,0 +1,92 @@
+package life.genny.test.qwandaq.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import life.genny.qwandaq.attribute.Attribute;
+import life.genny.qwandaq.attribute.EntityAttribute;
+import life.genny.qwandaq.datatype.DataType;
+import life.genny.qwandaq.entity.BaseEntity;
+import life.genny.qwandaq.managers.EntityMemo;
+import life.genny.qwandaq.managers.EntityMemoStore;
+
+public class EntityMemoTest {
+
+    @Spy
+    EntityMemoStore store = new EntityMemoStore();
+
+    @Spy
+    @InjectMocks
+    EntityMemo memo;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        // active without a request context
+        Mockito.doReturn(true).when(memo).isActive();
+    }
+
+    @Test
+    public void mutatedEntitiesDoNotLeakIntoLaterReads() {
+        AtomicInteger loads = new AtomicInteger();
+        String key = EntityMemo.key(EntityMemo.BASEENTITY, "alpha", "PER_A", true);
+
+        BaseEntity first = memo.get(key, () -> {
+            loads.incrementAndGet();
+            return entity();
+        }, EntityMemo::copy);
+        first.setName("Changed");
+        first.getBaseEntityAttributesMap().get("PRI_IS_ACTIVE").setValue(false);
+
+        BaseEntity second = memo.get(key, () -> {
+            loads.incrementAndGet();
+            return entity();
+        }, EntityMemo::copy);
+
+        assertEquals(1, loads.get());
+        assertNotSame(first, second);
+        assertEquals("Alpha", second.getName());
+        assertEquals(7L, second.getId());
+        assertTrue(second.getBaseEntityAttributesMap().get("PRI_IS_ACTIVE").getValueBoolean());
+    }
+
+    @Test
+    public void mutatedEntityAttributesDoNotLeakIntoLaterReads() {
+        String key = EntityMemo.key(EntityMemo.ENTITY_ATTRIBUTE, "alpha", "PER_A", "PRI_IS_ACTIVE");
+        EntityAttribute loaded = entity().getBaseEntityAttributesMap().get("PRI_IS_ACTIVE");
+
+        EntityAttribute first = memo.get(key, () -> loaded, EntityMemo::copy);
+        first.setValue(false);
+        EntityAttribute second = memo.get(key, () -> null, EntityMemo::copy);
+
+        assertTrue(second.getValueBoolean());
+        assertTrue(loaded.getValueBoolean());
+        assertEquals("PRI_IS_ACTIVE", second.getAttribute().getCode());
+
+        String setKey = EntityMemo.key(EntityMemo.ENTITY_ATTRIBUTE, "alpha", "PER_A", "*");
+        Set<EntityAttribute> all = memo.get(setKey, () -> Set.of(loaded), EntityMemo::copy);
+        all.forEach(ea -> ea.setValue(false));
+        Set<EntityAttribute> again = memo.get(setKey, () -> null, EntityMemo::copy);
+        assertTrue(again.iterator().next().getValueBoolean());
+    }
+
+    private static BaseEntity entity() {
+        BaseEntity entity = new BaseEntity("PER_A", "Alpha");
+        entity.setId(7L);
+        Attribute active = new Attribute("PRI_IS_ACTIVE", "Active", new DataType(Boolean.class));
+        EntityAttribute ea = new EntityAttribute(entity, active, 1.0, true);
+        entity.addAttribute(ea);
+        return entity;
+    }
+}
@@ -0,0 +1,186 @@
+package life.genny.test.qwandaq.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import life.genny.qwandaq.attribute.EntityAttribute;
+import life.genny.qwandaq.constants.ECacheRef;
+import life.genny.qwandaq.managers.CacheManager;
+import life.genny.qwandaq.managers.UniqueValueIndex;
+import life.genny.qwandaq.serialization.entityattribute.EntityAttributeKey;
+
+public class UniqueValueIndexTest {
+
+    private static final String PRODUCT = "alpha";
+    private static final String DEF = "DEF_PERSON";
+    private static final String UNQ = "UNQ_PRI_EMAIL";
+
+    private Map<String, String> entries;
+    private Map<String, String> saved;
+    private Map<String, String> emails;
+    private Map<String, Long> times;
+    private CacheManager cm;
+
+    // an entity holds a value once its save has been recorded here
+    private final BiPredicate<String, String> holds = (code, value) -> value.equals(saved.get(code));
+    // or once it is in the entity attribute cache
+    private final BiPredicate<String, String> holdsEmail = (code, value) -> value.equals(emails.get(code));
+
+    @BeforeEach
+    public void setup() {
+        entries = new HashMap<>();
+        saved = new HashMap<>();
+        emails = new HashMap<>();
+        times = new HashMap<>();
+        cm = Mockito.mock(CacheManager.class);
+        Mockito.when(cm.readCache(Mockito.eq(PRODUCT), anyString()))
+                .thenAnswer(i -> entries.get(i.getArgument(1)));
+        Mockito.when(cm.writeCache(Mockito.eq(PRODUCT), anyString(), anyString()))
+                .thenAnswer(i -> {
+                    entries.put(i.getArgument(1), i.getArgument(2));
+                    return i.getArgument(2);
+                });
+        Mockito.when(cm.writeCacheIfAbsent(Mockito.eq(PRODUCT), anyString(), anyString()))
+                .thenAnswer(i -> entries.putIfAbsent(i.getArgument(1), i.getArgument(2)));
+        Mockito.when(cm.removeEntryIfEquals(Mockito.eq(PRODUCT), anyString(), anyString()))
+                .thenAnswer(i -> entries.remove(i.getArgument(1), i.getArgument(2)));
+
+        // the saved emails of each entity, as the entity attribute cache
+        Mockito.when(cm.getPersistableEntity(Mockito.eq(ECacheRef.BASEENTITY_ATTRIBUTE), any()))
+                .thenAnswer(i -> email(((EntityAttributeKey) i.getArgument(1)).getBaseEntityCode()));
+        Mockito.when(cm.getEntityAttributesForBaseEntitiesWithPrefix(Mockito.eq(PRODUCT), Mockito.eq("PER_"), any()))
+                .thenAnswer(i -> {
+                    Set<EntityAttribute> found = new HashSet<>();
+                    emails.keySet().forEach(code -> found.add(email(code)));
+                    return found;
+                });
+        Mockito.when(cm.getEntityLastUpdatedAt(anyString(), anyString()))
+                .thenAnswer(i -> times.get(i.getArgument(0) + ":" + i.getArgument(1)));
+        Mockito.doAnswer(i -> times.put(i.getArgument(0) + ":" + i.getArgument(1), i.getArgument(2)))
+                .when(cm).updateEntityLastUpdatedAt(anyString(), anyString(), anyLong());
+    }
+
+    private EntityAttribute email(String code) {
+        if (!emails.containsKey(code))
+            return null;
+        EntityAttribute ea = new EntityAttribute();
+        ea.setBaseEntityCode(code);
+        ea.setAttributeCode("PRI_EMAIL");
+        ea.setValueString(emails.get(code));
+        return ea;
+    }
+
+    @Test
+    public void normalisesValues() {
+        assertEquals("a@b.com|perth", UniqueValueIndex.normalise(Arrays.asList(" A@B.com ", "[\"PERTH\"]")));
+        assertNull(UniqueValueIndex.normalise(Arrays.asList("a@b.com", " ")));
+        assertNull(UniqueValueIndex.normalise(Arrays.asList("a@b.com", null)));
+    }
+
+    @Test
+    public void claimsFreeValuesOnce() {
+        UniqueValueIndex index = new UniqueValueIndex(cm, 10L, 0L);
+
+        assertNull(index.claim(PRODUCT, DEF, UNQ, "a@b.com", "PER_A", holds));
+        assertNull(index.claim(PRODUCT, DEF, UNQ, "a@b.com", "PER_A", holds));
+        // unsaved, but still within the grace period
+        assertEquals("PER_A", index.claim(PRODUCT, DEF, UNQ, "a@b.com", "PER_B", holds));
+        assertEquals("PER_A", index.claim(PRODUCT, DEF, UNQ, "a@b.com", null, holds));
+    }
+
+    @Test
+    public void reclaimsStaleValues() {
+        UniqueValueIndex index = new UniqueValueIndex(cm, 0L, 0L);
+
+        // saved values are honoured regardless of age
+        saved.put("PER_A", "a@b.com");
+        assertNull(index.claim(PRODUCT, DEF, UNQ, "a@b.com", "PER_A", holds));
+        assertEquals("PER_A", index.claim(PRODUCT, DEF, UNQ, "a@b.com", "PER_B", holds));
+
+        // once PER_A no longer holds the value, the entry is stale
+        saved.put("PER_A", "c@d.com");
+        assertNull(index.claim(PRODUCT, DEF, UNQ, "a@b.com", "PER_B", holds));
+        assertEquals("PER_B@", entries.get(UniqueValueIndex.key(DEF, UNQ, "a@b.com")).substring(0, 6));
+    }
+
+    @Test
+    public void releasesChangedAndFailedClaims() {
+        UniqueValueIndex index = new UniqueValueIndex(cm, 10L, 0L);
+
+        // changing an unsaved value gives back the old one
+        assertNull(index.claim(PRODUCT, DEF, UNQ, "a@b.com", "PER_A", holds));
+        assertNull(index.claim(PRODUCT, DEF, UNQ, "x@y.com", "PER_A", holds));
+        assertNull(index.claim(PRODUCT, DEF, UNQ, "a@b.com", "PER_B", holds));
+
+        // a claim is only released by its owner, and never while saved
+        index.release(PRODUCT, DEF, UNQ, "a@b.com", "PER_A", holds);
+        assertEquals("PER_B", index.claim(PRODUCT, DEF, UNQ, "a@b.com", "PER_C", holds));
+        saved.put("PER_B", "a@b.com");
+        index.release(PRODUCT, DEF, UNQ, "a@b.com", "PER_B", holds);
+        assertEquals("PER_B", index.claim(PRODUCT, DEF, UNQ, "a@b.com", "PER_C", holds));
+
+        saved.remove("PER_B");
+        index.release(PRODUCT, DEF, UNQ, "a@b.com", "PER_B", holds);
+        assertNull(index.claim(PRODUCT, DEF, UNQ, "a@b.com", "PER_C", holds));
+    }
+
+    @Test
+    public void recordsSavesOutsideTheAnswerFlow() {
+        UniqueValueIndex index = new UniqueValueIndex(cm, 10L, 0L);
+        index.ensureBuilt(PRODUCT, DEF, UNQ, "PER", List.of("PRI_EMAIL"));
+
+        // saved by an import or an api write rather than an answer
+        emails.put("PER_A", "a@b.com");
+        index.onSaved(PRODUCT, "PER_A", "PRI_EMAIL");
+        assertEquals("PER_A", index.claim(PRODUCT, DEF, UNQ, "a@b.com", "PER_B", holdsEmail));
+
+        // a changed value is recorded and the old one given back
+        emails.put("PER_A", "c@d.com");
+        index.onSaved(PRODUCT, "PER_A", "PRI_EMAIL");
+        assertNull(entries.get(UniqueValueIndex.key(DEF, UNQ, "a@b.com")));
+        assertEquals("PER_A", index.claim(PRODUCT, DEF, UNQ, "c@d.com", "PER_B", holdsEmail));
+
+        // other attributes and prefixes are not indexed
+        index.onSaved(PRODUCT, "PER_A", "PRI_NAME");
+        index.onSaved(PRODUCT, "CPY_A", "PRI_EMAIL");
+
+        // a removed value is given back along with the entity's claim
+        emails.remove("PER_A");
+        index.onSaved(PRODUCT, "PER_A", null);
+        assertFalse(entries.containsValue("c@d.com"));
+        assertFalse(entries.keySet().stream().anyMatch(key -> key.endsWith("@PER_A")));
+    }
+
+    @Test
+    public void rebuildsAfterInvalidation() throws Exception {
+        UniqueValueIndex index = new UniqueValueIndex(cm, 10L, 0L);
+        emails.put("PER_A", "a@b.com");
+        index.ensureBuilt(PRODUCT, DEF, UNQ, "PER", List.of("PRI_EMAIL"));
+        index.ensureBuilt(PRODUCT, DEF, UNQ, "PER", List.of("PRI_EMAIL"));
+        Mockito.verify(cm, Mockito.times(1)).getEntityAttributesForBaseEntitiesWithPrefix(Mockito.eq(PRODUCT), Mockito.eq("PER_"), any());
+
+        // loaded straight into the cache on another instance
+        Thread.sleep(2);
+        emails.put("PER_B", "x@y.com");
+        new UniqueValueIndex(cm, 10L, 0L).invalidate(PRODUCT);
+        index.ensureBuilt(PRODUCT, DEF, UNQ, "PER", List.of("PRI_EMAIL"));
+        Mockito.verify(cm, Mockito.times(2)).getEntityAttributesForBaseEntitiesWithPrefix(Mockito.eq(PRODUCT), Mockito.eq("PER_"), any());
+        assertEquals("PER_B", index.claim(PRODUCT, DEF, UNQ, "x@y.com", "PER_C", holdsEmail));
+    }
+}
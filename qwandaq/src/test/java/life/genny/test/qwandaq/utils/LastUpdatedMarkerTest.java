@@ -0,0 +1,57 @@
+package life.genny.test.qwandaq.utils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import life.genny.qwandaq.managers.CacheManager;
+import life.genny.qwandaq.utils.LastUpdatedMarker;
+
+public class LastUpdatedMarkerTest {
+
+    private final Map<String, Long> times = new HashMap<>();
+
+    private CacheManager sharedCache() {
+        CacheManager cm = Mockito.mock(CacheManager.class);
+        Mockito.when(cm.getEntityLastUpdatedAt(anyString(), anyString()))
+                .thenAnswer(i -> times.get(i.getArgument(0) + ":" + i.getArgument(1)));
+        Mockito.doAnswer(i -> times.put(i.getArgument(0) + ":" + i.getArgument(1), i.getArgument(2)))
+                .when(cm).updateEntityLastUpdatedAt(anyString(), anyString(), anyLong());
+        return cm;
+    }
+
+    @Test
+    public void seesUpdatesFromOtherInstances() throws Exception {
+        CacheManager cm = sharedCache();
+        LastUpdatedMarker local = new LastUpdatedMarker(cm, "attribute", 0);
+        LastUpdatedMarker other = new LastUpdatedMarker(cm, "attribute", 0);
+
+        assertFalse(local.changed("alpha"));
+        assertFalse(local.changed("alpha"));
+
+        Thread.sleep(2);
+        other.touch("alpha");
+        assertTrue(local.changed("alpha"));
+        assertFalse(local.changed("alpha"));
+        assertFalse(local.changed("beta"));
+    }
+
+    @Test
+    public void readsAtMostOncePerInterval() throws Exception {
+        CacheManager cm = sharedCache();
+        LastUpdatedMarker local = new LastUpdatedMarker(cm, "definition", 60000);
+
+        assertFalse(local.changed("alpha"));
+        Thread.sleep(2);
+        new LastUpdatedMarker(cm, "definition", 60000).touch("alpha");
+        assertFalse(local.changed("alpha"));
+        Mockito.verify(cm, Mockito.times(1)).getEntityLastUpdatedAt("definition", "alpha");
+    }
+}
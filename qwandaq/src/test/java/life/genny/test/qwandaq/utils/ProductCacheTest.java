@@ -0,0 +1,74 @@
+package life.genny.test.qwandaq.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import life.genny.qwandaq.utils.ProductCache;
+
+public class ProductCacheTest {
+
+    @Test
+    public void evictsLeastRecentlyUsedPerProduct() {
+        ProductCache<String> cache = new ProductCache<>(2, 60000);
+        cache.put("alpha", "QUE_A", "a");
+        cache.put("alpha", "QUE_B", "b");
+        cache.put("beta", "QUE_A", "other");
+
+        // touch A so B is the eldest
+        assertEquals("a", cache.get("alpha", "QUE_A"));
+        cache.put("alpha", "QUE_C", "c");
+
+        assertNull(cache.get("alpha", "QUE_B"));
+        assertEquals("c", cache.get("alpha", "QUE_C"));
+        assertEquals("other", cache.get("beta", "QUE_A"));
+        assertEquals(2, cache.size("alpha"));
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void expiresAndEvictsByKey() {
+        ProductCache<String> expired = new ProductCache<>(10, -1);
+        expired.put("alpha", "QUE_A", "a");
+        assertNull(expired.get("alpha", "QUE_A"));
+        assertEquals(0, expired.size("alpha"));
+
+        ProductCache<String> cache = new ProductCache<>(10, 60000);
+        cache.put("alpha", "QUE_A|QUE_B", "ab");
+        cache.put("alpha", "QUE_B|QUE_C", "bc");
+        cache.put("alpha", "QUE_C|QUE_D", "cd");
+        cache.evictIf("alpha", key -> key.startsWith("QUE_B|") || key.endsWith("|QUE_B"));
+
+        assertEquals(1, cache.size("alpha"));
+        assertEquals("cd", cache.get("alpha", "QUE_C|QUE_D"));
+
+        cache.put("beta", "QUE_A", "cd");
+        cache.evictValuesIf("alpha", value -> value.contains("d"));
+        assertEquals(0, cache.size("alpha"));
+        assertEquals(1, cache.size("beta"));
+    }
+
+    @Test
+    public void snapshotsUnexpiredValues() {
+        ProductCache<String> cache = new ProductCache<>(10, 60000);
+        cache.put("alpha", "QUE_A", "a");
+        cache.put("alpha", "QUE_B", "b");
+        cache.put("beta", "QUE_C", "c");
+
+        Map<String, String> values = cache.values("alpha");
+        assertEquals(Map.of("QUE_A", "a", "QUE_B", "b"), values);
+        values.clear();
+        assertEquals(2, cache.size("alpha"));
+
+        ProductCache<String> expired = new ProductCache<>(10, -1);
+        expired.put("alpha", "QUE_A", "a");
+        assertTrue(expired.values("alpha").isEmpty());
+        assertTrue(cache.values("gamma").isEmpty());
+    }
+}
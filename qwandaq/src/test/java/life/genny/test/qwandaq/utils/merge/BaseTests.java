@@ -37,4 +37,22 @@ public class BaseTests extends BaseTestCase {
         
 
     }
+
+    @Test
+    public void mergeTest() {
+        new JUnitTester<Map<String, Object>, Object>()
+        .setTest((input) -> {
+            return Expected(mergeUtils.merge("Hi {{NAME}}, [[USER]] has [[MISSING.PRI_CODE]]{{NONE}}!", input.input));
+        })
+
+        .createTest("Merge test")
+        .setInput(new MapBuilder<String,Object>()
+                .add("USER", "PER_TEST")
+                .add("NAME", "Test")
+                .build())
+        .setExpected("Hi Test, PER_TEST has MISSING.PRI_CODE!")
+        .build()
+
+        .assertAll();
+    }
 }
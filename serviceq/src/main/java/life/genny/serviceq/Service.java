@@ -6,12 +6,18 @@ import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbBuilder;
 
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.context.ManagedExecutor;
 
 import org.jboss.logging.Logger;
 
 import io.quarkus.arc.Arc;
+import life.genny.qwandaq.constants.ECacheRef;
 import life.genny.qwandaq.data.GennyCache;
 import life.genny.qwandaq.models.ServiceToken;
 import life.genny.qwandaq.models.UserToken;
@@ -21,7 +27,10 @@ import life.genny.qwandaq.utils.DefUtils;
 import life.genny.qwandaq.utils.KafkaUtils;
 import life.genny.qwandaq.utils.KeycloakUtils;
 import life.genny.qwandaq.utils.QwandaUtils;
+import life.genny.serviceq.intf.CacheWarmup;
+import life.genny.serviceq.intf.GennyExecutors;
 import life.genny.serviceq.intf.KafkaBean;
+import life.genny.serviceq.intf.StartupGraph;
 import life.genny.serviceq.live.data.InternalProducer;
 
 @ApplicationScoped
@@ -52,6 +61,12 @@ public class Service {
 	@ConfigProperty(name = "genny.client.secret")
 	String secret;
 
+	@ConfigProperty(name = "genny.startup.step.timeout-seconds", defaultValue = "60")
+	Long stepTimeoutSeconds;
+
+	@ConfigProperty(name = "genny.warmup.timeout-seconds", defaultValue = "120")
+	Long warmupTimeoutSeconds;
+
 	@Inject
 	InternalProducer producer;
 
@@ -76,6 +91,12 @@ public class Service {
 	@Inject
 	ServiceToken serviceToken;
 
+	@Inject
+	GennyExecutors executors;
+
+	@Inject
+	CacheWarmup cacheWarmup;
+
 	private Boolean initialised = false;
 
 	public Service() {
@@ -130,6 +151,8 @@ public class Service {
 	 */
 	public void initCache() {
 		cm.init(cache);
+		// connect now rather than on the first request
+		cache.getRemoteCacheForEntity(ECacheRef.BASEENTITY);
 	}
 
 	/**
@@ -139,6 +162,34 @@ public class Service {
 		KafkaUtils.init(kafkaBean);
 	}
 
+	/**
+	 * Load the hot definitional data of each product into the local caches.
+	 */
+	public void warmCache() {
+		cacheWarmup.warm(getProductCodes());
+	}
+
+	/**
+	 * Warm the caches, waiting at most the warm-up timeout. A warm-up that
+	 * fails or runs over does not fail startup, since anything it misses is
+	 * fetched on demand, and one that runs over finishes in the background.
+	 */
+	void warmCacheWithinTimeout() {
+		ManagedExecutor executor = executors.newManagedExecutor("genny-warmup", 1);
+		CompletableFuture<Void> warmup = executor.runAsync(this::warmCache);
+		// lets the warm-up finish without holding the executor open
+		executor.shutdown();
+		try {
+			warmup.get(warmupTimeoutSeconds, TimeUnit.SECONDS);
+		} catch (TimeoutException e) {
+			log.warn("[@] Cache warm-up still running after " + warmupTimeoutSeconds + "s, continuing startup without it");
+		} catch (ExecutionException e) {
+			log.warn("[@] Cache warm-up failed: " + e.getCause().getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	/**
 	 * log the service confiduration details.
 	 */
@@ -163,6 +214,9 @@ public class Service {
 
 	/**
 	 * Perform a full initialization of the service.
+	 * The token, cache and kafka do not depend on each other,
+	 * so they are initialised concurrently. The cache warm-up runs
+	 * once they are ready, on its own non-fatal timeout.
 	 */
 	public void fullServiceInit(Boolean hasTopology) {
 		if (initialised) {
@@ -172,9 +226,17 @@ public class Service {
 		// log our service config
 		showConfiguration();
 		// init all
-		initToken();
-		initCache();
-		initKafka();
+		ManagedExecutor executor = executors.newManagedExecutor("genny-startup", 3);
+		try {
+			new StartupGraph()
+				.step("token", this::initToken)
+				.step("cache", this::initCache)
+				.step("kafka", this::initKafka)
+				.run(executor, stepTimeoutSeconds * 1000L);
+		} finally {
+			executor.shutdown();
+		}
+		warmCacheWithinTimeout();
 
 		initialised = true;
 		log.info("[@] Service Initialised!");
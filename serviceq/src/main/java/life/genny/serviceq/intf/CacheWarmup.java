@@ -0,0 +1,78 @@
+package life.genny.serviceq.intf;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import life.genny.qwandaq.utils.AttributeUtils;
+import life.genny.qwandaq.utils.DefUtils;
+import life.genny.qwandaq.utils.QwandaUtils;
+
+/**
+ * Loads the definitional data nearly every request needs (attributes,
+ * definitions and question groups) into the local caches during startup,
+ * so the first requests after a deploy are not the ones paying for it.
+ *
+ * Each kind of data is fetched per product with bulk queries. A kind of
+ * data failing to load for a product is logged and skipped, without
+ * skipping the others, since anything missed is still fetched on demand.
+ **/
+@ApplicationScoped
+public class CacheWarmup {
+
+	static final Logger log = Logger.getLogger(CacheWarmup.class);
+
+	@ConfigProperty(name = "genny.warmup.enabled", defaultValue = "true")
+	Boolean enabled;
+
+	@Inject
+	AttributeUtils attributeUtils;
+
+	@Inject
+	DefUtils defUtils;
+
+	@Inject
+	QwandaUtils qwandaUtils;
+
+	/**
+	 * Warm the caches for each product.
+	 *
+	 * @param productCodes The products to load
+	 **/
+	public void warm(String[] productCodes) {
+
+		if (!enabled) {
+			log.info("[@] Cache warm-up disabled");
+			return;
+		}
+
+		long start = System.currentTimeMillis();
+		int attributes = 0;
+		int definitions = 0;
+		int questionGroups = 0;
+
+		for (String productCode : productCodes) {
+			try {
+				attributes += attributeUtils.warmAttributes(productCode);
+			} catch (Exception e) {
+				log.warn("Attribute warm-up failed for product " + productCode + ": " + e.getMessage());
+			}
+			try {
+				definitions += defUtils.warmDefinitions(productCode);
+			} catch (Exception e) {
+				log.warn("Definition warm-up failed for product " + productCode + ": " + e.getMessage());
+			}
+			try {
+				questionGroups += qwandaUtils.warmAskTemplates(productCode);
+			} catch (Exception e) {
+				log.warn("Question group warm-up failed for product " + productCode + ": " + e.getMessage());
+			}
+		}
+
+		log.info("[@] Cache warm-up loaded " + attributes + " attributes, " + definitions + " definitions and "
+				+ questionGroups + " question groups for " + productCodes.length + " products in "
+				+ (System.currentTimeMillis() - start) + "ms");
+	}
+}
@@ -0,0 +1,105 @@
+package life.genny.serviceq.intf;
+
+import io.smallrye.context.SmallRyeManagedExecutor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.jboss.logging.Logger;
+
+/**
+ * Creates the executors used for blocking work (consumers, fan-out etc).
+ *
+ * In VIRTUAL mode every task runs on its own virtual thread, allowing
+ * thousands of blocking operations in flight without large platform
+ * thread pools. Virtual threads require a Java 21+ runtime, otherwise
+ * a fixed pool of platform threads is used.
+ **/
+@ApplicationScoped
+public class GennyExecutors {
+
+	static final Logger log = Logger.getLogger(GennyExecutors.class);
+
+	public static final String PLATFORM = "PLATFORM";
+	public static final String VIRTUAL = "VIRTUAL";
+
+	@ConfigProperty(name = "genny.executor.mode", defaultValue = PLATFORM)
+	String mode;
+
+	/**
+	 * Create an executor for blocking tasks.
+	 *
+	 * @param name    The prefix used for platform thread names
+	 * @param threads The number of platform threads, ignored in VIRTUAL mode
+	 * @return The executor
+	 **/
+	public ExecutorService newExecutor(String name, int threads) {
+
+		if (VIRTUAL.equalsIgnoreCase(mode)) {
+			ExecutorService executor = newVirtualThreadExecutor();
+			if (executor != null) {
+				log.info("Using virtual threads for " + name);
+				return executor;
+			}
+			log.warn("Virtual threads are not supported by this runtime, using " + threads + " platform threads for " + name);
+		}
+
+		return Executors.newFixedThreadPool(Math.max(1, threads), new NamedThreadFactory(name));
+	}
+
+	/**
+	 * Create a managed executor for blocking tasks, propagating
+	 * the request context of the submitting thread.
+	 *
+	 * @param name    The prefix used for platform thread names
+	 * @param threads The number of platform threads, ignored in VIRTUAL mode
+	 * @return The managed executor
+	 **/
+	public ManagedExecutor newManagedExecutor(String name, int threads) {
+		return SmallRyeManagedExecutor.builder()
+			.withExecutorService(newExecutor(name, threads))
+			.build();
+	}
+
+	/**
+	 * Create a virtual thread per task executor if the runtime supports it.
+	 *
+	 * @return The executor, or null if unsupported
+	 **/
+	static ExecutorService newVirtualThreadExecutor() {
+		try {
+			// looked up reflectively as we still compile against Java 17
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Names daemon platform threads with a prefix.
+	 **/
+	static class NamedThreadFactory implements ThreadFactory {
+
+		private final String name;
+		private final AtomicInteger count = new AtomicInteger();
+
+		NamedThreadFactory(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
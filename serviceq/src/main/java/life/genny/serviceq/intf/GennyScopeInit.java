@@ -1,6 +1,7 @@
 package life.genny.serviceq.intf;
 
 import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
@@ -69,9 +70,17 @@ public class GennyScopeInit {
 	}
 
 	/**
-	 * Destroy the UserToken using the request context.
+	 * Release the request context from the current thread.
+	 *
+	 * The context is deactivated rather than terminated, as work submitted to
+	 * a managed executor may still be using the propagated UserToken on
+	 * another (platform or virtual) thread. The context is then no longer
+	 * reachable from this thread, so a pooled thread never sees the 
+	 * UserToken of a previous message.
 	 **/
 	public void destroy() {
-		Arc.container().requestContext().activate();
+		ManagedContext context = Arc.container().requestContext();
+		if (context.isActive())
+			context.deactivate();
 	}
 }
@@ -0,0 +1,239 @@
+package life.genny.serviceq.intf;
+
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.json.JsonObject;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.jboss.logging.Logger;
+
+import life.genny.qwandaq.models.GennyToken;
+
+/**
+ * Dispatches consumed Kafka messages to worker threads.
+ *
+ * Messages sharing a key (the token sub or jti) are processed in the order
+ * they were consumed, while messages for different keys run in parallel.
+ * The number of messages in flight is bounded, and the next message is only
+ * admitted once a slot is free. Each message is acked when its handler
+ * completes, so the throttled commit strategy never commits past an
+ * unprocessed offset.
+ *
+ * When keyed execution is disabled, each topic is processed in order on its
+ * own, as a plain blocking consumer per channel would, so one busy channel
+ * does not hold up the others.
+ **/
+@ApplicationScoped
+public class KeyedMessageExecutor {
+
+	static final Logger log = Logger.getLogger(KeyedMessageExecutor.class);
+
+	static Jsonb jsonb = JsonbBuilder.create();
+
+	public static final String KEY_SUB = "sub";
+	public static final String KEY_JTI = "jti";
+
+	// used for messages without a topic
+	private static final String SERIAL_KEY = "serial";
+
+	@ConfigProperty(name = "genny.consumer.keyed.enabled", defaultValue = "false")
+	Boolean enabled;
+
+	@ConfigProperty(name = "genny.consumer.keyed.key", defaultValue = KEY_SUB)
+	String keyClaim;
+
+	@ConfigProperty(name = "genny.consumer.keyed.max-in-flight", defaultValue = "64")
+	Integer maxInFlight;
+
+	@Inject
+	GennyExecutors executors;
+
+	@Inject
+	GennyScopeInit scope;
+
+	private ExecutorService executor;
+	private AsyncSemaphore permits;
+
+	// the last task submitted for each key
+	private final Map<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	void setup() {
+		int size = Math.max(1, maxInFlight);
+		executor = executors.newExecutor("genny-consumer", size);
+		permits = new AsyncSemaphore(size);
+		log.info("Keyed consumer execution " + (enabled ? "enabled (key = " + keyClaim + ", " : "disabled (key = topic, ")
+				+ "max in flight = " + size + ")");
+	}
+
+	@PreDestroy
+	void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Submit a consumed message for processing.
+	 *
+	 * The returned stage completes once the message has been admitted, not
+	 * when it has been processed. The message is acked or nacked when the
+	 * handler finishes.
+	 *
+	 * @param message The consumed message
+	 * @param handler The handler to run with the message payload
+	 * @return A stage that completes when the message is admitted
+	 **/
+	public CompletionStage<Void> submit(Message<String> message, Consumer<String> handler) {
+
+		String key = enabled ? getKey(message) : getTopic(message);
+
+		return permits.acquire().thenAccept(v -> {
+			chain(key, () -> run(handler, message.getPayload()))
+				.whenComplete((result, e) -> {
+					permits.release();
+					if (e != null) {
+						message.nack(e);
+					} else {
+						message.ack();
+					}
+				});
+		});
+	}
+
+	/**
+	 * @return The number of keys with queued or running messages
+	 **/
+	public int getActiveKeyCount() {
+		return tails.size();
+	}
+
+	/**
+	 * Queue a task behind the previous task for the same key.
+	 *
+	 * @param key  The ordering key
+	 * @param task The task to run
+	 * @return The future of the queued task
+	 **/
+	private CompletableFuture<Void> chain(String key, Runnable task) {
+
+		CompletableFuture<Void> next = tails.compute(key, (k, tail) -> {
+			// a failed message must not block the rest of the key
+			CompletableFuture<Void> previous = tail == null
+				? CompletableFuture.completedFuture(null)
+				: tail.exceptionally(e -> null);
+			return previous.thenRunAsync(task, executor);
+		});
+
+		// forget the key once nothing else is queued behind this task
+		next.whenComplete((result, e) -> tails.remove(key, next));
+		return next;
+	}
+
+	/**
+	 * Run the handler, releasing the request context that
+	 * {@link GennyScopeInit} activated on this thread.
+	 *
+	 * @param handler The handler to run
+	 * @param data    The message payload
+	 **/
+	private void run(Consumer<String> handler, String data) {
+		try {
+			handler.accept(data);
+		} finally {
+			scope.destroy();
+		}
+	}
+
+	/**
+	 * Find the ordering key of a message. Falls back to the topic
+	 * partition, preserving the original ordering for messages without
+	 * a usable token.
+	 *
+	 * @param message The consumed message
+	 * @return The ordering key
+	 **/
+	String getKey(Message<String> message) {
+
+		try {
+			JsonObject json = jsonb.fromJson(message.getPayload(), JsonObject.class);
+			String token = json.getString("token", null);
+			if (token != null) {
+				GennyToken gennyToken = new GennyToken(token);
+				String key = KEY_JTI.equals(keyClaim) ? gennyToken.getJTI() : gennyToken.getUuid();
+				if (key != null)
+					return key;
+			}
+		} catch (Exception e) {
+			log.debug("Could not read key from message: " + e.getMessage());
+		}
+
+		return message.getMetadata(IncomingKafkaRecordMetadata.class)
+			.map(metadata -> metadata.getTopic() + "-" + metadata.getPartition())
+			.orElse(SERIAL_KEY);
+	}
+
+	/**
+	 * Find the topic of a message, which orders messages when keyed
+	 * execution is disabled.
+	 *
+	 * @param message The consumed message
+	 * @return The topic
+	 **/
+	String getTopic(Message<String> message) {
+		return message.getMetadata(IncomingKafkaRecordMetadata.class)
+			.map(metadata -> metadata.getTopic())
+			.orElse(SERIAL_KEY);
+	}
+
+	/**
+	 * A semaphore whose acquisitions complete asynchronously,
+	 * so that waiting never blocks the consuming thread.
+	 **/
+	static class AsyncSemaphore {
+
+		private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+		private int available;
+
+		AsyncSemaphore(int permits) {
+			this.available = permits;
+		}
+
+		synchronized CompletableFuture<Void> acquire() {
+			if (available > 0) {
+				available--;
+				return CompletableFuture.completedFuture(null);
+			}
+			CompletableFuture<Void> waiter = new CompletableFuture<>();
+			waiters.add(waiter);
+			return waiter;
+		}
+
+		void release() {
+			CompletableFuture<Void> waiter;
+			synchronized (this) {
+				waiter = waiters.poll();
+				if (waiter == null) {
+					available++;
+					return;
+				}
+			}
+			// hand the permit straight to the next waiter
+			waiter.complete(null);
+		}
+	}
+}
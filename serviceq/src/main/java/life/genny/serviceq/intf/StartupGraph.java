@@ -0,0 +1,146 @@
+package life.genny.serviceq.intf;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jboss.logging.Logger;
+
+/**
+ * A small dependency graph of startup steps.
+ *
+ * Each step starts as soon as the steps it depends on are done, so
+ * independent steps run concurrently. A step failing or running past
+ * its timeout fails the whole startup straight away, without waiting
+ * on the steps still running. The time taken by each step is logged.
+ **/
+public class StartupGraph {
+
+	static final Logger log = Logger.getLogger(StartupGraph.class);
+
+	private final Map<String, Step> steps = new LinkedHashMap<>();
+
+	/**
+	 * Add a step. Dependencies must be added before the steps that need them.
+	 *
+	 * @param name      The name of the step
+	 * @param action    The work of the step
+	 * @param dependsOn The names of the steps that must be done first
+	 * @return The graph
+	 **/
+	public StartupGraph step(String name, Runnable action, String... dependsOn) {
+		if (steps.containsKey(name))
+			throw new IllegalStateException("Duplicate startup step: " + name);
+		for (String dependency : dependsOn) {
+			if (!steps.containsKey(dependency))
+				throw new IllegalStateException("Startup step " + name + " depends on unknown step " + dependency);
+		}
+		steps.put(name, new Step(name, action, dependsOn));
+		return this;
+	}
+
+	/**
+	 * Run every step, waiting until all are done or one fails.
+	 *
+	 * @param executor      The executor to run steps on
+	 * @param timeoutMillis The most time a single step may take
+	 * @return The time taken by each step in millis, in the order they were added
+	 * @throws RuntimeException the failure of the first step to fail
+	 **/
+	public Map<String, Long> run(Executor executor, long timeoutMillis) {
+
+		long start = System.currentTimeMillis();
+		Map<String, Long> timings = new ConcurrentHashMap<>();
+		Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+		CompletableFuture<Void> failed = new CompletableFuture<>();
+
+		for (Step step : steps.values()) {
+			List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+			for (String dependency : step.dependsOn)
+				dependencies.add(futures.get(dependency));
+
+			CompletableFuture<Void> future = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture[0]))
+				.thenCompose(v -> CompletableFuture.runAsync(() -> {
+					long stepStart = System.currentTimeMillis();
+					step.action.run();
+					long elapsed = System.currentTimeMillis() - stepStart;
+					timings.put(step.name, elapsed);
+					log.info("[@] Startup step " + step.name + " took " + elapsed + "ms");
+				}, executor).orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+				.handle((r, e) -> {
+					// tag the failure with this step, steps depending on it pass it on as is
+					if (e != null)
+						throw new StepException(step.name, unwrap(e));
+					return r;
+				}));
+
+			future.whenComplete((v, e) -> {
+				if (e != null)
+					failed.completeExceptionally(unwrap(e));
+			});
+			futures.put(step.name, future);
+		}
+
+		CompletableFuture<Void> all = CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]));
+		try {
+			CompletableFuture.anyOf(all, failed).join();
+		} catch (CompletionException e) {
+			Throwable thrown = unwrap(e);
+			if (!(thrown instanceof StepException))
+				throw e;
+			StepException failure = (StepException) thrown;
+			Throwable cause = failure.getCause();
+			if (cause instanceof TimeoutException)
+				throw new IllegalStateException("Startup step " + failure.step + " timed out after " + timeoutMillis + "ms");
+			log.error("Startup step " + failure.step + " failed: " + cause.getMessage());
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException("Startup step " + failure.step + " failed", cause);
+		}
+
+		log.info("[@] Startup took " + (System.currentTimeMillis() - start) + "ms");
+		Map<String, Long> ordered = new LinkedHashMap<>();
+		for (String name : steps.keySet())
+			ordered.put(name, timings.get(name));
+		return ordered;
+	}
+
+	private static Throwable unwrap(Throwable e) {
+		while (e instanceof CompletionException && e.getCause() != null)
+			e = e.getCause();
+		return e;
+	}
+
+	private static class Step {
+		final String name;
+		final Runnable action;
+		final String[] dependsOn;
+
+		Step(String name, Runnable action, String[] dependsOn) {
+			this.name = name;
+			this.action = action;
+			this.dependsOn = dependsOn;
+		}
+	}
+
+	/**
+	 * Carries the name of the step that failed first.
+	 **/
+	private static class StepException extends RuntimeException {
+		final String step;
+
+		StepException(String step, Throwable cause) {
+			super(cause);
+			this.step = step;
+		}
+	}
+}
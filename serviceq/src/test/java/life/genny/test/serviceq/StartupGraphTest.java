@@ -0,0 +1,96 @@
+package life.genny.test.serviceq;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import life.genny.serviceq.intf.StartupGraph;
+
+public class StartupGraphTest {
+
+	ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void runsIndependentStepsConcurrently() {
+		// each step waits on the others, so this only finishes if they overlap
+		CountDownLatch latch = new CountDownLatch(3);
+		Runnable step = () -> {
+			latch.countDown();
+			try {
+				assertTrue(latch.await(5, TimeUnit.SECONDS));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+
+		Map<String, Long> timings = new StartupGraph()
+			.step("token", step)
+			.step("cache", step)
+			.step("kafka", step)
+			.run(executor, 10000);
+
+		assertEquals(List.of("token", "cache", "kafka"), List.copyOf(timings.keySet()));
+	}
+
+	@Test
+	public void runsDependenciesFirst() {
+		List<String> order = new CopyOnWriteArrayList<>();
+
+		new StartupGraph()
+			.step("cache", () -> order.add("cache"))
+			.step("defs", () -> order.add("defs"), "cache")
+			.run(executor, 10000);
+
+		assertEquals(List.of("cache", "defs"), order);
+	}
+
+	@Test
+	public void failsFast() {
+		List<String> ran = new CopyOnWriteArrayList<>();
+
+		long start = System.currentTimeMillis();
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new StartupGraph()
+			.step("token", () -> { throw new IllegalArgumentException("no token"); })
+			.step("slow", () -> sleep(3000))
+			.step("defs", () -> ran.add("defs"), "token")
+			.run(executor, 10000));
+
+		assertEquals("no token", e.getMessage());
+		assertFalse(ran.contains("defs"));
+		assertTrue(System.currentTimeMillis() - start < 2000);
+	}
+
+	@Test
+	public void timesOut() {
+		IllegalStateException e = assertThrows(IllegalStateException.class, () -> new StartupGraph()
+			.step("cache", () -> sleep(3000))
+			.run(executor, 100));
+
+		assertTrue(e.getMessage().contains("cache"));
+	}
+
+	static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}